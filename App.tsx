@@ -1,4 +1,4 @@
-import React, { useEffect, useRef, useState } from 'react';
+import React, { useCallback, useEffect, useRef, useState } from 'react';
 import { NavigationContainer } from '@react-navigation/native';
 import { GestureHandlerRootView } from 'react-native-gesture-handler';
 import {
@@ -6,14 +6,17 @@ import {
   Platform,
   View,
   ActivityIndicator,
-  DeviceEventEmitter,
   AppState,
   AppStateStatus,
 } from 'react-native';
 import AppNavigator from './src/navigation/AppNavigator';
 import StorageService from './src/services/StorageService';
+import RecordStoreService from './src/services/RecordStoreService';
 import { GoogleTasksSyncService } from './src/services/PlaudService';
-import OverlayService from './src/services/OverlayService';
+import OverlayService, {
+  OVERLAY_CAPTURE_QUEUED_EVENT,
+  OVERLAY_ROUTE_QUEUED_EVENT,
+} from './src/services/OverlayService';
 import WebMCPService from './src/services/WebMCPService';
 import { Tokens } from './src/theme/tokens';
 import {
@@ -29,7 +32,13 @@ const App = () => {
     const initializeApp = async () => {
       try {
         await StorageService.init();
-        await GoogleTasksSyncService.syncToBrainDump();
+        await RecordStoreService.init();
+        await OverlayService.mergeNativeCaptures();
+        // Imports land in the record store and the bubble count on their own,
+        // so the first screen does not wait for the network.
+        GoogleTasksSyncService.syncToBrainDump().catch((error) => {
+          console.warn('Google Tasks sync on launch failed:', error);
+        });
         WebMCPService.init();
       } catch (error) {
         console.error('App initialization error:', error);
@@ -70,21 +79,56 @@ const App = () => {
     };
   }, []);
 
+  const drainOverlayRoute = useCallback(async () => {
+    const intent = await OverlayService.drainRouteIntent();
+    if (intent && handleOverlayIntent(intent)) {
+      OverlayService.collapseOverlay();
+    }
+  }, []);
+
+  // Bubble captures are merged as they are saved and whenever the app comes
+  // back, not only at launch. Waits for init so legacy records migrate first.
   useEffect(() => {
-    const subscription = DeviceEventEmitter.addListener(
-      'overlayRouteIntent',
-      (payload) => {
-        const handled = handleOverlayIntent(payload ?? {});
-        if (handled) {
-          OverlayService.collapseOverlay();
+    if (!isReady) {
+      return;
+    }
+
+    const mergeCaptures = () => {
+      OverlayService.mergeNativeCaptures();
+    };
+    const unsubscribe = OverlayService.addEventListener(
+      OVERLAY_CAPTURE_QUEUED_EVENT,
+      mergeCaptures,
+    );
+    const appStateSubscription = AppState.addEventListener(
+      'change',
+      (nextState: AppStateStatus) => {
+        if (nextState === 'active') {
+          mergeCaptures();
         }
       },
     );
 
     return () => {
-      subscription.remove();
+      unsubscribe?.();
+      appStateSubscription.remove();
     };
-  }, []);
+  }, [isReady]);
+
+  useEffect(() => {
+    const unsubscribe = OverlayService.addEventListener(
+      OVERLAY_ROUTE_QUEUED_EVENT,
+      () => {
+        if (navigationRef.isReady()) {
+          drainOverlayRoute();
+        }
+      },
+    );
+
+    return () => {
+      unsubscribe?.();
+    };
+  }, [drainOverlayRoute]);
 
   if (!isReady) {
     return (
@@ -102,7 +146,7 @@ const App = () => {
   }
 
   const content = (
-    <NavigationContainer ref={navigationRef}>
+    <NavigationContainer ref={navigationRef} onReady={drainOverlayRoute}>
       <StatusBar
         barStyle="light-content"
         backgroundColor={Tokens.colors.neutral.darkest}
@@ -59,4 +59,98 @@ describe('AISortService', () => {
       'Rate limit exceeded',
     );
   });
+
+  it('shares one request between concurrent identical sorts', async () => {
+    (fetch as jest.Mock).mockResolvedValue({
+      ok: true,
+      json: jest.fn().mockResolvedValue({
+        sorted: [{ text: 'Book dentist', category: 'task', priority: 'high' }],
+      }),
+    });
+
+    const [first, second] = await Promise.all([
+      AISortService.sortItems(['Book dentist', 'Call mum']),
+      AISortService.sortItems(['Call mum ', 'Book dentist']),
+    ]);
+
+    expect(fetch).toHaveBeenCalledTimes(1);
+    expect(second).toBe(first);
+  });
+});
+
+describe('AISortService on Android', () => {
+  type Service = typeof AISortService;
+
+  const mockSortCacheModule = {
+    plan: jest.fn(),
+    put: jest.fn(),
+  };
+
+  const loadService = (): Service => {
+    let service: Service | undefined;
+    jest.isolateModules(() => {
+      jest.doMock('react-native', () => ({
+        Platform: { OS: 'android' },
+        NativeModules: { SortCacheModule: mockSortCacheModule },
+      }));
+      service = require('../src/services/AISortService').default;
+    });
+    return service as Service;
+  };
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+    global.fetch = jest.fn();
+    mockSortCacheModule.put.mockResolvedValue(true);
+  });
+
+  it('returns a cached sort without calling the api', async () => {
+    const cached = [
+      { text: 'Book dentist', category: 'task', priority: 'high' },
+    ];
+    mockSortCacheModule.plan.mockResolvedValue({
+      key: 'k',
+      sorted: JSON.stringify(cached),
+      base: null,
+      missing: [],
+    });
+
+    const result = await loadService().sortItems(['Book dentist']);
+
+    expect(result).toEqual(cached);
+    expect(fetch).not.toHaveBeenCalled();
+  });
+
+  it('sends only new items and merges them into the cached base', async () => {
+    const base = [
+      { text: 'Book dentist', category: 'task', priority: 'high' },
+    ];
+    const added = { text: 'Lunch Friday', category: 'event', priority: 'low' };
+    mockSortCacheModule.plan.mockResolvedValue({
+      key: 'k',
+      sorted: null,
+      base: JSON.stringify(base),
+      missing: ['Lunch Friday'],
+    });
+    (fetch as jest.Mock).mockResolvedValue({
+      ok: true,
+      json: jest.fn().mockResolvedValue({ sorted: [added] }),
+    });
+
+    const result = await loadService().sortItems(
+      ['Book dentist', 'Lunch Friday'],
+      'Europe/London',
+    );
+
+    expect(JSON.parse((fetch as jest.Mock).mock.calls[0][1].body)).toEqual({
+      items: ['Lunch Friday'],
+      timezone: 'Europe/London',
+    });
+    expect(result).toEqual([...base, added]);
+    expect(mockSortCacheModule.put).toHaveBeenCalledWith(
+      ['Book dentist', 'Lunch Friday'],
+      'Europe/London',
+      JSON.stringify([...base, added]),
+    );
+  });
 });
@@ -30,7 +30,7 @@ jest.mock('react-native-vector-icons/MaterialCommunityIcons', () => 'Icon');
 jest.mock('../src/services/OverlayService', () => ({
   __esModule: true,
   default: {
-    canDrawOverlays: jest.fn().mockResolvedValue(false),
+    canDrawOverlaysSync: jest.fn().mockReturnValue(false),
     requestOverlayPermission: jest.fn().mockResolvedValue(false),
     startOverlay: jest.fn(),
     stopOverlay: jest.fn(),
@@ -0,0 +1,150 @@
+type OutboxServiceModule = typeof import('../src/services/OutboxService');
+
+const mockOutboxModule = {
+  enqueue: jest.fn(),
+  getStats: jest.fn(),
+  addListener: jest.fn(),
+  removeListeners: jest.fn(),
+};
+
+const mockListeners: Record<string, Array<(payload?: unknown) => void>> = {};
+
+const loadOutboxService = (): OutboxServiceModule => {
+  jest.resetModules();
+  Object.keys(mockListeners).forEach((key) => {
+    delete mockListeners[key];
+  });
+
+  jest.doMock('react-native', () => {
+    class MockNativeEventEmitter {
+      addListener(eventName: string, listener: (payload?: unknown) => void) {
+        if (!mockListeners[eventName]) {
+          mockListeners[eventName] = [];
+        }
+        mockListeners[eventName].push(listener);
+        return { remove: jest.fn() };
+      }
+    }
+
+    return {
+      NativeModules: {
+        OutboxModule: mockOutboxModule,
+      },
+      NativeEventEmitter: MockNativeEventEmitter,
+      Platform: {
+        OS: 'android',
+      },
+    };
+  });
+
+  return require('../src/services/OutboxService');
+};
+
+const emitCompleted = (payload: Record<string, unknown>) => {
+  (mockListeners.outboxCompleted || []).forEach((listener) =>
+    listener({
+      kind: 'sort',
+      ok: true,
+      status: 200,
+      body: null,
+      error: null,
+      record: null,
+      ...payload,
+    }),
+  );
+};
+
+const emitQueued = (id: string, state: string) => {
+  (mockListeners.outboxQueued || []).forEach((listener) =>
+    listener({ id, state }),
+  );
+};
+
+const sending = (id: string) => ({ id, state: 'sending' });
+
+const sortRequest = {
+  kind: 'sort',
+  url: 'https://api.example/api/sort',
+  body: '{"items":["a"]}',
+  dedupe: true,
+};
+
+describe('OutboxService', () => {
+  beforeEach(() => {
+    jest.clearAllMocks();
+    jest.useRealTimers();
+  });
+
+  it('resolves a request with its completion event', async () => {
+    const { default: OutboxService } = loadOutboxService();
+    mockOutboxModule.enqueue.mockResolvedValueOnce(sending('out-1'));
+
+    const pending = OutboxService.request(sortRequest);
+    await Promise.resolve();
+    await Promise.resolve();
+    emitCompleted({ id: 'out-1', body: '{"sorted":[]}' });
+
+    await expect(pending).resolves.toMatchObject({
+      id: 'out-1',
+      ok: true,
+      body: '{"sorted":[]}',
+    });
+  });
+
+  it('keeps a completion that arrives before the enqueue resolves', async () => {
+    const { default: OutboxService } = loadOutboxService();
+    mockOutboxModule.enqueue.mockImplementationOnce(async () => {
+      emitCompleted({ id: 'out-2', status: 201 });
+      return sending('out-2');
+    });
+
+    await expect(
+      OutboxService.request(sortRequest),
+    ).resolves.toMatchObject({ id: 'out-2', status: 201 });
+  });
+
+  it('rejects at once when the request is queued offline', async () => {
+    const { default: OutboxService, OutboxPendingError } = loadOutboxService();
+    mockOutboxModule.enqueue.mockResolvedValueOnce({
+      id: 'out-6',
+      state: 'offline',
+    });
+
+    const error = await OutboxService.request(sortRequest).catch((e) => e);
+
+    expect(error).toBeInstanceOf(OutboxPendingError);
+    expect(error).toMatchObject({ id: 'out-6', state: 'offline' });
+  });
+
+  it('hands a late result to the next identical request', async () => {
+    const { default: OutboxService, OutboxPendingError } = loadOutboxService();
+    mockOutboxModule.enqueue.mockResolvedValueOnce(sending('out-3'));
+
+    const pending = OutboxService.request(sortRequest);
+    await Promise.resolve();
+    await Promise.resolve();
+    emitQueued('out-3', 'retrying');
+    await expect(pending).rejects.toBeInstanceOf(OutboxPendingError);
+
+    emitCompleted({ id: 'out-3', body: '{"sorted":[]}' });
+    const retried = await OutboxService.request(sortRequest);
+
+    expect(retried.id).toBe('out-3');
+    expect(mockOutboxModule.enqueue).toHaveBeenCalledTimes(1);
+  });
+
+  it('notifies completion listeners until they unsubscribe', () => {
+    const { default: OutboxService } = loadOutboxService();
+    const listener = jest.fn();
+
+    const unsubscribe = OutboxService.onCompleted(listener);
+    emitCompleted({ id: 'out-4', kind: 'transcribe' });
+    unsubscribe();
+    emitCompleted({ id: 'out-5', kind: 'transcribe' });
+
+    expect(listener).toHaveBeenCalledTimes(1);
+    expect(listener).toHaveBeenCalledWith(
+      expect.objectContaining({ id: 'out-4', kind: 'transcribe' }),
+    );
+  });
+});
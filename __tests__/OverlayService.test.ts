@@ -8,8 +8,22 @@ const mockOverlayModule = {
   requestOverlayPermission: jest.fn(),
   collapseOverlay: jest.fn(),
   isExpanded: jest.fn().mockResolvedValue(false),
+  setMenuDismissMode: jest.fn(),
+  getCompositionStats: jest.fn(),
+  getPerformanceSnapshot: jest.fn(),
+  resetPerformanceStats: jest.fn(),
+  performHaptic: jest.fn(),
+  getPendingCaptures: jest.fn().mockResolvedValue([]),
+  acknowledgeCaptures: jest.fn(),
+  drainRouteIntent: jest.fn().mockResolvedValue(null),
+  startFocusTimer: jest.fn(),
+  pauseFocusTimer: jest.fn(),
+  cancelFocusTimer: jest.fn(),
+  HAPTIC_EFFECTS: ['tick', 'open', 'snap', 'error'],
 };
 
+const mockStorage: Record<string, unknown> = {};
+
 const mockListeners: Record<string, Array<(payload?: unknown) => void>> = {};
 
 const loadOverlayService = (): OverlayServiceModule => {
@@ -17,6 +31,21 @@ const loadOverlayService = (): OverlayServiceModule => {
   Object.keys(mockListeners).forEach((key) => {
     delete mockListeners[key];
   });
+  Object.keys(mockStorage).forEach((key) => {
+    delete mockStorage[key];
+  });
+
+  jest.doMock('../src/services/StorageService', () => ({
+    __esModule: true,
+    default: {
+      STORAGE_KEYS: { brainDump: 'brainDump' },
+      getJSON: jest.fn(async (key: string) => mockStorage[key] ?? null),
+      setJSON: jest.fn(async (key: string, value: unknown) => {
+        mockStorage[key] = value;
+        return true;
+      }),
+    },
+  }));
 
   jest.doMock('react-native', () => {
     class MockNativeEventEmitter {
@@ -36,8 +65,10 @@ const loadOverlayService = (): OverlayServiceModule => {
     }
 
     return {
-      NativeModules: {
-        OverlayModule: mockOverlayModule,
+      NativeModules: {},
+      TurboModuleRegistry: {
+        get: (name: string) =>
+          name === 'OverlayModule' ? mockOverlayModule : null,
       },
       NativeEventEmitter: MockNativeEventEmitter,
       Platform: {
@@ -104,4 +135,281 @@ describe('OverlayService', () => {
     reactNative.__emitOverlayEvent(OVERLAY_EVENTS.permissionTimeout);
     expect(listener).toHaveBeenCalledTimes(1);
   });
+
+  it('delivers batched native events to the listeners they are for', () => {
+    const batchedModule = mockOverlayModule as typeof mockOverlayModule & {
+      EVENT_TYPES?: Record<string, number>;
+      setEventSubscriptions?: jest.Mock;
+    };
+    batchedModule.EVENT_TYPES = {
+      overlay_permission_result: 3,
+      overlay_permission_timeout: 4,
+      overlayRouteQueued: 6,
+    };
+    batchedModule.setEventSubscriptions = jest.fn();
+    try {
+      const { default: OverlayService, OVERLAY_EVENTS, OVERLAY_EVENT_BATCH } =
+        loadOverlayService();
+      const reactNative = require('react-native') as {
+        __emitOverlayEvent: (eventName: string, payload?: unknown) => void;
+      };
+      const onResult = jest.fn();
+      const onTimeout = jest.fn();
+
+      const unsubscribeResult = OverlayService.addEventListener(
+        OVERLAY_EVENTS.permissionResult,
+        onResult,
+      );
+      OverlayService.addEventListener(
+        OVERLAY_EVENTS.permissionTimeout,
+        onTimeout,
+      );
+      expect(batchedModule.setEventSubscriptions).toHaveBeenLastCalledWith([
+        3, 4,
+      ]);
+
+      reactNative.__emitOverlayEvent(OVERLAY_EVENT_BATCH, [
+        [3, 1000, { granted: true }],
+        [6, 1001, null],
+        [4, 1002, null],
+        [3, 1003, { granted: false }],
+      ]);
+
+      expect(onResult).toHaveBeenNthCalledWith(1, { granted: true }, 1000);
+      expect(onResult).toHaveBeenNthCalledWith(2, { granted: false }, 1003);
+      expect(onTimeout).toHaveBeenCalledWith({}, 1002);
+
+      unsubscribeResult?.();
+      expect(batchedModule.setEventSubscriptions).toHaveBeenLastCalledWith([4]);
+    } finally {
+      delete batchedModule.EVENT_TYPES;
+      delete batchedModule.setEventSubscriptions;
+    }
+  });
+
+  it('reads overlay state synchronously when native supports it', async () => {
+    const syncModule = mockOverlayModule as typeof mockOverlayModule & {
+      isExpandedSync?: jest.Mock;
+      canDrawOverlaysSync?: jest.Mock;
+      canPostNotifications?: jest.Mock;
+      getCountSync?: jest.Mock;
+      isServiceRunningSync?: jest.Mock;
+    };
+    syncModule.isExpandedSync = jest.fn(() => true);
+    syncModule.canDrawOverlaysSync = jest.fn(() => true);
+    syncModule.canPostNotifications = jest.fn(() => false);
+    syncModule.getCountSync = jest.fn(() => 7);
+    syncModule.isServiceRunningSync = jest.fn(() => true);
+    try {
+      const { default: OverlayService } = loadOverlayService();
+
+      expect(OverlayService.isExpandedSync()).toBe(true);
+      expect(OverlayService.canPostNotificationsSync()).toBe(false);
+      expect(OverlayService.getCountSync()).toBe(7);
+      expect(OverlayService.isServiceRunningSync()).toBe(true);
+      await expect(OverlayService.canDrawOverlays()).resolves.toBe(true);
+      await expect(OverlayService.isExpanded()).resolves.toBe(true);
+      expect(mockOverlayModule.canDrawOverlays).not.toHaveBeenCalled();
+      expect(mockOverlayModule.isExpanded).not.toHaveBeenCalled();
+
+      syncModule.getCountSync.mockImplementationOnce(() => {
+        throw new Error('not ready');
+      });
+      expect(OverlayService.getCountSync()).toBeNull();
+    } finally {
+      delete syncModule.isExpandedSync;
+      delete syncModule.canDrawOverlaysSync;
+      delete syncModule.canPostNotifications;
+      delete syncModule.getCountSync;
+      delete syncModule.isServiceRunningSync;
+    }
+  });
+
+  it('forwards the menu dismiss mode and reads composition stats', async () => {
+    const { default: OverlayService } = loadOverlayService();
+    const stats = {
+      scrimExpands: 1,
+      outsideTouchExpands: 2,
+      outsideTouchDismissals: 2,
+      menuWindowAdds: 3,
+      menuWindowRemoves: 3,
+      scrimWindowAdds: 1,
+      scrimWindowRemoves: 1,
+      windowCallsPerExpand: 2.67,
+      menuLayerPixelMs: 1200,
+      scrimLayerPixelMs: 9000,
+    };
+    mockOverlayModule.getCompositionStats.mockResolvedValueOnce(stats);
+
+    OverlayService.setMenuDismissMode('scrim');
+
+    expect(mockOverlayModule.setMenuDismissMode).toHaveBeenCalledWith('scrim');
+    await expect(OverlayService.getCompositionStats()).resolves.toEqual(stats);
+  });
+
+  it('reads and resets the performance snapshot', async () => {
+    const { default: OverlayService } = loadOverlayService();
+    const summary = {
+      count: 3,
+      meanMs: 4.2,
+      p50Ms: 3.9,
+      p90Ms: 6.1,
+      p99Ms: 6.1,
+      maxMs: 6.0,
+    };
+    const snapshot = {
+      latency: { expandMenu: summary },
+      jank: {
+        drag: {
+          interactions: 1,
+          frames: 40,
+          droppedFrames: 2,
+          jankyFrames: 1,
+          worstFrameMs: 50,
+        },
+      },
+      frameIntervalMs: 16.7,
+    };
+    mockOverlayModule.getPerformanceSnapshot.mockResolvedValueOnce(snapshot);
+
+    await expect(OverlayService.getPerformanceSnapshot()).resolves.toEqual(
+      snapshot,
+    );
+    OverlayService.resetPerformanceStats();
+    expect(mockOverlayModule.resetPerformanceStats).toHaveBeenCalledTimes(1);
+  });
+
+  it('mirrors the focus timer natively and reports its transitions', () => {
+    const { default: OverlayService, OVERLAY_FOCUS_TIMER_EVENT } =
+      loadOverlayService();
+    const reactNative = require('react-native') as {
+      __emitOverlayEvent: (eventName: string, payload?: unknown) => void;
+    };
+    const listener = jest.fn();
+    OverlayService.onFocusTimerChanged(listener);
+
+    OverlayService.startFocusTimer('focus', 25 * 60 * 1000);
+    OverlayService.pauseFocusTimer();
+    OverlayService.cancelFocusTimer();
+    reactNative.__emitOverlayEvent(OVERLAY_FOCUS_TIMER_EVENT, {
+      state: 'paused',
+      kind: 'focus',
+      durationMs: 1500000,
+      remainingMs: 1200000,
+    });
+
+    expect(mockOverlayModule.startFocusTimer).toHaveBeenCalledWith(
+      'focus',
+      1500000,
+    );
+    expect(mockOverlayModule.pauseFocusTimer).toHaveBeenCalledTimes(1);
+    expect(mockOverlayModule.cancelFocusTimer).toHaveBeenCalledTimes(1);
+    expect(listener).toHaveBeenCalledWith(
+      expect.objectContaining({ state: 'paused', remainingMs: 1200000 }),
+    );
+  });
+
+  it('exposes the native haptic palette', () => {
+    const { default: OverlayService } = loadOverlayService();
+
+    expect(OverlayService.getHapticEffects()).toEqual([
+      'tick',
+      'open',
+      'snap',
+      'error',
+    ]);
+
+    OverlayService.performHaptic('snap');
+    expect(mockOverlayModule.performHaptic).toHaveBeenCalledWith('snap');
+  });
+
+  it('merges native captures into brainDump and acknowledges them', async () => {
+    const { default: OverlayService } = loadOverlayService();
+    mockStorage.brainDump = [
+      {
+        id: 'capture-1-1',
+        text: 'already merged',
+        createdAt: '2024-01-01T00:00:00.000Z',
+        source: 'text',
+      },
+    ];
+    mockOverlayModule.getPendingCaptures.mockResolvedValueOnce([
+      { id: 'capture-1-1', type: 'text', createdAt: 1000, text: 'dup' },
+      { id: 'capture-2-2', type: 'text', createdAt: 2000, text: 'call mum' },
+      {
+        id: 'capture-3-3',
+        type: 'audio',
+        createdAt: 3000,
+        audioPath: 'file:///clip.m4a',
+        durationMs: 12400,
+      },
+    ]);
+
+    const merged = await OverlayService.mergeNativeCaptures();
+
+    expect(merged).toBe(2);
+    expect(mockStorage.brainDump).toEqual([
+      {
+        id: 'capture-3-3',
+        text: 'Voice note (0:12)',
+        createdAt: new Date(3000).toISOString(),
+        source: 'audio',
+        audioPath: 'file:///clip.m4a',
+      },
+      {
+        id: 'capture-2-2',
+        text: 'call mum',
+        createdAt: new Date(2000).toISOString(),
+        source: 'text',
+      },
+      {
+        id: 'capture-1-1',
+        text: 'already merged',
+        createdAt: '2024-01-01T00:00:00.000Z',
+        source: 'text',
+      },
+    ]);
+    expect(mockOverlayModule.acknowledgeCaptures).toHaveBeenCalledWith([
+      'capture-1-1',
+      'capture-2-2',
+      'capture-3-3',
+    ]);
+  });
+
+  it('shares a running merge and tells listeners what it added', async () => {
+    const { default: OverlayService } = loadOverlayService();
+    const listener = jest.fn();
+    OverlayService.onCapturesMerged(listener);
+    mockOverlayModule.getPendingCaptures
+      .mockResolvedValueOnce([
+        { id: 'capture-4-4', type: 'text', createdAt: 4000, text: 'plants' },
+      ])
+      .mockResolvedValueOnce([]);
+
+    const first = OverlayService.mergeNativeCaptures();
+    const second = OverlayService.mergeNativeCaptures();
+
+    expect(second).toBe(first);
+    await expect(first).resolves.toBe(1);
+    expect(mockOverlayModule.getPendingCaptures).toHaveBeenCalledTimes(2);
+    expect(mockOverlayModule.updateCount).not.toHaveBeenCalled();
+    expect(listener).toHaveBeenCalledWith([
+      expect.objectContaining({ id: 'capture-4-4', text: 'plants' }),
+    ]);
+  });
+
+  it('drains the collapsed route intent once', async () => {
+    const { default: OverlayService } = loadOverlayService();
+    mockOverlayModule.drainRouteIntent.mockResolvedValueOnce({
+      route: 'Tasks',
+      autoRecord: true,
+    });
+
+    await expect(OverlayService.drainRouteIntent()).resolves.toEqual({
+      route: 'Tasks',
+      autoRecord: true,
+    });
+    await expect(OverlayService.drainRouteIntent()).resolves.toBeNull();
+    expect(mockOverlayModule.drainRouteIntent).toHaveBeenCalledTimes(2);
+  });
 });
@@ -50,11 +50,14 @@ jest.mock('../src/services/OverlayService', () => ({
   __esModule: true,
   default: {
     updateCount: jest.fn(),
-    canDrawOverlays: jest.fn().mockResolvedValue(false),
+    canDrawOverlaysSync: jest.fn().mockReturnValue(false),
     requestOverlayPermission: jest.fn().mockResolvedValue(false),
     startOverlay: jest.fn(),
     stopOverlay: jest.fn(),
     addEventListener: jest.fn().mockReturnValue(() => {}),
+    getFocusTimer: jest.fn().mockResolvedValue(null),
+    onFocusTimerChanged: jest.fn().mockReturnValue(() => {}),
+    onCapturesMerged: jest.fn().mockReturnValue(() => {}),
   },
 }));
 
@@ -138,3 +138,119 @@ describe('PlaudService', () => {
     });
   });
 });
+
+describe('GoogleTasksSyncService on Android', () => {
+  const mockTasksSyncModule = {
+    syncNow: jest.fn(),
+    schedulePeriodicSync: jest.fn(),
+    cancelPeriodicSync: jest.fn(),
+    seedState: jest.fn().mockResolvedValue(true),
+  };
+  const mockStorage: Record<string, unknown> = {};
+  const mockStorageService = {
+    STORAGE_KEYS: {
+      googleTasksSyncState: 'googleTasksSyncState',
+      googleTasksProcessedIds: 'googleTasksProcessedIds',
+      googleTasksLastSyncAt: 'googleTasksLastSyncAt',
+    },
+    get: jest.fn(async (key: string) => mockStorage[key] ?? null),
+    getJSON: jest.fn(async (key: string) => mockStorage[key] ?? null),
+    setJSON: jest.fn(),
+    set: jest.fn(),
+    remove: jest.fn(async (key: string) => {
+      delete mockStorage[key];
+      return true;
+    }),
+  };
+  const mockRecordStoreService = { list: jest.fn(), upsert: jest.fn() };
+
+  type SyncService =
+    typeof import('../src/services/PlaudService').GoogleTasksSyncService;
+
+  const loadSyncService = (): SyncService => {
+    let service: SyncService | undefined;
+    jest.isolateModules(() => {
+      jest.doMock('react-native', () => ({
+        Platform: { OS: 'android' },
+        NativeModules: { TasksSyncModule: mockTasksSyncModule },
+      }));
+      jest.doMock('../src/services/StorageService', () => ({
+        __esModule: true,
+        default: mockStorageService,
+      }));
+      jest.doMock('../src/services/RecordStoreService', () => ({
+        __esModule: true,
+        default: mockRecordStoreService,
+      }));
+      jest.doMock('../src/services/OverlayService', () => ({
+        __esModule: true,
+        default: { updateCount: jest.fn() },
+      }));
+      service =
+        require('../src/services/PlaudService').GoogleTasksSyncService;
+    });
+    return service as SyncService;
+  };
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+    Object.keys(mockStorage).forEach((key) => {
+      delete mockStorage[key];
+    });
+    mockTasksSyncModule.syncNow.mockResolvedValue({
+      importedCount: 3,
+      skippedCount: 1,
+      markedCompletedCount: 3,
+      syncTokenUpdated: true,
+      signedIn: true,
+      durationMs: 120,
+    });
+  });
+
+  it('delegates the sync to the native engine', async () => {
+    const service = loadSyncService();
+
+    await expect(service.syncToBrainDump()).resolves.toEqual({
+      importedCount: 3,
+      skippedCount: 1,
+      markedCompletedCount: 3,
+      syncTokenUpdated: true,
+    });
+    expect(fetch).not.toHaveBeenCalled();
+    expect(mockRecordStoreService.list).not.toHaveBeenCalled();
+    expect(mockRecordStoreService.upsert).not.toHaveBeenCalled();
+  });
+
+  it('hands the stored sync state to the native engine once', async () => {
+    mockStorage.googleTasksSyncState = { listId: 'inbox', syncToken: 'v9' };
+    mockStorage.googleTasksProcessedIds = ['a', 'b'];
+    mockStorage.googleTasksLastSyncAt = new Date(5000).toISOString();
+    const service = loadSyncService();
+
+    await service.syncToBrainDump();
+    await service.syncToBrainDump();
+
+    expect(mockTasksSyncModule.seedState).toHaveBeenCalledTimes(1);
+    expect(mockTasksSyncModule.seedState).toHaveBeenCalledWith({
+      listId: 'inbox',
+      syncToken: 'v9',
+      processedIds: ['a', 'b'],
+      lastSyncAtMs: 5000,
+    });
+    expect(mockStorageService.remove).toHaveBeenCalledWith(
+      'googleTasksSyncState',
+    );
+    expect(mockTasksSyncModule.syncNow).toHaveBeenCalledTimes(2);
+  });
+
+  it('schedules the background job alongside foreground polling', () => {
+    jest.useFakeTimers();
+    const service = loadSyncService();
+
+    service.startForegroundPolling();
+    service.stopForegroundPolling();
+
+    expect(mockTasksSyncModule.schedulePeriodicSync).toHaveBeenCalledWith(15);
+    jest.useRealTimers();
+  });
+});
@@ -0,0 +1,160 @@
+type RecordStoreServiceModule =
+  typeof import('../src/services/RecordStoreService');
+
+type NativeRecord = { id: string; payload: string };
+
+const mockNativeRecords: Record<string, NativeRecord[]> = {};
+const mockStorage: Record<string, unknown> = {};
+
+const mockRecordStoreModule = {
+  write: jest.fn(
+    async (
+      collection: string,
+      putIds: string[],
+      putPayloads: string[],
+      deleteIds: string[],
+    ) => {
+      const records = mockNativeRecords[collection] ?? [];
+      putIds.forEach((id, index) => {
+        const existing = records.find((record) => record.id === id);
+        if (existing) {
+          existing.payload = putPayloads[index];
+        } else {
+          records.push({ id, payload: putPayloads[index] });
+        }
+      });
+      mockNativeRecords[collection] = records.filter(
+        (record) => !deleteIds.includes(record.id),
+      );
+      return mockNativeRecords[collection].length;
+    },
+  ),
+  clear: jest.fn(async (collection: string) => {
+    mockNativeRecords[collection] = [];
+    return 0;
+  }),
+  page: jest.fn(
+    async (
+      collection: string,
+      cursor: number | null,
+      limit: number,
+      newestFirst: boolean,
+    ) => {
+      const records = [...(mockNativeRecords[collection] ?? [])];
+      if (newestFirst) {
+        records.reverse();
+      }
+      const start = cursor ?? 0;
+      const end = start + limit;
+      return {
+        items: records.slice(start, end).map((record) => record.payload),
+        nextCursor: end < records.length ? end : null,
+      };
+    },
+  ),
+  count: jest.fn(
+    async (collection: string) => (mockNativeRecords[collection] ?? []).length,
+  ),
+  getStats: jest.fn(),
+};
+
+const loadRecordStoreService = (
+  withNativeModule: boolean,
+): RecordStoreServiceModule => {
+  jest.resetModules();
+  [mockNativeRecords, mockStorage].forEach((store) => {
+    Object.keys(store).forEach((key) => {
+      delete store[key];
+    });
+  });
+
+  jest.doMock('../src/services/StorageService', () => ({
+    __esModule: true,
+    default: {
+      getJSON: jest.fn(async (key: string) => mockStorage[key] ?? null),
+      setJSON: jest.fn(async (key: string, value: unknown) => {
+        mockStorage[key] = value;
+        return true;
+      }),
+      remove: jest.fn(async (key: string) => {
+        delete mockStorage[key];
+        return true;
+      }),
+    },
+  }));
+
+  jest.doMock('react-native', () => ({
+    Platform: { OS: 'android' },
+    NativeModules: withNativeModule
+      ? { RecordStoreModule: mockRecordStoreModule }
+      : {},
+  }));
+
+  return require('../src/services/RecordStoreService');
+};
+
+describe('RecordStoreService', () => {
+  beforeEach(() => {
+    jest.clearAllMocks();
+  });
+
+  it('migrates the AsyncStorage array into the native store once', async () => {
+    const { default: RecordStoreService } = loadRecordStoreService(true);
+    mockStorage.brainDump = [
+      { id: 'b', text: 'newer' },
+      { id: 'a', text: 'older' },
+    ];
+
+    await RecordStoreService.init();
+
+    expect(mockNativeRecords.brainDump.map((record) => record.id)).toEqual([
+      'a',
+      'b',
+    ]);
+    expect(mockStorage.brainDump).toBeUndefined();
+    await expect(RecordStoreService.list('brainDump')).resolves.toEqual([
+      { id: 'b', text: 'newer' },
+      { id: 'a', text: 'older' },
+    ]);
+  });
+
+  it('writes only the changed records to the native store', async () => {
+    const { default: RecordStoreService } = loadRecordStoreService(true);
+
+    await RecordStoreService.upsert('tasks', [{ id: 't1', done: false }]);
+    await RecordStoreService.upsert('tasks', [{ id: 't2', done: false }]);
+    await RecordStoreService.upsert('tasks', [{ id: 't1', done: true }]);
+    await RecordStoreService.remove('tasks', ['t2']);
+
+    expect(mockRecordStoreModule.write).toHaveBeenLastCalledWith(
+      'tasks',
+      [],
+      [],
+      ['t2'],
+    );
+    await expect(RecordStoreService.list('tasks')).resolves.toEqual([
+      { id: 't1', done: true },
+    ]);
+    await expect(RecordStoreService.count('tasks')).resolves.toBe(1);
+  });
+
+  it('keeps the display order in the AsyncStorage fallback', async () => {
+    const { default: RecordStoreService } = loadRecordStoreService(false);
+    mockStorage.brainDump = [{ id: 'a', text: 'first' }];
+
+    await RecordStoreService.upsert('brainDump', [
+      { id: 'b', text: 'second' },
+      { id: 'a', text: 'edited' },
+    ]);
+
+    expect(mockStorage.brainDump).toEqual([
+      { id: 'b', text: 'second' },
+      { id: 'a', text: 'edited' },
+    ]);
+    const page = await RecordStoreService.getPage('brainDump', 1);
+    expect(page).toEqual({
+      items: [{ id: 'b', text: 'second' }],
+      nextCursor: 1,
+    });
+  });
+});
@@ -96,3 +96,117 @@ describe('RecordingService', () => {
     });
   });
 });
+
+describe('RecordingService on Android', () => {
+  type Service = typeof RecordingService;
+
+  const mockAudioStreamModule = {
+    start: jest.fn(),
+    stop: jest.fn(),
+    cancel: jest.fn(),
+  };
+  const mockPermissionsAndroid = {
+    request: jest.fn(),
+    PERMISSIONS: { RECORD_AUDIO: 'android.permission.RECORD_AUDIO' },
+    RESULTS: { GRANTED: 'granted', DENIED: 'denied' },
+  };
+
+  const loadService = (): Service => {
+    let service: Service | undefined;
+    jest.isolateModules(() => {
+      jest.doMock('react-native', () => ({
+        Platform: { OS: 'android' },
+        NativeModules: { AudioStreamModule: mockAudioStreamModule },
+        PermissionsAndroid: mockPermissionsAndroid,
+      }));
+      jest.doMock('../src/services/PlaudService', () => ({
+        __esModule: true,
+        default: { getApiUrl: () => 'https://api.example' },
+      }));
+      service =
+        require('../src/services/RecordingService').RecordingService;
+    });
+    return service as Service;
+  };
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+    mockPermissionsAndroid.request.mockResolvedValue('granted');
+    mockAudioStreamModule.start.mockResolvedValue(true);
+    mockAudioStreamModule.cancel.mockResolvedValue(undefined);
+  });
+
+  it('streams to the transcription endpoint instead of using expo-av', async () => {
+    const service = loadService();
+
+    await expect(service.startRecording()).resolves.toBe(true);
+
+    expect(mockAudioStreamModule.start).toHaveBeenCalledWith(
+      'https://api.example',
+    );
+    expect(Audio.Recording.createAsync).not.toHaveBeenCalled();
+    expect(service.getIsRecording()).toBe(true);
+  });
+
+  it('returns the streamed transcript with the recording', async () => {
+    mockAudioStreamModule.stop.mockResolvedValue({
+      uri: 'file:///cache/recordings/brain-dump-1.wav',
+      duration: 4200,
+      streamed: true,
+      transcription: 'buy milk',
+      summary: 'groceries',
+    });
+    const service = loadService();
+    await service.startRecording();
+
+    await expect(service.stopRecording()).resolves.toEqual({
+      uri: 'file:///cache/recordings/brain-dump-1.wav',
+      duration: 4200,
+      transcription: {
+        success: true,
+        transcription: 'buy milk',
+        summary: 'groceries',
+      },
+    });
+    expect(service.getIsRecording()).toBe(false);
+  });
+
+  it('leaves the file for upload when the stream did not get through', async () => {
+    mockAudioStreamModule.stop.mockResolvedValue({
+      uri: 'file:///cache/recordings/brain-dump-2.wav',
+      duration: 1000,
+      streamed: false,
+      streamError: 'offline',
+    });
+    const warnSpy = jest.spyOn(console, 'warn').mockImplementation(() => {});
+    const service = loadService();
+    await service.startRecording();
+
+    await expect(service.stopRecording()).resolves.toEqual({
+      uri: 'file:///cache/recordings/brain-dump-2.wav',
+      duration: 1000,
+    });
+    warnSpy.mockRestore();
+  });
+
+  it('does not start without the microphone permission', async () => {
+    mockPermissionsAndroid.request.mockResolvedValue('denied');
+    const errorSpy = jest.spyOn(console, 'error').mockImplementation(() => {});
+    const service = loadService();
+
+    await expect(service.startRecording()).resolves.toBe(false);
+
+    expect(mockAudioStreamModule.start).not.toHaveBeenCalled();
+    errorSpy.mockRestore();
+  });
+
+  it('cancels the native recording', async () => {
+    const service = loadService();
+    await service.startRecording();
+
+    await service.cancelRecording();
+
+    expect(mockAudioStreamModule.cancel).toHaveBeenCalled();
+    expect(service.getIsRecording()).toBe(false);
+  });
+});
@@ -0,0 +1,118 @@
+type UXMetricsServiceModule = typeof import('../src/services/UXMetricsService');
+
+const mockStorage: Record<string, unknown> = {};
+
+const mockUXMetricsModule = {
+  track: jest.fn(),
+  getEvents: jest.fn(),
+  importEvents: jest.fn().mockResolvedValue(1),
+  clearEvents: jest.fn().mockResolvedValue(true),
+  getStats: jest.fn(),
+};
+
+const mockStorageService = {
+  STORAGE_KEYS: { uxMetricsEvents: 'uxMetricsEvents' },
+  getJSON: jest.fn(async (key: string) => mockStorage[key] ?? null),
+  setJSON: jest.fn(async (key: string, value: unknown) => {
+    mockStorage[key] = value;
+    return true;
+  }),
+  remove: jest.fn(async (key: string) => {
+    delete mockStorage[key];
+    return true;
+  }),
+};
+
+const loadUXMetricsService = (
+  withNativeModule: boolean,
+): UXMetricsServiceModule => {
+  jest.resetModules();
+  Object.keys(mockStorage).forEach((key) => {
+    delete mockStorage[key];
+  });
+
+  jest.doMock('../src/services/StorageService', () => ({
+    __esModule: true,
+    default: mockStorageService,
+  }));
+
+  jest.doMock('react-native', () => ({
+    Platform: { OS: 'android' },
+    NativeModules: withNativeModule
+      ? { UXMetricsModule: mockUXMetricsModule }
+      : {},
+  }));
+
+  return require('../src/services/UXMetricsService');
+};
+
+describe('UXMetricsService', () => {
+  beforeEach(() => {
+    jest.clearAllMocks();
+  });
+
+  it('hands events to the native recorder without touching storage', async () => {
+    const { default: UXMetricsService } = loadUXMetricsService(true);
+
+    await UXMetricsService.track('brain_dump_first_item_added', { count: 1 });
+
+    expect(mockUXMetricsModule.track).toHaveBeenCalledWith(
+      'brain_dump_first_item_added',
+      { count: 1 },
+    );
+    expect(mockStorageService.getJSON).not.toHaveBeenCalled();
+    expect(mockStorageService.setJSON).not.toHaveBeenCalled();
+  });
+
+  it('maps native events to ISO timestamps', async () => {
+    const { default: UXMetricsService } = loadUXMetricsService(true);
+    mockUXMetricsModule.getEvents.mockResolvedValueOnce([
+      { name: 'overlay_drag', timestampMs: 0, metadata: { durationMs: 240 } },
+    ]);
+
+    await expect(UXMetricsService.getEvents(10)).resolves.toEqual([
+      {
+        name: 'overlay_drag',
+        timestamp: new Date(0).toISOString(),
+        metadata: { durationMs: 240 },
+      },
+    ]);
+    expect(mockUXMetricsModule.getEvents).toHaveBeenCalledWith(10);
+  });
+
+  it('moves stored events into the native recorder once', async () => {
+    const { default: UXMetricsService } = loadUXMetricsService(true);
+    mockStorage.uxMetricsEvents = [
+      { name: 'newer', timestamp: new Date(2000).toISOString() },
+      {
+        name: 'older',
+        timestamp: new Date(1000).toISOString(),
+        metadata: { count: 2 },
+      },
+    ];
+    mockUXMetricsModule.getEvents.mockResolvedValue([]);
+
+    await UXMetricsService.getEvents(10);
+    await UXMetricsService.getEvents(10);
+
+    expect(mockUXMetricsModule.importEvents).toHaveBeenCalledTimes(1);
+    expect(mockUXMetricsModule.importEvents).toHaveBeenCalledWith([
+      { name: 'older', timestampMs: 1000, metadata: { count: 2 } },
+      { name: 'newer', timestampMs: 2000 },
+    ]);
+    expect(mockStorageService.remove).toHaveBeenCalledWith('uxMetricsEvents');
+    expect(mockUXMetricsModule.getEvents).toHaveBeenCalledTimes(2);
+  });
+
+  it('keeps concurrent events in the storage fallback', async () => {
+    const { default: UXMetricsService } = loadUXMetricsService(false);
+
+    await Promise.all([
+      UXMetricsService.track('first'),
+      UXMetricsService.track('second'),
+    ]);
+
+    const events = await UXMetricsService.getEvents();
+    expect(events.map((event) => event.name)).toEqual(['second', 'first']);
+  });
+});
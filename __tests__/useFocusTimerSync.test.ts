@@ -0,0 +1,86 @@
+import { AppState, AppStateStatus } from 'react-native';
+import { renderHook, act, waitFor } from '@testing-library/react-native';
+import OverlayService, {
+  OverlayFocusTimer,
+} from '../src/services/OverlayService';
+import useFocusTimerSync from '../src/hooks/useFocusTimerSync';
+
+jest.mock('../src/services/OverlayService', () => ({
+  __esModule: true,
+  default: {
+    getFocusTimer: jest.fn(),
+    onFocusTimerChanged: jest.fn(),
+  },
+}));
+
+const runningTimer: OverlayFocusTimer = {
+  state: 'running',
+  kind: 'focus',
+  durationMs: 1500000,
+  remainingMs: 1200000,
+  endsAtMs: 1700001200000,
+};
+
+describe('useFocusTimerSync', () => {
+  let emitTimer: (timer: OverlayFocusTimer) => void;
+  let changeAppState: (state: AppStateStatus) => void;
+  const unsubscribe = jest.fn();
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+    (OverlayService.getFocusTimer as jest.Mock).mockResolvedValue(
+      runningTimer,
+    );
+    (OverlayService.onFocusTimerChanged as jest.Mock).mockImplementation(
+      (listener: (timer: OverlayFocusTimer) => void) => {
+        emitTimer = listener;
+        return unsubscribe;
+      },
+    );
+    jest
+      .spyOn(AppState, 'addEventListener')
+      .mockImplementation((_type, listener) => {
+        changeAppState = listener as (state: AppStateStatus) => void;
+        return { remove: jest.fn() } as unknown as ReturnType<
+          typeof AppState.addEventListener
+        >;
+      });
+  });
+
+  it('waits until enabled before reading the native timer', () => {
+    const onTimer = jest.fn();
+    renderHook(() => useFocusTimerSync(onTimer, false));
+
+    expect(OverlayService.getFocusTimer).not.toHaveBeenCalled();
+    expect(OverlayService.onFocusTimerChanged).not.toHaveBeenCalled();
+  });
+
+  it('reports the timer on mount, on transitions and on resume', async () => {
+    const onTimer = jest.fn();
+    const { result, unmount } = renderHook(() => useFocusTimerSync(onTimer));
+
+    await waitFor(() => expect(onTimer).toHaveBeenCalledWith(runningTimer));
+    expect(result.current.current).toEqual(runningTimer);
+
+    const pausedTimer: OverlayFocusTimer = {
+      ...runningTimer,
+      state: 'paused',
+      endsAtMs: undefined,
+    };
+    act(() => {
+      emitTimer(pausedTimer);
+    });
+    expect(onTimer).toHaveBeenLastCalledWith(pausedTimer);
+    expect(result.current.current).toEqual(pausedTimer);
+
+    act(() => {
+      changeAppState('active');
+    });
+    await waitFor(() => expect(onTimer).toHaveBeenCalledTimes(3));
+    expect(OverlayService.getFocusTimer).toHaveBeenCalledTimes(2);
+    expect(onTimer).toHaveBeenLastCalledWith(runningTimer);
+
+    unmount();
+    expect(unsubscribe).toHaveBeenCalledTimes(1);
+  });
+});
@@ -0,0 +1,96 @@
+import { renderHook, act, waitFor } from '@testing-library/react-native';
+import RecordStoreService from '../src/services/RecordStoreService';
+import usePagedRecords from '../src/hooks/usePagedRecords';
+
+jest.mock('../src/services/RecordStoreService', () => ({
+  __esModule: true,
+  default: {
+    isNewestFirst: jest.fn().mockReturnValue(true),
+    getPage: jest.fn(),
+    count: jest.fn(),
+    upsert: jest.fn(),
+    remove: jest.fn(),
+    clear: jest.fn(),
+  },
+}));
+
+type Note = { id: string; text: string };
+
+const isNote = (note: Note) => Boolean(note?.id && note?.text);
+
+const mockStore = RecordStoreService as jest.Mocked<typeof RecordStoreService>;
+
+describe('usePagedRecords', () => {
+  beforeEach(() => {
+    jest.clearAllMocks();
+    mockStore.getPage
+      .mockResolvedValueOnce({
+        items: [
+          { id: 'n3', text: 'three' },
+          { id: 'bad', text: '' },
+        ],
+        nextCursor: 7,
+      })
+      .mockResolvedValueOnce({
+        items: [{ id: 'n1', text: 'one' }],
+        nextCursor: null,
+      });
+    mockStore.count.mockResolvedValue(3);
+  });
+
+  it('reads one page at a time and never the whole collection', async () => {
+    const { result } = renderHook(() =>
+      usePagedRecords<Note>('brainDump', isNote, 1),
+    );
+
+    await waitFor(() => expect(result.current.isLoading).toBe(false));
+    expect(result.current.items.map((note) => note.id)).toEqual(['n3']);
+    expect(result.current.total).toBe(3);
+    expect(result.current.hasMore).toBe(true);
+    expect(mockStore.getPage).toHaveBeenCalledWith('brainDump', 1, null);
+
+    await act(async () => {
+      await result.current.loadMore();
+    });
+
+    expect(mockStore.getPage).toHaveBeenLastCalledWith('brainDump', 1, 7);
+    expect(result.current.items.map((note) => note.id)).toEqual(['n3', 'n1']);
+    expect(result.current.hasMore).toBe(false);
+  });
+
+  it('undoes a save the store rejected and reports it', async () => {
+    mockStore.upsert.mockResolvedValueOnce(false);
+    const { result } = renderHook(() =>
+      usePagedRecords<Note>('brainDump', isNote),
+    );
+    await waitFor(() => expect(result.current.isLoading).toBe(false));
+
+    let saved = true;
+    await act(async () => {
+      saved = await result.current.save({ id: 'n4', text: 'four' });
+    });
+
+    expect(saved).toBe(false);
+    expect(result.current.items.map((note) => note.id)).toEqual(['n3']);
+    expect(result.current.total).toBe(3);
+  });
+
+  it('restores a record whose delete failed', async () => {
+    mockStore.remove.mockResolvedValueOnce(false);
+    const { result } = renderHook(() =>
+      usePagedRecords<Note>('brainDump', isNote, 1),
+    );
+    await waitFor(() => expect(result.current.isLoading).toBe(false));
+    await act(async () => {
+      await result.current.loadMore();
+    });
+
+    let removed = true;
+    await act(async () => {
+      removed = await result.current.remove(['n3']);
+    });
+
+    expect(removed).toBe(false);
+    expect(result.current.items.map((note) => note.id)).toEqual(['n3', 'n1']);
+  });
+});
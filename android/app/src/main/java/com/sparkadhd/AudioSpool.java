@@ -0,0 +1,158 @@
+package com.sparkadhd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Encoded audio for one recording, kept as an IMA ADPCM WAV file while it is written. The
+ * uploader reads fixed-size chunks back out of it, so a slow or dropped connection only grows
+ * this file and never the heap. After {@link #finish} the file is a complete WAV that the
+ * whole-file transcription endpoint accepts too.
+ */
+final class AudioSpool {
+  static final int SAMPLE_RATE = 16_000;
+  static final int BLOCKS_PER_CHUNK = 16;
+  static final int CHUNK_BYTES = ImaAdpcmEncoder.BLOCK_ALIGN * BLOCKS_PER_CHUNK;
+  static final int HEADER_SIZE = 60;
+
+  private static final short WAVE_FORMAT_IMA_ADPCM = 0x11;
+
+  private final File file;
+  private final RandomAccessFile randomAccessFile;
+  private final FileChannel channel;
+  // Guarded by this.
+  private long dataBytes;
+  private boolean complete;
+
+  AudioSpool(File file) throws IOException {
+    this.file = file;
+    File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Could not create " + parent);
+    }
+    randomAccessFile = new RandomAccessFile(file, "rw");
+    randomAccessFile.setLength(0L);
+    channel = randomAccessFile.getChannel();
+    writeHeader(0L);
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  synchronized void appendBlock(byte[] block) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(block);
+    long position = HEADER_SIZE + dataBytes;
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    dataBytes += block.length;
+    if (dataBytes % CHUNK_BYTES == 0) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Close out the recording: fill in the WAV sizes and make the last, possibly short, chunk
+   * available to the uploader.
+   */
+  synchronized void finish(long sampleCount) throws IOException {
+    writeHeader(sampleCount);
+    channel.force(false);
+    channel.close();
+    randomAccessFile.close();
+    complete = true;
+    notifyAll();
+  }
+
+  /**
+   * Stop accepting audio without finishing the header, for a recording that is thrown away.
+   */
+  synchronized void abandon() {
+    try {
+      channel.close();
+      randomAccessFile.close();
+    } catch (IOException ignored) {
+      // The file is deleted next.
+    }
+    complete = true;
+    notifyAll();
+  }
+
+  synchronized boolean isComplete() {
+    return complete;
+  }
+
+  synchronized long getDataBytes() {
+    return dataBytes;
+  }
+
+  /**
+   * Chunks that can be uploaded now: only full ones while recording, all of them once finished.
+   */
+  synchronized int availableChunks() {
+    return (int) (complete ? (dataBytes + CHUNK_BYTES - 1) / CHUNK_BYTES : dataBytes / CHUNK_BYTES);
+  }
+
+  /**
+   * Wait up to {@code timeoutMs} until more than {@code count} chunks are available or the
+   * spool is complete. Returns the available count.
+   */
+  synchronized int awaitChunks(int count, long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    long remaining = timeoutMs;
+    while (availableChunks() <= count && !complete && remaining > 0L) {
+      wait(remaining);
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return availableChunks();
+  }
+
+  /**
+   * Read chunks {@code first} to {@code first + count - 1} into {@code target}. Returns the byte
+   * count, which is short only for the final chunk.
+   */
+  int readChunks(int first, int count, byte[] target) throws IOException {
+    long start = (long) first * CHUNK_BYTES;
+    int length;
+    synchronized (this) {
+      length = (int) Math.max(0L, Math.min((long) count * CHUNK_BYTES, dataBytes - start));
+    }
+    // Written bytes never change, so reading outside the lock races nothing.
+    try (RandomAccessFile reader = new RandomAccessFile(file, "r")) {
+      reader.seek(HEADER_SIZE + start);
+      reader.readFully(target, 0, length);
+    }
+    return length;
+  }
+
+  private void writeHeader(long sampleCount) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.put(new byte[] {'R', 'I', 'F', 'F'});
+    header.putInt((int) (HEADER_SIZE - 8 + dataBytes));
+    header.put(new byte[] {'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+    header.putInt(20);
+    header.putShort(WAVE_FORMAT_IMA_ADPCM);
+    header.putShort((short) 1);
+    header.putInt(SAMPLE_RATE);
+    header.putInt(SAMPLE_RATE * ImaAdpcmEncoder.BLOCK_ALIGN / ImaAdpcmEncoder.SAMPLES_PER_BLOCK);
+    header.putShort((short) ImaAdpcmEncoder.BLOCK_ALIGN);
+    header.putShort((short) 4);
+    header.putShort((short) 2);
+    header.putShort((short) ImaAdpcmEncoder.SAMPLES_PER_BLOCK);
+    header.put(new byte[] {'f', 'a', 'c', 't'});
+    header.putInt(4);
+    header.putInt((int) sampleCount);
+    header.put(new byte[] {'d', 'a', 't', 'a'});
+    header.putInt((int) dataBytes);
+    header.flip();
+    long position = 0L;
+    while (header.hasRemaining()) {
+      position += channel.write(header, position);
+    }
+  }
+}
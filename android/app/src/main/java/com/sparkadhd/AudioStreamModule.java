@@ -0,0 +1,153 @@
+package com.sparkadhd;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * JS access to {@link StreamingTranscriptionSession}: one brain dump recording at a time,
+ * transcribed while it is spoken. Starting and stopping block on threads and the network, so
+ * they run on a control thread and resolve from there.
+ */
+public class AudioStreamModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "AudioStreamModule";
+  private static final String RECORDINGS_DIR = "recordings";
+  private static final long FINISH_TIMEOUT_MS = 20_000L;
+
+  private final ReactApplicationContext reactContext;
+  private final Handler handler;
+  // Only touched on the control thread.
+  @Nullable private StreamingTranscriptionSession session;
+
+  public AudioStreamModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    this.reactContext = reactContext;
+    HandlerThread thread = new HandlerThread("SparkAudioControl", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    handler = new Handler(thread.getLooper());
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Start recording and streaming to {@code apiBaseUrl}. Resolves false if a recording is
+   * already running.
+   */
+  @ReactMethod
+  public void start(String apiBaseUrl, Promise promise) {
+    if (ContextCompat.checkSelfPermission(reactContext, Manifest.permission.RECORD_AUDIO)
+      != PackageManager.PERMISSION_GRANTED) {
+      promise.reject("E_AUDIO_PERMISSION", "Microphone permission not granted");
+      return;
+    }
+    handler.post(() -> {
+      if (session != null) {
+        promise.resolve(false);
+        return;
+      }
+      File file = new File(
+        new File(reactContext.getCacheDir(), RECORDINGS_DIR),
+        "brain-dump-" + System.currentTimeMillis() + ".wav"
+      );
+      StreamingTranscriptionSession next = null;
+      try {
+        next = new StreamingTranscriptionSession(
+          new StreamingTranscriptionSession.AudioRecordSource(),
+          file,
+          apiBaseUrl
+        );
+        next.start();
+        session = next;
+        promise.resolve(true);
+      } catch (IOException | RuntimeException exception) {
+        if (next != null) {
+          next.cancel();
+        }
+        promise.reject("E_AUDIO_START", exception);
+      }
+    });
+  }
+
+  /**
+   * Stop and resolve with the recording and, when the stream got through, its transcript.
+   * Without {@code transcription} the caller uploads {@code uri} the old way.
+   */
+  @ReactMethod
+  public void stop(Promise promise) {
+    handler.post(() -> {
+      StreamingTranscriptionSession current = session;
+      session = null;
+      if (current == null) {
+        promise.resolve(null);
+        return;
+      }
+      try {
+        StreamingTranscriptionSession.Result result = current.stop(FINISH_TIMEOUT_MS);
+        WritableMap map = Arguments.createMap();
+        map.putString("uri", Uri.fromFile(result.audioFile).toString());
+        map.putDouble("duration", result.durationMs);
+        map.putBoolean("streamed", result.streamed);
+        if (result.streamed) {
+          map.putString("transcription", result.transcription);
+          map.putString("summary", result.summary);
+        }
+        if (result.error != null) {
+          map.putString("streamError", result.error.getMessage());
+        }
+        map.putInt("chunksSent", result.chunksSent);
+        map.putInt("uploadRetries", result.uploadRetries);
+        map.putDouble("overrunSamples", result.overrunSamples);
+        map.putDouble("finishLatencyMs", result.finishLatencyMs);
+        promise.resolve(map);
+      } catch (IOException exception) {
+        promise.reject("E_AUDIO_STOP", exception);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        promise.reject("E_AUDIO_STOP", exception);
+      }
+    });
+  }
+
+  @ReactMethod
+  public void cancel(Promise promise) {
+    handler.post(() -> {
+      StreamingTranscriptionSession current = session;
+      session = null;
+      if (current != null) {
+        current.cancel();
+      }
+      promise.resolve(null);
+    });
+  }
+
+  @Override
+  public void invalidate() {
+    handler.post(() -> {
+      if (session != null) {
+        session.cancel();
+        session = null;
+      }
+      handler.getLooper().quitSafely();
+    });
+    super.invalidate();
+  }
+}
@@ -0,0 +1,145 @@
+package com.sparkadhd;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+import com.sparkadhd.core.DragTracker;
+
+/**
+ * Turns bubble touch samples into at most one window position per display frame.
+ *
+ * Every sample, including the historical ones batched into a MotionEvent, goes into a
+ * {@link DragTracker}. On each Choreographer frame its predicted position is applied so the
+ * bubble keeps up with the finger at the panel's real refresh rate.
+ */
+public class BubbleDragEngine {
+  public interface PositionSink {
+    void onDragPosition(int x, int y);
+  }
+
+  private static final float MAX_PREDICTION_DP = 24f;
+
+  private final OverlayGeometry geometry;
+  private final PositionSink sink;
+  private final DragTracker tracker = new DragTracker();
+  private final Choreographer.FrameCallback frameCallback = this::onFrame;
+  private boolean active;
+  private boolean dirty;
+  private boolean framePending;
+  private boolean predictionEnabled = true;
+  private long appliedFrameCount;
+
+  public BubbleDragEngine(OverlayGeometry geometry, PositionSink sink) {
+    this.geometry = geometry;
+    this.sink = sink;
+  }
+
+  public void setPredictionEnabled(boolean enabled) {
+    predictionEnabled = enabled;
+  }
+
+  public void begin(int windowX, int windowY, MotionEvent event) {
+    cancelFrame();
+    tracker.begin(windowX, windowY, event.getRawX(), event.getRawY(), event.getEventTime());
+    dirty = false;
+    active = true;
+  }
+
+  public void addMotionEvent(MotionEvent event) {
+    if (!active) {
+      return;
+    }
+
+    // Historical samples only carry view-relative coordinates. The window does not move
+    // within one batch, so the current raw offset maps them back to the screen.
+    float offsetX = event.getRawX() - event.getX();
+    float offsetY = event.getRawY() - event.getY();
+    int historySize = event.getHistorySize();
+    for (int index = 0; index < historySize; index++) {
+      tracker.addSample(
+        event.getHistoricalX(index) + offsetX,
+        event.getHistoricalY(index) + offsetY,
+        event.getHistoricalEventTime(index)
+      );
+    }
+    tracker.addSample(event.getRawX(), event.getRawY(), event.getEventTime());
+
+    dirty = true;
+    if (!framePending) {
+      framePending = true;
+      Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+  }
+
+  public boolean hasExceeded(int thresholdPx) {
+    return tracker.hasExceeded(thresholdPx);
+  }
+
+  /**
+   * Stop the drag and apply the exact last touch position, without prediction.
+   */
+  public void end() {
+    cancelFrame();
+    if (active && dirty && tracker.hasSamples()) {
+      dirty = false;
+      applyPosition(tracker.getLatestX(), tracker.getLatestY());
+    }
+    active = false;
+  }
+
+  /**
+   * Stop the drag without applying anything, for callers that take over the position.
+   */
+  public void cancel() {
+    cancelFrame();
+    dirty = false;
+    active = false;
+  }
+
+  /**
+   * Window position for the newest touch sample, without prediction.
+   */
+  public int getLatestX() {
+    return tracker.getLatestX();
+  }
+
+  public int getLatestY() {
+    return tracker.getLatestY();
+  }
+
+  public long getAppliedFrameCount() {
+    return appliedFrameCount;
+  }
+
+  public long getSampleCount() {
+    return tracker.getSampleCount();
+  }
+
+  private void onFrame(long frameTimeNanos) {
+    framePending = false;
+    if (!active || !dirty || !tracker.hasSamples()) {
+      return;
+    }
+    dirty = false;
+
+    tracker.computeFrame(
+      frameTimeNanos / 1_000_000L,
+      geometry.getFrameIntervalNanos() / 1_000_000L,
+      geometry.dpToPx(MAX_PREDICTION_DP),
+      predictionEnabled
+    );
+    applyPosition(tracker.getFrameX(), tracker.getFrameY());
+  }
+
+  private void applyPosition(int x, int y) {
+    appliedFrameCount++;
+    sink.onDragPosition(x, y);
+  }
+
+  private void cancelFrame() {
+    if (framePending) {
+      Choreographer.getInstance().removeFrameCallback(frameCallback);
+      framePending = false;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.sparkadhd;
+
+import android.view.Choreographer;
+import android.view.Gravity;
+
+import com.sparkadhd.core.SettleMotion;
+
+/**
+ * Fling-and-spring settle for the bubble after a drag.
+ *
+ * {@link SettleMotion} picks the resting edge and runs the springs. The host moves the window
+ * once, to the resting position, anchored on the corner that lets it grow toward the release
+ * point. Each frame is a view translation relative to that corner, inside a window the host
+ * sizes to cover the path, and at rest the window shrinks back around the bubble without
+ * moving. The window stays touchable, so a touch on the bubble can catch it mid-flight.
+ */
+public class BubbleMotionController {
+  public interface Host {
+    /**
+     * Anchor the window at the resting position ({@code restX}, {@code restY}) on the corner
+     * given by {@code gravity}, and make it {@code width} by {@code height} px.
+     */
+    void onMotionStart(int restX, int restY, int gravity, int width, int height);
+
+    /**
+     * Show the bubble at this offset from its resting position.
+     */
+    void onMotionFrame(float offsetX, float offsetY);
+
+    void onMotionEnd(int x, int y);
+  }
+
+  private final OverlayGeometry geometry;
+  private final Host host;
+  private final SettleMotion motion = new SettleMotion();
+  private final Choreographer.FrameCallback frameCallback = this::onFrame;
+  private int targetX;
+  private int targetY;
+  // The offsets that keep the bubble inside the window; the edge spring's overshoot is held at
+  // the resting position rather than clipped.
+  private float minOffsetX;
+  private float maxOffsetX;
+  private float minOffsetY;
+  private float maxOffsetY;
+  private long lastFrameNanos;
+  private boolean running;
+
+  public BubbleMotionController(OverlayGeometry geometry, Host host) {
+    this.geometry = geometry;
+    this.host = host;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Settle from a release at (x, y) moving at the given velocity in px/s.
+   */
+  public void settle(int x, int y, float velocityX, float velocityY, int bubbleSize) {
+    cancel();
+
+    motion.start(geometry.getBounds(), x, y, velocityX, velocityY, bubbleSize);
+    targetX = motion.getTargetX();
+    targetY = motion.getTargetY();
+    int startOffsetX = x - targetX;
+    int startOffsetY = y - targetY;
+    minOffsetX = Math.min(0, startOffsetX);
+    maxOffsetX = Math.max(0, startOffsetX);
+    minOffsetY = Math.min(0, startOffsetY);
+    maxOffsetY = Math.max(0, startOffsetY);
+
+    // Anchor on the far side from the release point, so the window grows toward it.
+    int gravity = (startOffsetX < 0 ? Gravity.END : Gravity.START)
+      | (startOffsetY < 0 ? Gravity.BOTTOM : Gravity.TOP);
+    host.onMotionStart(
+      targetX,
+      targetY,
+      gravity,
+      Math.abs(startOffsetX) + bubbleSize,
+      Math.abs(startOffsetY) + bubbleSize
+    );
+    host.onMotionFrame(startOffsetX, startOffsetY);
+
+    running = true;
+    lastFrameNanos = 0L;
+    Choreographer.getInstance().postFrameCallback(frameCallback);
+  }
+
+  /**
+   * Stop immediately and commit wherever the bubble currently is.
+   */
+  public void finishNow() {
+    if (!running) {
+      return;
+    }
+    cancel();
+    host.onMotionEnd(Math.round(clampX(motion.getX())), Math.round(clampY(motion.getY())));
+  }
+
+  /**
+   * Stop immediately and put the bubble at its resting position.
+   */
+  public void skipToRest() {
+    if (!running) {
+      return;
+    }
+    cancel();
+    host.onMotionEnd(targetX, targetY);
+  }
+
+  public void cancel() {
+    if (running) {
+      Choreographer.getInstance().removeFrameCallback(frameCallback);
+      running = false;
+    }
+  }
+
+  private void onFrame(long frameTimeNanos) {
+    if (!running) {
+      return;
+    }
+
+    float dt = lastFrameNanos == 0L
+      ? geometry.getFrameIntervalNanos() / 1_000_000_000f
+      : (frameTimeNanos - lastFrameNanos) / 1_000_000_000f;
+    lastFrameNanos = frameTimeNanos;
+
+    if (motion.step(dt)) {
+      running = false;
+      host.onMotionEnd(targetX, targetY);
+      return;
+    }
+
+    host.onMotionFrame(clampX(motion.getX()) - targetX, clampY(motion.getY()) - targetY);
+    Choreographer.getInstance().postFrameCallback(frameCallback);
+  }
+
+  private float clampX(float x) {
+    return Math.max(targetX + minOffsetX, Math.min(x, targetX + maxOffsetX));
+  }
+
+  private float clampY(float y) {
+    return Math.max(targetY + minOffsetY, Math.min(y, targetY + maxOffsetY));
+  }
+}
@@ -0,0 +1,294 @@
+package com.sparkadhd;
+
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.facebook.react.bridge.Arguments;
+import com.sparkadhd.core.FocusTimer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The focus timer, hosted natively so the bubble can count down while JS sleeps.
+ *
+ * {@link FocusTimer} holds the state and is written to the overlay state record on every
+ * transition, so a timer survives process death. While a bubble is bound, a main-thread tick
+ * fires at each display-minute boundary and re-renders it; an exact alarm at the end
+ * ({@link FocusTimerReceiver}) covers expiry when the process is gone or the device sleeps.
+ * JS only hears about transitions, as {@link OverlayEventBus#TYPE_FOCUS_TIMER} events.
+ */
+public class FocusTimerController {
+  public interface TimerRenderer {
+    /**
+     * Show {@code minutes} left, or the normal bubble when {@code minutes} is negative.
+     */
+    void renderTimer(int minutes, boolean paused);
+  }
+
+  static final List<String> KIND_NAMES = Arrays.asList("focus", "break", "ignite");
+  private static final String[] STATE_NAMES = {"idle", "running", "paused", "finished"};
+
+  private static FocusTimerController instance;
+
+  private final Context context;
+  private final OverlayStateStore stateStore;
+  private final LongSupplier clock;
+  private final OverlayEventBus eventBus = OverlayEventBus.getInstance();
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable tickRunnable = this::onTick;
+  private final Runnable renderRunnable = this::render;
+  private final BroadcastReceiver screenOnReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context receiverContext, Intent intent) {
+      // Handler ticks run on uptime, which stops while the device sleeps.
+      refresh();
+    }
+  };
+  // Guarded by this.
+  private final FocusTimer timer = new FocusTimer();
+  private long ticks;
+  private long renders;
+  private long transitions;
+  private long alarmsScheduled;
+  // Main thread only, except that ticks check it before scheduling.
+  @Nullable private volatile TimerRenderer renderer;
+
+  public static synchronized FocusTimerController getInstance(Context context) {
+    if (instance == null) {
+      Context appContext = context.getApplicationContext();
+      instance = new FocusTimerController(
+        appContext,
+        OverlayStateStore.getInstance(appContext),
+        System::currentTimeMillis
+      );
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  FocusTimerController(Context context, OverlayStateStore stateStore, LongSupplier clock) {
+    this.context = context;
+    this.stateStore = stateStore;
+    this.clock = clock;
+    synchronized (this) {
+      stateStore.readFocusTimer(timer);
+      long nowMs = clock.getAsLong();
+      if (timer.expireIfDue(nowMs)) {
+        onTransition(nowMs);
+      } else {
+        // The alarm does not survive a reboot, and re-arming an existing one is harmless.
+        scheduleAlarm();
+      }
+    }
+  }
+
+  /**
+   * Start a new countdown. Returns false for an unknown kind or a non-positive duration.
+   */
+  public synchronized boolean start(String kind, long durationMs) {
+    int kindCode = KIND_NAMES.indexOf(kind);
+    long nowMs = clock.getAsLong();
+    if (kindCode < 0 || !timer.start(kindCode, durationMs, nowMs)) {
+      return false;
+    }
+    onTransition(nowMs);
+    return true;
+  }
+
+  public synchronized boolean pause() {
+    long nowMs = clock.getAsLong();
+    boolean expired = timer.expireIfDue(nowMs);
+    if (!expired && !timer.pause(nowMs)) {
+      return false;
+    }
+    onTransition(nowMs);
+    return !expired;
+  }
+
+  public synchronized boolean resume() {
+    long nowMs = clock.getAsLong();
+    if (!timer.resume(nowMs)) {
+      return false;
+    }
+    onTransition(nowMs);
+    return true;
+  }
+
+  public synchronized boolean cancel() {
+    if (!timer.cancel()) {
+      return false;
+    }
+    onTransition(clock.getAsLong());
+    return true;
+  }
+
+  /**
+   * The end-of-timer alarm, or a boot. Finishes the timer if it is due and re-arms otherwise.
+   */
+  public synchronized void onAlarm() {
+    long nowMs = clock.getAsLong();
+    if (timer.expireIfDue(nowMs)) {
+      onTransition(nowMs);
+    } else {
+      scheduleAlarm();
+    }
+  }
+
+  /**
+   * Render into {@code timerRenderer} from now on. Main thread only.
+   */
+  public void bind(TimerRenderer timerRenderer) {
+    boolean wasBound = renderer != null;
+    renderer = timerRenderer;
+    if (!wasBound) {
+      context.registerReceiver(screenOnReceiver, new IntentFilter(Intent.ACTION_SCREEN_ON));
+    }
+    refresh();
+  }
+
+  public void unbind(TimerRenderer timerRenderer) {
+    if (renderer != timerRenderer) {
+      return;
+    }
+    renderer = null;
+    mainHandler.removeCallbacks(tickRunnable);
+    context.unregisterReceiver(screenOnReceiver);
+  }
+
+  /**
+   * The timer now. A read that finds the timer due finishes it like the alarm would.
+   */
+  public synchronized Bundle toBundle() {
+    long nowMs = clock.getAsLong();
+    if (timer.expireIfDue(nowMs)) {
+      onTransition(nowMs);
+    }
+    return snapshot(nowMs);
+  }
+
+  public synchronized Map<String, Double> stats() {
+    Map<String, Double> stats = new HashMap<>();
+    stats.put("ticks", (double) ticks);
+    stats.put("renders", (double) renders);
+    stats.put("transitions", (double) transitions);
+    stats.put("alarmsScheduled", (double) alarmsScheduled);
+    return stats;
+  }
+
+  @VisibleForTesting
+  synchronized int state() {
+    return timer.state();
+  }
+
+  // Reads only; callers expire the timer first.
+  private Bundle snapshot(long nowMs) {
+    Bundle bundle = new Bundle();
+    bundle.putString("state", STATE_NAMES[timer.state()]);
+    int kind = timer.kind();
+    bundle.putString("kind", KIND_NAMES.get(kind >= 0 && kind < KIND_NAMES.size() ? kind : 0));
+    bundle.putDouble("durationMs", timer.durationMs());
+    bundle.putDouble("remainingMs", timer.remainingMs(nowMs));
+    if (timer.state() == FocusTimer.STATE_RUNNING || timer.state() == FocusTimer.STATE_FINISHED) {
+      bundle.putDouble("endsAtMs", timer.endsAtMs());
+    }
+    return bundle;
+  }
+
+  /**
+   * Persist, re-arm, re-render and tell JS. Called with the lock held after every change.
+   */
+  private void onTransition(long nowMs) {
+    transitions++;
+    stateStore.writeFocusTimer(timer);
+    scheduleAlarm();
+    scheduleTick(nowMs);
+    mainHandler.post(renderRunnable);
+    if (eventBus.wants(OverlayEventBus.TYPE_FOCUS_TIMER)) {
+      eventBus.post(OverlayEventBus.TYPE_FOCUS_TIMER, Arguments.fromBundle(snapshot(nowMs)));
+    }
+  }
+
+  private void onTick() {
+    synchronized (this) {
+      ticks++;
+    }
+    refresh();
+  }
+
+  /**
+   * Catch up with the clock: finish the timer if it is due, otherwise schedule the next tick
+   * and render. Main thread only.
+   */
+  private void refresh() {
+    synchronized (this) {
+      long nowMs = clock.getAsLong();
+      if (timer.expireIfDue(nowMs)) {
+        onTransition(nowMs);
+        return;
+      }
+      scheduleTick(nowMs);
+    }
+    render();
+  }
+
+  // Only while a bubble shows the countdown; the alarm covers expiry otherwise.
+  private void scheduleTick(long nowMs) {
+    mainHandler.removeCallbacks(tickRunnable);
+    long nextTickMs = timer.nextTickAtMs(nowMs);
+    if (nextTickMs != FocusTimer.NO_TICK && renderer != null) {
+      mainHandler.postDelayed(tickRunnable, nextTickMs - nowMs);
+    }
+  }
+
+  private void scheduleAlarm() {
+    AlarmManager alarms = context.getSystemService(AlarmManager.class);
+    if (alarms == null) {
+      return;
+    }
+    if (timer.state() != FocusTimer.STATE_RUNNING) {
+      alarms.cancel(FocusTimerReceiver.alarmIntent(context));
+      return;
+    }
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarms.canScheduleExactAlarms()) {
+      alarms.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, timer.endsAtMs(), FocusTimerReceiver.alarmIntent(context));
+    } else {
+      // Without the exact alarm grant this can arrive a few minutes late; the bubble tick
+      // still finishes the timer on time while the screen is on.
+      alarms.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, timer.endsAtMs(), FocusTimerReceiver.alarmIntent(context));
+    }
+    alarmsScheduled++;
+  }
+
+  private void render() {
+    TimerRenderer current = renderer;
+    if (current == null) {
+      return;
+    }
+    int minutes;
+    boolean paused;
+    synchronized (this) {
+      renders++;
+      long nowMs = clock.getAsLong();
+      int state = timer.state();
+      minutes = state == FocusTimer.STATE_RUNNING || state == FocusTimer.STATE_PAUSED
+        ? timer.displayMinutes(nowMs)
+        : -1;
+      paused = state == FocusTimer.STATE_PAUSED;
+    }
+    current.renderTimer(minutes, paused);
+  }
+}
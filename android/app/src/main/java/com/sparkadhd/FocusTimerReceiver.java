@@ -0,0 +1,32 @@
+package com.sparkadhd;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Wakes {@link FocusTimerController} for the end-of-timer alarm, and after a reboot so a
+ * running timer gets its alarm back.
+ */
+public class FocusTimerReceiver extends BroadcastReceiver {
+  private static final String ACTION_TIMER_DUE = "com.sparkadhd.action.FOCUS_TIMER_DUE";
+
+  static PendingIntent alarmIntent(Context context) {
+    Intent intent = new Intent(context, FocusTimerReceiver.class).setAction(ACTION_TIMER_DUE);
+    return PendingIntent.getBroadcast(
+      context,
+      0,
+      intent,
+      PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+    );
+  }
+
+  @Override
+  public void onReceive(Context context, Intent intent) {
+    String action = intent.getAction();
+    if (ACTION_TIMER_DUE.equals(action) || Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+      FocusTimerController.getInstance(context).onAlarm();
+    }
+  }
+}
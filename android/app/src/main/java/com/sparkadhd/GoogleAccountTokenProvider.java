@@ -0,0 +1,58 @@
+package com.sparkadhd;
+
+import android.accounts.Account;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.auth.GoogleAuthException;
+import com.google.android.gms.auth.GoogleAuthUtil;
+import com.google.android.gms.auth.UserRecoverableAuthException;
+import com.google.android.gms.auth.api.signin.GoogleSignIn;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+
+import java.io.IOException;
+
+/**
+ * Access tokens for the account signed in through the JS Google Sign-In flow. Play services
+ * caches tokens itself, so asking on every request is cheap.
+ */
+public class GoogleAccountTokenProvider implements GoogleTasksClient.TokenProvider {
+  private static final String TAG = "GoogleAccountToken";
+  private static final String TASKS_SCOPE = "oauth2:https://www.googleapis.com/auth/tasks";
+
+  private final Context appContext;
+
+  public GoogleAccountTokenProvider(Context context) {
+    appContext = context.getApplicationContext();
+  }
+
+  @Nullable
+  @Override
+  public String getToken() throws IOException {
+    GoogleSignInAccount signedIn = GoogleSignIn.getLastSignedInAccount(appContext);
+    Account account = signedIn == null ? null : signedIn.getAccount();
+    if (account == null) {
+      return null;
+    }
+    try {
+      return GoogleAuthUtil.getToken(appContext, account, TASKS_SCOPE);
+    } catch (UserRecoverableAuthException exception) {
+      // Consent has to be given in the app; the background sync treats that as signed out.
+      Log.w(TAG, "Tasks scope needs user consent", exception);
+      return null;
+    } catch (GoogleAuthException exception) {
+      throw new IOException(exception);
+    }
+  }
+
+  @Override
+  public void invalidate(String token) {
+    try {
+      GoogleAuthUtil.clearToken(appContext, token);
+    } catch (GoogleAuthException | IOException exception) {
+      Log.w(TAG, "Could not clear access token", exception);
+    }
+  }
+}
@@ -0,0 +1,356 @@
+package com.sparkadhd;
+
+import android.net.Uri;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal Google Tasks REST client for the native sync.
+ *
+ * Responses are parsed as they stream in, so a page of tasks is never held as a whole document.
+ * Every response body is read to the end and closed instead of disconnected, which returns the
+ * socket to HttpURLConnection's keep-alive pool for the next call on any thread.
+ */
+public class GoogleTasksClient {
+  public static final String DEFAULT_BASE_URL = "https://tasks.googleapis.com/tasks/v1";
+
+  public interface TokenProvider {
+    /**
+     * A current access token, or null when no account is signed in. Called off the main thread.
+     */
+    @Nullable
+    String getToken() throws IOException;
+
+    void invalidate(String token);
+  }
+
+  public interface TaskVisitor {
+    void onTask(Task task) throws IOException;
+  }
+
+  public static final class Task {
+    public String id;
+    public String title;
+    public String notes;
+    public String updated;
+    public String status;
+    public boolean deleted;
+
+    void reset() {
+      id = null;
+      title = null;
+      notes = null;
+      updated = null;
+      status = null;
+      deleted = false;
+    }
+  }
+
+  public static final class Page {
+    @Nullable public String nextPageToken;
+    @Nullable public String nextSyncToken;
+  }
+
+  public static class HttpStatusException extends IOException {
+    public final int status;
+
+    HttpStatusException(int status, String message) {
+      super("Google Tasks API error (" + status + "): " + message);
+      this.status = status;
+    }
+  }
+
+  /**
+   * The sync token is too old; list again without one.
+   */
+  public static class SyncTokenExpiredException extends HttpStatusException {
+    SyncTokenExpiredException(String message) {
+      super(HttpURLConnection.HTTP_GONE, message);
+    }
+  }
+
+  public static class NotSignedInException extends IOException {
+    NotSignedInException() {
+      super("No Google account signed in");
+    }
+  }
+
+  private static final int CONNECT_TIMEOUT_MS = 15_000;
+  private static final int READ_TIMEOUT_MS = 30_000;
+  private static final int PAGE_SIZE = 100;
+  private static final int MAX_ERROR_CHARS = 512;
+
+  private final String baseUrl;
+  private final TokenProvider tokenProvider;
+
+  public GoogleTasksClient(String baseUrl, TokenProvider tokenProvider) {
+    this.baseUrl = baseUrl;
+    this.tokenProvider = tokenProvider;
+  }
+
+  /**
+   * Id of the list called {@code title}, creating it if there is none.
+   */
+  public String ensureList(String title) throws IOException {
+    HttpURLConnection connection = send("GET", "/users/@me/lists", null);
+    try (JsonReader reader = readerFor(connection)) {
+      String found = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!"items".equals(reader.nextName())) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+          String id = null;
+          String listTitle = null;
+          reader.beginObject();
+          while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("id".equals(name)) {
+              id = nextStringOrNull(reader);
+            } else if ("title".equals(name)) {
+              listTitle = nextStringOrNull(reader);
+            } else {
+              reader.skipValue();
+            }
+          }
+          reader.endObject();
+          if (found == null && id != null && title.equals(listTitle)) {
+            found = id;
+          }
+        }
+        reader.endArray();
+      }
+      reader.endObject();
+      if (found != null) {
+        return found;
+      }
+    }
+
+    String body;
+    try {
+      body = new JSONObject().put("title", title).toString();
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+    connection = send("POST", "/users/@me/lists", body);
+    try (JsonReader reader = readerFor(connection)) {
+      String id = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if ("id".equals(reader.nextName())) {
+          id = nextStringOrNull(reader);
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      if (id == null) {
+        throw new IOException("Created task list has no id");
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Stream one page of tasks to {@code visitor}, including completed, hidden and deleted ones.
+   * The same {@link Task} instance is reused for every call.
+   */
+  public Page listTasks(String listId, @Nullable String syncToken, @Nullable String pageToken, TaskVisitor visitor)
+    throws IOException {
+    Uri.Builder path = Uri.parse("/lists/" + Uri.encode(listId) + "/tasks").buildUpon()
+      .appendQueryParameter("maxResults", String.valueOf(PAGE_SIZE))
+      .appendQueryParameter("showCompleted", "true")
+      .appendQueryParameter("showHidden", "true")
+      .appendQueryParameter("showDeleted", "true");
+    if (syncToken != null) {
+      path.appendQueryParameter("syncToken", syncToken);
+    }
+    if (pageToken != null) {
+      path.appendQueryParameter("pageToken", pageToken);
+    }
+
+    HttpURLConnection connection = send("GET", path.build().toString(), null);
+    Page page = new Page();
+    Task task = new Task();
+    try (JsonReader reader = readerFor(connection)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("items".equals(name)) {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            readTask(reader, task);
+            visitor.onTask(task);
+          }
+          reader.endArray();
+        } else if ("nextPageToken".equals(name)) {
+          page.nextPageToken = nextStringOrNull(reader);
+        } else if ("nextSyncToken".equals(name)) {
+          page.nextSyncToken = nextStringOrNull(reader);
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    return page;
+  }
+
+  /**
+   * Mark a task completed. Sent as a POST with a method override because HttpURLConnection
+   * does not allow PATCH on every runtime; the Google APIs accept either.
+   */
+  public void markCompleted(String listId, String taskId) throws IOException {
+    HttpURLConnection connection = send(
+      "PATCH",
+      "/lists/" + Uri.encode(listId) + "/tasks/" + Uri.encode(taskId),
+      "{\"status\":\"completed\"}"
+    );
+    drainAndClose(connection);
+  }
+
+  private static void readTask(JsonReader reader, Task task) throws IOException {
+    task.reset();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "id":
+          task.id = nextStringOrNull(reader);
+          break;
+        case "title":
+          task.title = nextStringOrNull(reader);
+          break;
+        case "notes":
+          task.notes = nextStringOrNull(reader);
+          break;
+        case "updated":
+          task.updated = nextStringOrNull(reader);
+          break;
+        case "status":
+          task.status = nextStringOrNull(reader);
+          break;
+        case "deleted":
+          if (reader.peek() == JsonToken.BOOLEAN) {
+            task.deleted = reader.nextBoolean();
+          } else {
+            reader.skipValue();
+          }
+          break;
+        default:
+          reader.skipValue();
+          break;
+      }
+    }
+    reader.endObject();
+  }
+
+  @Nullable
+  private static String nextStringOrNull(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.STRING) {
+      return reader.nextString();
+    }
+    reader.skipValue();
+    return null;
+  }
+
+  /**
+   * Open a request and check its status, retrying once with a fresh token on a 401.
+   */
+  private HttpURLConnection send(String method, String path, @Nullable String body) throws IOException {
+    for (int attempt = 0; ; attempt++) {
+      String token = tokenProvider.getToken();
+      if (token == null) {
+        throw new NotSignedInException();
+      }
+
+      HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(READ_TIMEOUT_MS);
+      connection.setRequestProperty("Authorization", "Bearer " + token);
+      connection.setRequestProperty("Accept", "application/json");
+      if ("PATCH".equals(method)) {
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+      } else {
+        connection.setRequestMethod(method);
+      }
+      if (body != null) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream output = connection.getOutputStream()) {
+          output.write(bytes);
+        }
+      }
+
+      int status = connection.getResponseCode();
+      if (status >= 200 && status < 300) {
+        return connection;
+      }
+
+      String message = readError(connection);
+      if (status == HttpURLConnection.HTTP_UNAUTHORIZED && attempt == 0) {
+        tokenProvider.invalidate(token);
+        continue;
+      }
+      if (status == HttpURLConnection.HTTP_GONE) {
+        throw new SyncTokenExpiredException(message);
+      }
+      throw new HttpStatusException(status, message);
+    }
+  }
+
+  private static JsonReader readerFor(HttpURLConnection connection) throws IOException {
+    return new JsonReader(new InputStreamReader(
+      new BufferedInputStream(connection.getInputStream()),
+      StandardCharsets.UTF_8
+    ));
+  }
+
+  private static String readError(HttpURLConnection connection) {
+    InputStream errorStream = connection.getErrorStream();
+    if (errorStream == null) {
+      return "";
+    }
+    StringBuilder message = new StringBuilder();
+    try (InputStreamReader reader = new InputStreamReader(errorStream, StandardCharsets.UTF_8)) {
+      char[] buffer = new char[256];
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        if (message.length() < MAX_ERROR_CHARS) {
+          message.append(buffer, 0, Math.min(read, MAX_ERROR_CHARS - message.length()));
+        }
+      }
+    } catch (IOException ignored) {
+      // The status code alone is enough to act on.
+    }
+    return message.toString();
+  }
+
+  private static void drainAndClose(HttpURLConnection connection) throws IOException {
+    try (InputStream input = connection.getInputStream()) {
+      byte[] buffer = new byte[1024];
+      while (input.read(buffer) != -1) {
+        // Reading to the end lets the connection be reused.
+      }
+    }
+  }
+}
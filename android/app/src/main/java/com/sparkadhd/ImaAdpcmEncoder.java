@@ -0,0 +1,76 @@
+package com.sparkadhd;
+
+/**
+ * Mono IMA ADPCM in the WAV block layout: each block starts with the first sample and the
+ * step index, followed by two 4-bit codes per byte. Blocks decode on their own, so a stream of
+ * them can be cut into chunks at any block boundary. Compresses 16-bit PCM 4:1.
+ */
+final class ImaAdpcmEncoder {
+  static final int BLOCK_ALIGN = 512;
+  static final int SAMPLES_PER_BLOCK = (BLOCK_ALIGN - 4) * 2 + 1;
+
+  static final int[] STEP_TABLE = {
+    7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45, 50, 55, 60, 66,
+    73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307, 337, 371, 408,
+    449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+    2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630,
+    9493, 10442, 11487, 12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794,
+    32767
+  };
+  static final int[] INDEX_TABLE = {-1, -1, -1, -1, 2, 4, 6, 8, -1, -1, -1, -1, 2, 4, 6, 8};
+
+  private int predictor;
+  private int stepIndex;
+
+  /**
+   * Encode {@link #SAMPLES_PER_BLOCK} samples from {@code pcm} into {@link #BLOCK_ALIGN} bytes
+   * of {@code out}. The step index carries over from the previous block.
+   */
+  void encodeBlock(short[] pcm, int offset, byte[] out, int outOffset) {
+    predictor = pcm[offset];
+    out[outOffset] = (byte) predictor;
+    out[outOffset + 1] = (byte) (predictor >> 8);
+    out[outOffset + 2] = (byte) stepIndex;
+    out[outOffset + 3] = 0;
+
+    int position = outOffset + 4;
+    for (int sample = 1; sample < SAMPLES_PER_BLOCK; sample += 2) {
+      int low = encodeSample(pcm[offset + sample]);
+      int high = encodeSample(pcm[offset + sample + 1]);
+      out[position++] = (byte) (low | (high << 4));
+    }
+  }
+
+  private int encodeSample(int sample) {
+    int step = STEP_TABLE[stepIndex];
+    int diff = sample - predictor;
+    int code = 0;
+    if (diff < 0) {
+      code = 8;
+      diff = -diff;
+    }
+
+    int delta = step >> 3;
+    if (diff >= step) {
+      code |= 4;
+      diff -= step;
+      delta += step;
+    }
+    step >>= 1;
+    if (diff >= step) {
+      code |= 2;
+      diff -= step;
+      delta += step;
+    }
+    step >>= 1;
+    if (diff >= step) {
+      code |= 1;
+      delta += step;
+    }
+
+    predictor += (code & 8) != 0 ? -delta : delta;
+    predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+    stepIndex = Math.max(0, Math.min(STEP_TABLE.length - 1, stepIndex + INDEX_TABLE[code]));
+    return code;
+  }
+}
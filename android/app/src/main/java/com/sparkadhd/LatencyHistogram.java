@@ -0,0 +1,92 @@
+package com.sparkadhd;
+
+import android.os.Bundle;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size latency histogram in microseconds with log-linear buckets: each power of two is
+ * split into eight buckets, so a percentile is off by at most one eighth of its value. Recording
+ * is a few shifts and one array increment. Not thread-safe; the owner synchronizes.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Up to 2^32 us (over an hour); anything longer lands in the last bucket.
+  private static final int MAX_EXPONENT = 32;
+  private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long count;
+  private long sumMicros;
+  private long maxMicros;
+
+  public void recordMicros(long micros) {
+    long value = Math.max(0L, micros);
+    counts[bucketFor(value)]++;
+    count++;
+    sumMicros += value;
+    maxMicros = Math.max(maxMicros, value);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Upper bound of the bucket holding the given percentile, capped at the largest value seen.
+   */
+  public long percentileMicros(double percentile) {
+    if (count == 0L) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100d));
+    long seen = 0L;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min(upperBound(bucket), maxMicros);
+      }
+    }
+    return maxMicros;
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0L);
+    count = 0L;
+    sumMicros = 0L;
+    maxMicros = 0L;
+  }
+
+  public Bundle toBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putDouble("count", count);
+    bundle.putDouble("meanMs", count == 0L ? 0d : sumMicros / 1000d / count);
+    bundle.putDouble("p50Ms", percentileMicros(50d) / 1000d);
+    bundle.putDouble("p90Ms", percentileMicros(90d) / 1000d);
+    bundle.putDouble("p99Ms", percentileMicros(99d) / 1000d);
+    bundle.putDouble("maxMs", maxMicros / 1000d);
+    return bundle;
+  }
+
+  static int bucketFor(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+    int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1L;
+  }
+}
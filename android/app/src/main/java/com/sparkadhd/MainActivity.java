@@ -6,12 +6,8 @@ import android.os.Bundle;
 import com.facebook.react.ReactActivity;
 import com.facebook.react.ReactActivityDelegate;
 import com.facebook.react.ReactInstanceManager;
-import com.facebook.react.ReactInstanceManager.ReactInstanceEventListener;
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactContext;
-import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.defaults.DefaultReactActivityDelegate;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 public class MainActivity extends ReactActivity {
   @Override
@@ -30,9 +26,16 @@ public class MainActivity extends ReactActivity {
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
+    ReactContextWarmer.getInstance(this).onActivityCreated();
     handleRouteIntent(getIntent());
   }
 
+  @Override
+  protected void onDestroy() {
+    ReactContextWarmer.getInstance(this).onActivityDestroyed();
+    super.onDestroy();
+  }
+
   @Override
   public void onNewIntent(Intent intent) {
     super.onNewIntent(intent);
@@ -51,35 +54,25 @@ public class MainActivity extends ReactActivity {
     }
 
     boolean autoRecord = intent.getBooleanExtra("autoRecord", false);
+    long requestedAtMs = intent.getLongExtra(OverlayService.EXTRA_ROUTE_REQUESTED_AT, -1L);
+    // The queue owns the intent from here; a recreated activity must not offer it again.
+    intent.removeExtra("route");
+    intent.removeExtra(OverlayService.EXTRA_ROUTE_REQUESTED_AT);
 
     ReactInstanceManager manager = getReactNativeHost().getReactInstanceManager();
     ReactContext context = manager.getCurrentReactContext();
+    OverlayRouteQueue routeQueue = OverlayRouteQueue.getInstance(this);
+    routeQueue.offer(route, autoRecord, requestedAtMs, context != null);
     if (context == null) {
-      final ReactInstanceEventListener listener = new ReactInstanceEventListener() {
-        @Override
-        public void onReactContextInitialized(ReactContext initializedContext) {
-          emitOverlayRouteIntent(initializedContext, route, autoRecord);
-          manager.removeReactInstanceEventListener(this);
-        }
-      };
-
-      manager.addReactInstanceEventListener(listener);
+      // JS drains the queue once navigation is ready.
       if (!manager.hasStartedCreatingInitialContext()) {
         manager.createReactContextInBackground();
       }
       return;
     }
 
-    emitOverlayRouteIntent(context, route, autoRecord);
-  }
-
-  private void emitOverlayRouteIntent(ReactContext context, String route, boolean autoRecord) {
-    WritableMap payload = Arguments.createMap();
-    payload.putString("route", route);
-    payload.putBoolean("autoRecord", autoRecord);
-
-    context
-      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-      .emit("overlayRouteIntent", payload);
+    if (routeQueue.isJsReady()) {
+      OverlayEventBus.getInstance().post(OverlayEventBus.TYPE_ROUTE_QUEUED, null);
+    }
   }
 }
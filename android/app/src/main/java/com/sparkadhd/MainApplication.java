@@ -41,4 +41,10 @@ public class MainApplication extends Application implements ReactApplication {
     super.onCreate();
     SoLoader.init(this, /* native exopackage */ false);
   }
+
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    ReactContextWarmer.getInstance(this).onTrimMemory(level);
+  }
 }
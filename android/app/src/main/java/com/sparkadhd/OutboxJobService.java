@@ -0,0 +1,43 @@
+package com.sparkadhd;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+/**
+ * Wakes {@link RequestOutbox} when a queued request is due or a network comes back while the
+ * app is closed. The outbox reschedules it only when the time its next request is due changes,
+ * and cancels it once nothing is left.
+ */
+public class OutboxJobService extends JobService {
+  private static final int JOB_ID = 0x5350_4f42; // "SPOB"
+
+  public static void schedule(Context context, long delayMs) {
+    context.getSystemService(JobScheduler.class).schedule(
+      new JobInfo.Builder(JOB_ID, new ComponentName(context, OutboxJobService.class))
+        .setMinimumLatency(delayMs)
+        .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+        .setPersisted(true)
+        .build()
+    );
+  }
+
+  public static void cancel(Context context) {
+    context.getSystemService(JobScheduler.class).cancel(JOB_ID);
+  }
+
+  @Override
+  public boolean onStartJob(JobParameters params) {
+    RequestOutbox.getInstance(this).drainNow(() -> jobFinished(params, false));
+    return true;
+  }
+
+  @Override
+  public boolean onStopJob(JobParameters params) {
+    // Requests in flight finish on the outbox thread; anything left reschedules this job.
+    return false;
+  }
+}
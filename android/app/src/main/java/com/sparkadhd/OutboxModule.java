@@ -0,0 +1,181 @@
+package com.sparkadhd;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JS access to {@link RequestOutbox}. Enqueueing resolves as soon as the request is on disk,
+ * with its id and whether it is being sent now or waits for a network or a retry. Its result
+ * arrives later as an {@code outboxCompleted} event carrying the same id, and an
+ * {@code outboxQueued} event says when a send failed and was pushed back. Results that finish
+ * while JS is not listening stay in the outbox journal and are emitted once it listens again.
+ */
+public class OutboxModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "OutboxModule";
+  private static final String EVENT_COMPLETED = "outboxCompleted";
+  private static final String EVENT_QUEUED = "outboxQueued";
+
+  private final ReactApplicationContext reactContext;
+  private final RequestOutbox outbox;
+  private final RequestOutbox.Listener listener = new RequestOutbox.Listener() {
+    @Override
+    public boolean onCompleted(RequestOutbox.Completion completion) {
+      return emitCompleted(completion);
+    }
+
+    @Override
+    public void onQueued(String id, String state) {
+      emitQueued(id, state);
+    }
+  };
+  // JS subscriptions, counted through addListener and removeListeners.
+  private final AtomicInteger jsListeners = new AtomicInteger();
+
+  public OutboxModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    this.reactContext = reactContext;
+    outbox = RequestOutbox.getInstance(reactContext);
+    outbox.addListener(listener);
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @ReactMethod
+  public void enqueue(ReadableMap spec, Promise promise) {
+    RequestOutbox.Request request = new RequestOutbox.Request();
+    request.kind = spec.getString("kind");
+    request.url = spec.getString("url");
+    if (request.kind == null || request.url == null) {
+      promise.reject("E_OUTBOX_ARGS", "kind and url are required");
+      return;
+    }
+    if (spec.hasKey("method") && spec.getType("method") == ReadableType.String) {
+      request.method = spec.getString("method");
+    }
+    readStrings(spec, "headers", request.headers);
+    request.body = optString(spec, "body");
+    ReadableMap file = spec.hasKey("file") && spec.getType("file") == ReadableType.Map ? spec.getMap("file") : null;
+    if (file != null) {
+      request.filePath = optString(file, "uri");
+      request.fileField = orDefault(optString(file, "field"), request.fileField);
+      request.fileName = orDefault(optString(file, "name"), request.fileName);
+      request.fileType = orDefault(optString(file, "type"), request.fileType);
+    }
+    readStrings(spec, "fields", request.fields);
+    request.dedupe = spec.hasKey("dedupe") && spec.getType("dedupe") == ReadableType.Boolean && spec.getBoolean("dedupe");
+    if (spec.hasKey("ttlMs") && spec.getType("ttlMs") == ReadableType.Number) {
+      request.ttlMs = (long) spec.getDouble("ttlMs");
+    }
+    request.brainDumpRecord = optString(spec, "brainDumpRecord");
+
+    outbox.enqueue(request, (id, state, error) -> {
+      if (error != null) {
+        promise.reject("E_OUTBOX_WRITE", error);
+        return;
+      }
+      WritableMap result = Arguments.createMap();
+      result.putString("id", id);
+      result.putString("state", state);
+      promise.resolve(result);
+    });
+  }
+
+  @ReactMethod
+  public void getStats(Promise promise) {
+    outbox.stats((stats) -> {
+      WritableMap map = Arguments.createMap();
+      for (Map.Entry<String, Double> entry : stats.entrySet()) {
+        map.putDouble(entry.getKey(), entry.getValue());
+      }
+      promise.resolve(map);
+    });
+  }
+
+  @ReactMethod
+  public void addListener(String eventName) {
+    if (jsListeners.getAndIncrement() == 0) {
+      outbox.flushUndelivered();
+    }
+  }
+
+  @ReactMethod
+  public void removeListeners(double count) {
+    jsListeners.updateAndGet((current) -> Math.max(0, current - (int) count));
+  }
+
+  @Override
+  public void invalidate() {
+    outbox.removeListener(listener);
+    super.invalidate();
+  }
+
+  private boolean emitCompleted(RequestOutbox.Completion completion) {
+    if (!canEmit()) {
+      return false;
+    }
+    WritableMap payload = Arguments.createMap();
+    payload.putString("id", completion.id);
+    payload.putString("kind", completion.kind);
+    payload.putBoolean("ok", completion.ok);
+    payload.putInt("status", completion.status);
+    payload.putString("body", completion.body);
+    payload.putString("error", completion.error);
+    payload.putString("record", completion.record);
+    reactContext
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+      .emit(EVENT_COMPLETED, payload);
+    return true;
+  }
+
+  private void emitQueued(String id, String state) {
+    if (!canEmit()) {
+      return;
+    }
+    WritableMap payload = Arguments.createMap();
+    payload.putString("id", id);
+    payload.putString("state", state);
+    reactContext
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+      .emit(EVENT_QUEUED, payload);
+  }
+
+  private boolean canEmit() {
+    return jsListeners.get() > 0 && reactContext.hasActiveCatalystInstance();
+  }
+
+  private static void readStrings(ReadableMap spec, String key, Map<String, String> target) {
+    if (!spec.hasKey(key) || spec.getType(key) != ReadableType.Map) {
+      return;
+    }
+    ReadableMap map = spec.getMap(key);
+    ReadableMapKeySetIterator iterator = map.keySetIterator();
+    while (iterator.hasNextKey()) {
+      String name = iterator.nextKey();
+      if (map.getType(name) == ReadableType.String) {
+        target.put(name, map.getString(name));
+      }
+    }
+  }
+
+  private static String optString(ReadableMap map, String key) {
+    return map.hasKey(key) && map.getType(key) == ReadableType.String ? map.getString(key) : null;
+  }
+
+  private static String orDefault(String value, String fallback) {
+    return value == null ? fallback : value;
+  }
+}
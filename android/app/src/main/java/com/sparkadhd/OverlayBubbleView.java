@@ -0,0 +1,141 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * The overlay bubble: a fixed-size circle with the task count drawn on top, or the minutes
+ * left while a focus timer runs.
+ *
+ * Label changes only rebuild a small char buffer from cached digit widths and invalidate, so
+ * they never trigger a layout pass or a relayout of the overlay window.
+ */
+public class OverlayBubbleView extends View {
+  private static final int BUBBLE_COLOR = 0xFF2D89EF;
+  private static final int TIMER_COLOR = 0xFFEF4444;
+  private static final int TIMER_PAUSED_COLOR = 0xFF6B7280;
+  private static final int TEXT_COLOR = 0xFFFFFFFF;
+  private static final float TEXT_SIZE_SP = 16f;
+  private static final int MAX_DISPLAY_COUNT = 99;
+
+  private final int sizePx;
+  private final Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final float[] digitWidths = new float[10];
+  private final float plusWidth;
+  private final float minuteWidth;
+  private final float textBaselineOffset;
+  private final char[] label = new char[3];
+  private int labelLength;
+  private float labelWidth;
+  private int count = -1;
+  private int timerMinutes = -1;
+  private boolean timerPaused;
+
+  public OverlayBubbleView(Context context, int sizePx) {
+    super(context);
+    this.sizePx = sizePx;
+
+    circlePaint.setStyle(Paint.Style.FILL);
+    circlePaint.setColor(BUBBLE_COLOR);
+    textPaint.setColor(TEXT_COLOR);
+    textPaint.setTextSize(TypedValue.applyDimension(
+      TypedValue.COMPLEX_UNIT_SP,
+      TEXT_SIZE_SP,
+      context.getResources().getDisplayMetrics()
+    ));
+
+    for (int digit = 0; digit < digitWidths.length; digit++) {
+      digitWidths[digit] = textPaint.measureText(String.valueOf(digit));
+    }
+    plusWidth = textPaint.measureText("+");
+    minuteWidth = textPaint.measureText("m");
+    Paint.FontMetrics metrics = textPaint.getFontMetrics();
+    textBaselineOffset = -(metrics.ascent + metrics.descent) / 2f;
+    setCount(0);
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Show a count, using "99+" above {@link #MAX_DISPLAY_COUNT}. Unchanged values are ignored.
+   */
+  public void setCount(int nextCount) {
+    int normalized = Math.max(0, nextCount);
+    if (normalized == count) {
+      return;
+    }
+    count = normalized;
+    if (timerMinutes < 0) {
+      setLabel(normalized, false);
+    }
+  }
+
+  /**
+   * Show {@code minutes} left as "25m" instead of the count, or the count again when
+   * {@code minutes} is negative.
+   */
+  public void setTimer(int minutes, boolean paused) {
+    int normalized = Math.max(-1, minutes);
+    if (normalized == timerMinutes && paused == timerPaused) {
+      return;
+    }
+    timerMinutes = normalized;
+    timerPaused = paused;
+    if (normalized < 0) {
+      circlePaint.setColor(BUBBLE_COLOR);
+      setLabel(count, false);
+    } else {
+      circlePaint.setColor(paused ? TIMER_PAUSED_COLOR : TIMER_COLOR);
+      setLabel(normalized, true);
+    }
+  }
+
+  private void setLabel(int normalized, boolean minutes) {
+    if (normalized > MAX_DISPLAY_COUNT) {
+      label[0] = '9';
+      label[1] = '9';
+      label[2] = '+';
+      labelLength = 3;
+      labelWidth = digitWidths[9] * 2 + plusWidth;
+    } else if (normalized >= 10) {
+      label[0] = (char) ('0' + normalized / 10);
+      label[1] = (char) ('0' + normalized % 10);
+      labelLength = 2;
+      labelWidth = digitWidths[normalized / 10] + digitWidths[normalized % 10];
+    } else {
+      label[0] = (char) ('0' + normalized);
+      labelLength = 1;
+      labelWidth = digitWidths[normalized];
+    }
+    if (minutes && labelLength < label.length) {
+      label[labelLength++] = 'm';
+      labelWidth += minuteWidth;
+    }
+    invalidate();
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    setMeasuredDimension(sizePx, sizePx);
+  }
+
+  @Override
+  protected void onDraw(Canvas canvas) {
+    float radius = sizePx / 2f;
+    canvas.drawCircle(radius, radius, radius, circlePaint);
+    canvas.drawText(label, 0, labelLength, radius - labelWidth / 2f, radius + textBaselineOffset, textPaint);
+  }
+
+  @Override
+  public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+    super.onInitializeAccessibilityNodeInfo(info);
+    info.setText(new String(label, 0, labelLength));
+  }
+}
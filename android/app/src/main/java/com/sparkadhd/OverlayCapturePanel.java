@@ -0,0 +1,333 @@
+package com.sparkadhd;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.GradientDrawable;
+import android.media.MediaRecorder;
+import android.os.Build;
+import android.os.SystemClock;
+import android.text.InputType;
+import android.view.Gravity;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A small focusable overlay window that captures a typed line or a voice clip straight into
+ * {@link OverlayCaptureQueue}, so quick capture never waits for React Native to start.
+ *
+ * The view is built once and kept; a draft survives the panel being dismissed.
+ */
+public class OverlayCapturePanel {
+  public interface Host {
+    void onCaptureQueued();
+
+    /**
+     * Voice capture is not possible natively, for example without the microphone permission.
+     */
+    void onVoiceUnavailable();
+  }
+
+  private static final int PANEL_TOP_DP = 96;
+  private static final int PANEL_MAX_WIDTH_DP = 360;
+  private static final long MIN_CLIP_MS = 500L;
+
+  private final Context context;
+  private final WindowManager windowManager;
+  private final OverlayGeometry geometry;
+  private final OverlayCaptureQueue captureQueue;
+  private final Host host;
+  private LinearLayout panelView;
+  private EditText inputView;
+  private TextView voiceButton;
+  private WindowManager.LayoutParams panelParams;
+  private MediaRecorder recorder;
+  private File recordingFile;
+  private long recordingStartedAtMs;
+  private long showRequestedAtMs;
+
+  private final ViewTreeObserver.OnPreDrawListener firstDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+    @Override
+    public boolean onPreDraw() {
+      panelView.getViewTreeObserver().removeOnPreDrawListener(this);
+      captureQueue.recordPanelOpen(SystemClock.uptimeMillis() - showRequestedAtMs);
+      return true;
+    }
+  };
+
+  public OverlayCapturePanel(
+    Context context,
+    WindowManager windowManager,
+    OverlayGeometry geometry,
+    OverlayCaptureQueue captureQueue,
+    Host host
+  ) {
+    this.context = context;
+    this.windowManager = windowManager;
+    this.geometry = geometry;
+    this.captureQueue = captureQueue;
+    this.host = host;
+  }
+
+  public boolean isShowing() {
+    return panelView != null && panelView.isAttachedToWindow();
+  }
+
+  /**
+   * Show the panel; with {@code startVoice} recording begins right away.
+   */
+  public void show(boolean startVoice) {
+    if (startVoice && !canRecordAudio()) {
+      host.onVoiceUnavailable();
+      return;
+    }
+
+    showRequestedAtMs = SystemClock.uptimeMillis();
+    ensurePanelView();
+    ensurePanelParams();
+    if (!isShowing()) {
+      try {
+        panelView.getViewTreeObserver().addOnPreDrawListener(firstDrawListener);
+        windowManager.addView(panelView, panelParams);
+      } catch (RuntimeException exception) {
+        panelView.getViewTreeObserver().removeOnPreDrawListener(firstDrawListener);
+        return;
+      }
+    }
+
+    if (startVoice) {
+      startRecording();
+    } else {
+      inputView.requestFocus();
+    }
+  }
+
+  /**
+   * Hide the panel. A clip being recorded is kept, since the user already spoke it.
+   */
+  public void dismiss() {
+    stopRecording(true);
+    if (isShowing()) {
+      try {
+        windowManager.removeView(panelView);
+      } catch (IllegalArgumentException ignored) {
+      }
+    }
+  }
+
+  public void onConfigurationChanged() {
+    if (panelParams != null) {
+      panelParams.width = panelWidth();
+      if (isShowing()) {
+        windowManager.updateViewLayout(panelView, panelParams);
+      }
+    }
+  }
+
+  private void ensurePanelView() {
+    if (panelView != null) {
+      return;
+    }
+
+    panelView = new LinearLayout(context) {
+      @Override
+      public boolean dispatchKeyEvent(KeyEvent event) {
+        if (event.getKeyCode() == KeyEvent.KEYCODE_BACK && event.getAction() == KeyEvent.ACTION_UP) {
+          dismiss();
+          return true;
+        }
+        return super.dispatchKeyEvent(event);
+      }
+    };
+    panelView.setOrientation(LinearLayout.VERTICAL);
+    int padding = geometry.dpToPx(12);
+    panelView.setPadding(padding, padding, padding, padding);
+
+    GradientDrawable background = new GradientDrawable();
+    background.setColor(0xFF1A1A2E);
+    background.setCornerRadius(geometry.dpToPx(16));
+    background.setStroke(geometry.dpToPx(1), 0xFF2D89EF);
+    panelView.setBackground(background);
+    panelView.setOnTouchListener((view, event) -> {
+      if (event.getActionMasked() != MotionEvent.ACTION_OUTSIDE) {
+        return false;
+      }
+      dismiss();
+      return true;
+    });
+
+    inputView = new EditText(context);
+    inputView.setHint("Brain dump...");
+    inputView.setTextColor(0xFFFFFFFF);
+    inputView.setHintTextColor(0x99FFFFFF);
+    inputView.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_SENTENCES);
+    inputView.setImeOptions(EditorInfo.IME_ACTION_DONE);
+    inputView.setOnEditorActionListener((view, actionId, event) -> {
+      if (actionId == EditorInfo.IME_ACTION_DONE) {
+        saveText();
+        return true;
+      }
+      return false;
+    });
+    panelView.addView(inputView, new LinearLayout.LayoutParams(
+      LinearLayout.LayoutParams.MATCH_PARENT,
+      LinearLayout.LayoutParams.WRAP_CONTENT
+    ));
+
+    LinearLayout actions = new LinearLayout(context);
+    actions.setOrientation(LinearLayout.HORIZONTAL);
+    actions.setGravity(Gravity.END);
+    voiceButton = addAction(actions, "Voice", (ignored) -> toggleRecording());
+    addAction(actions, "Cancel", (ignored) -> {
+      stopRecording(false);
+      dismiss();
+    });
+    addAction(actions, "Save", (ignored) -> saveText());
+    panelView.addView(actions);
+  }
+
+  private TextView addAction(LinearLayout actions, String label, View.OnClickListener listener) {
+    TextView action = new TextView(context);
+    action.setText(label);
+    action.setTextColor(0xFF2D89EF);
+    action.setTextSize(15f);
+    action.setMinHeight(geometry.dpToPx(48));
+    action.setGravity(Gravity.CENTER);
+    int padding = geometry.dpToPx(12);
+    action.setPadding(padding, 0, padding, 0);
+    action.setOnClickListener(listener);
+    actions.addView(action);
+    return action;
+  }
+
+  private void ensurePanelParams() {
+    if (panelParams != null) {
+      return;
+    }
+
+    // Focusable so the keyboard can attach; outside touches still reach the app underneath.
+    panelParams = new WindowManager.LayoutParams(
+      panelWidth(),
+      WindowManager.LayoutParams.WRAP_CONTENT,
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+        ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+        : WindowManager.LayoutParams.TYPE_PHONE,
+      WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL | WindowManager.LayoutParams.FLAG_WATCH_OUTSIDE_TOUCH,
+      PixelFormat.TRANSLUCENT
+    );
+    panelParams.gravity = Gravity.TOP | Gravity.CENTER_HORIZONTAL;
+    panelParams.y = geometry.dpToPx(PANEL_TOP_DP);
+    panelParams.softInputMode = WindowManager.LayoutParams.SOFT_INPUT_STATE_VISIBLE
+      | WindowManager.LayoutParams.SOFT_INPUT_ADJUST_PAN;
+  }
+
+  private int panelWidth() {
+    int margin = geometry.getEdgeMarginPx() * 2;
+    return Math.min(geometry.getScreenWidthPx() - margin, geometry.dpToPx(PANEL_MAX_WIDTH_DP));
+  }
+
+  private void saveText() {
+    long requestedAtMs = SystemClock.uptimeMillis();
+    String text = inputView.getText().toString().trim();
+    if (text.isEmpty()) {
+      dismiss();
+      return;
+    }
+
+    captureQueue.enqueueText(text, requestedAtMs);
+    inputView.setText("");
+    host.onCaptureQueued();
+    dismiss();
+  }
+
+  private boolean canRecordAudio() {
+    return context.checkSelfPermission(Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED;
+  }
+
+  private void toggleRecording() {
+    if (recorder != null) {
+      stopRecording(true);
+      dismiss();
+      return;
+    }
+    if (!canRecordAudio()) {
+      dismiss();
+      host.onVoiceUnavailable();
+      return;
+    }
+    startRecording();
+  }
+
+  @SuppressWarnings("deprecation")
+  private void startRecording() {
+    if (recorder != null) {
+      return;
+    }
+
+    File outputFile = captureQueue.newAudioFile();
+    MediaRecorder nextRecorder = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+      ? new MediaRecorder(context)
+      : new MediaRecorder();
+    try {
+      nextRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
+      nextRecorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
+      nextRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
+      nextRecorder.setAudioChannels(1);
+      nextRecorder.setAudioSamplingRate(16000);
+      nextRecorder.setAudioEncodingBitRate(32000);
+      nextRecorder.setOutputFile(outputFile.getAbsolutePath());
+      nextRecorder.prepare();
+      nextRecorder.start();
+    } catch (IOException | RuntimeException exception) {
+      nextRecorder.release();
+      outputFile.delete();
+      dismiss();
+      host.onVoiceUnavailable();
+      return;
+    }
+
+    recorder = nextRecorder;
+    recordingFile = outputFile;
+    recordingStartedAtMs = SystemClock.uptimeMillis();
+    voiceButton.setText("Stop");
+  }
+
+  private void stopRecording(boolean keep) {
+    if (recorder == null) {
+      return;
+    }
+
+    long requestedAtMs = SystemClock.uptimeMillis();
+    long durationMs = requestedAtMs - recordingStartedAtMs;
+    boolean stopped;
+    try {
+      recorder.stop();
+      stopped = true;
+    } catch (RuntimeException exception) {
+      // stop() throws when no audio was captured yet.
+      stopped = false;
+    }
+    recorder.release();
+    recorder = null;
+    voiceButton.setText("Voice");
+
+    if (keep && stopped && durationMs >= MIN_CLIP_MS) {
+      captureQueue.enqueueAudio(recordingFile, durationMs, requestedAtMs);
+      host.onCaptureQueued();
+    } else {
+      recordingFile.delete();
+    }
+    recordingFile = null;
+  }
+}
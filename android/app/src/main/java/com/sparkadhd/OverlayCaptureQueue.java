@@ -0,0 +1,263 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Brain-dump items captured from the overlay while React Native may not be running.
+ *
+ * Items are appended as JSON lines to a small file on a background writer. JS reads the
+ * pending items on startup, on resume and on each {@link OverlayEventBus#TYPE_CAPTURE_QUEUED}
+ * event, merges them into its brainDump storage and then acknowledges them, so a crash between
+ * the two steps replays items instead of losing them.
+ */
+public class OverlayCaptureQueue {
+  public static final String TYPE_TEXT = "text";
+  public static final String TYPE_AUDIO = "audio";
+
+  private static final String TAG = "OverlayCaptureQueue";
+  private static final String QUEUE_FILE_NAME = "spark_capture_queue.jsonl";
+  private static final String AUDIO_DIR_NAME = "overlay_captures";
+
+  private static OverlayCaptureQueue instance;
+
+  private final File queueFile;
+  private final File audioDir;
+  private final Handler writerHandler;
+  private final AtomicInteger sequence = new AtomicInteger();
+  // Guarded by this.
+  private long capturesQueued;
+  private long lastPanelOpenMs = -1L;
+  private long lastCaptureDurableMs = -1L;
+  private long maxCaptureDurableMs = -1L;
+  private boolean tailChecked;
+
+  public static synchronized OverlayCaptureQueue getInstance(Context context) {
+    if (instance == null) {
+      instance = new OverlayCaptureQueue(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private OverlayCaptureQueue(Context appContext) {
+    queueFile = new File(appContext.getFilesDir(), QUEUE_FILE_NAME);
+    audioDir = new File(appContext.getFilesDir(), AUDIO_DIR_NAME);
+    HandlerThread writerThread = new HandlerThread("SparkCaptureWriter", Process.THREAD_PRIORITY_BACKGROUND);
+    writerThread.start();
+    writerHandler = new Handler(writerThread.getLooper());
+  }
+
+  /**
+   * A fresh file for a voice clip. The directory is created on first use.
+   */
+  public File newAudioFile() {
+    if (!audioDir.isDirectory() && !audioDir.mkdirs()) {
+      Log.w(TAG, "Could not create " + audioDir);
+    }
+    return new File(audioDir, newCaptureId() + ".m4a");
+  }
+
+  /**
+   * Queue a typed line. {@code requestedAtMs} is the uptime of the user's save tap.
+   */
+  public void enqueueText(String text, long requestedAtMs) {
+    JSONObject item = newItem(TYPE_TEXT);
+    try {
+      item.put("text", text);
+    } catch (JSONException exception) {
+      return;
+    }
+    append(item, requestedAtMs);
+  }
+
+  public void enqueueAudio(File audioFile, long durationMs, long requestedAtMs) {
+    JSONObject item = newItem(TYPE_AUDIO);
+    try {
+      item.put("audioPath", "file://" + audioFile.getAbsolutePath());
+      item.put("durationMs", durationMs);
+    } catch (JSONException exception) {
+      return;
+    }
+    append(item, requestedAtMs);
+  }
+
+  /**
+   * Items not yet acknowledged by JS, oldest first.
+   */
+  public synchronized List<Bundle> readPending() {
+    List<Bundle> pending = new ArrayList<>();
+    for (JSONObject item : readItems()) {
+      Bundle bundle = new Bundle();
+      bundle.putString("id", item.optString("id"));
+      bundle.putString("type", item.optString("type"));
+      bundle.putDouble("createdAt", item.optLong("createdAt"));
+      if (item.has("text")) {
+        bundle.putString("text", item.optString("text"));
+      }
+      if (item.has("audioPath")) {
+        bundle.putString("audioPath", item.optString("audioPath"));
+        bundle.putDouble("durationMs", item.optLong("durationMs"));
+      }
+      pending.add(bundle);
+    }
+    return pending;
+  }
+
+  /**
+   * Drop the given ids from the queue once JS has stored them.
+   */
+  public synchronized void acknowledge(Set<String> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    List<JSONObject> remaining = new ArrayList<>();
+    for (JSONObject item : readItems()) {
+      if (!ids.contains(item.optString("id"))) {
+        remaining.add(item);
+      }
+    }
+
+    File temp = new File(queueFile.getPath() + ".tmp");
+    try (FileOutputStream output = new FileOutputStream(temp)) {
+      Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+      for (JSONObject item : remaining) {
+        writer.write(item.toString());
+        writer.write('\n');
+      }
+      writer.flush();
+      output.getFD().sync();
+    } catch (IOException exception) {
+      Log.w(TAG, "Could not rewrite capture queue", exception);
+      temp.delete();
+      return;
+    }
+    if (!temp.renameTo(queueFile)) {
+      Log.w(TAG, "Could not replace capture queue");
+      temp.delete();
+    }
+  }
+
+  public synchronized void recordPanelOpen(long latencyMs) {
+    lastPanelOpenMs = latencyMs;
+  }
+
+  public synchronized Bundle statsToBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putDouble("capturesQueued", capturesQueued);
+    bundle.putDouble("lastPanelOpenMs", lastPanelOpenMs);
+    bundle.putDouble("lastCaptureDurableMs", lastCaptureDurableMs);
+    bundle.putDouble("maxCaptureDurableMs", maxCaptureDurableMs);
+    return bundle;
+  }
+
+  private String newCaptureId() {
+    return "capture-" + System.currentTimeMillis() + "-" + sequence.incrementAndGet();
+  }
+
+  private JSONObject newItem(String type) {
+    JSONObject item = new JSONObject();
+    try {
+      item.put("id", newCaptureId());
+      item.put("type", type);
+      item.put("createdAt", System.currentTimeMillis());
+    } catch (JSONException ignored) {
+      // Keys and values are never null here.
+    }
+    return item;
+  }
+
+  private void append(JSONObject item, long requestedAtMs) {
+    String line = item.toString() + '\n';
+    writerHandler.post(() -> appendLine(line, requestedAtMs));
+  }
+
+  private synchronized void appendLine(String line, long requestedAtMs) {
+    if (!tailChecked) {
+      tailChecked = true;
+      if (!endsWithNewline()) {
+        line = '\n' + line;
+      }
+    }
+
+    try (FileOutputStream output = new FileOutputStream(queueFile, true)) {
+      output.write(line.getBytes(StandardCharsets.UTF_8));
+      output.getFD().sync();
+    } catch (IOException exception) {
+      Log.w(TAG, "Could not append capture", exception);
+      return;
+    }
+
+    long durableMs = SystemClock.uptimeMillis() - requestedAtMs;
+    capturesQueued++;
+    lastCaptureDurableMs = durableMs;
+    maxCaptureDurableMs = Math.max(maxCaptureDurableMs, durableMs);
+    // Dropped unless a running JS listens; otherwise it merges the item right away.
+    OverlayEventBus.getInstance().post(OverlayEventBus.TYPE_CAPTURE_QUEUED, null);
+  }
+
+  /**
+   * A crash mid-append can leave a torn last line; start on a fresh one so it stays isolated.
+   */
+  private boolean endsWithNewline() {
+    if (queueFile.length() == 0L) {
+      return true;
+    }
+    try (RandomAccessFile file = new RandomAccessFile(queueFile, "r")) {
+      file.seek(file.length() - 1L);
+      return file.read() == '\n';
+    } catch (IOException exception) {
+      return true;
+    }
+  }
+
+  private List<JSONObject> readItems() {
+    List<JSONObject> items = new ArrayList<>();
+    if (!queueFile.exists()) {
+      return items;
+    }
+
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(new FileInputStream(queueFile), StandardCharsets.UTF_8)
+    )) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        try {
+          items.add(new JSONObject(line));
+        } catch (JSONException exception) {
+          // A torn final line from a crash mid-append; everything before it is intact.
+          Log.w(TAG, "Skipping unreadable capture line");
+        }
+      }
+    } catch (IOException exception) {
+      Log.w(TAG, "Could not read capture queue", exception);
+    }
+    return items;
+  }
+}
@@ -0,0 +1,91 @@
+package com.sparkadhd;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+
+/**
+ * Counts the overlay windows added for the expanded menu and how much translucent area they
+ * keep on screen, so scrim and outside-touch dismissal can be compared on a real device.
+ *
+ * Layer coverage is reported as pixel-milliseconds: window area times the time it stayed
+ * attached. Every translucent pixel there is one extra layer SurfaceFlinger composites over
+ * the app underneath.
+ */
+public class OverlayCompositionStats {
+  public static final int LAYER_MENU = 0;
+  public static final int LAYER_SCRIM = 1;
+  private static final int LAYER_COUNT = 2;
+
+  private static final OverlayCompositionStats instance = new OverlayCompositionStats();
+
+  private final long[] windowAdds = new long[LAYER_COUNT];
+  private final long[] windowRemoves = new long[LAYER_COUNT];
+  private final long[] layerPixelMs = new long[LAYER_COUNT];
+  private final long[] visibleSinceMs = new long[LAYER_COUNT];
+  private final long[] visibleAreaPx = new long[LAYER_COUNT];
+  private long scrimExpands;
+  private long outsideTouchExpands;
+  private long outsideTouchDismissals;
+
+  public static OverlayCompositionStats getInstance() {
+    return instance;
+  }
+
+  public synchronized void onExpand(boolean scrimMode) {
+    if (scrimMode) {
+      scrimExpands++;
+    } else {
+      outsideTouchExpands++;
+    }
+  }
+
+  public synchronized void onOutsideTouchDismiss() {
+    outsideTouchDismissals++;
+  }
+
+  public synchronized void onLayerAdded(int layer, long areaPx) {
+    windowAdds[layer]++;
+    visibleSinceMs[layer] = SystemClock.uptimeMillis();
+    visibleAreaPx[layer] = areaPx;
+  }
+
+  public synchronized void onLayerRemoved(int layer) {
+    windowRemoves[layer]++;
+    if (visibleSinceMs[layer] > 0L) {
+      layerPixelMs[layer] += visibleAreaPx[layer] * (SystemClock.uptimeMillis() - visibleSinceMs[layer]);
+      visibleSinceMs[layer] = 0L;
+    }
+  }
+
+  public synchronized Bundle toBundle() {
+    long expands = scrimExpands + outsideTouchExpands;
+    long windowCalls = 0L;
+    for (int layer = 0; layer < LAYER_COUNT; layer++) {
+      windowCalls += windowAdds[layer] + windowRemoves[layer];
+    }
+
+    Bundle bundle = new Bundle();
+    bundle.putDouble("scrimExpands", scrimExpands);
+    bundle.putDouble("outsideTouchExpands", outsideTouchExpands);
+    bundle.putDouble("outsideTouchDismissals", outsideTouchDismissals);
+    bundle.putDouble("menuWindowAdds", windowAdds[LAYER_MENU]);
+    bundle.putDouble("menuWindowRemoves", windowRemoves[LAYER_MENU]);
+    bundle.putDouble("scrimWindowAdds", windowAdds[LAYER_SCRIM]);
+    bundle.putDouble("scrimWindowRemoves", windowRemoves[LAYER_SCRIM]);
+    bundle.putDouble("windowCallsPerExpand", expands == 0L ? 0d : (double) windowCalls / expands);
+    bundle.putDouble("menuLayerPixelMs", layerPixelMs[LAYER_MENU]);
+    bundle.putDouble("scrimLayerPixelMs", layerPixelMs[LAYER_SCRIM]);
+    return bundle;
+  }
+
+  public synchronized void reset() {
+    for (int layer = 0; layer < LAYER_COUNT; layer++) {
+      windowAdds[layer] = 0L;
+      windowRemoves[layer] = 0L;
+      layerPixelMs[layer] = 0L;
+    }
+    scrimExpands = 0L;
+    outsideTouchExpands = 0L;
+    outsideTouchDismissals = 0L;
+  }
+}
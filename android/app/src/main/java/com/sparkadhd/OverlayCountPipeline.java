@@ -0,0 +1,141 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.view.Choreographer;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.sparkadhd.core.CountCoalescer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces bubble count updates from JS.
+ * {@link CountCoalescer} keeps the newest value; at most one frame callback is pending on the
+ * main thread, and persistence is batched on a background writer.
+ */
+public class OverlayCountPipeline {
+  public interface CountRenderer {
+    void renderCount(int count);
+  }
+
+  private static final long PERSIST_DELAY_MS = 250L;
+  private static final int NO_VALUE = CountCoalescer.NO_VALUE;
+
+  private static OverlayCountPipeline instance;
+
+  private final OverlayStateStore stateStore;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Handler writerHandler;
+  private final CountCoalescer coalescer;
+  // Main thread only.
+  private CountRenderer renderer;
+
+  private final Choreographer.FrameCallback frameCallback = (frameTimeNanos) -> applyLatestCount();
+  private final Runnable scheduleFrameRunnable = () ->
+    Choreographer.getInstance().postFrameCallback(frameCallback);
+  private final Runnable writeRunnable = this::persistLatestCount;
+
+  public static synchronized OverlayCountPipeline getInstance(Context context) {
+    if (instance == null) {
+      instance = new OverlayCountPipeline(OverlayStateStore.getInstance(context));
+    }
+    return instance;
+  }
+
+  private OverlayCountPipeline(OverlayStateStore stateStore) {
+    this.stateStore = stateStore;
+    HandlerThread writerThread = new HandlerThread("SparkOverlayWriter", Process.THREAD_PRIORITY_BACKGROUND);
+    writerThread.start();
+    writerHandler = new Handler(writerThread.getLooper());
+    coalescer = new CountCoalescer(new CountCoalescer.Scheduler() {
+      @Override
+      public void scheduleFrame() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+          scheduleFrameRunnable.run();
+        } else {
+          mainHandler.post(scheduleFrameRunnable);
+        }
+      }
+
+      @Override
+      public void scheduleWrite() {
+        writerHandler.postDelayed(writeRunnable, PERSIST_DELAY_MS);
+      }
+    });
+  }
+
+  /**
+   * Record a new count. Safe to call from any thread; unchanged values are dropped here.
+   */
+  public void submit(int count) {
+    coalescer.submit(count);
+  }
+
+  /**
+   * Latest known count, falling back to the persisted value before anything was submitted.
+   */
+  public int currentCount() {
+    int count = coalescer.latest();
+    if (count != NO_VALUE) {
+      return count;
+    }
+    return stateStore.getCount();
+  }
+
+  /**
+   * Attach the bubble on the main thread; it is rendered with the current count right away.
+   */
+  public void bind(CountRenderer countRenderer) {
+    renderer = countRenderer;
+    int count = currentCount();
+    coalescer.markRendered(count);
+    countRenderer.renderCount(count);
+  }
+
+  public void unbind(CountRenderer countRenderer) {
+    if (renderer == countRenderer) {
+      renderer = null;
+    }
+  }
+
+  /**
+   * Write any pending count now instead of waiting for the batch window.
+   */
+  public void flush() {
+    writerHandler.removeCallbacks(writeRunnable);
+    writerHandler.post(writeRunnable);
+  }
+
+  /**
+   * Block until everything already queued on the writer thread has run.
+   */
+  @VisibleForTesting
+  boolean awaitWriterIdle(long timeoutMs) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    writerHandler.post(latch::countDown);
+    return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void applyLatestCount() {
+    int count = coalescer.takeForRender();
+    // Without a renderer the count is re-read on the next bind.
+    if (count != NO_VALUE && renderer != null) {
+      renderer.renderCount(count);
+    }
+  }
+
+  private void persistLatestCount() {
+    int count = coalescer.takeForWrite();
+    if (count == NO_VALUE) {
+      return;
+    }
+    stateStore.setCount(count);
+    coalescer.markPersisted(count);
+  }
+}
@@ -0,0 +1,166 @@
+package com.sparkadhd;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.sparkadhd.core.EventBatcher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Native-to-JS channel for overlay signals. Events carry a type code from {@link #TYPE_NAMES}
+ * and a wall-clock timestamp; {@link EventBatcher} buffers them until the next Choreographer
+ * frame, which sends everything as one {@link #EVENT_BATCH} array of
+ * {@code [type, timestampMs, payload]} entries. JS lists the types it has listeners for, and
+ * the rest are dropped at {@link #post} without building or buffering anything.
+ */
+public class OverlayEventBus {
+  public static final int TYPE_OVERLAY_STARTED = 0;
+  public static final int TYPE_OVERLAY_STOPPED = 1;
+  public static final int TYPE_PERMISSION_REQUESTED = 2;
+  public static final int TYPE_PERMISSION_RESULT = 3;
+  public static final int TYPE_PERMISSION_TIMEOUT = 4;
+  public static final int TYPE_PERMISSION_ERROR = 5;
+  public static final int TYPE_ROUTE_QUEUED = 6;
+  public static final int TYPE_FOCUS_TIMER = 7;
+  public static final int TYPE_CAPTURE_QUEUED = 8;
+
+  // Indexed by type code; these are the event names JS listens for.
+  static final String[] TYPE_NAMES = {
+    "overlay_started",
+    "overlay_stopped",
+    "overlay_permission_requested",
+    "overlay_permission_result",
+    "overlay_permission_timeout",
+    "overlay_permission_error",
+    "overlayRouteQueued",
+    "focusTimerChanged",
+    "overlayCaptureQueued",
+  };
+
+  static final String EVENT_BATCH = "overlayEventBatch";
+
+  private static final EventBatcher.Sink DISCARD = (type, timestampMs, payload) -> { };
+
+  private static OverlayEventBus instance;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final EventBatcher batcher;
+  @Nullable private volatile ReactContext reactContext;
+
+  private final Choreographer.FrameCallback frameCallback = (frameTimeNanos) -> flush();
+  private final Runnable scheduleFrameRunnable = () ->
+    Choreographer.getInstance().postFrameCallback(frameCallback);
+
+  public static synchronized OverlayEventBus getInstance() {
+    if (instance == null) {
+      instance = new OverlayEventBus();
+    }
+    return instance;
+  }
+
+  private OverlayEventBus() {
+    batcher = new EventBatcher(() -> {
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        scheduleFrameRunnable.run();
+      } else {
+        mainHandler.post(scheduleFrameRunnable);
+      }
+    });
+  }
+
+  /**
+   * Name to type code, for the module constants.
+   */
+  static Map<String, Integer> typeCodes() {
+    Map<String, Integer> codes = new HashMap<>();
+    for (int type = 0; type < TYPE_NAMES.length; type++) {
+      codes.put(TYPE_NAMES[type], type);
+    }
+    return codes;
+  }
+
+  /**
+   * Deliver to {@code context} from now on. Subscriptions start empty: a new JS instance
+   * declares its own.
+   */
+  public void attach(ReactContext context) {
+    batcher.setSubscribed(0L);
+    reactContext = context;
+  }
+
+  public void detach(ReactContext context) {
+    if (reactContext == context) {
+      reactContext = null;
+      batcher.setSubscribed(0L);
+    }
+  }
+
+  public void setSubscribedTypes(int[] types) {
+    long mask = 0L;
+    for (int type : types) {
+      if (type >= 0 && type < TYPE_NAMES.length) {
+        mask |= 1L << type;
+      }
+    }
+    batcher.setSubscribed(mask);
+  }
+
+  /**
+   * Whether JS listens for {@code type}. Check before building a payload.
+   */
+  public boolean wants(int type) {
+    return batcher.wants(type);
+  }
+
+  /**
+   * Queue an event for the next frame. Safe to call from any thread.
+   */
+  public void post(int type, @Nullable WritableMap payload) {
+    batcher.post(type, System.currentTimeMillis(), payload);
+  }
+
+  public Map<String, Double> stats() {
+    Map<String, Double> stats = new HashMap<>();
+    stats.put("posted", (double) batcher.posted());
+    stats.put("filtered", (double) batcher.filtered());
+    stats.put("batches", (double) batcher.batches());
+    stats.put("largestBatch", (double) batcher.largestBatch());
+    return stats;
+  }
+
+  private void flush() {
+    ReactContext context = reactContext;
+    if (context == null || !context.hasActiveCatalystInstance()) {
+      // Nobody to deliver to; drop the frame's events without building anything.
+      batcher.drain(DISCARD);
+      return;
+    }
+    WritableArray batch = Arguments.createArray();
+    int count = batcher.drain((type, timestampMs, payload) -> {
+      WritableArray event = Arguments.createArray();
+      event.pushInt(type);
+      event.pushDouble(timestampMs);
+      if (payload == null) {
+        event.pushNull();
+      } else {
+        event.pushMap((WritableMap) payload);
+      }
+      batch.pushArray(event);
+    });
+    if (count > 0) {
+      context
+        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+        .emit(EVENT_BATCH, batch);
+    }
+  }
+}
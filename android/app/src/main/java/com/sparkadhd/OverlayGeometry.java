@@ -0,0 +1,105 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.sparkadhd.core.OverlayBounds;
+
+/**
+ * Pixel sizes and display properties used on the overlay touch path.
+ * Refreshed on create and on configuration changes so drag handling never re-reads resources.
+ */
+public class OverlayGeometry {
+  private static final int BUBBLE_SIZE_DP = 56;
+  private static final int EDGE_MARGIN_DP = 8;
+  private static final int DRAG_THRESHOLD_DP = 6;
+  private static final int MENU_WIDTH_DP = 220;
+  private static final float FALLBACK_REFRESH_RATE = 60f;
+
+  private final OverlayBounds bounds = new OverlayBounds();
+  private float density = 1f;
+  private int bubbleSizePx;
+  private int edgeMarginPx;
+  private int dragThresholdPx;
+  private int menuWidthPx;
+  private int screenWidthPx;
+  private int screenHeightPx;
+  private float refreshRate = FALLBACK_REFRESH_RATE;
+  private long frameIntervalNanos = Math.round(1_000_000_000d / FALLBACK_REFRESH_RATE);
+
+  public void update(Context context, WindowManager windowManager) {
+    DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+    density = metrics.density;
+    screenWidthPx = metrics.widthPixels;
+    screenHeightPx = metrics.heightPixels;
+    bubbleSizePx = dpToPx(BUBBLE_SIZE_DP);
+    edgeMarginPx = dpToPx(EDGE_MARGIN_DP);
+    dragThresholdPx = dpToPx(DRAG_THRESHOLD_DP);
+    menuWidthPx = dpToPx(MENU_WIDTH_DP);
+    bounds.update(screenWidthPx, screenHeightPx, edgeMarginPx, menuWidthPx);
+
+    float rate = FALLBACK_REFRESH_RATE;
+    if (windowManager != null) {
+      @SuppressWarnings("deprecation")
+      Display display = windowManager.getDefaultDisplay();
+      if (display != null && display.getRefreshRate() > 1f) {
+        rate = display.getRefreshRate();
+      }
+    }
+    refreshRate = rate;
+    frameIntervalNanos = Math.round(1_000_000_000d / rate);
+  }
+
+  public int dpToPx(float dp) {
+    return Math.round(dp * density);
+  }
+
+  public int getBubbleSizePx() {
+    return bubbleSizePx;
+  }
+
+  public int getEdgeMarginPx() {
+    return edgeMarginPx;
+  }
+
+  public int getDragThresholdPx() {
+    return dragThresholdPx;
+  }
+
+  public int getMenuWidthPx() {
+    return menuWidthPx;
+  }
+
+  public int getScreenWidthPx() {
+    return screenWidthPx;
+  }
+
+  public int getScreenHeightPx() {
+    return screenHeightPx;
+  }
+
+  public float getRefreshRate() {
+    return refreshRate;
+  }
+
+  public long getFrameIntervalNanos() {
+    return frameIntervalNanos;
+  }
+
+  /**
+   * Layout rules for the current screen, shared with the plain-Java core.
+   */
+  public OverlayBounds getBounds() {
+    return bounds;
+  }
+
+  public int clampBubbleX(int x, int bubbleSize) {
+    return bounds.clampBubbleX(x, bubbleSize);
+  }
+
+  public int clampBubbleY(int y, int bubbleSize) {
+    return bounds.clampBubbleY(y, bubbleSize);
+  }
+}
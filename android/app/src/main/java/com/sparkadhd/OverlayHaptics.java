@@ -0,0 +1,129 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+
+import com.sparkadhd.core.RateLimiter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Haptics for the overlay and for JS, dispatched on a dedicated background thread.
+ *
+ * The vibrator is resolved once and a fixed palette of effects is built up front, so callers
+ * on the touch path only do a rate-limit check and a handler post.
+ */
+public class OverlayHaptics {
+  public static final String EFFECT_TICK = "tick";
+  public static final String EFFECT_OPEN = "open";
+  public static final String EFFECT_SNAP = "snap";
+  public static final String EFFECT_ERROR = "error";
+  public static final List<String> EFFECT_NAMES = Collections.unmodifiableList(
+    Arrays.asList(EFFECT_TICK, EFFECT_OPEN, EFFECT_SNAP, EFFECT_ERROR)
+  );
+
+  private static final long HAPTIC_MIN_INTERVAL_MS = 160L;
+
+  private static OverlayHaptics instance;
+
+  private final Context appContext;
+  private final Handler hapticHandler;
+  private final RateLimiter rateLimiter = new RateLimiter(HAPTIC_MIN_INTERVAL_MS);
+  private final Map<String, Runnable> dispatchers = new HashMap<>();
+  // Haptic thread only.
+  private Vibrator vibrator;
+  private Map<String, VibrationEffect> palette;
+
+  public static synchronized OverlayHaptics getInstance(Context context) {
+    if (instance == null) {
+      instance = new OverlayHaptics(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private OverlayHaptics(Context appContext) {
+    this.appContext = appContext;
+    HandlerThread hapticThread = new HandlerThread("SparkOverlayHaptics", Process.THREAD_PRIORITY_DISPLAY);
+    hapticThread.start();
+    hapticHandler = new Handler(hapticThread.getLooper());
+    for (String effectName : EFFECT_NAMES) {
+      dispatchers.put(effectName, () -> vibrate(effectName));
+    }
+    hapticHandler.post(this::ensureResolved);
+  }
+
+  /**
+   * Queue a palette effect. Returns false for unknown names or when rate limited.
+   */
+  public boolean perform(String effectName) {
+    Runnable dispatcher = dispatchers.get(effectName);
+    if (dispatcher == null) {
+      return false;
+    }
+
+    if (!rateLimiter.tryAcquire(SystemClock.uptimeMillis())) {
+      return false;
+    }
+
+    hapticHandler.post(dispatcher);
+    return true;
+  }
+
+  private void vibrate(String effectName) {
+    ensureResolved();
+    if (vibrator == null) {
+      return;
+    }
+    try {
+      vibrator.vibrate(palette.get(effectName));
+    } catch (RuntimeException ignored) {
+      // Silently fail if haptics not available
+    }
+  }
+
+  private void ensureResolved() {
+    if (palette != null) {
+      return;
+    }
+
+    palette = buildPalette();
+    try {
+      Vibrator candidate;
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+        VibratorManager vibratorManager =
+          (VibratorManager) appContext.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+        candidate = vibratorManager != null ? vibratorManager.getDefaultVibrator() : null;
+      } else {
+        candidate = (Vibrator) appContext.getSystemService(Context.VIBRATOR_SERVICE);
+      }
+      vibrator = candidate != null && candidate.hasVibrator() ? candidate : null;
+    } catch (RuntimeException ignored) {
+      vibrator = null;
+    }
+  }
+
+  private static Map<String, VibrationEffect> buildPalette() {
+    Map<String, VibrationEffect> effects = new HashMap<>();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      effects.put(EFFECT_TICK, VibrationEffect.createPredefined(VibrationEffect.EFFECT_TICK));
+      effects.put(EFFECT_SNAP, VibrationEffect.createPredefined(VibrationEffect.EFFECT_CLICK));
+    } else {
+      effects.put(EFFECT_TICK, VibrationEffect.createOneShot(8, VibrationEffect.DEFAULT_AMPLITUDE));
+      effects.put(EFFECT_SNAP, VibrationEffect.createOneShot(10, VibrationEffect.DEFAULT_AMPLITUDE));
+    }
+    effects.put(EFFECT_OPEN, VibrationEffect.createOneShot(15, VibrationEffect.DEFAULT_AMPLITUDE));
+    effects.put(EFFECT_ERROR, VibrationEffect.createWaveform(new long[] {0, 20, 60, 20}, -1));
+    return effects;
+  }
+}
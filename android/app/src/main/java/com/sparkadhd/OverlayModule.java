@@ -1,11 +1,13 @@
 package com.sparkadhd;
 
+import android.Manifest;
 import android.app.Activity;
-import android.content.Context;
+import android.app.NotificationManager;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.Settings;
@@ -18,26 +20,35 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.facebook.react.module.annotations.ReactModule;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Overlay control surface for JS. The methods mirror {@code src/specs/NativeOverlayModule.ts};
+ * the {@code *Sync} getters are blocking synchronous methods, so they return without a promise
+ * round trip. They only read volatile fields or cached state and are safe on the JS thread.
+ */
+@ReactModule(name = OverlayModule.NAME)
 public class OverlayModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "OverlayModule";
   private static final int OVERLAY_PERMISSION_REQUEST_CODE = 4242;
   private static final long PERMISSION_TIMEOUT_MS = 20000L;
-  private static final String PREFS_NAME = "spark_overlay_prefs";
-  private static final String KEY_LAST_COUNT = "last_count";
-  private static final String EVENT_OVERLAY_STARTED = "overlay_started";
-  private static final String EVENT_OVERLAY_STOPPED = "overlay_stopped";
-  private static final String EVENT_PERMISSION_REQUESTED = "overlay_permission_requested";
-  private static final String EVENT_PERMISSION_RESULT = "overlay_permission_result";
-  private static final String EVENT_PERMISSION_TIMEOUT = "overlay_permission_timeout";
-  private static final String EVENT_PERMISSION_ERROR = "overlay_permission_error";
+  private static final String DISMISS_MODE_SCRIM = "scrim";
+  private static final String DISMISS_MODE_OUTSIDE_TOUCH = "outside_touch";
   private final ReactApplicationContext reactContext;
+  private final OverlayEventBus eventBus = OverlayEventBus.getInstance();
   private final Handler mainHandler = new Handler(Looper.getMainLooper());
   private Promise pendingPermissionPromise;
   private final Runnable permissionTimeoutRunnable = () -> {
     if (pendingPermissionPromise != null) {
-      emitEvent(EVENT_PERMISSION_TIMEOUT, null);
+      eventBus.post(OverlayEventBus.TYPE_PERMISSION_TIMEOUT, null);
       pendingPermissionPromise.reject(
         "E_OVERLAY_PERMISSION_TIMEOUT",
         "Overlay permission request timed out"
@@ -58,11 +69,22 @@ public class OverlayModule extends ReactContextBaseJavaModule {
     super(reactContext);
     this.reactContext = reactContext;
     this.reactContext.addActivityEventListener(activityEventListener);
+    eventBus.attach(reactContext);
   }
 
   @Override
   public String getName() {
-    return "OverlayModule";
+    return NAME;
+  }
+
+  @Override
+  public Map<String, Object> getConstants() {
+    Map<String, Object> constants = new HashMap<>();
+    constants.put("HAPTIC_EFFECTS", OverlayHaptics.EFFECT_NAMES);
+    constants.put("WARMUP_SIGNALS", ReactContextWarmer.SIGNAL_NAMES);
+    constants.put("EVENT_TYPES", OverlayEventBus.typeCodes());
+    constants.put("FOCUS_TIMER_KINDS", FocusTimerController.KIND_NAMES);
+    return constants;
   }
 
   @Override
@@ -76,25 +98,29 @@ public class OverlayModule extends ReactContextBaseJavaModule {
       pendingPermissionPromise = null;
     }
     reactContext.removeActivityEventListener(activityEventListener);
+    eventBus.detach(reactContext);
+    OverlayRouteQueue.getInstance(reactContext).onContextDestroyed();
     super.invalidate();
   }
 
   @ReactMethod
   public void startOverlay() {
+    // On the native modules thread, so onCreate finds the store and notification ready.
+    OverlayService.preload(reactContext);
     Intent intent = new Intent(reactContext, OverlayService.class);
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
       ContextCompat.startForegroundService(reactContext, intent);
     } else {
       reactContext.startService(intent);
     }
-    emitEvent(EVENT_OVERLAY_STARTED, null);
+    eventBus.post(OverlayEventBus.TYPE_OVERLAY_STARTED, null);
   }
 
   @ReactMethod
   public void stopOverlay() {
     Intent intent = new Intent(reactContext, OverlayService.class);
     reactContext.stopService(intent);
-    emitEvent(EVENT_OVERLAY_STOPPED, null);
+    eventBus.post(OverlayEventBus.TYPE_OVERLAY_STOPPED, null);
   }
 
   @ReactMethod
@@ -107,16 +133,36 @@ public class OverlayModule extends ReactContextBaseJavaModule {
     // Required by React Native's NativeEventEmitter.
   }
 
+  /**
+   * The event type codes JS has listeners for; events of any other type are never sent.
+   */
   @ReactMethod
-  public void updateCount(int count) {
-    OverlayService service = OverlayService.getInstance();
-    if (service != null) {
-      OverlayService.updateCount(count);
-      return;
+  public void setEventSubscriptions(ReadableArray types) {
+    int[] codes = new int[types.size()];
+    for (int index = 0; index < codes.length; index++) {
+      codes[index] = types.getInt(index);
     }
+    eventBus.setSubscribedTypes(codes);
+  }
+
+  @ReactMethod
+  public void getEventBusStats(Promise promise) {
+    WritableMap stats = Arguments.createMap();
+    for (Map.Entry<String, Double> entry : eventBus.stats().entrySet()) {
+      stats.putDouble(entry.getKey(), entry.getValue());
+    }
+    promise.resolve(stats);
+  }
 
-    SharedPreferences preferences = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-    preferences.edit().putInt(KEY_LAST_COUNT, count).apply();
+  // JS numbers cross as doubles in the codegen spec.
+  @ReactMethod
+  public void updateCount(double count) {
+    OverlayCountPipeline.getInstance(reactContext).submit((int) count);
+  }
+
+  @ReactMethod
+  public void performHaptic(String effect) {
+    OverlayHaptics.getInstance(reactContext).perform(effect);
   }
 
   @ReactMethod
@@ -133,6 +179,176 @@ public class OverlayModule extends ReactContextBaseJavaModule {
     promise.resolve(service != null && service.isExpanded());
   }
 
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean isExpandedSync() {
+    OverlayService service = OverlayService.getInstance();
+    return service != null && service.isExpanded();
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean isServiceRunningSync() {
+    return OverlayService.getInstance() != null;
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public double getCountSync() {
+    return OverlayCountPipeline.getInstance(reactContext).currentCount();
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean canDrawOverlaysSync() {
+    return Settings.canDrawOverlays(reactContext);
+  }
+
+  /**
+   * Whether the overlay's foreground notification can be shown: the runtime permission on
+   * Android 13+ and the app-level notification switch everywhere.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean canPostNotifications() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+      && ContextCompat.checkSelfPermission(reactContext, Manifest.permission.POST_NOTIFICATIONS)
+        != PackageManager.PERMISSION_GRANTED) {
+      return false;
+    }
+    NotificationManager manager = reactContext.getSystemService(NotificationManager.class);
+    return manager == null || manager.areNotificationsEnabled();
+  }
+
+  /**
+   * Count down {@code durationMs} in the bubble. JS gets a focusTimerChanged event for this
+   * and every later transition, never for ticks.
+   */
+  @ReactMethod
+  public void startFocusTimer(String kind, double durationMs) {
+    FocusTimerController.getInstance(reactContext).start(kind, (long) durationMs);
+  }
+
+  @ReactMethod
+  public void pauseFocusTimer() {
+    FocusTimerController.getInstance(reactContext).pause();
+  }
+
+  @ReactMethod
+  public void resumeFocusTimer() {
+    FocusTimerController.getInstance(reactContext).resume();
+  }
+
+  @ReactMethod
+  public void cancelFocusTimer() {
+    FocusTimerController.getInstance(reactContext).cancel();
+  }
+
+  @ReactMethod
+  public void getFocusTimer(Promise promise) {
+    promise.resolve(Arguments.fromBundle(FocusTimerController.getInstance(reactContext).toBundle()));
+  }
+
+  @ReactMethod
+  public void getFocusTimerStats(Promise promise) {
+    WritableMap stats = Arguments.createMap();
+    for (Map.Entry<String, Double> entry : FocusTimerController.getInstance(reactContext).stats().entrySet()) {
+      stats.putDouble(entry.getKey(), entry.getValue());
+    }
+    promise.resolve(stats);
+  }
+
+  @ReactMethod
+  public void setMenuDismissMode(String mode) {
+    OverlayStateStore.getInstance(reactContext).setScrimDismissEnabled(DISMISS_MODE_SCRIM.equals(mode));
+  }
+
+  @ReactMethod
+  public void getMenuDismissMode(Promise promise) {
+    boolean scrim = OverlayStateStore.getInstance(reactContext).isScrimDismissEnabled();
+    promise.resolve(scrim ? DISMISS_MODE_SCRIM : DISMISS_MODE_OUTSIDE_TOUCH);
+  }
+
+  @ReactMethod
+  public void getCompositionStats(Promise promise) {
+    promise.resolve(Arguments.fromBundle(OverlayCompositionStats.getInstance().toBundle()));
+  }
+
+  @ReactMethod
+  public void resetCompositionStats() {
+    OverlayCompositionStats.getInstance().reset();
+  }
+
+  @ReactMethod
+  public void getPerformanceSnapshot(Promise promise) {
+    promise.resolve(Arguments.fromBundle(OverlayPerformanceStats.getInstance().toBundle()));
+  }
+
+  @ReactMethod
+  public void resetPerformanceStats() {
+    OverlayPerformanceStats.getInstance().reset();
+  }
+
+  @ReactMethod
+  public void getPendingCaptures(Promise promise) {
+    WritableArray captures = Arguments.createArray();
+    for (Bundle capture : OverlayCaptureQueue.getInstance(reactContext).readPending()) {
+      captures.pushMap(Arguments.fromBundle(capture));
+    }
+    promise.resolve(captures);
+  }
+
+  @ReactMethod
+  public void acknowledgeCaptures(ReadableArray ids) {
+    Set<String> acknowledged = new HashSet<>();
+    for (int index = 0; index < ids.size(); index++) {
+      acknowledged.add(ids.getString(index));
+    }
+    OverlayCaptureQueue.getInstance(reactContext).acknowledge(acknowledged);
+  }
+
+  @ReactMethod
+  public void getCaptureStats(Promise promise) {
+    promise.resolve(Arguments.fromBundle(OverlayCaptureQueue.getInstance(reactContext).statsToBundle()));
+  }
+
+  @ReactMethod
+  public void drainRouteIntent(Promise promise) {
+    Bundle payload = OverlayRouteQueue.getInstance(reactContext).drain();
+    promise.resolve(payload == null ? null : Arguments.fromBundle(payload));
+  }
+
+  @ReactMethod
+  public void getRouteQueueStats(Promise promise) {
+    promise.resolve(Arguments.fromBundle(OverlayRouteQueue.getInstance(reactContext).statsToBundle()));
+  }
+
+  @ReactMethod
+  public void setWarmupSignals(ReadableArray signals) {
+    int mask = 0;
+    for (int index = 0; index < signals.size(); index++) {
+      mask |= ReactContextWarmer.signalForName(signals.getString(index));
+    }
+    OverlayStateStore.getInstance(reactContext).setWarmSignals(mask);
+  }
+
+  @ReactMethod
+  public void getWarmupSignals(Promise promise) {
+    int mask = OverlayStateStore.getInstance(reactContext).getWarmSignals(ReactContextWarmer.DEFAULT_SIGNALS);
+    WritableArray signals = Arguments.createArray();
+    for (String name : ReactContextWarmer.SIGNAL_NAMES) {
+      if ((mask & ReactContextWarmer.signalForName(name)) != 0) {
+        signals.pushString(name);
+      }
+    }
+    promise.resolve(signals);
+  }
+
+  @ReactMethod
+  public void getWarmupStats(Promise promise) {
+    promise.resolve(Arguments.fromBundle(ReactContextWarmer.getInstance(reactContext).statsToBundle()));
+  }
+
+  @ReactMethod
+  public void resetWarmupStats() {
+    ReactContextWarmer.getInstance(reactContext).resetStats();
+  }
+
   @ReactMethod
   public void canDrawOverlays(Promise promise) {
     boolean canDraw = Settings.canDrawOverlays(reactContext);
@@ -142,22 +358,20 @@ public class OverlayModule extends ReactContextBaseJavaModule {
   @ReactMethod
   public void requestOverlayPermission(Promise promise) {
     if (Settings.canDrawOverlays(reactContext)) {
-      WritableMap payload = Arguments.createMap();
-      payload.putBoolean("granted", true);
-      emitEvent(EVENT_PERMISSION_RESULT, payload);
+      postPermissionResult(true);
       promise.resolve(true);
       return;
     }
 
     if (pendingPermissionPromise != null) {
-      emitEvent(EVENT_PERMISSION_ERROR, null);
+      eventBus.post(OverlayEventBus.TYPE_PERMISSION_ERROR, null);
       promise.reject("E_OVERLAY_REQUEST_IN_PROGRESS", "Overlay permission request already in progress");
       return;
     }
 
     Activity currentActivity = getCurrentActivity();
     if (currentActivity == null) {
-      emitEvent(EVENT_PERMISSION_ERROR, null);
+      eventBus.post(OverlayEventBus.TYPE_PERMISSION_ERROR, null);
       promise.reject("E_ACTIVITY_UNAVAILABLE", "Activity is not available to request overlay permission");
       return;
     }
@@ -169,13 +383,13 @@ public class OverlayModule extends ReactContextBaseJavaModule {
     pendingPermissionPromise = promise;
 
     try {
-      emitEvent(EVENT_PERMISSION_REQUESTED, null);
+      eventBus.post(OverlayEventBus.TYPE_PERMISSION_REQUESTED, null);
       mainHandler.postDelayed(permissionTimeoutRunnable, PERMISSION_TIMEOUT_MS);
       currentActivity.startActivityForResult(intent, OVERLAY_PERMISSION_REQUEST_CODE);
     } catch (Exception exception) {
       mainHandler.removeCallbacks(permissionTimeoutRunnable);
       pendingPermissionPromise = null;
-      emitEvent(EVENT_PERMISSION_ERROR, null);
+      eventBus.post(OverlayEventBus.TYPE_PERMISSION_ERROR, null);
       promise.reject("E_OVERLAY_PERMISSION_REQUEST_FAILED", exception);
     }
   }
@@ -187,18 +401,17 @@ public class OverlayModule extends ReactContextBaseJavaModule {
 
     mainHandler.removeCallbacks(permissionTimeoutRunnable);
     boolean canDraw = Settings.canDrawOverlays(reactContext);
-    WritableMap payload = Arguments.createMap();
-    payload.putBoolean("granted", canDraw);
-    emitEvent(EVENT_PERMISSION_RESULT, payload);
+    postPermissionResult(canDraw);
     pendingPermissionPromise.resolve(canDraw);
     pendingPermissionPromise = null;
   }
 
-  private void emitEvent(String eventName, WritableMap payload) {
-    if (reactContext.hasActiveCatalystInstance()) {
-      reactContext
-        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-        .emit(eventName, payload);
+  private void postPermissionResult(boolean granted) {
+    if (!eventBus.wants(OverlayEventBus.TYPE_PERMISSION_RESULT)) {
+      return;
     }
+    WritableMap payload = Arguments.createMap();
+    payload.putBoolean("granted", granted);
+    eventBus.post(OverlayEventBus.TYPE_PERMISSION_RESULT, payload);
   }
 }
@@ -1,24 +1,69 @@
 package com.sparkadhd;
 
-import com.facebook.react.ReactPackage;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.BaseReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
+
+import java.util.HashMap;
+import java.util.Map;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+/**
+ * The app's native modules, created on first use from JS rather than at startup. All of them
+ * are bridge modules.
+ */
+public class OverlayPackage extends BaseReactPackage {
+  private static final String[] MODULE_NAMES = {
+    OverlayModule.NAME,
+    RecordStoreModule.NAME,
+    UXMetricsModule.NAME,
+    TasksSyncModule.NAME,
+    AudioStreamModule.NAME,
+    OutboxModule.NAME,
+    SortCacheModule.NAME,
+  };
 
-public class OverlayPackage implements ReactPackage {
+  @Nullable
   @Override
-  public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-    List<NativeModule> modules = new ArrayList<>();
-    modules.add(new OverlayModule(reactContext));
-    return modules;
+  public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+    switch (name) {
+      case OverlayModule.NAME:
+        return new OverlayModule(reactContext);
+      case RecordStoreModule.NAME:
+        return new RecordStoreModule(reactContext);
+      case UXMetricsModule.NAME:
+        return new UXMetricsModule(reactContext);
+      case TasksSyncModule.NAME:
+        return new TasksSyncModule(reactContext);
+      case AudioStreamModule.NAME:
+        return new AudioStreamModule(reactContext);
+      case OutboxModule.NAME:
+        return new OutboxModule(reactContext);
+      case SortCacheModule.NAME:
+        return new SortCacheModule(reactContext);
+      default:
+        return null;
+    }
   }
 
   @Override
-  public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-    return Collections.emptyList();
+  public ReactModuleInfoProvider getReactModuleInfoProvider() {
+    return () -> {
+      Map<String, ReactModuleInfo> infos = new HashMap<>();
+      for (String name : MODULE_NAMES) {
+        infos.put(name, new ReactModuleInfo(
+          name,
+          name,
+          false, // canOverrideExistingModule
+          false, // needsEagerInit
+          false, // isCxxModule
+          false // isTurboModule
+        ));
+      }
+      return infos;
+    };
   }
 }
@@ -0,0 +1,205 @@
+package com.sparkadhd;
+
+import android.os.Bundle;
+import android.os.Trace;
+import android.view.Choreographer;
+
+/**
+ * Field performance numbers for the overlay: latency histograms for the expensive steps and
+ * dropped-frame counters for interactions that animate.
+ *
+ * Timed steps also open a {@link Trace} section prefixed "Spark:" so they line up
+ * with system traces. Frame counting follows Choreographer only while an interaction is
+ * running; a frame that arrives N intervals after the previous one counts as N - 1 dropped.
+ */
+public class OverlayPerformanceStats {
+  public static final int METRIC_CREATE_OVERLAY = 0;
+  public static final int METRIC_EXPAND_MENU = 1;
+  public static final int METRIC_ADD_VIEW = 2;
+  public static final int METRIC_UPDATE_VIEW_LAYOUT = 3;
+  public static final int METRIC_DRAG_FRAME = 4;
+  public static final int METRIC_LAUNCH_ROUTE = 5;
+  public static final int METRIC_TIME_TO_BUBBLE = 6;
+  public static final int METRIC_START_FOREGROUND = 7;
+  public static final int METRIC_DEFERRED_STARTUP = 8;
+  private static final String[] METRIC_NAMES = {
+    "createOverlay",
+    "expandMenu",
+    "addView",
+    "updateViewLayout",
+    "dragFrameInterval",
+    "launchRouteToJs",
+    "timeToBubble",
+    "startForeground",
+    "deferredStartup",
+  };
+  private static final String[] TRACE_NAMES = {
+    "Spark:createOverlay",
+    "Spark:expandMenu",
+    "Spark:addView",
+    "Spark:updateViewLayout",
+    "Spark:dragFrameInterval",
+    "Spark:launchRouteToJs",
+    "Spark:timeToBubble",
+    "Spark:startForeground",
+    "Spark:deferredStartup",
+  };
+
+  public static final int INTERACTION_DRAG = 0;
+  public static final int INTERACTION_MENU_OPEN = 1;
+  public static final int INTERACTION_SETTLE = 2;
+  private static final String[] INTERACTION_NAMES = {"drag", "menuOpen", "settle"};
+
+  private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+  private static final OverlayPerformanceStats instance = new OverlayPerformanceStats();
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[METRIC_NAMES.length];
+  private final Choreographer.FrameCallback frameCallback = this::onFrame;
+  // Main thread only.
+  private int activeInteractions;
+  private long lastFrameTimeNanos;
+  private boolean framePosted;
+  // Guarded by this.
+  private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+  private final long[] interactions = new long[INTERACTION_NAMES.length];
+  private final long[] frames = new long[INTERACTION_NAMES.length];
+  private final long[] droppedFrames = new long[INTERACTION_NAMES.length];
+  private final long[] jankyFrames = new long[INTERACTION_NAMES.length];
+  private final long[] worstFrameNanos = new long[INTERACTION_NAMES.length];
+
+  public static OverlayPerformanceStats getInstance() {
+    return instance;
+  }
+
+  private OverlayPerformanceStats() {
+    for (int metric = 0; metric < histograms.length; metric++) {
+      histograms[metric] = new LatencyHistogram();
+    }
+  }
+
+  public synchronized void setFrameIntervalNanos(long intervalNanos) {
+    frameIntervalNanos = intervalNanos > 0L ? intervalNanos : DEFAULT_FRAME_INTERVAL_NANOS;
+  }
+
+  /**
+   * Open a trace section and return the start time to hand to {@link #endSection}.
+   */
+  public long beginSection(int metric) {
+    Trace.beginSection(TRACE_NAMES[metric]);
+    return System.nanoTime();
+  }
+
+  public void endSection(int metric, long startNanos) {
+    long elapsedNanos = System.nanoTime() - startNanos;
+    Trace.endSection();
+    recordNanos(metric, elapsedNanos);
+  }
+
+  public synchronized void recordNanos(int metric, long nanos) {
+    histograms[metric].recordMicros(nanos / 1000L);
+  }
+
+  /**
+   * Close the trace section now, but record the time until the next frame starts, i.e. the
+   * frame that shows whatever was just changed. Main thread only.
+   */
+  public void endSectionAtNextFrame(int metric, long startNanos) {
+    Trace.endSection();
+    Choreographer.getInstance().postFrameCallback(frameTimeNanos -> recordNanos(metric, System.nanoTime() - startNanos));
+  }
+
+  /**
+   * Start counting frames for an interaction. Main thread only.
+   */
+  public void startInteraction(int interaction) {
+    int bit = 1 << interaction;
+    if ((activeInteractions & bit) != 0) {
+      return;
+    }
+    activeInteractions |= bit;
+    synchronized (this) {
+      interactions[interaction]++;
+    }
+    if (!framePosted) {
+      framePosted = true;
+      lastFrameTimeNanos = 0L;
+      Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+  }
+
+  public void stopInteraction(int interaction) {
+    activeInteractions &= ~(1 << interaction);
+  }
+
+  public void stopAllInteractions() {
+    activeInteractions = 0;
+  }
+
+  public synchronized Bundle toBundle() {
+    Bundle latency = new Bundle();
+    for (int metric = 0; metric < histograms.length; metric++) {
+      latency.putBundle(METRIC_NAMES[metric], histograms[metric].toBundle());
+    }
+
+    Bundle jank = new Bundle();
+    for (int interaction = 0; interaction < INTERACTION_NAMES.length; interaction++) {
+      Bundle counters = new Bundle();
+      counters.putDouble("interactions", interactions[interaction]);
+      counters.putDouble("frames", frames[interaction]);
+      counters.putDouble("droppedFrames", droppedFrames[interaction]);
+      counters.putDouble("jankyFrames", jankyFrames[interaction]);
+      counters.putDouble("worstFrameMs", worstFrameNanos[interaction] / 1_000_000d);
+      jank.putBundle(INTERACTION_NAMES[interaction], counters);
+    }
+
+    Bundle bundle = new Bundle();
+    bundle.putBundle("latency", latency);
+    bundle.putBundle("jank", jank);
+    bundle.putDouble("frameIntervalMs", frameIntervalNanos / 1_000_000d);
+    return bundle;
+  }
+
+  public synchronized void reset() {
+    for (LatencyHistogram histogram : histograms) {
+      histogram.reset();
+    }
+    for (int interaction = 0; interaction < INTERACTION_NAMES.length; interaction++) {
+      interactions[interaction] = 0L;
+      frames[interaction] = 0L;
+      droppedFrames[interaction] = 0L;
+      jankyFrames[interaction] = 0L;
+      worstFrameNanos[interaction] = 0L;
+    }
+  }
+
+  private void onFrame(long frameTimeNanos) {
+    if (activeInteractions == 0) {
+      framePosted = false;
+      return;
+    }
+
+    if (lastFrameTimeNanos > 0L) {
+      long intervalNanos = frameTimeNanos - lastFrameTimeNanos;
+      synchronized (this) {
+        long dropped = Math.max(0L, Math.round((double) intervalNanos / frameIntervalNanos) - 1L);
+        for (int interaction = 0; interaction < INTERACTION_NAMES.length; interaction++) {
+          if ((activeInteractions & (1 << interaction)) == 0) {
+            continue;
+          }
+          frames[interaction]++;
+          droppedFrames[interaction] += dropped;
+          if (dropped > 0L) {
+            jankyFrames[interaction]++;
+          }
+          worstFrameNanos[interaction] = Math.max(worstFrameNanos[interaction], intervalNanos);
+        }
+        if ((activeInteractions & (1 << INTERACTION_DRAG)) != 0) {
+          histograms[METRIC_DRAG_FRAME].recordMicros(intervalNanos / 1000L);
+        }
+      }
+    }
+    lastFrameTimeNanos = frameTimeNanos;
+    Choreographer.getInstance().postFrameCallback(frameCallback);
+  }
+}
@@ -0,0 +1,169 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Route intents from overlay menu taps, held until JS drains them.
+ *
+ * Only the newest intent matters: a repeat of the pending route is merged into it and a
+ * different route supersedes it, so a burst of taps during a cold start ends in one
+ * navigation. The pending intent is written to a small file so it survives the process
+ * being killed before JS came up, and expires after {@link #MAX_AGE_MS}.
+ */
+public class OverlayRouteQueue {
+  private static final String TAG = "OverlayRouteQueue";
+  private static final String FILE_NAME = "spark_route_intent.json";
+  private static final long MAX_AGE_MS = 2 * 60 * 1000L;
+
+  private static OverlayRouteQueue instance;
+
+  private final AtomicFile file;
+  private final ReactContextWarmer contextWarmer;
+  // Guarded by this.
+  private String pendingRoute;
+  private boolean pendingAutoRecord;
+  private long pendingCreatedAtMs;
+  private long pendingRequestedAtUptimeMs = -1L;
+  private boolean pendingContextReady;
+  private boolean jsReady;
+  private long offered;
+  private long duplicatesMerged;
+  private long superseded;
+  private long expired;
+  private long drained;
+
+  public static synchronized OverlayRouteQueue getInstance(Context context) {
+    if (instance == null) {
+      instance = new OverlayRouteQueue(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private OverlayRouteQueue(Context appContext) {
+    file = new AtomicFile(new File(appContext.getFilesDir(), FILE_NAME));
+    contextWarmer = ReactContextWarmer.getInstance(appContext);
+    restore();
+  }
+
+  /**
+   * Queue a route. {@code requestedAtUptimeMs} is the menu tap time, or -1 if unknown.
+   */
+  public synchronized void offer(String route, boolean autoRecord, long requestedAtUptimeMs, boolean contextReady) {
+    offered++;
+    if (route.equals(pendingRoute)) {
+      duplicatesMerged++;
+      pendingAutoRecord |= autoRecord;
+      persist();
+      return;
+    }
+
+    if (pendingRoute != null) {
+      superseded++;
+    }
+    pendingRoute = route;
+    pendingAutoRecord = autoRecord;
+    pendingCreatedAtMs = System.currentTimeMillis();
+    pendingRequestedAtUptimeMs = requestedAtUptimeMs;
+    pendingContextReady = contextReady;
+    persist();
+  }
+
+  /**
+   * Whether JS has drained at least once in the current React context.
+   */
+  public synchronized boolean isJsReady() {
+    return jsReady;
+  }
+
+  public synchronized void onContextDestroyed() {
+    jsReady = false;
+  }
+
+  /**
+   * Take the pending intent, if any, and mark JS as ready for later ones.
+   */
+  public synchronized Bundle drain() {
+    jsReady = true;
+    if (pendingRoute == null) {
+      return null;
+    }
+
+    Bundle payload = null;
+    if (System.currentTimeMillis() - pendingCreatedAtMs > MAX_AGE_MS) {
+      expired++;
+    } else {
+      drained++;
+      payload = new Bundle();
+      payload.putString("route", pendingRoute);
+      payload.putBoolean("autoRecord", pendingAutoRecord);
+      if (pendingRequestedAtUptimeMs > 0L) {
+        long timeToRouteMs = SystemClock.uptimeMillis() - pendingRequestedAtUptimeMs;
+        contextWarmer.recordRoute(pendingContextReady, timeToRouteMs);
+        OverlayPerformanceStats.getInstance()
+          .recordNanos(OverlayPerformanceStats.METRIC_LAUNCH_ROUTE, timeToRouteMs * 1_000_000L);
+      }
+    }
+
+    pendingRoute = null;
+    pendingAutoRecord = false;
+    pendingRequestedAtUptimeMs = -1L;
+    file.delete();
+    return payload;
+  }
+
+  public synchronized Bundle statsToBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putDouble("offered", offered);
+    bundle.putDouble("duplicatesMerged", duplicatesMerged);
+    bundle.putDouble("superseded", superseded);
+    bundle.putDouble("expired", expired);
+    bundle.putDouble("drained", drained);
+    return bundle;
+  }
+
+  private void persist() {
+    FileOutputStream output = null;
+    try {
+      JSONObject record = new JSONObject();
+      record.put("route", pendingRoute);
+      record.put("autoRecord", pendingAutoRecord);
+      record.put("createdAt", pendingCreatedAtMs);
+      output = file.startWrite();
+      output.write(record.toString().getBytes(StandardCharsets.UTF_8));
+      file.finishWrite(output);
+    } catch (IOException | JSONException exception) {
+      if (output != null) {
+        file.failWrite(output);
+      }
+      Log.w(TAG, "Could not persist route intent", exception);
+    }
+  }
+
+  private void restore() {
+    try (FileInputStream input = file.openRead()) {
+      byte[] bytes = new byte[input.available()];
+      int read = input.read(bytes);
+      JSONObject record = new JSONObject(new String(bytes, 0, Math.max(0, read), StandardCharsets.UTF_8));
+      pendingRoute = record.optString("route", null);
+      pendingAutoRecord = record.optBoolean("autoRecord");
+      pendingCreatedAtMs = record.optLong("createdAt");
+      // The tap happened in an earlier process, so its uptime cannot be compared.
+      pendingRequestedAtUptimeMs = -1L;
+    } catch (IOException | JSONException ignored) {
+      pendingRoute = null;
+    }
+  }
+}
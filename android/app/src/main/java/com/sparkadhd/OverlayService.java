@@ -1,8 +1,6 @@
 package com.sparkadhd;
 
 import android.animation.ObjectAnimator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
@@ -10,70 +8,195 @@ import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.res.Configuration;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.IBinder;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-import android.os.VibratorManager;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.app.NotificationCompat;
 
+/**
+ * The floating bubble and its menu.
+ *
+ * Startup is staged so the bubble shows as early as possible. {@link #preload} opens the state
+ * store and builds the foreground notification before the service is started; onCreate then
+ * posts that notification, attaches the bubble and nothing else. Haptics, metrics, the capture
+ * panel, the focus timer countdown, the React warm-up signal and the menu are set up once the
+ * main thread is idle after the first frame, or on the first touch if that comes sooner. Each
+ * stage has a "Spark:" trace section and a latency histogram, including time-to-bubble.
+ */
 public class OverlayService extends Service {
+  public static final String EXTRA_ROUTE_REQUESTED_AT = "routeRequestedAt";
   private static final String CHANNEL_ID = "spark_overlay";
   private static final int NOTIFICATION_ID = 1001;
   private static final String ACTION_STOP_OVERLAY = "com.sparkadhd.action.STOP_OVERLAY";
-  private static final String PREFS_NAME = "spark_overlay_prefs";
-  private static final String KEY_LAST_COUNT = "last_count";
-  private static final String KEY_BUBBLE_X = "bubble_x";
-  private static final String KEY_BUBBLE_Y = "bubble_y";
-  private static final int DRAG_THRESHOLD_DP = 6;
   private static final int MENU_OPEN_TRANSLATION_DP = 16;
   private static final int MENU_ANIMATION_DURATION_MS = 160;
-  private static final long DRAG_UPDATE_INTERVAL_MS = 16L;
-  private static final long HAPTIC_MIN_INTERVAL_MS = 160L;
-
-  private static OverlayService instance;
-
+  private static final int MENU_BUBBLE_GAP_DP = 8;
+  private static final float BUBBLE_DIM_ALPHA = 0.7f;
+
+  // Read from the JS thread by the synchronous module getters.
+  private static volatile OverlayService instance;
+  private static Notification foregroundNotification;
+
+  private final OverlayCountPipeline.CountRenderer countRenderer = this::renderCount;
+  private final FocusTimerController.TimerRenderer timerRenderer = this::renderTimer;
+  private final OverlayGeometry geometry = new OverlayGeometry();
+  private final Interpolator menuInterpolator = new DecelerateInterpolator();
+  private final OverlayCompositionStats compositionStats = OverlayCompositionStats.getInstance();
+  private final OverlayPerformanceStats performanceStats = OverlayPerformanceStats.getInstance();
+  private OverlayCountPipeline countPipeline;
+  private OverlayStateStore stateStore;
+  private OverlayHaptics haptics;
+  private ReactContextWarmer contextWarmer;
+  private FocusTimerController focusTimer;
+  private UXMetricsRecorder metrics;
   private WindowManager windowManager;
-  private FrameLayout bubbleView;
-  private TextView countView;
+  private BubbleMotionController motionController;
+  private OverlayCapturePanel capturePanel;
+  private FrameLayout bubbleRoot;
+  private OverlayBubbleView bubbleView;
   private LinearLayout menuView;
   private View scrimView;
   private WindowManager.LayoutParams bubbleParams;
+  // The bubble's top-left on screen. bubbleParams holds the same position measured from the
+  // corner the window is anchored on, which a settle may change; see updateBubbleWindow.
+  private int bubbleX;
+  private int bubbleY;
+  // The frame END and BOTTOM anchors are measured from. Main thread only.
+  private final Rect anchorFrame = new Rect();
   private WindowManager.LayoutParams menuParams;
   private WindowManager.LayoutParams scrimParams;
-  private boolean expanded;
-  private long lastHapticAtMs;
+  private volatile boolean expanded;
+  private boolean menuPreparePending;
+  private int measuredMenuHeight;
+  private long lastOutsideDismissEventTime = -1L;
+  private boolean startupFinished;
 
   public static OverlayService getInstance() {
     return instance;
   }
 
-  public static void updateCount(int count) {
-    if (instance != null) {
-      instance.setCount(count);
-    }
+  /**
+   * Do the startup work that does not need the service ahead of time. Safe to call from any
+   * thread, and cheap once done.
+   */
+  public static void preload(Context context) {
+    Context appContext = context.getApplicationContext();
+    OverlayCountPipeline.getInstance(appContext);
+    getForegroundNotification(appContext);
   }
 
   @Override
   public void onCreate() {
     super.onCreate();
-    instance = this;
-    windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
-    createOverlay();
-    startForeground(NOTIFICATION_ID, createNotification());
+    long bubbleStart = performanceStats.beginSection(OverlayPerformanceStats.METRIC_TIME_TO_BUBBLE);
+    try {
+      instance = this;
+      long foregroundStart = performanceStats.beginSection(OverlayPerformanceStats.METRIC_START_FOREGROUND);
+      try {
+        startForeground(NOTIFICATION_ID, getForegroundNotification(this));
+      } finally {
+        performanceStats.endSection(OverlayPerformanceStats.METRIC_START_FOREGROUND, foregroundStart);
+      }
+
+      windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
+      geometry.update(this, windowManager);
+      performanceStats.setFrameIntervalNanos(geometry.getFrameIntervalNanos());
+      stateStore = OverlayStateStore.getInstance(this);
+      stateStore.setExpanded(false);
+      countPipeline = OverlayCountPipeline.getInstance(this);
+      motionController = new BubbleMotionController(geometry, new BubbleMotionHost());
+      long createStart = performanceStats.beginSection(OverlayPerformanceStats.METRIC_CREATE_OVERLAY);
+      try {
+        createOverlay();
+      } finally {
+        performanceStats.endSection(OverlayPerformanceStats.METRIC_CREATE_OVERLAY, createStart);
+      }
+    } finally {
+      performanceStats.endSectionAtNextFrame(OverlayPerformanceStats.METRIC_TIME_TO_BUBBLE, bubbleStart);
+    }
+    // Frame callbacks run in posting order, so this comes after the time-to-bubble one.
+    Choreographer.getInstance().postFrameCallback(frameTimeNanos -> Looper.myQueue().addIdleHandler(() -> {
+      if (instance == this) {
+        finishStartup();
+      }
+      return false;
+    }));
+  }
+
+  /**
+   * The deferred startup stage. Everything here is needed for the first interaction, not for
+   * the bubble to appear.
+   */
+  private void finishStartup() {
+    if (startupFinished) {
+      return;
+    }
+    startupFinished = true;
+    long start = performanceStats.beginSection(OverlayPerformanceStats.METRIC_DEFERRED_STARTUP);
+    try {
+      haptics = OverlayHaptics.getInstance(this);
+      metrics = UXMetricsRecorder.getInstance(this);
+      contextWarmer = ReactContextWarmer.getInstance(this);
+      capturePanel = new OverlayCapturePanel(
+        this,
+        windowManager,
+        geometry,
+        OverlayCaptureQueue.getInstance(this),
+        new CapturePanelHost()
+      );
+      contextWarmer.onSignal(ReactContextWarmer.SIGNAL_SERVICE_START);
+      if (bubbleRoot != null) {
+        focusTimer = FocusTimerController.getInstance(this);
+        focusTimer.bind(timerRenderer);
+        prepareMenu();
+      }
+    } finally {
+      performanceStats.endSection(OverlayPerformanceStats.METRIC_DEFERRED_STARTUP, start);
+    }
+  }
+
+  @VisibleForTesting
+  boolean isStartupFinished() {
+    return startupFinished;
+  }
+
+  /**
+   * Whether the menu and capture panel views have been built. Startup leaves both to
+   * {@link #finishStartup}, after the bubble's first frame.
+   */
+  @VisibleForTesting
+  boolean hasBuiltDeferredViews() {
+    return menuView != null || capturePanel != null;
+  }
+
+  @VisibleForTesting
+  boolean isSettling() {
+    return motionController.isRunning();
+  }
+
+  @VisibleForTesting
+  boolean isBubbleTouchable() {
+    return (bubbleParams.flags & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE) == 0;
   }
 
   @Override
@@ -85,16 +208,50 @@ public class OverlayService extends Service {
     return START_STICKY;
   }
 
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {
+    super.onConfigurationChanged(newConfig);
+    geometry.update(this, windowManager);
+    performanceStats.setFrameIntervalNanos(geometry.getFrameIntervalNanos());
+    if (capturePanel != null) {
+      capturePanel.onConfigurationChanged();
+    }
+    if (bubbleParams == null || !isViewAttached(bubbleView)) {
+      return;
+    }
+
+    motionController.finishNow();
+    // This update happens anyway, so go back to the plain top-left anchor for the new frame.
+    anchorFrame.setEmpty();
+    anchorBubbleWindow(Gravity.TOP | Gravity.START);
+    bubbleX = stateStore.getBubbleX(newConfig.orientation, bubbleX);
+    bubbleY = stateStore.getBubbleY(newConfig.orientation, bubbleY);
+    clampBubblePosition(getBubbleSize());
+    updateBubbleWindow();
+    measuredMenuHeight = 0;
+    scheduleMenuPrepare();
+  }
+
   @Override
   public void onDestroy() {
     super.onDestroy();
     stopForeground(true);
     collapseMenu();
-    removeViewIfAttached(menuView);
-    removeViewIfAttached(scrimView);
-    removeViewIfAttached(bubbleView);
+    if (capturePanel != null) {
+      capturePanel.dismiss();
+    }
+    motionController.cancel();
+    performanceStats.stopAllInteractions();
+    removeLayerIfAttached(menuView, OverlayCompositionStats.LAYER_MENU);
+    removeLayerIfAttached(scrimView, OverlayCompositionStats.LAYER_SCRIM);
+    removeViewIfAttached(bubbleRoot);
+    countPipeline.unbind(countRenderer);
+    countPipeline.flush();
+    if (focusTimer != null) {
+      focusTimer.unbind(timerRenderer);
+    }
+    bubbleRoot = null;
     bubbleView = null;
-    countView = null;
     menuView = null;
     scrimView = null;
     instance = null;
@@ -115,24 +272,13 @@ public class OverlayService extends Service {
   }
 
   private void createOverlay() {
-    bubbleView = new FrameLayout(this);
-    int size = dpToPx(56);
+    int size = geometry.getBubbleSizePx();
+    bubbleView = new OverlayBubbleView(this, size);
+    countPipeline.bind(countRenderer);
 
-    countView = new TextView(this);
-    int persistedCount = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getInt(KEY_LAST_COUNT, 0);
-    countView.setText(String.valueOf(persistedCount));
-    countView.setTextColor(0xFFFFFFFF);
-    countView.setTextSize(16f);
-    countView.setGravity(Gravity.CENTER);
-
-    GradientDrawable background = new GradientDrawable();
-    background.setColor(0xFF2D89EF);
-    background.setCornerRadius(size / 2f);
-
-    bubbleView.setBackground(background);
-    FrameLayout.LayoutParams bubbleLayout = new FrameLayout.LayoutParams(size, size);
-    bubbleLayout.gravity = Gravity.CENTER;
-    bubbleView.addView(countView, bubbleLayout);
+    // The bubble sits in a transparent root so fling motion can translate it inside the window.
+    bubbleRoot = new FrameLayout(this);
+    bubbleRoot.addView(bubbleView, new FrameLayout.LayoutParams(size, size, Gravity.TOP | Gravity.START));
 
     bubbleParams = new WindowManager.LayoutParams(
       WindowManager.LayoutParams.WRAP_CONTENT,
@@ -144,10 +290,12 @@ public class OverlayService extends Service {
       PixelFormat.TRANSLUCENT
     );
     bubbleParams.gravity = Gravity.TOP | Gravity.START;
-    SharedPreferences preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-    bubbleParams.x = preferences.getInt(KEY_BUBBLE_X, dpToPx(16));
-    bubbleParams.y = preferences.getInt(KEY_BUBBLE_Y, dpToPx(120));
+    int orientation = getResources().getConfiguration().orientation;
+    bubbleX = stateStore.getBubbleX(orientation, dpToPx(16));
+    bubbleY = stateStore.getBubbleY(orientation, dpToPx(120));
     clampBubblePosition(size);
+    bubbleParams.x = bubbleX;
+    bubbleParams.y = bubbleY;
     bubbleView.setOnTouchListener(new BubbleTouchListener());
 
     if (isViewAttached(bubbleView)) {
@@ -155,12 +303,76 @@ public class OverlayService extends Service {
     }
 
     try {
-      windowManager.addView(bubbleView, bubbleParams);
-    } catch (SecurityException | RuntimeException exception) {
+      addWindow(bubbleRoot, bubbleParams);
+    } catch (RuntimeException exception) {
       stopSelf();
     }
   }
 
+  /**
+   * Build and measure the menu once the main thread goes idle, so the first tap only has to
+   * attach an already laid out view.
+   */
+  private void scheduleMenuPrepare() {
+    if (menuPreparePending) {
+      return;
+    }
+
+    menuPreparePending = true;
+    Looper.myQueue().addIdleHandler(() -> {
+      menuPreparePending = false;
+      if (bubbleRoot != null) {
+        prepareMenu();
+      }
+      return false;
+    });
+  }
+
+  private void prepareMenu() {
+    ensureMenuView();
+    ensureMenuParams();
+    if (measuredMenuHeight > 0) {
+      return;
+    }
+
+    menuView.measure(
+      View.MeasureSpec.makeMeasureSpec(geometry.getMenuWidthPx(), View.MeasureSpec.EXACTLY),
+      View.MeasureSpec.makeMeasureSpec(geometry.getScreenHeightPx(), View.MeasureSpec.AT_MOST)
+    );
+    measuredMenuHeight = menuView.getMeasuredHeight();
+  }
+
+  private void ensureMenuParams() {
+    if (menuParams != null) {
+      menuParams.width = geometry.getMenuWidthPx();
+      return;
+    }
+
+    menuParams = new WindowManager.LayoutParams(
+      geometry.getMenuWidthPx(),
+      WindowManager.LayoutParams.WRAP_CONTENT,
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+        ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+        : WindowManager.LayoutParams.TYPE_PHONE,
+      WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
+      PixelFormat.TRANSLUCENT
+    );
+    menuParams.gravity = Gravity.TOP | Gravity.START;
+  }
+
+  /**
+   * Without a scrim the menu window watches for touches outside itself and dismisses on those.
+   */
+  private void applyMenuDismissFlags(boolean scrimMode) {
+    int outsideFlags = WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL
+      | WindowManager.LayoutParams.FLAG_WATCH_OUTSIDE_TOUCH;
+    if (scrimMode) {
+      menuParams.flags &= ~outsideFlags;
+    } else {
+      menuParams.flags |= outsideFlags;
+    }
+  }
+
   private void toggleExpanded() {
     if (expanded) {
       collapseMenu();
@@ -174,33 +386,42 @@ public class OverlayService extends Service {
       return;
     }
 
+    long expandStart = performanceStats.beginSection(OverlayPerformanceStats.METRIC_EXPAND_MENU);
+    try {
+      showMenu();
+    } finally {
+      performanceStats.endSectionAtNextFrame(OverlayPerformanceStats.METRIC_EXPAND_MENU, expandStart);
+    }
+  }
+
+  private void showMenu() {
     expanded = true;
-    addScrim();
-    ensureMenuView();
+    stateStore.setExpanded(true);
+    boolean scrimMode = stateStore.isScrimDismissEnabled();
+    compositionStats.onExpand(scrimMode);
+    contextWarmer.onSignal(ReactContextWarmer.SIGNAL_MENU_EXPAND);
+    metrics.record("overlay_menu_expand", UXMetricsRecorder.metadata("scrim", scrimMode));
+    if (scrimMode) {
+      addScrim();
+    } else {
+      bubbleView.animate().alpha(BUBBLE_DIM_ALPHA).setDuration(MENU_ANIMATION_DURATION_MS).start();
+    }
+    prepareMenu();
 
     if (isViewAttached(menuView)) {
       return;
     }
 
-    if (menuParams == null) {
-      menuParams = new WindowManager.LayoutParams(
-        dpToPx(220),
-        WindowManager.LayoutParams.WRAP_CONTENT,
-        Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-          ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-          : WindowManager.LayoutParams.TYPE_PHONE,
-        WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
-        PixelFormat.TRANSLUCENT
-      );
-    }
-
-    menuParams.gravity = Gravity.TOP | Gravity.START;
-    menuParams.x = bubbleParams.x;
-    menuParams.y = Math.max(dpToPx(16), bubbleParams.y - dpToPx(260));
-    clampMenuPosition();
+    applyMenuDismissFlags(scrimMode);
+    positionMenu();
 
     try {
-      windowManager.addView(menuView, menuParams);
+      addWindow(menuView, menuParams);
+      performanceStats.startInteraction(OverlayPerformanceStats.INTERACTION_MENU_OPEN);
+      compositionStats.onLayerAdded(
+        OverlayCompositionStats.LAYER_MENU,
+        (long) geometry.getMenuWidthPx() * measuredMenuHeight
+      );
       menuView.setAlpha(0f);
       ObjectAnimator slideAnimator = ObjectAnimator.ofFloat(
         menuView,
@@ -208,12 +429,16 @@ public class OverlayService extends Service {
         dpToPx(MENU_OPEN_TRANSLATION_DP),
         0f
       );
-      slideAnimator.setInterpolator(new DecelerateInterpolator());
+      slideAnimator.setInterpolator(menuInterpolator);
       slideAnimator.setDuration(MENU_ANIMATION_DURATION_MS);
       slideAnimator.start();
 
-      menuView.animate().alpha(1f).setDuration(MENU_ANIMATION_DURATION_MS).start();
-    } catch (SecurityException | RuntimeException exception) {
+      menuView.animate()
+        .alpha(1f)
+        .setDuration(MENU_ANIMATION_DURATION_MS)
+        .withEndAction(() -> performanceStats.stopInteraction(OverlayPerformanceStats.INTERACTION_MENU_OPEN))
+        .start();
+    } catch (RuntimeException exception) {
       collapseMenu();
     }
   }
@@ -232,16 +457,34 @@ public class OverlayService extends Service {
     background.setCornerRadius(dpToPx(16));
     background.setStroke(dpToPx(1), 0xFF2D89EF);
     menuView.setBackground(background);
+    menuView.setOnTouchListener((view, event) -> {
+      if (event.getActionMasked() != MotionEvent.ACTION_OUTSIDE) {
+        return false;
+      }
+      // Remember the touch so a tap on the bubble that dismissed the menu does not reopen it.
+      lastOutsideDismissEventTime = event.getEventTime();
+      compositionStats.onOutsideTouchDismiss();
+      collapseMenu();
+      return true;
+    });
 
+    addMenuItem("Quick Capture", (ignored) -> openCapturePanel(false));
     addMenuItem("CBT", "CBTGuide", false);
     addMenuItem("Tasks", "FogCutter", false);
     addMenuItem("TODO", "Tasks", false);
     addMenuItem("Breathing", "Anchor", false);
     addMenuItem("Thinking Help", "CheckIn", false);
-    addMenuItem("Voice Task", "Tasks", true);
+    addMenuItem("Voice Task", (ignored) -> openCapturePanel(true));
   }
 
   private void addMenuItem(String label, String route, boolean autoRecord) {
+    addMenuItem(label, (ignored) -> {
+      launchRoute(route, autoRecord);
+      collapseMenu();
+    });
+  }
+
+  private void addMenuItem(String label, View.OnClickListener listener) {
     TextView menuItem = new TextView(this);
     menuItem.setText(label);
     menuItem.setTextColor(0xFFFFFFFF);
@@ -249,13 +492,15 @@ public class OverlayService extends Service {
     menuItem.setMinHeight(dpToPx(48));
     menuItem.setPadding(dpToPx(12), dpToPx(12), dpToPx(12), dpToPx(12));
     menuItem.setGravity(Gravity.CENTER_VERTICAL);
-    menuItem.setOnClickListener((ignored) -> {
-      launchRoute(route, autoRecord);
-      collapseMenu();
-    });
+    menuItem.setOnClickListener(listener);
     menuView.addView(menuItem);
   }
 
+  private void openCapturePanel(boolean startVoice) {
+    collapseMenu();
+    capturePanel.show(startVoice);
+  }
+
   private void addScrim() {
     if (isViewAttached(scrimView)) {
       return;
@@ -281,10 +526,14 @@ public class OverlayService extends Service {
 
     scrimParams.gravity = Gravity.TOP | Gravity.START;
     try {
-      windowManager.addView(scrimView, scrimParams);
+      addWindow(scrimView, scrimParams);
+      compositionStats.onLayerAdded(
+        OverlayCompositionStats.LAYER_SCRIM,
+        (long) geometry.getScreenWidthPx() * geometry.getScreenHeightPx()
+      );
       scrimView.setAlpha(0f);
       scrimView.animate().alpha(1f).setDuration(MENU_ANIMATION_DURATION_MS).start();
-    } catch (SecurityException | RuntimeException ignored) {
+    } catch (RuntimeException ignored) {
       scrimView = null;
     }
   }
@@ -295,6 +544,8 @@ public class OverlayService extends Service {
     }
 
     expanded = false;
+    stateStore.setExpanded(false);
+    performanceStats.stopInteraction(OverlayPerformanceStats.INTERACTION_MENU_OPEN);
 
     if (isViewAttached(menuView)) {
       menuView
@@ -304,7 +555,7 @@ public class OverlayService extends Service {
         .setDuration(120)
         .withEndAction(() -> {
           menuView.setTranslationY(0f);
-          removeViewIfAttached(menuView);
+          removeLayerIfAttached(menuView, OverlayCompositionStats.LAYER_MENU);
         })
         .start();
     }
@@ -314,21 +565,45 @@ public class OverlayService extends Service {
         .animate()
         .alpha(0f)
         .setDuration(120)
-        .withEndAction(() -> removeViewIfAttached(scrimView))
+        .withEndAction(() -> removeLayerIfAttached(scrimView, OverlayCompositionStats.LAYER_SCRIM))
         .start();
     }
+
+    if (bubbleView != null) {
+      bubbleView.animate().alpha(1f).setDuration(120).start();
+    }
   }
 
   private void launchRoute(String route, boolean autoRecord) {
     Intent launchIntent = new Intent(getApplicationContext(), MainActivity.class);
     launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP | Intent.FLAG_ACTIVITY_CLEAR_TOP);
     launchIntent.putExtra("route", route);
+    launchIntent.putExtra(EXTRA_ROUTE_REQUESTED_AT, SystemClock.uptimeMillis());
     if (autoRecord) {
       launchIntent.putExtra("autoRecord", true);
     }
+    metrics.record("overlay_launch_route", UXMetricsRecorder.metadata("route", route, "autoRecord", autoRecord));
     startActivity(launchIntent);
   }
 
+  private void addWindow(View view, WindowManager.LayoutParams params) {
+    long start = performanceStats.beginSection(OverlayPerformanceStats.METRIC_ADD_VIEW);
+    try {
+      windowManager.addView(view, params);
+    } finally {
+      performanceStats.endSection(OverlayPerformanceStats.METRIC_ADD_VIEW, start);
+    }
+  }
+
+  private void updateWindow(View view, WindowManager.LayoutParams params) {
+    long start = performanceStats.beginSection(OverlayPerformanceStats.METRIC_UPDATE_VIEW_LAYOUT);
+    try {
+      windowManager.updateViewLayout(view, params);
+    } finally {
+      performanceStats.endSection(OverlayPerformanceStats.METRIC_UPDATE_VIEW_LAYOUT, start);
+    }
+  }
+
   private void removeViewIfAttached(View view) {
     if (view == null || windowManager == null) {
       return;
@@ -341,15 +616,26 @@ public class OverlayService extends Service {
     }
   }
 
+  private void removeLayerIfAttached(View view, int layer) {
+    if (isViewAttached(view)) {
+      removeViewIfAttached(view);
+      compositionStats.onLayerRemoved(layer);
+    }
+  }
+
   private boolean isViewAttached(View view) {
     return view != null && view.isAttachedToWindow();
   }
 
-  private void setCount(int count) {
-    SharedPreferences preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-    preferences.edit().putInt(KEY_LAST_COUNT, count).apply();
-    if (countView != null) {
-      countView.post(() -> countView.setText(String.valueOf(count)));
+  private void renderCount(int count) {
+    if (bubbleView != null) {
+      bubbleView.setCount(count);
+    }
+  }
+
+  private void renderTimer(int minutes, boolean paused) {
+    if (bubbleView != null) {
+      bubbleView.setTimer(minutes, paused);
     }
   }
 
@@ -358,81 +644,124 @@ public class OverlayService extends Service {
       return;
     }
 
-    int margin = dpToPx(8);
-    int maxX = Math.max(margin, getResources().getDisplayMetrics().widthPixels - bubbleSize - margin);
-    int maxY = Math.max(margin, getResources().getDisplayMetrics().heightPixels - bubbleSize - margin);
+    bubbleX = geometry.clampBubbleX(bubbleX, bubbleSize);
+    bubbleY = geometry.clampBubbleY(bubbleY, bubbleSize);
+  }
 
-    bubbleParams.x = Math.max(margin, Math.min(bubbleParams.x, maxX));
-    bubbleParams.y = Math.max(margin, Math.min(bubbleParams.y, maxY));
+  private int getBubbleSize() {
+    return bubbleView != null && bubbleView.getWidth() > 0 ? bubbleView.getWidth() : geometry.getBubbleSizePx();
   }
 
-  private void clampMenuPosition() {
-    if (menuParams == null) {
+  private void applyDragPosition(int x, int y) {
+    if (bubbleParams == null || !isViewAttached(bubbleView)) {
       return;
     }
 
-    int margin = dpToPx(8);
-    int menuWidth = dpToPx(220);
-    int maxX = Math.max(margin, getResources().getDisplayMetrics().widthPixels - menuWidth - margin);
-    int estimatedMenuHeight = dpToPx(320);
-    int maxY = Math.max(margin, getResources().getDisplayMetrics().heightPixels - estimatedMenuHeight - margin);
+    int bubbleSize = getBubbleSize();
+    int clampedX = geometry.clampBubbleX(x, bubbleSize);
+    int clampedY = geometry.clampBubbleY(y, bubbleSize);
+    if (clampedX == bubbleX && clampedY == bubbleY) {
+      return;
+    }
 
-    menuParams.x = Math.max(margin, Math.min(menuParams.x, maxX));
-    menuParams.y = Math.max(margin, Math.min(menuParams.y, maxY));
+    bubbleX = clampedX;
+    bubbleY = clampedY;
+    updateBubbleWindow();
   }
 
-  private void persistBubblePosition() {
-    if (bubbleParams == null) {
+  /**
+   * Anchor the bubble window, and the bubble inside it, on the corner given by {@code gravity}.
+   * Takes effect with the next {@link #updateBubbleWindow}.
+   */
+  private void anchorBubbleWindow(int gravity) {
+    bubbleParams.gravity = gravity;
+    FrameLayout.LayoutParams bubbleLayout = (FrameLayout.LayoutParams) bubbleView.getLayoutParams();
+    if (bubbleLayout.gravity != gravity) {
+      bubbleLayout.gravity = gravity;
+      bubbleView.setLayoutParams(bubbleLayout);
+    }
+  }
+
+  /**
+   * Write the bubble position into its window params, measured from the anchored corner, and
+   * lay the window out.
+   */
+  private void updateBubbleWindow() {
+    int horizontal = bubbleParams.gravity & Gravity.RELATIVE_HORIZONTAL_GRAVITY_MASK;
+    int vertical = bubbleParams.gravity & Gravity.VERTICAL_GRAVITY_MASK;
+    if ((horizontal == Gravity.END || vertical == Gravity.BOTTOM) && anchorFrame.isEmpty()) {
+      bubbleRoot.getWindowVisibleDisplayFrame(anchorFrame);
+      if (anchorFrame.isEmpty()) {
+        anchorFrame.set(0, 0, geometry.getScreenWidthPx(), geometry.getScreenHeightPx());
+      }
+    }
+    int bubbleSize = getBubbleSize();
+    bubbleParams.x = horizontal == Gravity.END ? anchorFrame.width() - bubbleX - bubbleSize : bubbleX;
+    bubbleParams.y = vertical == Gravity.BOTTOM ? anchorFrame.height() - bubbleY - bubbleSize : bubbleY;
+    updateWindow(bubbleRoot, bubbleParams);
+  }
+
+  /**
+   * Place the menu above the bubble, or below it when there is no room, using the measured size.
+   */
+  private void positionMenu() {
+    if (menuParams == null || bubbleParams == null) {
       return;
     }
 
-    SharedPreferences preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-    preferences
-      .edit()
-      .putInt(KEY_BUBBLE_X, bubbleParams.x)
-      .putInt(KEY_BUBBLE_Y, bubbleParams.y)
-      .apply();
+    int menuHeight = measuredMenuHeight;
+    menuParams.x = bubbleX;
+    menuParams.y = geometry.getBounds().menuY(
+      bubbleY,
+      getBubbleSize(),
+      menuHeight,
+      dpToPx(MENU_BUBBLE_GAP_DP)
+    );
+    clampMenuPosition(menuHeight);
   }
 
-  private void snapBubbleToNearestEdge() {
-    if (bubbleParams == null) {
+  private void clampMenuPosition(int menuHeight) {
+    if (menuParams == null) {
       return;
     }
 
-    int width = getResources().getDisplayMetrics().widthPixels;
-    int bubbleWidth = bubbleView != null && bubbleView.getWidth() > 0 ? bubbleView.getWidth() : dpToPx(56);
-    int margin = dpToPx(8);
-    int leftEdge = margin;
-    int rightEdge = Math.max(margin, width - bubbleWidth - margin);
-    int center = bubbleParams.x + (bubbleWidth / 2);
+    menuParams.x = geometry.getBounds().clampMenuX(menuParams.x);
+    menuParams.y = geometry.getBounds().clampMenuY(menuParams.y, menuHeight);
+  }
 
-    int targetX = center < width / 2 ? leftEdge : rightEdge;
-    animateBubbleToX(targetX);
+  private void persistBubblePosition() {
+    if (bubbleParams == null) {
+      return;
+    }
+
+    stateStore.setBubblePosition(
+      getResources().getConfiguration().orientation,
+      bubbleX,
+      bubbleY
+    );
   }
 
-  private void animateBubbleToX(int targetX) {
-    if (bubbleParams == null || bubbleView == null || !isViewAttached(bubbleView)) {
+  private void snapBubbleToNearestEdge(float velocityX, float velocityY) {
+    if (bubbleParams == null || !isViewAttached(bubbleView)) {
       return;
     }
 
-    ValueAnimator animator = ValueAnimator.ofInt(bubbleParams.x, targetX);
-    animator.setDuration(140);
-    animator.setInterpolator(new DecelerateInterpolator());
-    animator.addUpdateListener((valueAnimator) -> {
-      bubbleParams.x = (int) valueAnimator.getAnimatedValue();
-      windowManager.updateViewLayout(bubbleView, bubbleParams);
-    });
-    animator.addListener(new AnimatorListenerAdapter() {
-      @Override
-      public void onAnimationEnd(android.animation.Animator animation) {
-        persistBubblePosition();
-      }
-    });
-    animator.start();
+    motionController.settle(bubbleX, bubbleY, velocityX, velocityY, getBubbleSize());
   }
 
-  private Notification createNotification() {
-    NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+  /**
+   * The foreground notification, built once per process. It only depends on the package, so
+   * every service start can post the same instance.
+   */
+  private static synchronized Notification getForegroundNotification(Context context) {
+    if (foregroundNotification == null) {
+      foregroundNotification = createNotification(context.getApplicationContext());
+    }
+    return foregroundNotification;
+  }
+
+  private static Notification createNotification(Context context) {
+    NotificationManager manager = (NotificationManager) context.getSystemService(NOTIFICATION_SERVICE);
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && manager != null) {
       NotificationChannel channel = new NotificationChannel(
         CHANNEL_ID,
@@ -442,16 +771,16 @@ public class OverlayService extends Service {
       manager.createNotificationChannel(channel);
     }
 
-    Intent stopIntent = new Intent(this, OverlayService.class);
+    Intent stopIntent = new Intent(context, OverlayService.class);
     stopIntent.setAction(ACTION_STOP_OVERLAY);
     PendingIntent stopPendingIntent = PendingIntent.getService(
-      this,
+      context,
       0,
       stopIntent,
       PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
     );
 
-    return new NotificationCompat.Builder(this, CHANNEL_ID)
+    return new NotificationCompat.Builder(context, CHANNEL_ID)
       .setContentTitle("Spark tasks")
       .setContentText("Bubble is running")
       .setSmallIcon(android.R.drawable.ic_dialog_info)
@@ -461,133 +790,145 @@ public class OverlayService extends Service {
   }
 
   private int dpToPx(int dp) {
-    float density = getResources().getDisplayMetrics().density;
-    return Math.round(dp * density);
+    return geometry.dpToPx(dp);
   }
 
-  /**
-   * Trigger haptic feedback for touch interactions
-   * Uses the device's vibrator with appropriate effect based on Android version
-   */
-  private void performHapticFeedback() {
-    long now = System.currentTimeMillis();
-    if (now - lastHapticAtMs < HAPTIC_MIN_INTERVAL_MS) {
-      return;
+  private class CapturePanelHost implements OverlayCapturePanel.Host {
+    @Override
+    public void onCaptureQueued() {
+      // JS replaces this with the real brainDump length once it merges the queue.
+      countPipeline.submit(countPipeline.currentCount() + 1);
+      haptics.perform(OverlayHaptics.EFFECT_SNAP);
     }
-    lastHapticAtMs = now;
-    try {
-      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-        VibratorManager vibratorManager = (VibratorManager) getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-        if (vibratorManager != null) {
-          Vibrator vibrator = vibratorManager.getDefaultVibrator();
-          if (vibrator != null && vibrator.hasVibrator()) {
-            // Use amplitude for finer control on Android 12+
-            vibrator.vibrate(VibrationEffect.createOneShot(8, VibrationEffect.DEFAULT_AMPLITUDE));
-          }
-        }
-      } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-        @SuppressWarnings("deprecation")
-        Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator != null && vibrator.hasVibrator()) {
-          vibrator.vibrate(VibrationEffect.createOneShot(8, VibrationEffect.DEFAULT_AMPLITUDE));
-        }
-      } else {
-        @SuppressWarnings("deprecation")
-        Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator != null && vibrator.hasVibrator()) {
-          vibrator.vibrate(8);
-        }
-      }
-    } catch (Exception ignored) {
-      // Silently fail if haptics not available
+
+    @Override
+    public void onVoiceUnavailable() {
+      launchRoute("Tasks", true);
     }
   }
 
-  /**
-   * Trigger heavier haptic for menu expansion
-   */
-  private void performMenuHapticFeedback() {
-    long now = System.currentTimeMillis();
-    if (now - lastHapticAtMs < HAPTIC_MIN_INTERVAL_MS) {
-      return;
+  private class BubbleMotionHost implements BubbleMotionController.Host {
+    @Override
+    public void onMotionStart(int restX, int restY, int gravity, int width, int height) {
+      if (!isViewAttached(bubbleRoot)) {
+        return;
+      }
+
+      // The window moves to where the bubble will rest and the root's minimum size grows it
+      // over the path. Touches on the path belong to the app underneath, so the window takes
+      // none until the bubble is at rest.
+      bubbleX = restX;
+      bubbleY = restY;
+      anchorBubbleWindow(gravity);
+      bubbleRoot.setMinimumWidth(width);
+      bubbleRoot.setMinimumHeight(height);
+      bubbleParams.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+      updateBubbleWindow();
+      performanceStats.startInteraction(OverlayPerformanceStats.INTERACTION_SETTLE);
     }
-    lastHapticAtMs = now;
-    try {
-      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-        VibratorManager vibratorManager = (VibratorManager) getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-        if (vibratorManager != null) {
-          Vibrator vibrator = vibratorManager.getDefaultVibrator();
-          if (vibrator != null && vibrator.hasVibrator()) {
-            vibrator.vibrate(VibrationEffect.createOneShot(15, VibrationEffect.DEFAULT_AMPLITUDE));
-          }
-        }
-      } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-        @SuppressWarnings("deprecation")
-        Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator != null && vibrator.hasVibrator()) {
-          vibrator.vibrate(VibrationEffect.createOneShot(15, VibrationEffect.DEFAULT_AMPLITUDE));
-        }
+
+    @Override
+    public void onMotionFrame(float offsetX, float offsetY) {
+      if (bubbleView != null) {
+        bubbleView.setTranslationX(offsetX);
+        bubbleView.setTranslationY(offsetY);
+      }
+    }
+
+    @Override
+    public void onMotionEnd(int x, int y) {
+      performanceStats.stopInteraction(OverlayPerformanceStats.INTERACTION_SETTLE);
+      if (!isViewAttached(bubbleRoot)) {
+        return;
+      }
+
+      bubbleView.setTranslationX(0f);
+      bubbleView.setTranslationY(0f);
+      bubbleRoot.setMinimumWidth(0);
+      bubbleRoot.setMinimumHeight(0);
+      bubbleParams.flags &= ~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+      boolean atRest = x == bubbleX && y == bubbleY;
+      if (!atRest) {
+        // Stopped mid-flight: the window has to move to where the bubble was shown.
+        bubbleX = x;
+        bubbleY = y;
+        clampBubblePosition(getBubbleSize());
       } else {
-        @SuppressWarnings("deprecation")
-        Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator != null && vibrator.hasVibrator()) {
-          vibrator.vibrate(15);
-        }
+        haptics.perform(OverlayHaptics.EFFECT_SNAP);
       }
-    } catch (Exception ignored) {
-      // Silently fail if haptics not available
+      updateBubbleWindow();
+      persistBubblePosition();
     }
   }
 
   private class BubbleTouchListener implements View.OnTouchListener {
-    private int initialX;
-    private int initialY;
-    private float initialTouchX;
-    private float initialTouchY;
+    private final BubbleDragEngine dragEngine = new BubbleDragEngine(geometry, OverlayService.this::applyDragPosition);
+    private final int maxFlingVelocity = ViewConfiguration.get(OverlayService.this).getScaledMaximumFlingVelocity();
+    private VelocityTracker velocityTracker;
     private boolean moved;
-    private long lastDragUpdateAtMs;
 
     @Override
     public boolean onTouch(View view, MotionEvent event) {
-      switch (event.getAction()) {
+      switch (event.getActionMasked()) {
         case MotionEvent.ACTION_DOWN:
+          finishStartup();
           moved = false;
-          lastDragUpdateAtMs = 0L;
-          initialX = bubbleParams.x;
-          initialY = bubbleParams.y;
-          initialTouchX = event.getRawX();
-          initialTouchY = event.getRawY();
-          performHapticFeedback(); // Light haptic on touch down
+          // The window takes no touches in flight; this only ends a settle still winding down.
+          motionController.finishNow();
+          dragEngine.begin(bubbleX, bubbleY, event);
+          if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+          } else {
+            velocityTracker.clear();
+          }
+          trackVelocity(event);
+          haptics.perform(OverlayHaptics.EFFECT_TICK); // Light haptic on touch down
+          contextWarmer.onSignal(ReactContextWarmer.SIGNAL_TOUCH_DOWN);
           return true;
         case MotionEvent.ACTION_MOVE:
-          long now = System.currentTimeMillis();
-          if (now - lastDragUpdateAtMs < DRAG_UPDATE_INTERVAL_MS) {
-            return true;
-          }
-          lastDragUpdateAtMs = now;
-          bubbleParams.x = initialX + (int) (event.getRawX() - initialTouchX);
-          bubbleParams.y = initialY + (int) (event.getRawY() - initialTouchY);
-          int bubbleSize = bubbleView != null && bubbleView.getWidth() > 0 ? bubbleView.getWidth() : dpToPx(56);
-          clampBubblePosition(bubbleSize);
-          windowManager.updateViewLayout(bubbleView, bubbleParams);
-          int dragThreshold = dpToPx(DRAG_THRESHOLD_DP);
-          if (
-            Math.abs(event.getRawX() - initialTouchX) > dragThreshold ||
-            Math.abs(event.getRawY() - initialTouchY) > dragThreshold
-          ) {
+          dragEngine.addMotionEvent(event);
+          trackVelocity(event);
+          if (!moved && dragEngine.hasExceeded(geometry.getDragThresholdPx())) {
             moved = true;
+            performanceStats.startInteraction(OverlayPerformanceStats.INTERACTION_DRAG);
           }
           return true;
         case MotionEvent.ACTION_UP:
           if (!moved) {
-            performMenuHapticFeedback(); // Heavier haptic on tap
+            dragEngine.end();
+            releaseVelocityTracker();
+            if (event.getDownTime() == lastOutsideDismissEventTime) {
+              // This touch already closed the menu through the outside-touch path.
+              return true;
+            }
+            haptics.perform(OverlayHaptics.EFFECT_OPEN); // Heavier haptic on tap
             toggleExpanded();
-          } else {
-            snapBubbleToNearestEdge();
+            return true;
           }
+
+          trackVelocity(event);
+          velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+          float velocityX = velocityTracker.getXVelocity();
+          float velocityY = velocityTracker.getYVelocity();
+          releaseVelocityTracker();
+          performanceStats.stopInteraction(OverlayPerformanceStats.INTERACTION_DRAG);
+          metrics.record(
+            "overlay_drag",
+            UXMetricsRecorder.metadata("durationMs", event.getEventTime() - event.getDownTime())
+          );
+          // The settle motion takes over from the exact release point, so the drag engine
+          // does not spend another window update on it.
+          dragEngine.cancel();
+          bubbleX = dragEngine.getLatestX();
+          bubbleY = dragEngine.getLatestY();
+          clampBubblePosition(getBubbleSize());
+          snapBubbleToNearestEdge(velocityX, velocityY);
           return true;
         case MotionEvent.ACTION_CANCEL:
+          dragEngine.end();
+          releaseVelocityTracker();
           if (moved) {
+            performanceStats.stopInteraction(OverlayPerformanceStats.INTERACTION_DRAG);
             persistBubblePosition();
           }
           return true;
@@ -595,5 +936,24 @@ public class OverlayService extends Service {
           return false;
       }
     }
+
+    private void trackVelocity(MotionEvent event) {
+      if (velocityTracker == null) {
+        return;
+      }
+      // The view moves with its window, so track in screen coordinates.
+      float offsetX = event.getRawX() - event.getX();
+      float offsetY = event.getRawY() - event.getY();
+      event.offsetLocation(offsetX, offsetY);
+      velocityTracker.addMovement(event);
+      event.offsetLocation(-offsetX, -offsetY);
+    }
+
+    private void releaseVelocityTracker() {
+      if (velocityTracker != null) {
+        velocityTracker.recycle();
+        velocityTracker = null;
+      }
+    }
   }
 }
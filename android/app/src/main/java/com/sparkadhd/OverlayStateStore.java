@@ -0,0 +1,233 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+
+import com.sparkadhd.core.FocusTimer;
+import com.sparkadhd.core.OverlayStateRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Overlay state kept in a small memory-mapped file shared by OverlayService and OverlayModule.
+ *
+ * The layout lives in {@link OverlayStateRecord}: a header and two fixed-size slots, where
+ * every update writes the inactive slot, stamps it with a CRC32 and then flips the active
+ * index, so a torn write never replaces the last good record. Reads come from the in-memory
+ * copy loaded at open time.
+ */
+public class OverlayStateStore {
+  private static final String FILE_NAME = "spark_overlay_state.bin";
+  private static final String LEGACY_PREFS_NAME = "spark_overlay_prefs";
+  private static final String LEGACY_KEY_LAST_COUNT = "last_count";
+  private static final String LEGACY_KEY_BUBBLE_X = "bubble_x";
+  private static final String LEGACY_KEY_BUBBLE_Y = "bubble_y";
+
+  private static final int FILE_SIZE = OverlayStateRecord.FILE_SIZE;
+  private static final int FLAG_EXPANDED = OverlayStateRecord.FLAG_EXPANDED;
+  private static final int FLAG_HAS_PORTRAIT = OverlayStateRecord.FLAG_HAS_PORTRAIT;
+  private static final int FLAG_HAS_LANDSCAPE = OverlayStateRecord.FLAG_HAS_LANDSCAPE;
+  private static final int FLAG_SCRIM_DISMISS = OverlayStateRecord.FLAG_SCRIM_DISMISS;
+  private static final int FLAG_HAS_WARM_SIGNALS = OverlayStateRecord.FLAG_HAS_WARM_SIGNALS;
+
+  private static OverlayStateStore instance;
+
+  private final ByteBuffer buffer;
+  private final OverlayStateRecord record = new OverlayStateRecord();
+  private long writeCount;
+
+  public static synchronized OverlayStateStore getInstance(Context context) {
+    if (instance == null) {
+      instance = open(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private static OverlayStateStore open(Context context) {
+    File file = new File(context.getFilesDir(), FILE_NAME);
+    boolean created = !file.exists();
+    boolean mapped = true;
+    ByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      if (randomAccessFile.length() < FILE_SIZE) {
+        randomAccessFile.setLength(FILE_SIZE);
+      }
+      // The mapping stays valid after the channel is closed.
+      buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+    } catch (IOException | RuntimeException exception) {
+      // Keep the overlay usable for this process even if the file cannot be mapped.
+      buffer = ByteBuffer.allocate(FILE_SIZE);
+      created = true;
+      mapped = false;
+    }
+
+    OverlayStateStore store = new OverlayStateStore(buffer);
+    if (created || !store.load()) {
+      store.migrateLegacyPreferences(context, mapped);
+    }
+    return store;
+  }
+
+  private OverlayStateStore(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  public synchronized int getCount() {
+    return record.count;
+  }
+
+  public synchronized void setCount(int nextCount) {
+    if (record.count == nextCount) {
+      return;
+    }
+    record.count = nextCount;
+    record.countUpdatedAtMs = System.currentTimeMillis();
+    commit();
+  }
+
+  public synchronized long getCountUpdatedAtMs() {
+    return record.countUpdatedAtMs;
+  }
+
+  public synchronized boolean hasBubblePosition(int orientation) {
+    return (record.flags & positionFlag(orientation)) != 0;
+  }
+
+  public synchronized int getBubbleX(int orientation, int fallback) {
+    if (!hasBubblePosition(orientation)) {
+      return fallback;
+    }
+    return orientation == Configuration.ORIENTATION_LANDSCAPE ? record.landscapeX : record.portraitX;
+  }
+
+  public synchronized int getBubbleY(int orientation, int fallback) {
+    if (!hasBubblePosition(orientation)) {
+      return fallback;
+    }
+    return orientation == Configuration.ORIENTATION_LANDSCAPE ? record.landscapeY : record.portraitY;
+  }
+
+  public synchronized void setBubblePosition(int orientation, int x, int y) {
+    if (orientation == Configuration.ORIENTATION_LANDSCAPE) {
+      record.landscapeX = x;
+      record.landscapeY = y;
+    } else {
+      record.portraitX = x;
+      record.portraitY = y;
+    }
+    record.flags |= positionFlag(orientation);
+    record.positionUpdatedAtMs = System.currentTimeMillis();
+    commit();
+  }
+
+  public synchronized long getPositionUpdatedAtMs() {
+    return record.positionUpdatedAtMs;
+  }
+
+  public synchronized boolean isExpanded() {
+    return (record.flags & FLAG_EXPANDED) != 0;
+  }
+
+  public synchronized void setExpanded(boolean expanded) {
+    int nextFlags = expanded ? record.flags | FLAG_EXPANDED : record.flags & ~FLAG_EXPANDED;
+    if (nextFlags == record.flags) {
+      return;
+    }
+    record.flags = nextFlags;
+    commit();
+  }
+
+  public synchronized boolean isScrimDismissEnabled() {
+    return (record.flags & FLAG_SCRIM_DISMISS) != 0;
+  }
+
+  public synchronized void setScrimDismissEnabled(boolean enabled) {
+    int nextFlags = enabled ? record.flags | FLAG_SCRIM_DISMISS : record.flags & ~FLAG_SCRIM_DISMISS;
+    if (nextFlags == record.flags) {
+      return;
+    }
+    record.flags = nextFlags;
+    commit();
+  }
+
+  /**
+   * Bit mask of {@link ReactContextWarmer} signals, or {@code fallback} if never set.
+   */
+  public synchronized int getWarmSignals(int fallback) {
+    return (record.flags & FLAG_HAS_WARM_SIGNALS) != 0 ? record.warmSignals : fallback;
+  }
+
+  public synchronized void setWarmSignals(int signals) {
+    if ((record.flags & FLAG_HAS_WARM_SIGNALS) != 0 && record.warmSignals == signals) {
+      return;
+    }
+    record.warmSignals = signals;
+    record.flags |= FLAG_HAS_WARM_SIGNALS;
+    commit();
+  }
+
+  /**
+   * Load the persisted focus timer into {@code timer}.
+   */
+  public synchronized void readFocusTimer(FocusTimer timer) {
+    timer.restore(
+      record.timerState,
+      record.timerKind,
+      record.timerDurationMs,
+      record.timerEndsAtMs,
+      record.timerPausedRemainingMs
+    );
+  }
+
+  public synchronized void writeFocusTimer(FocusTimer timer) {
+    if (record.timerState == timer.state()
+      && record.timerKind == timer.kind()
+      && record.timerDurationMs == timer.durationMs()
+      && record.timerEndsAtMs == timer.endsAtMs()
+      && record.timerPausedRemainingMs == timer.pausedRemainingMs()) {
+      return;
+    }
+    record.timerState = timer.state();
+    record.timerKind = timer.kind();
+    record.timerDurationMs = timer.durationMs();
+    record.timerEndsAtMs = timer.endsAtMs();
+    record.timerPausedRemainingMs = timer.pausedRemainingMs();
+    commit();
+  }
+
+  public synchronized long getWriteCount() {
+    return writeCount;
+  }
+
+  private static int positionFlag(int orientation) {
+    return orientation == Configuration.ORIENTATION_LANDSCAPE ? FLAG_HAS_LANDSCAPE : FLAG_HAS_PORTRAIT;
+  }
+
+  private boolean load() {
+    return record.load(buffer);
+  }
+
+  private void commit() {
+    record.commit(buffer);
+    writeCount++;
+  }
+
+  private void migrateLegacyPreferences(Context context, boolean deleteLegacy) {
+    SharedPreferences preferences = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+    record.count = preferences.getInt(LEGACY_KEY_LAST_COUNT, 0);
+    if (preferences.contains(LEGACY_KEY_BUBBLE_X) && preferences.contains(LEGACY_KEY_BUBBLE_Y)) {
+      record.portraitX = preferences.getInt(LEGACY_KEY_BUBBLE_X, 0);
+      record.portraitY = preferences.getInt(LEGACY_KEY_BUBBLE_Y, 0);
+      record.flags |= FLAG_HAS_PORTRAIT;
+    }
+    commit();
+    if (deleteLegacy) {
+      context.deleteSharedPreferences(LEGACY_PREFS_NAME);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.sparkadhd;
+
+/**
+ * Single-producer, single-consumer ring of 16-bit samples between the capture thread and the
+ * encoder. Writes never block: if the reader falls a whole ring behind, the oldest samples are
+ * overwritten and counted as overrun, so the microphone is always drained on time.
+ */
+final class PcmRingBuffer {
+  private final short[] ring;
+  // Guarded by this. Positions only grow; index with % ring.length.
+  private long writePosition;
+  private long readPosition;
+  private long overrunSamples;
+  private boolean closed;
+
+  PcmRingBuffer(int capacity) {
+    ring = new short[capacity];
+  }
+
+  synchronized void write(short[] source, int offset, int length) {
+    for (int index = 0; index < length; index++) {
+      ring[(int) ((writePosition + index) % ring.length)] = source[offset + index];
+    }
+    writePosition += length;
+    long behind = writePosition - readPosition - ring.length;
+    if (behind > 0) {
+      readPosition += behind;
+      overrunSamples += behind;
+    }
+    notifyAll();
+  }
+
+  /**
+   * Fill {@code target} with exactly {@code length} samples, waiting for them. Returns fewer
+   * only once the ring is closed and drained.
+   */
+  synchronized int read(short[] target, int offset, int length) throws InterruptedException {
+    while (writePosition - readPosition < length && !closed) {
+      wait();
+    }
+    int count = (int) Math.min(length, writePosition - readPosition);
+    for (int index = 0; index < count; index++) {
+      target[offset + index] = ring[(int) ((readPosition + index) % ring.length)];
+    }
+    readPosition += count;
+    return count;
+  }
+
+  synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  synchronized long getOverrunSamples() {
+    return overrunSamples;
+  }
+}
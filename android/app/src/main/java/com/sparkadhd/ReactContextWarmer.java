@@ -0,0 +1,222 @@
+package com.sparkadhd;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.facebook.react.ReactApplication;
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.ReactNativeHost;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Starts the React context ahead of a menu tap, so MainActivity finds it ready.
+ *
+ * Overlay activity (service start, bubble touch-down, menu expand) is reported as signals;
+ * enabled signals kick off {@code createReactContextInBackground} on the next main-loop turn.
+ * A context warmed here is released again under memory pressure as long as no activity is
+ * using it, and warming then backs off for a while.
+ */
+public class ReactContextWarmer {
+  public static final int SIGNAL_SERVICE_START = 1;
+  public static final int SIGNAL_TOUCH_DOWN = 1 << 1;
+  public static final int SIGNAL_MENU_EXPAND = 1 << 2;
+  public static final int DEFAULT_SIGNALS = SIGNAL_TOUCH_DOWN | SIGNAL_MENU_EXPAND;
+
+  public static final String SIGNAL_NAME_SERVICE_START = "service_start";
+  public static final String SIGNAL_NAME_TOUCH_DOWN = "touch_down";
+  public static final String SIGNAL_NAME_MENU_EXPAND = "menu_expand";
+  public static final List<String> SIGNAL_NAMES = Collections.unmodifiableList(
+    Arrays.asList(SIGNAL_NAME_SERVICE_START, SIGNAL_NAME_TOUCH_DOWN, SIGNAL_NAME_MENU_EXPAND)
+  );
+
+  private static final long PRESSURE_BACKOFF_MS = 5 * 60 * 1000L;
+
+  private static ReactContextWarmer instance;
+
+  private final Context appContext;
+  private final OverlayStateStore stateStore;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable warmRunnable = this::warmNow;
+  // Main thread only.
+  private boolean warmPending;
+  private boolean warmedHere;
+  private int liveActivities;
+  private long backoffUntilMs;
+  // Guarded by this.
+  private long warmStarts;
+  private long warmReleases;
+  private long skippedForMemory;
+  private long routeHits;
+  private long routeMisses;
+  private long hitRouteMsTotal;
+  private long missRouteMsTotal;
+  private long lastTimeToRouteMs = -1L;
+
+  public static synchronized ReactContextWarmer getInstance(Context context) {
+    if (instance == null) {
+      instance = new ReactContextWarmer(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private ReactContextWarmer(Context appContext) {
+    this.appContext = appContext;
+    this.stateStore = OverlayStateStore.getInstance(appContext);
+  }
+
+  public static int signalForName(String name) {
+    if (SIGNAL_NAME_SERVICE_START.equals(name)) {
+      return SIGNAL_SERVICE_START;
+    }
+    if (SIGNAL_NAME_TOUCH_DOWN.equals(name)) {
+      return SIGNAL_TOUCH_DOWN;
+    }
+    if (SIGNAL_NAME_MENU_EXPAND.equals(name)) {
+      return SIGNAL_MENU_EXPAND;
+    }
+    return 0;
+  }
+
+  /**
+   * Report overlay activity on the main thread. Cheap enough for the touch path: the actual
+   * warm-up runs after the current event has been handled.
+   */
+  public void onSignal(int signal) {
+    if (warmPending || (stateStore.getWarmSignals(DEFAULT_SIGNALS) & signal) == 0) {
+      return;
+    }
+    warmPending = true;
+    mainHandler.post(warmRunnable);
+  }
+
+  public void onActivityCreated() {
+    liveActivities++;
+  }
+
+  public void onActivityDestroyed() {
+    liveActivities = Math.max(0, liveActivities - 1);
+  }
+
+  /**
+   * Drop a context nobody is looking at when the system asks for memory back.
+   */
+  @SuppressWarnings("deprecation")
+  public void onTrimMemory(int level) {
+    boolean pressure = level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+      || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+      || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+    if (!pressure) {
+      return;
+    }
+
+    backoffUntilMs = SystemClock.uptimeMillis() + PRESSURE_BACKOFF_MS;
+    mainHandler.removeCallbacks(warmRunnable);
+    warmPending = false;
+    if (!warmedHere || liveActivities > 0) {
+      return;
+    }
+
+    ReactNativeHost host = getHost();
+    if (host != null && host.hasInstance()) {
+      host.clear();
+      synchronized (this) {
+        warmReleases++;
+      }
+    }
+    warmedHere = false;
+  }
+
+  /**
+   * Record how long a menu tap took to reach JS, and whether the context was already there.
+   */
+  public synchronized void recordRoute(boolean contextReady, long timeToRouteMs) {
+    lastTimeToRouteMs = timeToRouteMs;
+    if (contextReady) {
+      routeHits++;
+      hitRouteMsTotal += timeToRouteMs;
+    } else {
+      routeMisses++;
+      missRouteMsTotal += timeToRouteMs;
+    }
+  }
+
+  public synchronized Bundle statsToBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putDouble("warmStarts", warmStarts);
+    bundle.putDouble("warmReleases", warmReleases);
+    bundle.putDouble("skippedForMemory", skippedForMemory);
+    bundle.putDouble("routeHits", routeHits);
+    bundle.putDouble("routeMisses", routeMisses);
+    bundle.putDouble("avgHitTimeToRouteMs", routeHits == 0L ? -1d : (double) hitRouteMsTotal / routeHits);
+    bundle.putDouble("avgMissTimeToRouteMs", routeMisses == 0L ? -1d : (double) missRouteMsTotal / routeMisses);
+    bundle.putDouble("lastTimeToRouteMs", lastTimeToRouteMs);
+    return bundle;
+  }
+
+  public synchronized void resetStats() {
+    warmStarts = 0L;
+    warmReleases = 0L;
+    skippedForMemory = 0L;
+    routeHits = 0L;
+    routeMisses = 0L;
+    hitRouteMsTotal = 0L;
+    missRouteMsTotal = 0L;
+    lastTimeToRouteMs = -1L;
+  }
+
+  private void warmNow() {
+    warmPending = false;
+    ReactNativeHost host = getHost();
+    if (host == null) {
+      return;
+    }
+    if (host.hasInstance() && host.getReactInstanceManager().hasStartedCreatingInitialContext()) {
+      return;
+    }
+    if (SystemClock.uptimeMillis() < backoffUntilMs || isMemoryLow()) {
+      synchronized (this) {
+        skippedForMemory++;
+      }
+      return;
+    }
+
+    try {
+      ReactInstanceManager manager = host.getReactInstanceManager();
+      manager.createReactContextInBackground();
+      warmedHere = liveActivities == 0;
+      synchronized (this) {
+        warmStarts++;
+      }
+    } catch (RuntimeException ignored) {
+      // MainActivity starts the context itself if warming fails.
+    }
+  }
+
+  private boolean isMemoryLow() {
+    ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+    if (activityManager == null) {
+      return false;
+    }
+    if (activityManager.isLowRamDevice()) {
+      return true;
+    }
+    ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+    activityManager.getMemoryInfo(memoryInfo);
+    return memoryInfo.lowMemory;
+  }
+
+  private ReactNativeHost getHost() {
+    if (!(appContext instanceof ReactApplication)) {
+      return null;
+    }
+    return ((ReactApplication) appContext).getReactNativeHost();
+  }
+}
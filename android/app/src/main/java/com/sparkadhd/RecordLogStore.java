@@ -0,0 +1,523 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only record log for one collection of JSON records keyed by id.
+ *
+ * Every put or delete appends one checksummed frame and updates an in-memory index of where
+ * each live record sits in the file, so a write costs the same however large the collection
+ * is. Records keep the insertion order they were first written with, and pages are read
+ * straight from the file through the index. Once dead frames outweigh live ones the log is
+ * rewritten on a background thread; writes that land meanwhile are replayed into the new
+ * file before it replaces the old one. On open, a torn or corrupt tail is truncated away.
+ */
+public class RecordLogStore {
+  public static class Page {
+    public final List<String> payloads;
+    public final Long nextCursor;
+
+    Page(List<String> payloads, Long nextCursor) {
+      this.payloads = payloads;
+      this.nextCursor = nextCursor;
+    }
+  }
+
+  private static final String TAG = "RecordLogStore";
+  private static final String DIR_NAME = "record_store";
+  private static final String LOG_SUFFIX = ".log";
+  private static final String COMPACT_SUFFIX = ".compact";
+
+  private static final int MAGIC = 0x5350524C; // "SPRL"
+  private static final int FORMAT_VERSION = 1;
+  private static final int FILE_HEADER_SIZE = 8;
+  // length(4) crc(4) op(1) order(8) idLength(2)
+  private static final int FRAME_HEADER_SIZE = 19;
+  private static final int FRAME_CRC_START = 8;
+  private static final byte OP_PUT = 1;
+  private static final byte OP_DELETE = 2;
+  private static final long COMPACT_MIN_GARBAGE_BYTES = 64 * 1024L;
+
+  private static final Map<String, RecordLogStore> stores = new HashMap<>();
+  private static Handler compactorHandler;
+
+  private static final class Entry {
+    final long order;
+    final long frameOffset;
+    final int frameSize;
+    final int payloadLength;
+    final int idLength;
+
+    Entry(long order, long frameOffset, int frameSize, int idLength, int payloadLength) {
+      this.order = order;
+      this.frameOffset = frameOffset;
+      this.frameSize = frameSize;
+      this.idLength = idLength;
+      this.payloadLength = payloadLength;
+    }
+
+    long payloadOffset() {
+      return frameOffset + FRAME_HEADER_SIZE + idLength;
+    }
+
+    Entry movedTo(long nextFrameOffset) {
+      return new Entry(order, nextFrameOffset, frameSize, idLength, payloadLength);
+    }
+  }
+
+  private final String collection;
+  private final File logFile;
+  private final File compactFile;
+  private final CRC32 crc = new CRC32();
+  private final Runnable compactRunnable = this::compact;
+  // Guarded by this.
+  private FileChannel channel;
+  private Map<String, Entry> entries = new HashMap<>();
+  private final TreeMap<Long, String> orderIndex = new TreeMap<>();
+  private long fileLength;
+  private long liveBytes;
+  private long nextOrder = 1L;
+  private long generation;
+  private boolean compactionPending;
+  private long compactions;
+  private long recoveredTruncations;
+  private long writes;
+
+  public static synchronized RecordLogStore open(Context context, String collection) throws IOException {
+    RecordLogStore store = stores.get(collection);
+    if (store == null) {
+      File dir = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Could not create " + dir);
+      }
+      store = new RecordLogStore(dir, collection);
+      stores.put(collection, store);
+    }
+    return store;
+  }
+
+  private static synchronized Handler compactor() {
+    if (compactorHandler == null) {
+      HandlerThread thread = new HandlerThread("SparkRecordCompactor", Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      compactorHandler = new Handler(thread.getLooper());
+    }
+    return compactorHandler;
+  }
+
+  private RecordLogStore(File dir, String collection) throws IOException {
+    this.collection = collection;
+    logFile = new File(dir, collection + LOG_SUFFIX);
+    compactFile = new File(dir, collection + COMPACT_SUFFIX);
+    // A leftover from a compaction that never finished; the log itself is still complete.
+    compactFile.delete();
+    channel = openChannel(logFile);
+    recover();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized boolean contains(String id) {
+    return entries.containsKey(id);
+  }
+
+  /**
+   * Apply puts and deletes as one appended batch, synced to disk before returning.
+   */
+  public synchronized void write(List<String> putIds, List<String> putPayloads, List<String> deleteIds)
+    throws IOException {
+    List<String> deletes = new ArrayList<>();
+    int batchSize = 0;
+    for (String id : deleteIds) {
+      if (entries.containsKey(id)) {
+        deletes.add(id);
+        batchSize += FRAME_HEADER_SIZE + utf8Length(id);
+      }
+    }
+    List<byte[]> idBytes = new ArrayList<>(putIds.size());
+    List<byte[]> payloadBytes = new ArrayList<>(putIds.size());
+    for (int index = 0; index < putIds.size(); index++) {
+      byte[] id = putIds.get(index).getBytes(StandardCharsets.UTF_8);
+      byte[] payload = putPayloads.get(index).getBytes(StandardCharsets.UTF_8);
+      idBytes.add(id);
+      payloadBytes.add(payload);
+      batchSize += FRAME_HEADER_SIZE + id.length + payload.length;
+    }
+    if (batchSize == 0) {
+      return;
+    }
+
+    ByteBuffer batch = ByteBuffer.allocate(batchSize).order(ByteOrder.LITTLE_ENDIAN);
+    long offset = fileLength;
+    List<Entry> written = new ArrayList<>(putIds.size());
+    for (String id : deletes) {
+      offset += putFrame(batch, OP_DELETE, entries.get(id).order, id.getBytes(StandardCharsets.UTF_8), null);
+    }
+    Map<String, Long> batchOrders = new HashMap<>();
+    for (int index = 0; index < putIds.size(); index++) {
+      String id = putIds.get(index);
+      Entry existing = entries.get(id);
+      Long order = existing != null ? Long.valueOf(existing.order) : batchOrders.get(id);
+      if (order == null) {
+        order = nextOrder++;
+      }
+      batchOrders.put(id, order);
+      byte[] idData = idBytes.get(index);
+      byte[] payload = payloadBytes.get(index);
+      int frameSize = putFrame(batch, OP_PUT, order, idData, payload);
+      written.add(new Entry(order, offset, frameSize, idData.length, payload.length));
+      offset += frameSize;
+    }
+
+    batch.flip();
+    writeFully(channel, batch, fileLength);
+    channel.force(false);
+    fileLength = offset;
+    writes++;
+
+    for (String id : deletes) {
+      removeEntry(id);
+    }
+    for (int index = 0; index < putIds.size(); index++) {
+      putEntry(putIds.get(index), written.get(index));
+    }
+    maybeScheduleCompaction();
+  }
+
+  /**
+   * Drop every record. Any compaction in flight is abandoned.
+   */
+  public synchronized void clear() throws IOException {
+    generation++;
+    channel.truncate(FILE_HEADER_SIZE);
+    channel.force(true);
+    fileLength = FILE_HEADER_SIZE;
+    entries = new HashMap<>();
+    orderIndex.clear();
+    liveBytes = 0L;
+    writes++;
+  }
+
+  /**
+   * Up to {@code limit} payloads after {@code cursor} in insertion order, or before it when
+   * {@code descending}. A null cursor starts at the oldest (or newest) record.
+   */
+  public synchronized Page page(Long cursor, int limit, boolean descending) throws IOException {
+    NavigableMap<Long, String> view;
+    if (descending) {
+      view = cursor == null ? orderIndex.descendingMap() : orderIndex.headMap(cursor, false).descendingMap();
+    } else {
+      view = cursor == null ? orderIndex : orderIndex.tailMap(cursor, false);
+    }
+
+    List<String> payloads = new ArrayList<>(Math.min(limit, view.size()));
+    Long lastOrder = null;
+    Iterator<Map.Entry<Long, String>> iterator = view.entrySet().iterator();
+    while (iterator.hasNext() && payloads.size() < limit) {
+      Map.Entry<Long, String> next = iterator.next();
+      payloads.add(readPayload(entries.get(next.getValue())));
+      lastOrder = next.getKey();
+    }
+    return new Page(payloads, iterator.hasNext() ? lastOrder : null);
+  }
+
+  public synchronized Map<String, Double> stats() {
+    Map<String, Double> stats = new HashMap<>();
+    stats.put("records", (double) entries.size());
+    stats.put("fileBytes", (double) fileLength);
+    stats.put("liveBytes", (double) liveBytes);
+    stats.put("writes", (double) writes);
+    stats.put("compactions", (double) compactions);
+    stats.put("recoveredTruncations", (double) recoveredTruncations);
+    return stats;
+  }
+
+  private int putFrame(ByteBuffer batch, byte op, long order, byte[] id, byte[] payload) {
+    int start = batch.position();
+    int payloadLength = payload == null ? 0 : payload.length;
+    int frameSize = FRAME_HEADER_SIZE + id.length + payloadLength;
+    batch.putInt(frameSize - 4);
+    batch.putInt(0);
+    batch.put(op);
+    batch.putLong(order);
+    batch.putShort((short) id.length);
+    batch.put(id);
+    if (payload != null) {
+      batch.put(payload);
+    }
+    crc.reset();
+    crc.update(batch.array(), start + FRAME_CRC_START, frameSize - FRAME_CRC_START);
+    batch.putInt(start + 4, (int) crc.getValue());
+    return frameSize;
+  }
+
+  private void putEntry(String id, Entry entry) {
+    Entry previous = entries.put(id, entry);
+    if (previous != null) {
+      liveBytes -= previous.frameSize;
+    }
+    orderIndex.put(entry.order, id);
+    liveBytes += entry.frameSize;
+    nextOrder = Math.max(nextOrder, entry.order + 1);
+  }
+
+  private void removeEntry(String id) {
+    Entry previous = entries.remove(id);
+    if (previous != null) {
+      orderIndex.remove(previous.order);
+      liveBytes -= previous.frameSize;
+    }
+  }
+
+  private String readPayload(Entry entry) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(entry.payloadLength);
+    readFully(channel, buffer, entry.payloadOffset());
+    return new String(buffer.array(), StandardCharsets.UTF_8);
+  }
+
+  private void maybeScheduleCompaction() {
+    long garbage = fileLength - FILE_HEADER_SIZE - liveBytes;
+    if (compactionPending || garbage < COMPACT_MIN_GARBAGE_BYTES || garbage < liveBytes) {
+      return;
+    }
+    compactionPending = true;
+    compactor().post(compactRunnable);
+  }
+
+  /**
+   * Scan the log on open, rebuilding the index and cutting off anything after the last
+   * intact frame.
+   */
+  private void recover() throws IOException {
+    long length = channel.size();
+    if (length < FILE_HEADER_SIZE) {
+      writeFileHeader(channel);
+      fileLength = FILE_HEADER_SIZE;
+      return;
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, header, 0);
+    if (header.getInt(0) != MAGIC || header.getInt(4) > FORMAT_VERSION) {
+      Log.w(TAG, "Unreadable log for " + collection + ", starting empty");
+      channel.truncate(0);
+      writeFileHeader(channel);
+      fileLength = FILE_HEADER_SIZE;
+      recoveredTruncations++;
+      return;
+    }
+
+    long offset = FILE_HEADER_SIZE;
+    ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (offset + FRAME_HEADER_SIZE <= length) {
+      frameHeader.clear();
+      readFully(channel, frameHeader, offset);
+      int frameSize = frameHeader.getInt(0) + 4;
+      int idLength = frameHeader.getShort(17) & 0xFFFF;
+      if (frameSize < FRAME_HEADER_SIZE + idLength || offset + frameSize > length) {
+        break;
+      }
+
+      ByteBuffer frame = ByteBuffer.allocate(frameSize).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, frame, offset);
+      crc.reset();
+      crc.update(frame.array(), FRAME_CRC_START, frameSize - FRAME_CRC_START);
+      if (frame.getInt(4) != (int) crc.getValue()) {
+        break;
+      }
+
+      byte op = frame.get(8);
+      long order = frame.getLong(9);
+      String id = new String(frame.array(), FRAME_HEADER_SIZE, idLength, StandardCharsets.UTF_8);
+      if (op == OP_PUT) {
+        putEntry(id, new Entry(order, offset, frameSize, idLength, frameSize - FRAME_HEADER_SIZE - idLength));
+      } else {
+        removeEntry(id);
+      }
+      nextOrder = Math.max(nextOrder, order + 1);
+      offset += frameSize;
+    }
+
+    if (offset < length) {
+      Log.w(TAG, "Truncating " + (length - offset) + " torn bytes from " + collection);
+      channel.truncate(offset);
+      channel.force(true);
+      recoveredTruncations++;
+    }
+    fileLength = offset;
+  }
+
+  private void compact() {
+    List<String> snapshotIds;
+    List<Entry> snapshot;
+    long snapshotEnd;
+    long snapshotGeneration;
+    FileChannel source;
+    synchronized (this) {
+      // Copy in insertion order so paging the compacted log reads the file sequentially.
+      snapshotIds = new ArrayList<>(orderIndex.values());
+      snapshot = new ArrayList<>(snapshotIds.size());
+      for (String id : snapshotIds) {
+        snapshot.add(entries.get(id));
+      }
+      snapshotEnd = fileLength;
+      snapshotGeneration = generation;
+      source = channel;
+    }
+
+    FileChannel target = null;
+    try {
+      target = openChannel(compactFile);
+      target.truncate(0);
+      writeFileHeader(target);
+      long offset = FILE_HEADER_SIZE;
+      Map<String, Entry> moved = new HashMap<>(snapshot.size() * 2);
+      // Copy live frames without holding the lock; the region before snapshotEnd never changes.
+      for (int index = 0; index < snapshot.size(); index++) {
+        Entry entry = snapshot.get(index);
+        copyFrame(source, target, entry.frameOffset, entry.frameSize, offset);
+        moved.put(snapshotIds.get(index), entry.movedTo(offset));
+        offset += entry.frameSize;
+      }
+
+      synchronized (this) {
+        compactionPending = false;
+        if (snapshotGeneration != generation) {
+          target.close();
+          compactFile.delete();
+          return;
+        }
+
+        // Replay what was appended while copying.
+        long tailOffset = snapshotEnd;
+        ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (tailOffset < fileLength) {
+          frameHeader.clear();
+          readFully(channel, frameHeader, tailOffset);
+          int frameSize = frameHeader.getInt(0) + 4;
+          int idLength = frameHeader.getShort(17) & 0xFFFF;
+          ByteBuffer idBuffer = ByteBuffer.allocate(idLength);
+          readFully(channel, idBuffer, tailOffset + FRAME_HEADER_SIZE);
+          String id = new String(idBuffer.array(), StandardCharsets.UTF_8);
+          // Deletes are copied too, or a record copied from the snapshot would come back.
+          copyFrame(channel, target, tailOffset, frameSize, offset);
+          if (frameHeader.get(8) == OP_PUT) {
+            long order = frameHeader.getLong(9);
+            moved.put(id, new Entry(order, offset, frameSize, idLength, frameSize - FRAME_HEADER_SIZE - idLength));
+          } else {
+            moved.remove(id);
+          }
+          offset += frameSize;
+          tailOffset += frameSize;
+        }
+
+        Map<String, Entry> next = new HashMap<>(entries.size() * 2);
+        long nextLive = 0L;
+        for (Map.Entry<String, Entry> live : entries.entrySet()) {
+          Entry relocated = moved.get(live.getKey());
+          if (relocated == null) {
+            throw new IOException("Compaction lost " + live.getKey());
+          }
+          next.put(live.getKey(), relocated);
+          nextLive += relocated.frameSize;
+        }
+
+        target.force(true);
+        target.close();
+        target = null;
+        if (!compactFile.renameTo(logFile)) {
+          throw new IOException("Could not replace " + logFile);
+        }
+        channel.close();
+        channel = openChannel(logFile);
+        entries = next;
+        fileLength = offset;
+        liveBytes = nextLive;
+        compactions++;
+      }
+    } catch (IOException exception) {
+      Log.w(TAG, "Compaction failed for " + collection, exception);
+      synchronized (this) {
+        compactionPending = false;
+      }
+      compactFile.delete();
+    } finally {
+      if (target != null) {
+        try {
+          target.close();
+        } catch (IOException ignored) {
+        }
+      }
+    }
+  }
+
+  private static FileChannel openChannel(File file) throws IOException {
+    return FileChannel.open(
+      file.toPath(),
+      StandardOpenOption.CREATE,
+      StandardOpenOption.READ,
+      StandardOpenOption.WRITE
+    );
+  }
+
+  private static void writeFileHeader(FileChannel target) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(FORMAT_VERSION);
+    header.flip();
+    writeFully(target, header, 0);
+    target.force(true);
+  }
+
+  private static void copyFrame(FileChannel source, FileChannel target, long from, int size, long to)
+    throws IOException {
+    ByteBuffer frame = ByteBuffer.allocate(size);
+    readFully(source, frame, from);
+    frame.flip();
+    writeFully(target, frame, to);
+  }
+
+  private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = source.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of log");
+      }
+      offset += read;
+    }
+  }
+
+  private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      offset += target.write(buffer, offset);
+    }
+  }
+
+  private static int utf8Length(String value) {
+    return value.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
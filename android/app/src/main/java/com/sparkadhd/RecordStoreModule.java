@@ -0,0 +1,169 @@
+package com.sparkadhd;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JS access to the per-collection {@link RecordLogStore}s. Records cross the bridge as JSON
+ * strings and are never parsed on this side.
+ */
+public class RecordStoreModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "RecordStoreModule";
+  private static final String COLLECTION_BRAIN_DUMP = "brainDump";
+  private static final Set<String> COLLECTIONS = new HashSet<>(Arrays.asList(COLLECTION_BRAIN_DUMP, "tasks"));
+  private final ReactApplicationContext reactContext;
+
+  public RecordStoreModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    this.reactContext = reactContext;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @ReactMethod
+  public void write(
+    String collection,
+    ReadableArray putIds,
+    ReadableArray putPayloads,
+    ReadableArray deleteIds,
+    Promise promise
+  ) {
+    if (putIds.size() != putPayloads.size()) {
+      promise.reject("E_RECORD_STORE_ARGS", "putIds and putPayloads differ in length");
+      return;
+    }
+    try {
+      RecordLogStore store = open(collection);
+      store.write(toList(putIds), toList(putPayloads), toList(deleteIds));
+      promise.resolve(onWritten(collection, store));
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_WRITE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void clear(String collection, Promise promise) {
+    try {
+      RecordLogStore store = open(collection);
+      store.clear();
+      promise.resolve(onWritten(collection, store));
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_WRITE", exception);
+    }
+  }
+
+  /**
+   * One page of records. The cursor is opaque to JS; pass back {@code nextCursor} for the next
+   * page until it is null.
+   */
+  @ReactMethod
+  public void page(String collection, @Nullable Double cursor, double limit, boolean newestFirst, Promise promise) {
+    try {
+      RecordLogStore.Page page = open(collection).page(
+        cursor == null ? null : cursor.longValue(),
+        Math.max(1, (int) limit),
+        newestFirst
+      );
+      WritableArray items = Arguments.createArray();
+      for (String payload : page.payloads) {
+        items.pushString(payload);
+      }
+      WritableMap result = Arguments.createMap();
+      result.putArray("items", items);
+      if (page.nextCursor == null) {
+        result.putNull("nextCursor");
+      } else {
+        result.putDouble("nextCursor", page.nextCursor);
+      }
+      promise.resolve(result);
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_READ", exception);
+    }
+  }
+
+  @ReactMethod
+  public void count(String collection, Promise promise) {
+    try {
+      promise.resolve(open(collection).size());
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_READ", exception);
+    }
+  }
+
+  /**
+   * The subset of {@code ids} that have a record, so JS can skip known ids without reading
+   * the collection.
+   */
+  @ReactMethod
+  public void existing(String collection, ReadableArray ids, Promise promise) {
+    try {
+      RecordLogStore store = open(collection);
+      WritableArray found = Arguments.createArray();
+      for (int index = 0; index < ids.size(); index++) {
+        String id = ids.getString(index);
+        if (id != null && store.contains(id)) {
+          found.pushString(id);
+        }
+      }
+      promise.resolve(found);
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_READ", exception);
+    }
+  }
+
+  @ReactMethod
+  public void getStats(String collection, Promise promise) {
+    try {
+      WritableMap stats = Arguments.createMap();
+      for (Map.Entry<String, Double> entry : open(collection).stats().entrySet()) {
+        stats.putDouble(entry.getKey(), entry.getValue());
+      }
+      promise.resolve(stats);
+    } catch (IOException | IllegalArgumentException exception) {
+      promise.reject("E_RECORD_STORE_READ", exception);
+    }
+  }
+
+  private RecordLogStore open(String collection) throws IOException {
+    if (!COLLECTIONS.contains(collection)) {
+      throw new IllegalArgumentException("Unknown collection " + collection);
+    }
+    return RecordLogStore.open(reactContext, collection);
+  }
+
+  private int onWritten(String collection, RecordLogStore store) {
+    int size = store.size();
+    if (COLLECTION_BRAIN_DUMP.equals(collection)) {
+      // The bubble shows the brain dump size, so it follows every write without a JS round trip.
+      OverlayCountPipeline.getInstance(reactContext).submit(size);
+    }
+    return size;
+  }
+
+  private static List<String> toList(ReadableArray array) {
+    List<String> values = new ArrayList<>(array.size());
+    for (int index = 0; index < array.size(); index++) {
+      values.add(array.getString(index));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,847 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Durable queue for the app's calls to the Spark middleware (AI sort, transcription uploads).
+ *
+ * Requests are journaled in a {@link RecordLogStore} collection before they are acknowledged, and
+ * one worker thread sends them oldest first. Identical requests still waiting are coalesced into
+ * one. Failures that may pass (network errors, 408, 429, 5xx) are retried with jittered
+ * exponential backoff, honouring Retry-After; while the device is offline the worker sleeps until
+ * a network comes back instead of spending attempts. Delivery is at least once: a request that
+ * finished just before the process died is sent again on the next start.
+ *
+ * A caller is told at once when its request cannot go out yet, at enqueue time or through
+ * {@link Listener#onQueued} when a send fails and is pushed back. Completions no listener took
+ * are journaled and offered again by {@link #flushUndelivered()}.
+ *
+ * A transcription can carry a brain dump record to complete. The outbox writes it to the brain
+ * dump store itself, under the record's own id, so the item appears even if no screen is left
+ * waiting for it.
+ */
+public class RequestOutbox {
+  private static final String TAG = "RequestOutbox";
+  private static final String COLLECTION = "outbox";
+  private static final String COLLECTION_BRAIN_DUMP = "brainDump";
+  private static final String COLLECTION_UNDELIVERED = "outboxUndelivered";
+  private static final int MAX_ATTEMPTS = 8;
+  private static final long BASE_BACKOFF_MS = 1_000L;
+  private static final long MAX_BACKOFF_MS = 5 * 60_000L;
+  private static final long DEFAULT_TTL_MS = 7 * 24 * 60 * 60_000L;
+  private static final int CONNECT_TIMEOUT_MS = 15_000;
+  private static final int READ_TIMEOUT_MS = 60_000;
+  private static final int MAX_BODY_BYTES = 1 << 20;
+  private static final int LOAD_PAGE_SIZE = 100;
+  private static final int MAX_UNDELIVERED = 50;
+  private static final long NO_JOB = -1L;
+
+  // Where a request stands when it is enqueued or pushed back.
+  public static final String STATE_SENDING = "sending";
+  public static final String STATE_OFFLINE = "offline";
+  public static final String STATE_RETRYING = "retrying";
+
+  public interface Listener {
+    /**
+     * Returns whether the completion reached someone. One no listener took is kept for
+     * {@link #flushUndelivered()}.
+     */
+    boolean onCompleted(Completion completion);
+
+    /**
+     * {@code id} will not be sent right away; {@code state} is {@link #STATE_OFFLINE} or
+     * {@link #STATE_RETRYING}.
+     */
+    default void onQueued(String id, String state) {
+    }
+  }
+
+  public static final class Completion {
+    public String id;
+    public String kind;
+    public boolean ok;
+    public int status;
+    @Nullable public String body;
+    @Nullable public String error;
+    // The brain dump record written for a transcription, as JSON.
+    @Nullable public String record;
+
+    String toJson() throws JSONException {
+      JSONObject json = new JSONObject();
+      json.put("id", id);
+      json.put("kind", kind);
+      json.put("ok", ok);
+      json.put("status", status);
+      json.put("body", body == null ? JSONObject.NULL : body);
+      json.put("error", error == null ? JSONObject.NULL : error);
+      json.put("record", record == null ? JSONObject.NULL : record);
+      return json.toString();
+    }
+
+    static Completion fromJson(String payload) throws JSONException {
+      JSONObject json = new JSONObject(payload);
+      Completion completion = new Completion();
+      completion.id = json.getString("id");
+      completion.kind = json.getString("kind");
+      completion.ok = json.optBoolean("ok", false);
+      completion.status = json.optInt("status", 0);
+      completion.body = optNullableString(json, "body");
+      completion.error = optNullableString(json, "error");
+      completion.record = optNullableString(json, "record");
+      return completion;
+    }
+  }
+
+  /**
+   * What to send. Either {@link #body} or {@link #filePath} (sent as multipart form data with
+   * {@link #fields}) may be set.
+   */
+  public static final class Request {
+    public String kind;
+    public String method = "POST";
+    public String url;
+    public final Map<String, String> headers = new LinkedHashMap<>();
+    @Nullable public String body;
+    @Nullable public String filePath;
+    public String fileField = "file";
+    public String fileName = "upload";
+    public String fileType = "application/octet-stream";
+    public final Map<String, String> fields = new LinkedHashMap<>();
+    // Coalesce with an identical request that is still queued.
+    public boolean dedupe;
+    public long ttlMs = DEFAULT_TTL_MS;
+    @Nullable public String brainDumpRecord;
+  }
+
+  private static final class Entry {
+    String id;
+    Request request;
+    @Nullable String dedupKey;
+    int attempts;
+    long nextAttemptAtMs;
+    long expiresAtMs;
+
+    String toJson() throws JSONException {
+      JSONObject json = new JSONObject();
+      json.put("id", id);
+      json.put("kind", request.kind);
+      json.put("method", request.method);
+      json.put("url", request.url);
+      json.put("headers", new JSONObject(request.headers));
+      json.put("body", request.body == null ? JSONObject.NULL : request.body);
+      json.put("filePath", request.filePath == null ? JSONObject.NULL : request.filePath);
+      json.put("fileField", request.fileField);
+      json.put("fileName", request.fileName);
+      json.put("fileType", request.fileType);
+      json.put("fields", new JSONObject(request.fields));
+      json.put("brainDumpRecord", request.brainDumpRecord == null ? JSONObject.NULL : request.brainDumpRecord);
+      json.put("dedupKey", dedupKey == null ? JSONObject.NULL : dedupKey);
+      json.put("attempts", attempts);
+      json.put("nextAttemptAtMs", nextAttemptAtMs);
+      json.put("expiresAtMs", expiresAtMs);
+      return json.toString();
+    }
+
+    static Entry fromJson(String payload) throws JSONException {
+      JSONObject json = new JSONObject(payload);
+      Entry entry = new Entry();
+      entry.id = json.getString("id");
+      Request request = new Request();
+      request.kind = json.getString("kind");
+      request.method = json.getString("method");
+      request.url = json.getString("url");
+      readMap(json.optJSONObject("headers"), request.headers);
+      request.body = optNullableString(json, "body");
+      request.filePath = optNullableString(json, "filePath");
+      request.fileField = json.optString("fileField", request.fileField);
+      request.fileName = json.optString("fileName", request.fileName);
+      request.fileType = json.optString("fileType", request.fileType);
+      readMap(json.optJSONObject("fields"), request.fields);
+      request.brainDumpRecord = optNullableString(json, "brainDumpRecord");
+      entry.request = request;
+      entry.dedupKey = optNullableString(json, "dedupKey");
+      entry.attempts = json.optInt("attempts", 0);
+      entry.nextAttemptAtMs = json.optLong("nextAttemptAtMs", 0L);
+      entry.expiresAtMs = json.optLong("expiresAtMs", Long.MAX_VALUE);
+      return entry;
+    }
+  }
+
+  /**
+   * Whether a network is up, and a way to hear when one comes back until {@link #unwatch()}.
+   */
+  interface Connectivity {
+    boolean isOnline();
+
+    void watch(Runnable onAvailable);
+
+    void unwatch();
+  }
+
+  private static final class Response {
+    final int status;
+    final String body;
+    final long retryAfterMs;
+
+    Response(int status, String body, long retryAfterMs) {
+      this.status = status;
+      this.body = body;
+      this.retryAfterMs = retryAfterMs;
+    }
+  }
+
+  private static RequestOutbox instance;
+
+  private final Context appContext;
+  private final RecordLogStore store;
+  private final RecordLogStore undelivered;
+  private final Handler handler;
+  private final Runnable drainRunnable = this::drain;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final Random random = new Random();
+  // Only touched on the outbox thread.
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+  private final Map<String, String> idsByDedupKey = new HashMap<>();
+  private final List<Runnable> idleCallbacks = new ArrayList<>();
+  private Connectivity connectivity;
+  private boolean watchingNetwork;
+  // Due time of the job last handed to JobScheduler, 0 for "when a network is up".
+  private long scheduledJobAtMs = NO_JOB;
+  private long sent;
+  private long succeeded;
+  private long failed;
+  private long retried;
+  private long coalesced;
+  private long offlineWaits;
+  private long loadFailures;
+
+  public static synchronized RequestOutbox getInstance(Context context) {
+    if (instance == null) {
+      instance = new RequestOutbox(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private RequestOutbox(Context appContext) {
+    this.appContext = appContext;
+    try {
+      store = RecordLogStore.open(appContext, COLLECTION);
+      undelivered = RecordLogStore.open(appContext, COLLECTION_UNDELIVERED);
+    } catch (IOException exception) {
+      throw new IllegalStateException("Could not open the request outbox", exception);
+    }
+    connectivity = new SystemConnectivity(appContext);
+    HandlerThread thread = new HandlerThread("SparkOutbox", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    handler = new Handler(thread.getLooper());
+    handler.post(() -> {
+      load();
+      drain();
+    });
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  public interface EnqueueCallback {
+    void onEnqueued(@Nullable String id, @Nullable String state, @Nullable IOException error);
+  }
+
+  /**
+   * Journal {@code request} and start sending it. The callback gets the id its completion will
+   * carry, which is an earlier request's id when the two were coalesced, and whether it is being
+   * sent now ({@link #STATE_SENDING}) or waits for a network or a backoff.
+   */
+  public void enqueue(Request request, EnqueueCallback callback) {
+    handler.post(() -> {
+      try {
+        String dedupKey = request.dedupe ? dedupKey(request) : null;
+        Entry existing = dedupKey == null ? null : entries.get(idsByDedupKey.get(dedupKey));
+        if (existing != null) {
+          coalesced++;
+          callback.onEnqueued(existing.id, stateOf(existing), null);
+          return;
+        }
+
+        Entry entry = new Entry();
+        entry.id = UUID.randomUUID().toString();
+        entry.request = request;
+        entry.dedupKey = dedupKey;
+        entry.expiresAtMs = System.currentTimeMillis() + request.ttlMs;
+        store.write(Collections.singletonList(entry.id), Collections.singletonList(entry.toJson()), Collections.emptyList());
+        track(entry);
+        callback.onEnqueued(entry.id, stateOf(entry), null);
+        drain();
+      } catch (IOException exception) {
+        callback.onEnqueued(null, null, exception);
+      } catch (JSONException exception) {
+        callback.onEnqueued(null, null, new IOException(exception));
+      }
+    });
+  }
+
+  /**
+   * Send whatever is due now and call {@code onIdle} once the outbox has nothing left it can
+   * send before its next backoff or network change. Used by {@link OutboxJobService}.
+   */
+  public void drainNow(Runnable onIdle) {
+    handler.post(() -> {
+      // The job that called this is used up once it finishes.
+      scheduledJobAtMs = NO_JOB;
+      idleCallbacks.add(onIdle);
+      drain();
+    });
+  }
+
+  /**
+   * Offer every journaled completion no listener took to the listeners again, and forget the
+   * ones that reach someone this time.
+   */
+  public void flushUndelivered() {
+    handler.post(() -> {
+      List<String> delivered = new ArrayList<>();
+      try {
+        Long cursor = null;
+        do {
+          RecordLogStore.Page page = undelivered.page(cursor, LOAD_PAGE_SIZE, false);
+          for (String payload : page.payloads) {
+            Completion completion;
+            try {
+              completion = Completion.fromJson(payload);
+            } catch (JSONException exception) {
+              Log.w(TAG, "Dropping an unreadable undelivered completion", exception);
+              continue;
+            }
+            if (deliver(completion)) {
+              delivered.add(completion.id);
+            }
+          }
+          cursor = page.nextCursor;
+        } while (cursor != null);
+        if (!delivered.isEmpty()) {
+          undelivered.write(Collections.emptyList(), Collections.emptyList(), delivered);
+        }
+      } catch (IOException exception) {
+        Log.w(TAG, "Could not flush undelivered completions", exception);
+      }
+    });
+  }
+
+  @VisibleForTesting
+  void setConnectivity(Connectivity next) {
+    handler.post(() -> {
+      if (watchingNetwork) {
+        connectivity.unwatch();
+      }
+      connectivity = next;
+      watchingNetwork = false;
+    });
+  }
+
+  /**
+   * Drop every queued request and reset the counters, then run {@code done}.
+   */
+  @VisibleForTesting
+  void clear(Runnable done) {
+    handler.post(() -> {
+      handler.removeCallbacks(drainRunnable);
+      entries.clear();
+      idsByDedupKey.clear();
+      try {
+        store.clear();
+        undelivered.clear();
+      } catch (IOException exception) {
+        Log.w(TAG, "Could not clear the outbox", exception);
+      }
+      sent = 0L;
+      succeeded = 0L;
+      failed = 0L;
+      retried = 0L;
+      coalesced = 0L;
+      offlineWaits = 0L;
+      done.run();
+    });
+  }
+
+  /**
+   * Earliest time a queued request wants to be sent, or {@link #NO_JOB} when the outbox is empty.
+   */
+  private long nextAttemptAtMs() {
+    long next = Long.MAX_VALUE;
+    for (Entry entry : entries.values()) {
+      next = Math.min(next, entry.nextAttemptAtMs);
+    }
+    return next == Long.MAX_VALUE ? NO_JOB : next;
+  }
+
+  private String stateOf(Entry entry) {
+    if (!connectivity.isOnline()) {
+      return STATE_OFFLINE;
+    }
+    return entry.nextAttemptAtMs > System.currentTimeMillis() ? STATE_RETRYING : STATE_SENDING;
+  }
+
+  public interface StatsCallback {
+    void onStats(Map<String, Double> stats);
+  }
+
+  public void stats(StatsCallback callback) {
+    handler.post(() -> {
+      Map<String, Double> stats = new HashMap<>();
+      stats.put("pending", (double) entries.size());
+      stats.put("sent", (double) sent);
+      stats.put("succeeded", (double) succeeded);
+      stats.put("failed", (double) failed);
+      stats.put("retried", (double) retried);
+      stats.put("coalesced", (double) coalesced);
+      stats.put("offlineWaits", (double) offlineWaits);
+      stats.put("loadFailures", (double) loadFailures);
+      callback.onStats(stats);
+    });
+  }
+
+  private void load() {
+    try {
+      Long cursor = null;
+      do {
+        RecordLogStore.Page page = store.page(cursor, LOAD_PAGE_SIZE, false);
+        for (String payload : page.payloads) {
+          try {
+            track(Entry.fromJson(payload));
+          } catch (JSONException exception) {
+            loadFailures++;
+            Log.w(TAG, "Dropping unreadable outbox entry", exception);
+          }
+        }
+        cursor = page.nextCursor;
+      } while (cursor != null);
+    } catch (IOException exception) {
+      Log.w(TAG, "Could not load the outbox", exception);
+    }
+  }
+
+  private void track(Entry entry) {
+    entries.put(entry.id, entry);
+    if (entry.dedupKey != null) {
+      idsByDedupKey.put(entry.dedupKey, entry.id);
+    }
+  }
+
+  private void drain() {
+    handler.removeCallbacks(drainRunnable);
+    boolean offline = !entries.isEmpty() && !connectivity.isOnline();
+    if (watchingNetwork != offline) {
+      watchingNetwork = offline;
+      if (offline) {
+        connectivity.watch(() -> handler.post(drainRunnable));
+      } else {
+        connectivity.unwatch();
+      }
+    }
+    if (offline) {
+      offlineWaits++;
+      runIdleCallbacks();
+      // The job's network constraint wakes the app if it is gone by then.
+      scheduleJob(0L);
+      return;
+    }
+
+    Iterator<Entry> iterator = new ArrayList<>(entries.values()).iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      long now = System.currentTimeMillis();
+      if (entry.expiresAtMs <= now) {
+        finish(entry, fail(entry, 0, null, "Expired before it could be sent"));
+        continue;
+      }
+      if (entry.nextAttemptAtMs > now) {
+        continue;
+      }
+
+      Response response;
+      try {
+        sent++;
+        response = send(entry.request);
+      } catch (FileNotFoundException exception) {
+        finish(entry, fail(entry, 0, null, exception.getMessage()));
+        continue;
+      } catch (IOException exception) {
+        // Likely the network; the rest would fail the same way, so back off all of them.
+        if (!retry(entry, 0L, exception.getMessage())) {
+          continue;
+        }
+        break;
+      }
+
+      if (response.status >= 200 && response.status < 300) {
+        finish(entry, succeed(entry, response));
+      } else if (isRetryable(response.status)) {
+        retry(entry, response.retryAfterMs, "HTTP " + response.status);
+      } else {
+        finish(entry, fail(entry, response.status, response.body, "Request failed with status " + response.status));
+      }
+    }
+
+    // A job waiting on this pass finishes before its replacement is scheduled.
+    runIdleCallbacks();
+    long next = nextAttemptAtMs();
+    if (next != NO_JOB) {
+      handler.postDelayed(drainRunnable, Math.max(0L, next - System.currentTimeMillis()));
+    }
+    scheduleJob(next);
+  }
+
+  /**
+   * Keep the wake-up job due at {@code atMs} ({@link #NO_JOB} for none), touching JobScheduler
+   * only when that time changes.
+   */
+  private void scheduleJob(long atMs) {
+    if (atMs == scheduledJobAtMs) {
+      return;
+    }
+    scheduledJobAtMs = atMs;
+    if (atMs == NO_JOB) {
+      OutboxJobService.cancel(appContext);
+    } else {
+      OutboxJobService.schedule(appContext, Math.max(0L, atMs - System.currentTimeMillis()));
+    }
+  }
+
+  /**
+   * Push {@code entry} back with a jittered delay. Returns false when it has run out of
+   * attempts and was failed instead.
+   */
+  private boolean retry(Entry entry, long retryAfterMs, @Nullable String reason) {
+    entry.attempts++;
+    if (entry.attempts >= MAX_ATTEMPTS) {
+      finish(entry, fail(entry, 0, null, "Gave up after " + entry.attempts + " attempts: " + reason));
+      return false;
+    }
+    retried++;
+    long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(entry.attempts - 1, 20));
+    // Half fixed, half random, so clients that failed together do not retry together.
+    long delay = ceiling / 2 + (long) (random.nextDouble() * (ceiling / 2));
+    entry.nextAttemptAtMs = System.currentTimeMillis() + Math.max(delay, retryAfterMs);
+    try {
+      store.write(Collections.singletonList(entry.id), Collections.singletonList(entry.toJson()), Collections.emptyList());
+    } catch (IOException | JSONException exception) {
+      // The in-memory schedule still holds; a restart only retries sooner.
+      Log.w(TAG, "Could not persist the retry schedule", exception);
+    }
+    for (Listener listener : listeners) {
+      listener.onQueued(entry.id, STATE_RETRYING);
+    }
+    return true;
+  }
+
+  private Completion succeed(Entry entry, Response response) {
+    Completion completion = completion(entry);
+    completion.ok = true;
+    completion.status = response.status;
+    completion.body = response.body;
+    if (entry.request.brainDumpRecord == null) {
+      return completion;
+    }
+
+    try {
+      String text = new JSONObject(response.body).optString("transcription", "").trim();
+      if (text.isEmpty()) {
+        completion.ok = false;
+        completion.error = "Transcription was empty";
+        return completion;
+      }
+      JSONObject record = new JSONObject(entry.request.brainDumpRecord);
+      record.put("text", text);
+      String recordId = record.getString("id");
+      RecordLogStore brainDump = RecordLogStore.open(appContext, COLLECTION_BRAIN_DUMP);
+      brainDump.write(
+        Collections.singletonList(recordId),
+        Collections.singletonList(record.toString()),
+        Collections.emptyList()
+      );
+      OverlayCountPipeline.getInstance(appContext).submit(brainDump.size());
+      completion.record = record.toString();
+    } catch (IOException | JSONException exception) {
+      completion.ok = false;
+      completion.error = "Could not save the transcription: " + exception.getMessage();
+    }
+    return completion;
+  }
+
+  private Completion fail(Entry entry, int status, @Nullable String body, String error) {
+    Completion completion = completion(entry);
+    completion.ok = false;
+    completion.status = status;
+    completion.body = body;
+    completion.error = error;
+    return completion;
+  }
+
+  private static Completion completion(Entry entry) {
+    Completion completion = new Completion();
+    completion.id = entry.id;
+    completion.kind = entry.request.kind;
+    return completion;
+  }
+
+  private void finish(Entry entry, Completion completion) {
+    if (completion.ok) {
+      succeeded++;
+    } else {
+      failed++;
+    }
+    if (!deliver(completion)) {
+      keepUndelivered(completion);
+    }
+    try {
+      store.write(Collections.emptyList(), Collections.emptyList(), Collections.singletonList(entry.id));
+    } catch (IOException exception) {
+      // Sent again after a restart; every delivery is idempotent.
+      Log.w(TAG, "Could not remove a finished outbox entry", exception);
+    }
+    entries.remove(entry.id);
+    if (entry.dedupKey != null) {
+      idsByDedupKey.remove(entry.dedupKey);
+    }
+  }
+
+  private boolean deliver(Completion completion) {
+    boolean delivered = false;
+    for (Listener listener : listeners) {
+      delivered |= listener.onCompleted(completion);
+    }
+    return delivered;
+  }
+
+  private void keepUndelivered(Completion completion) {
+    try {
+      List<String> evicted = Collections.emptyList();
+      if (undelivered.size() >= MAX_UNDELIVERED) {
+        // The oldest result is the one least likely to still be wanted.
+        String oldest = undelivered.page(null, 1, false).payloads.get(0);
+        evicted = Collections.singletonList(new JSONObject(oldest).getString("id"));
+      }
+      undelivered.write(Collections.singletonList(completion.id), Collections.singletonList(completion.toJson()), evicted);
+    } catch (IOException | JSONException exception) {
+      Log.w(TAG, "Could not keep an undelivered completion", exception);
+    }
+  }
+
+  private void runIdleCallbacks() {
+    if (idleCallbacks.isEmpty()) {
+      return;
+    }
+    List<Runnable> callbacks = new ArrayList<>(idleCallbacks);
+    idleCallbacks.clear();
+    for (Runnable callback : callbacks) {
+      callback.run();
+    }
+  }
+
+  private static boolean isRetryable(int status) {
+    return status == HttpURLConnection.HTTP_CLIENT_TIMEOUT || status == 429 || status >= 500;
+  }
+
+  private static final class SystemConnectivity implements Connectivity {
+    private final ConnectivityManager manager;
+    @Nullable private ConnectivityManager.NetworkCallback callback;
+
+    SystemConnectivity(Context context) {
+      manager = context.getSystemService(ConnectivityManager.class);
+    }
+
+    @Override
+    public boolean isOnline() {
+      Network network = manager.getActiveNetwork();
+      NetworkCapabilities capabilities = network == null ? null : manager.getNetworkCapabilities(network);
+      return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    @Override
+    public void watch(Runnable onAvailable) {
+      unwatch();
+      callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(Network network) {
+          onAvailable.run();
+        }
+      };
+      manager.registerDefaultNetworkCallback(callback);
+    }
+
+    @Override
+    public void unwatch() {
+      if (callback != null) {
+        manager.unregisterNetworkCallback(callback);
+        callback = null;
+      }
+    }
+  }
+
+  private static Response send(Request request) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(request.url).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    connection.setReadTimeout(READ_TIMEOUT_MS);
+    connection.setRequestMethod(request.method);
+    for (Map.Entry<String, String> header : request.headers.entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+    if (request.filePath != null) {
+      writeMultipart(connection, request);
+    } else if (request.body != null) {
+      byte[] bytes = request.body.getBytes(StandardCharsets.UTF_8);
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(bytes.length);
+      try (OutputStream output = connection.getOutputStream()) {
+        output.write(bytes);
+      }
+    }
+
+    int status = connection.getResponseCode();
+    long retryAfterMs = 0L;
+    String retryAfter = connection.getHeaderField("Retry-After");
+    if (retryAfter != null) {
+      try {
+        retryAfterMs = Long.parseLong(retryAfter.trim()) * 1000L;
+      } catch (NumberFormatException ignored) {
+        // An HTTP date; the backoff alone is close enough.
+      }
+    }
+    return new Response(status, readBody(connection, status), retryAfterMs);
+  }
+
+  /**
+   * Stream the file from disk as multipart form data with a known length, so nothing is
+   * buffered in memory and the connection can stay alive.
+   */
+  private static void writeMultipart(HttpURLConnection connection, Request request) throws IOException {
+    String path = request.filePath.startsWith("file:") ? Uri.parse(request.filePath).getPath() : request.filePath;
+    File file = new File(path);
+    if (!file.isFile()) {
+      throw new FileNotFoundException("Upload file is missing: " + path);
+    }
+    String boundary = "spark-" + UUID.randomUUID();
+    StringBuilder head = new StringBuilder();
+    for (Map.Entry<String, String> field : request.fields.entrySet()) {
+      head.append("--").append(boundary).append("\r\n")
+        .append("Content-Disposition: form-data; name=\"").append(field.getKey()).append("\"\r\n\r\n")
+        .append(field.getValue()).append("\r\n");
+    }
+    head.append("--").append(boundary).append("\r\n")
+      .append("Content-Disposition: form-data; name=\"").append(request.fileField)
+      .append("\"; filename=\"").append(request.fileName).append("\"\r\n")
+      .append("Content-Type: ").append(request.fileType).append("\r\n\r\n");
+    byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+    byte[] tailBytes = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+    connection.setDoOutput(true);
+    connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+    connection.setFixedLengthStreamingMode(headBytes.length + file.length() + tailBytes.length);
+    try (OutputStream output = connection.getOutputStream(); InputStream input = new FileInputStream(file)) {
+      output.write(headBytes);
+      byte[] buffer = new byte[16 * 1024];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      output.write(tailBytes);
+    }
+  }
+
+  private static String readBody(HttpURLConnection connection, int status) throws IOException {
+    InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    if (input == null) {
+      return "";
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream stream = input) {
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        if (bytes.size() + read > MAX_BODY_BYTES) {
+          throw new IOException("Response is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        bytes.write(buffer, 0, read);
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static String dedupKey(Request request) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update((request.method + ' ' + request.url + '\n').getBytes(StandardCharsets.UTF_8));
+      if (request.body != null) {
+        digest.update(request.body.getBytes(StandardCharsets.UTF_8));
+      }
+      if (request.filePath != null) {
+        digest.update(request.filePath.getBytes(StandardCharsets.UTF_8));
+      }
+      StringBuilder key = new StringBuilder(request.kind).append(':');
+      for (byte value : digest.digest()) {
+        key.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IOException(exception);
+    }
+  }
+
+  private static void readMap(@Nullable JSONObject json, Map<String, String> target) {
+    if (json == null) {
+      return;
+    }
+    Iterator<String> keys = json.keys();
+    while (keys.hasNext()) {
+      String key = keys.next();
+      target.put(key, json.optString(key));
+    }
+  }
+
+  @Nullable
+  private static String optNullableString(JSONObject json, String key) {
+    return json.isNull(key) ? null : json.optString(key, null);
+  }
+}
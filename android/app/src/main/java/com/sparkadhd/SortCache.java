@@ -0,0 +1,350 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of {@code /api/sort}, keyed by a SHA-256 of the normalized items and timezone.
+ *
+ * Items are trimmed, whitespace-collapsed and put in order before hashing, so the same brain
+ * dump hits the same entry however it was typed or listed. Recent entries stay in a small LRU;
+ * every entry is also a JSON file under {@link #DIR_NAME}, dropped after {@link #TTL_MS} or
+ * when the directory grows past {@link #MAX_DISK_BYTES}, oldest first.
+ *
+ * A miss can still reuse work: when a fresh entry for the same timezone covers a subset of the
+ * items, {@link #plan} returns its result as a base and only the items it lacks, so a brain
+ * dump that grew by one item sends one item.
+ */
+public class SortCache {
+  static final long TTL_MS = 24L * 60 * 60 * 1000;
+  static final long MAX_DISK_BYTES = 256L * 1024;
+
+  private static final String TAG = "SortCache";
+  private static final String DIR_NAME = "sort_cache";
+  private static final String FILE_SUFFIX = ".json";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final int MEMORY_ENTRIES = 32;
+
+  /**
+   * What to do for one sort: return {@link #sorted}, or send {@link #missing} and append the
+   * result to {@link #base} when there is one.
+   */
+  public static final class Plan {
+    public final String key;
+    @Nullable public final String sorted;
+    @Nullable public final String base;
+    public final List<String> missing;
+
+    Plan(String key, @Nullable String sorted, @Nullable String base, List<String> missing) {
+      this.key = key;
+      this.sorted = sorted;
+      this.base = base;
+      this.missing = missing;
+    }
+  }
+
+  private static final class Entry {
+    final List<String> items;
+    final String timezone;
+    final String sorted;
+    final long storedAtMs;
+
+    Entry(List<String> items, String timezone, String sorted, long storedAtMs) {
+      this.items = items;
+      this.timezone = timezone;
+      this.sorted = sorted;
+      this.storedAtMs = storedAtMs;
+    }
+  }
+
+  private static SortCache instance;
+
+  private final File dir;
+  // Guarded by this.
+  private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MEMORY_ENTRIES;
+    }
+  };
+  private long memoryHits;
+  private long diskHits;
+  private long partialHits;
+  private long misses;
+  private long stores;
+  private long evictions;
+
+  public static synchronized SortCache getInstance(Context context) throws IOException {
+    if (instance == null) {
+      File dir = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Could not create " + dir);
+      }
+      instance = new SortCache(dir);
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  SortCache(File dir) {
+    this.dir = dir;
+  }
+
+  public synchronized Plan plan(List<String> rawItems, @Nullable String rawTimezone, long nowMs) {
+    List<String> items = normalize(rawItems);
+    String timezone = rawTimezone == null ? "" : rawTimezone;
+    String key = key(items, timezone);
+
+    Entry entry = memory.get(key);
+    if (entry != null && isFresh(entry, nowMs)) {
+      memoryHits++;
+      return new Plan(key, entry.sorted, null, Collections.<String>emptyList());
+    }
+    entry = readEntry(key, nowMs);
+    if (entry != null) {
+      diskHits++;
+      memory.put(key, entry);
+      return new Plan(key, entry.sorted, null, Collections.<String>emptyList());
+    }
+
+    Entry base = null;
+    List<String> missing = items;
+    for (Entry candidate : memory.values()) {
+      if (!candidate.timezone.equals(timezone)
+        || !isFresh(candidate, nowMs)
+        || (base != null && candidate.items.size() <= base.items.size())) {
+        continue;
+      }
+      List<String> remainder = subtract(items, candidate.items);
+      if (remainder != null) {
+        base = candidate;
+        missing = remainder;
+      }
+    }
+    if (base != null) {
+      partialHits++;
+      return new Plan(key, null, base.sorted, missing);
+    }
+    misses++;
+    return new Plan(key, null, null, items);
+  }
+
+  /**
+   * Remember {@code sorted}, the JSON array the middleware returned for {@code rawItems}.
+   */
+  public synchronized void put(List<String> rawItems, @Nullable String rawTimezone, String sorted, long nowMs)
+    throws IOException {
+    List<String> items = normalize(rawItems);
+    String timezone = rawTimezone == null ? "" : rawTimezone;
+    String key = key(items, timezone);
+    Entry entry = new Entry(items, timezone, sorted, nowMs);
+    memory.put(key, entry);
+    stores++;
+
+    byte[] data;
+    try {
+      data = new JSONObject()
+        .put("items", new JSONArray(items))
+        .put("timezone", timezone)
+        .put("sorted", sorted)
+        .put("storedAtMs", nowMs)
+        .toString()
+        .getBytes(StandardCharsets.UTF_8);
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+    File file = fileFor(key);
+    File tmp = new File(file.getPath() + TMP_SUFFIX);
+    try (FileOutputStream output = new FileOutputStream(tmp)) {
+      output.write(data);
+    }
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Could not replace " + file);
+    }
+    // Disk eviction goes by modification time, so keep it on the caller's clock.
+    file.setLastModified(nowMs);
+    trimDisk(nowMs);
+  }
+
+  public synchronized void clear() {
+    memory.clear();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  public synchronized Map<String, Double> stats() {
+    long diskBytes = 0L;
+    int diskEntries = 0;
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        diskBytes += file.length();
+        diskEntries++;
+      }
+    }
+    Map<String, Double> stats = new HashMap<>();
+    stats.put("memoryEntries", (double) memory.size());
+    stats.put("diskEntries", (double) diskEntries);
+    stats.put("diskBytes", (double) diskBytes);
+    stats.put("memoryHits", (double) memoryHits);
+    stats.put("diskHits", (double) diskHits);
+    stats.put("partialHits", (double) partialHits);
+    stats.put("misses", (double) misses);
+    stats.put("stores", (double) stores);
+    stats.put("evictions", (double) evictions);
+    return stats;
+  }
+
+  @Nullable
+  private Entry readEntry(String key, long nowMs) {
+    File file = fileFor(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      JSONObject json = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      JSONArray array = json.getJSONArray("items");
+      List<String> items = new ArrayList<>(array.length());
+      for (int index = 0; index < array.length(); index++) {
+        items.add(array.getString(index));
+      }
+      Entry entry = new Entry(items, json.getString("timezone"), json.getString("sorted"), json.getLong("storedAtMs"));
+      if (isFresh(entry, nowMs)) {
+        return entry;
+      }
+    } catch (IOException | JSONException exception) {
+      Log.w(TAG, "Dropping unreadable sort cache entry", exception);
+    }
+    file.delete();
+    evictions++;
+    return null;
+  }
+
+  /**
+   * Drop expired files, then the oldest ones until the directory fits {@link #MAX_DISK_BYTES}.
+   */
+  private void trimDisk(long nowMs) {
+    File[] files = dir.listFiles((parent, name) -> name.endsWith(FILE_SUFFIX));
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files, (left, right) -> Long.compare(left.lastModified(), right.lastModified()));
+    long total = 0L;
+    for (File file : files) {
+      total += file.length();
+    }
+    for (File file : files) {
+      boolean expired = nowMs - file.lastModified() >= TTL_MS;
+      if (!expired && total <= MAX_DISK_BYTES) {
+        continue;
+      }
+      long length = file.length();
+      if (file.delete()) {
+        total -= length;
+        evictions++;
+        memory.remove(file.getName().substring(0, file.getName().length() - FILE_SUFFIX.length()));
+      }
+    }
+  }
+
+  private File fileFor(String key) {
+    return new File(dir, key + FILE_SUFFIX);
+  }
+
+  private static boolean isFresh(Entry entry, long nowMs) {
+    return nowMs - entry.storedAtMs < TTL_MS;
+  }
+
+  static List<String> normalize(List<String> rawItems) {
+    List<String> items = new ArrayList<>(rawItems.size());
+    for (String raw : rawItems) {
+      String item = raw == null ? "" : raw.trim().replaceAll("\\s+", " ");
+      if (!item.isEmpty()) {
+        items.add(item);
+      }
+    }
+    Collections.sort(items);
+    return items;
+  }
+
+  /**
+   * {@code items} minus {@code subset}, counting duplicates, or null when {@code subset} has
+   * something {@code items} does not. Both lists are sorted.
+   */
+  @Nullable
+  private static List<String> subtract(List<String> items, List<String> subset) {
+    if (subset.isEmpty() || subset.size() >= items.size()) {
+      return null;
+    }
+    List<String> remainder = new ArrayList<>(items.size() - subset.size());
+    int next = 0;
+    for (String item : items) {
+      if (next < subset.size()) {
+        int order = item.compareTo(subset.get(next));
+        if (order == 0) {
+          next++;
+          continue;
+        }
+        if (order > 0) {
+          return null;
+        }
+      }
+      remainder.add(item);
+    }
+    return next == subset.size() ? remainder : null;
+  }
+
+  private static String key(List<String> items, String timezone) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+    update(digest, timezone);
+    for (String item : items) {
+      update(digest, item);
+    }
+    StringBuilder hex = new StringBuilder(64);
+    for (byte value : digest.digest()) {
+      hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  // Length-prefixed so ["ab", "c"] and ["a", "bc"] hash differently.
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    digest.update((byte) (bytes.length >>> 24));
+    digest.update((byte) (bytes.length >>> 16));
+    digest.update((byte) (bytes.length >>> 8));
+    digest.update((byte) bytes.length);
+    digest.update(bytes);
+  }
+}
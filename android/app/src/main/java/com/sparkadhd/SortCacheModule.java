@@ -0,0 +1,100 @@
+package com.sparkadhd;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JS access to {@link SortCache}. Sorted results cross the bridge as the JSON array the
+ * middleware returned and are never parsed on this side.
+ */
+public class SortCacheModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "SortCacheModule";
+  private final ReactApplicationContext reactContext;
+
+  public SortCacheModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    this.reactContext = reactContext;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @ReactMethod
+  public void plan(ReadableArray items, @Nullable String timezone, Promise promise) {
+    try {
+      SortCache.Plan plan = cache().plan(toList(items), timezone, System.currentTimeMillis());
+      WritableArray missing = Arguments.createArray();
+      for (String item : plan.missing) {
+        missing.pushString(item);
+      }
+      WritableMap result = Arguments.createMap();
+      result.putString("key", plan.key);
+      result.putString("sorted", plan.sorted);
+      result.putString("base", plan.base);
+      result.putArray("missing", missing);
+      promise.resolve(result);
+    } catch (IOException exception) {
+      promise.reject("E_SORT_CACHE_READ", exception);
+    }
+  }
+
+  @ReactMethod
+  public void put(ReadableArray items, @Nullable String timezone, String sorted, Promise promise) {
+    try {
+      cache().put(toList(items), timezone, sorted, System.currentTimeMillis());
+      promise.resolve(true);
+    } catch (IOException exception) {
+      promise.reject("E_SORT_CACHE_WRITE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void clear(Promise promise) {
+    try {
+      cache().clear();
+      promise.resolve(true);
+    } catch (IOException exception) {
+      promise.reject("E_SORT_CACHE_WRITE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void getStats(Promise promise) {
+    try {
+      WritableMap stats = Arguments.createMap();
+      for (Map.Entry<String, Double> entry : cache().stats().entrySet()) {
+        stats.putDouble(entry.getKey(), entry.getValue());
+      }
+      promise.resolve(stats);
+    } catch (IOException exception) {
+      promise.reject("E_SORT_CACHE_READ", exception);
+    }
+  }
+
+  private SortCache cache() throws IOException {
+    return SortCache.getInstance(reactContext);
+  }
+
+  private static List<String> toList(ReadableArray array) {
+    List<String> values = new ArrayList<>(array.size());
+    for (int index = 0; index < array.size(); index++) {
+      values.add(array.getString(index));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,287 @@
+package com.sparkadhd;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One brain dump recording that is transcribed while it is spoken.
+ *
+ * Three threads keep the microphone independent of everything downstream: capture copies PCM
+ * into a {@link PcmRingBuffer}, the encoder turns it into ADPCM blocks in an {@link AudioSpool},
+ * and a {@link TranscriptionStreamUploader} sends finished chunks as they appear. By the time
+ * the user stops, only the last chunk and the finish call are left, so the wait for the
+ * transcript no longer grows with the length of the recording.
+ */
+public class StreamingTranscriptionSession {
+  private static final String TAG = "StreamingTranscription";
+
+  /**
+   * Where the 16 kHz mono samples come from. {@link #read} blocks until some are available and
+   * returns a negative value on failure.
+   */
+  public interface PcmSource {
+    void start() throws IOException;
+
+    int read(short[] buffer, int offset, int length);
+
+    void stop();
+
+    void release();
+  }
+
+  public static final class Result {
+    public File audioFile;
+    public long durationMs;
+    public boolean streamed;
+    @Nullable public String transcription;
+    @Nullable public String summary;
+    @Nullable public IOException error;
+    public int chunksSent;
+    public int uploadRetries;
+    public long overrunSamples;
+    public long finishLatencyMs;
+  }
+
+  private static final int RING_SECONDS = 4;
+  private static final int READ_FRAME_SAMPLES = AudioSpool.SAMPLE_RATE / 50;
+
+  private final PcmSource source;
+  private final PcmRingBuffer ring = new PcmRingBuffer(AudioSpool.SAMPLE_RATE * RING_SECONDS);
+  private final AudioSpool spool;
+  @Nullable private final TranscriptionStreamUploader uploader;
+  private final Thread captureThread = new Thread(this::capture, "SparkAudioCapture");
+  private final Thread encoderThread = new Thread(this::encode, "SparkAudioEncoder");
+  @Nullable private final Thread uploadThread;
+  private volatile boolean capturing;
+  private volatile boolean cancelled;
+  private volatile long capturedSamples;
+  @Nullable private volatile IOException failure;
+
+  /**
+   * @param apiBaseUrl the middleware to stream to, or null to only record
+   */
+  public StreamingTranscriptionSession(PcmSource source, File audioFile, @Nullable String apiBaseUrl)
+    throws IOException {
+    this.source = source;
+    spool = new AudioSpool(audioFile);
+    uploader = apiBaseUrl == null ? null : new TranscriptionStreamUploader(apiBaseUrl, spool);
+    uploadThread = uploader == null ? null : new Thread(() -> {
+      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+      uploader.run();
+    }, "SparkTranscriptUpload");
+  }
+
+  public void start() throws IOException {
+    source.start();
+    capturing = true;
+    captureThread.start();
+    encoderThread.start();
+    if (uploadThread != null) {
+      uploadThread.start();
+    }
+  }
+
+  /**
+   * Stop recording and wait up to {@code timeoutMs} for the transcript. Blocks; call it off the
+   * main thread. A result that was not streamed still has a complete audio file to upload;
+   * only a failure of the microphone or the spool file is thrown.
+   */
+  public Result stop(long timeoutMs) throws IOException, InterruptedException {
+    long stoppedAt = SystemClock.elapsedRealtime();
+    capturing = false;
+    source.stop();
+    captureThread.join();
+    ring.close();
+    encoderThread.join();
+    source.release();
+    IOException captureFailure = failure;
+    if (captureFailure != null) {
+      if (uploader != null) {
+        uploader.cancel();
+      }
+      throw captureFailure;
+    }
+
+    Result result = new Result();
+    result.audioFile = spool.getFile();
+    result.durationMs = capturedSamples * 1000L / AudioSpool.SAMPLE_RATE;
+    result.overrunSamples = ring.getOverrunSamples();
+    if (uploader != null) {
+      uploader.setDeadline(timeoutMs);
+      TranscriptionStreamUploader.Result upload = uploader.await(timeoutMs);
+      if (upload == null) {
+        uploader.cancel();
+        result.error = new IOException("Timed out waiting for the streamed transcript");
+      } else {
+        result.streamed = upload.streamed;
+        result.transcription = upload.transcription;
+        result.summary = upload.summary;
+        result.chunksSent = upload.chunksSent;
+        result.uploadRetries = upload.retries;
+        if (!upload.streamed && !upload.unsupported) {
+          result.error = upload.error;
+        }
+      }
+    }
+    result.finishLatencyMs = SystemClock.elapsedRealtime() - stoppedAt;
+    return result;
+  }
+
+  /**
+   * Stop without waiting for anything and delete the audio.
+   */
+  public void cancel() {
+    capturing = false;
+    cancelled = true;
+    if (uploader != null) {
+      uploader.cancel();
+    }
+    source.stop();
+    ring.close();
+    try {
+      captureThread.join();
+      encoderThread.join();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    source.release();
+    spool.abandon();
+    if (!spool.getFile().delete()) {
+      Log.w(TAG, "Could not delete cancelled recording " + spool.getFile());
+    }
+  }
+
+  public long getCapturedSamples() {
+    return capturedSamples;
+  }
+
+  public long getEncodedBytes() {
+    return spool.getDataBytes();
+  }
+
+  private void capture() {
+    Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+    short[] frame = new short[READ_FRAME_SAMPLES];
+    while (capturing) {
+      int read = source.read(frame, 0, frame.length);
+      if (read < 0) {
+        if (capturing) {
+          failure = new IOException("Audio capture failed (" + read + ")");
+        }
+        break;
+      }
+      if (read > 0) {
+        ring.write(frame, 0, read);
+        capturedSamples += read;
+      }
+    }
+    ring.close();
+  }
+
+  private void encode() {
+    Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+    ImaAdpcmEncoder encoder = new ImaAdpcmEncoder();
+    short[] pcm = new short[ImaAdpcmEncoder.SAMPLES_PER_BLOCK];
+    byte[] block = new byte[ImaAdpcmEncoder.BLOCK_ALIGN];
+    long encodedSamples = 0L;
+    try {
+      while (true) {
+        int read = ring.read(pcm, 0, pcm.length);
+        if (read == 0) {
+          break;
+        }
+        if (read < pcm.length) {
+          // Pad the last block with silence; the WAV fact chunk keeps the real length.
+          Arrays.fill(pcm, read, pcm.length, (short) 0);
+        }
+        encoder.encodeBlock(pcm, 0, block, 0);
+        spool.appendBlock(block);
+        encodedSamples += read;
+        if (read < pcm.length) {
+          break;
+        }
+      }
+      if (cancelled) {
+        spool.abandon();
+      } else {
+        spool.finish(encodedSamples);
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      spool.abandon();
+    } catch (IOException | RuntimeException exception) {
+      Log.e(TAG, "Encoding recording failed", exception);
+      failure = exception instanceof IOException ? (IOException) exception : new IOException(exception);
+      spool.abandon();
+    }
+  }
+
+  /**
+   * Microphone input through {@link AudioRecord}, tuned for speech recognition.
+   */
+  public static final class AudioRecordSource implements PcmSource {
+    @Nullable private AudioRecord audioRecord;
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public void start() throws IOException {
+      int minBuffer = AudioRecord.getMinBufferSize(
+        AudioSpool.SAMPLE_RATE,
+        AudioFormat.CHANNEL_IN_MONO,
+        AudioFormat.ENCODING_PCM_16BIT
+      );
+      if (minBuffer <= 0) {
+        throw new IOException("16 kHz mono capture is not supported (" + minBuffer + ")");
+      }
+      // Half a second of headroom in the driver on top of the ring.
+      int bufferBytes = Math.max(minBuffer * 2, AudioSpool.SAMPLE_RATE);
+      AudioRecord record = new AudioRecord(
+        MediaRecorder.AudioSource.VOICE_RECOGNITION,
+        AudioSpool.SAMPLE_RATE,
+        AudioFormat.CHANNEL_IN_MONO,
+        AudioFormat.ENCODING_PCM_16BIT,
+        bufferBytes
+      );
+      if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+        record.release();
+        throw new IOException("Microphone is unavailable");
+      }
+      record.startRecording();
+      audioRecord = record;
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+      AudioRecord record = audioRecord;
+      return record == null ? -1 : record.read(buffer, offset, length);
+    }
+
+    @Override
+    public void stop() {
+      AudioRecord record = audioRecord;
+      if (record != null && record.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
+        record.stop();
+      }
+    }
+
+    @Override
+    public void release() {
+      AudioRecord record = audioRecord;
+      audioRecord = null;
+      if (record != null) {
+        record.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,501 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The Google Task ids the sync has imported, each with flags such as {@link #FLAG_MARKED}.
+ *
+ * Ids are kept as 64-bit hashes. Most live in a sorted base file that is memory-mapped and
+ * binary searched; recent inserts go to a checksummed journal and an in-memory map until
+ * there are enough of them to merge into a new base. A bloom filter over both answers most
+ * lookups for unseen ids without touching the base. Marked ids older than
+ * {@link #RETENTION_MS} are dropped whenever the base is rewritten, so lookups and disk use
+ * follow recent sync history rather than all of it.
+ */
+public class TaskIdIndex {
+  public static final int FLAG_MARKED = 1;
+  public static final int ABSENT = -1;
+  static final long RETENTION_MS = 180L * 24 * 60 * 60 * 1000;
+
+  private static final String TAG = "TaskIdIndex";
+  private static final String DIR_NAME = "task_ids";
+  private static final String BASE_NAME = "index.bin";
+  private static final String JOURNAL_NAME = "journal.bin";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private static final int BASE_MAGIC = 0x53505449; // "SPTI"
+  private static final int JOURNAL_MAGIC = 0x5350544A; // "SPTJ"
+  private static final int FORMAT_VERSION = 1;
+  // magic(4) version(4) count(4) reserved(4) lastMergedAtSec(8)
+  private static final int BASE_HEADER_SIZE = 24;
+  // hash(8) updatedAtSec(4) flags(4)
+  private static final int RECORD_SIZE = 16;
+  private static final int JOURNAL_HEADER_SIZE = 8;
+  // record(16) crc(4)
+  private static final int JOURNAL_RECORD_SIZE = RECORD_SIZE + 4;
+  private static final int MERGE_THRESHOLD = 4096;
+  private static final long MERGE_INTERVAL_S = 24L * 60 * 60;
+  private static final int WRITE_CHUNK_RECORDS = 4096;
+  private static final int BLOOM_BITS_PER_ID = 10;
+  private static final int BLOOM_HASHES = 7;
+  private static final int BLOOM_MIN_BITS = 1 << 13;
+
+  private static TaskIdIndex instance;
+
+  private final File baseFile;
+  private final File journalFile;
+  private final File tmpFile;
+  private final CRC32 crc = new CRC32();
+  // Guarded by this.
+  private MappedByteBuffer base;
+  private int baseCount;
+  private long lastMergedAtSec;
+  private FileChannel journal;
+  private long journalLength;
+  // hash -> updatedAtSec << 32 | flags, for ids written since the last merge.
+  private final HashMap<Long, Long> recent = new HashMap<>();
+  private int size;
+  private long[] bloom;
+  private int bloomCapacity;
+  private long lookups;
+  private long bloomRejects;
+  private long merges;
+  private long pruned;
+
+  public static synchronized TaskIdIndex getInstance(Context context) throws IOException {
+    if (instance == null) {
+      File dir = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Could not create " + dir);
+      }
+      instance = new TaskIdIndex(dir);
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  TaskIdIndex(File dir) throws IOException {
+    baseFile = new File(dir, BASE_NAME);
+    journalFile = new File(dir, JOURNAL_NAME);
+    tmpFile = new File(dir, BASE_NAME + TMP_SUFFIX);
+    // A leftover from a merge that never finished; base and journal are still complete.
+    tmpFile.delete();
+    mapBase();
+    journal = openChannel(journalFile);
+    replayJournal();
+    rebuildBloom();
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * The flags stored for {@code taskId}, or {@link #ABSENT}.
+   */
+  public synchronized int flags(String taskId) {
+    return flagsForHash(hash(taskId));
+  }
+
+  public synchronized boolean contains(String taskId) {
+    return flagsForHash(hash(taskId)) != ABSENT;
+  }
+
+  public synchronized boolean isMarked(String taskId) {
+    int flags = flagsForHash(hash(taskId));
+    return flags != ABSENT && (flags & FLAG_MARKED) != 0;
+  }
+
+  public synchronized boolean[] containsAll(List<String> taskIds) {
+    boolean[] found = new boolean[taskIds.size()];
+    for (int index = 0; index < found.length; index++) {
+      found[index] = flagsForHash(hash(taskIds.get(index))) != ABSENT;
+    }
+    return found;
+  }
+
+  /**
+   * Set {@code flags} on every id, inserting the ones not seen yet, as one journal append
+   * synced to disk before returning.
+   */
+  public synchronized void putAll(List<String> taskIds, int flags, long nowMs) throws IOException {
+    if (taskIds.isEmpty()) {
+      return;
+    }
+    int updatedAtSec = (int) (nowMs / 1000L);
+    long[] hashes = new long[taskIds.size()];
+    ByteBuffer batch = ByteBuffer.allocate(hashes.length * JOURNAL_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    for (int index = 0; index < hashes.length; index++) {
+      hashes[index] = hash(taskIds.get(index));
+      int start = batch.position();
+      batch.putLong(hashes[index]);
+      batch.putInt(updatedAtSec);
+      batch.putInt(flags);
+      crc.reset();
+      crc.update(batch.array(), start, RECORD_SIZE);
+      batch.putInt((int) crc.getValue());
+    }
+    batch.flip();
+    writeFully(journal, batch, journalLength);
+    journal.force(false);
+    journalLength += batch.limit();
+
+    for (long hash : hashes) {
+      applyRecent(hash, pack(updatedAtSec, flags));
+    }
+    if (recent.size() >= MERGE_THRESHOLD) {
+      merge(nowMs);
+    }
+  }
+
+  /**
+   * Merge the journal into the base if it has grown or a day has passed since the last merge,
+   * pruning marked ids past retention. Meant for the end of a sync, off the main thread.
+   */
+  public synchronized void maybeMerge(long nowMs) throws IOException {
+    if (recent.isEmpty() && baseCount == 0) {
+      return;
+    }
+    if (recent.size() >= MERGE_THRESHOLD || nowMs / 1000L - lastMergedAtSec >= MERGE_INTERVAL_S) {
+      merge(nowMs);
+    }
+  }
+
+  public synchronized void clear() throws IOException {
+    base = null;
+    baseCount = 0;
+    lastMergedAtSec = 0L;
+    if (baseFile.exists() && !baseFile.delete()) {
+      throw new IOException("Could not delete " + baseFile);
+    }
+    resetJournal();
+    recent.clear();
+    size = 0;
+    rebuildBloom();
+  }
+
+  public synchronized Map<String, Double> stats() {
+    Map<String, Double> stats = new HashMap<>();
+    stats.put("records", (double) size);
+    stats.put("baseRecords", (double) baseCount);
+    stats.put("journalRecords", (double) recent.size());
+    stats.put("fileBytes", (double) (baseFile.length() + journalLength));
+    stats.put("bloomBits", (double) bloom.length * Long.SIZE);
+    stats.put("lookups", (double) lookups);
+    stats.put("bloomRejects", (double) bloomRejects);
+    stats.put("merges", (double) merges);
+    stats.put("pruned", (double) pruned);
+    return stats;
+  }
+
+  private int flagsForHash(long hash) {
+    lookups++;
+    if (!bloomMightContain(hash)) {
+      bloomRejects++;
+      return ABSENT;
+    }
+    Long packed = recent.get(hash);
+    if (packed != null) {
+      return (int) packed.longValue();
+    }
+    int index = searchBase(hash);
+    return index < 0 ? ABSENT : base.getInt(BASE_HEADER_SIZE + index * RECORD_SIZE + 12);
+  }
+
+  private void applyRecent(long hash, long packed) {
+    if (recent.put(hash, packed) == null && searchBase(hash) < 0) {
+      size++;
+      if (size > bloomCapacity) {
+        rebuildBloom();
+        return;
+      }
+    }
+    bloomAdd(hash);
+  }
+
+  /**
+   * Index of {@code hash} in the base, or a negative value when it is not there.
+   */
+  private int searchBase(long hash) {
+    int low = 0;
+    int high = baseCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long value = base.getLong(BASE_HEADER_SIZE + middle * RECORD_SIZE);
+      if (value < hash) {
+        low = middle + 1;
+      } else if (value > hash) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Write base and journal together into a new base, newest record winning, then swap it in
+   * and empty the journal.
+   */
+  private void merge(long nowMs) throws IOException {
+    long nowSec = nowMs / 1000L;
+    long cutoffSec = (nowMs - RETENTION_MS) / 1000L;
+    long[] recentHashes = new long[recent.size()];
+    int position = 0;
+    for (Long hash : recent.keySet()) {
+      recentHashes[position++] = hash;
+    }
+    Arrays.sort(recentHashes);
+
+    int kept = 0;
+    int dropped = 0;
+    try (FileChannel target = openChannel(tmpFile)) {
+      target.truncate(0);
+      ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      long offset = BASE_HEADER_SIZE;
+      int baseIndex = 0;
+      int recentIndex = 0;
+      while (baseIndex < baseCount || recentIndex < recentHashes.length) {
+        long hash;
+        long packed;
+        long baseHash = baseIndex < baseCount ? base.getLong(BASE_HEADER_SIZE + baseIndex * RECORD_SIZE) : 0L;
+        if (recentIndex < recentHashes.length && (baseIndex >= baseCount || recentHashes[recentIndex] <= baseHash)) {
+          hash = recentHashes[recentIndex++];
+          packed = recent.get(hash);
+          if (baseIndex < baseCount && baseHash == hash) {
+            baseIndex++;
+          }
+        } else {
+          int recordOffset = BASE_HEADER_SIZE + baseIndex * RECORD_SIZE;
+          hash = baseHash;
+          packed = pack(base.getInt(recordOffset + 8), base.getInt(recordOffset + 12));
+          baseIndex++;
+        }
+
+        int flags = (int) packed;
+        if ((flags & FLAG_MARKED) != 0 && (packed >>> 32) < cutoffSec) {
+          dropped++;
+          continue;
+        }
+        chunk.putLong(hash);
+        chunk.putInt((int) (packed >>> 32));
+        chunk.putInt(flags);
+        kept++;
+        if (!chunk.hasRemaining()) {
+          chunk.flip();
+          writeFully(target, chunk, offset);
+          offset += chunk.limit();
+          chunk.clear();
+        }
+      }
+      chunk.flip();
+      writeFully(target, chunk, offset);
+
+      ByteBuffer header = ByteBuffer.allocate(BASE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(BASE_MAGIC);
+      header.putInt(FORMAT_VERSION);
+      header.putInt(kept);
+      header.putInt(0);
+      header.putLong(nowSec);
+      header.flip();
+      writeFully(target, header, 0);
+      target.force(true);
+    }
+    if (!tmpFile.renameTo(baseFile)) {
+      throw new IOException("Could not replace " + baseFile);
+    }
+
+    mapBase();
+    resetJournal();
+    recent.clear();
+    size = baseCount;
+    merges++;
+    pruned += dropped;
+    rebuildBloom();
+  }
+
+  private void mapBase() throws IOException {
+    base = null;
+    baseCount = 0;
+    lastMergedAtSec = 0L;
+    if (!baseFile.isFile() || baseFile.length() < BASE_HEADER_SIZE) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(baseFile.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+      int count = mapped.getInt(8);
+      if (mapped.getInt(0) != BASE_MAGIC
+        || mapped.getInt(4) > FORMAT_VERSION
+        || count < 0
+        || BASE_HEADER_SIZE + (long) count * RECORD_SIZE > channel.size()) {
+        Log.w(TAG, "Unreadable task id index, starting empty");
+        return;
+      }
+      base = mapped;
+      baseCount = count;
+      lastMergedAtSec = mapped.getLong(16);
+    }
+  }
+
+  /**
+   * Load journal records written since the last merge, cutting off a torn or corrupt tail.
+   */
+  private void replayJournal() throws IOException {
+    size = baseCount;
+    long length = journal.size();
+    ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (length < JOURNAL_HEADER_SIZE) {
+      resetJournal();
+      return;
+    }
+    readFully(journal, header, 0);
+    if (header.getInt(0) != JOURNAL_MAGIC || header.getInt(4) > FORMAT_VERSION) {
+      Log.w(TAG, "Unreadable task id journal, dropping it");
+      resetJournal();
+      return;
+    }
+
+    long records = (length - JOURNAL_HEADER_SIZE) / JOURNAL_RECORD_SIZE;
+    ByteBuffer data = ByteBuffer.allocate((int) (records * JOURNAL_RECORD_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(journal, data, JOURNAL_HEADER_SIZE);
+    long offset = JOURNAL_HEADER_SIZE;
+    for (int index = 0; index < records; index++) {
+      int start = index * JOURNAL_RECORD_SIZE;
+      crc.reset();
+      crc.update(data.array(), start, RECORD_SIZE);
+      if (data.getInt(start + RECORD_SIZE) != (int) crc.getValue()) {
+        break;
+      }
+      long hash = data.getLong(start);
+      if (recent.put(hash, pack(data.getInt(start + 8), data.getInt(start + 12))) == null && searchBase(hash) < 0) {
+        size++;
+      }
+      offset += JOURNAL_RECORD_SIZE;
+    }
+    if (offset < length) {
+      Log.w(TAG, "Truncating " + (length - offset) + " torn bytes from the task id journal");
+      journal.truncate(offset);
+      journal.force(true);
+    }
+    journalLength = offset;
+  }
+
+  private void resetJournal() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(JOURNAL_MAGIC);
+    header.putInt(FORMAT_VERSION);
+    header.flip();
+    journal.truncate(0);
+    writeFully(journal, header, 0);
+    journal.force(true);
+    journalLength = JOURNAL_HEADER_SIZE;
+  }
+
+  /**
+   * Size the filter for twice the current ids, or one more merge batch, and refill it.
+   */
+  private void rebuildBloom() {
+    bloomCapacity = Math.max(size * 2, MERGE_THRESHOLD);
+    long wantedBits = Math.max(BLOOM_MIN_BITS, (long) bloomCapacity * BLOOM_BITS_PER_ID);
+    int bits = Integer.highestOneBit((int) Math.min(wantedBits, 1 << 30));
+    if (bits < wantedBits && bits < (1 << 30)) {
+      bits <<= 1;
+    }
+    bloom = new long[bits / Long.SIZE];
+    for (int index = 0; index < baseCount; index++) {
+      bloomAdd(base.getLong(BASE_HEADER_SIZE + index * RECORD_SIZE));
+    }
+    for (Long hash : recent.keySet()) {
+      bloomAdd(hash);
+    }
+  }
+
+  private void bloomAdd(long hash) {
+    int mask = bloom.length * Long.SIZE - 1;
+    int first = (int) hash;
+    int step = (int) (hash >>> 32) | 1;
+    for (int probe = 0; probe < BLOOM_HASHES; probe++) {
+      int bit = (first + probe * step) & mask;
+      bloom[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  private boolean bloomMightContain(long hash) {
+    int mask = bloom.length * Long.SIZE - 1;
+    int first = (int) hash;
+    int step = (int) (hash >>> 32) | 1;
+    for (int probe = 0; probe < BLOOM_HASHES; probe++) {
+      int bit = (first + probe * step) & mask;
+      if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long pack(int updatedAtSec, int flags) {
+    return (Integer.toUnsignedLong(updatedAtSec) << 32) | Integer.toUnsignedLong(flags);
+  }
+
+  /**
+   * FNV-1a over the id's chars, finished with the MurmurHash3 mixer so every bit is usable by
+   * the bloom filter. At tens of thousands of ids a 64-bit collision is not a practical concern.
+   */
+  static long hash(String taskId) {
+    long hash = 0xcbf29ce484222325L;
+    for (int index = 0; index < taskId.length(); index++) {
+      hash ^= taskId.charAt(index);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static FileChannel openChannel(File file) throws IOException {
+    return FileChannel.open(
+      file.toPath(),
+      StandardOpenOption.CREATE,
+      StandardOpenOption.READ,
+      StandardOpenOption.WRITE
+    );
+  }
+
+  private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = source.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of task id journal");
+      }
+      offset += read;
+    }
+  }
+
+  private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      offset += target.write(buffer, offset);
+    }
+  }
+}
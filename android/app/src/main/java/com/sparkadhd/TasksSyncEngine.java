@@ -0,0 +1,396 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports the Spark Inbox Google Tasks list into the brain dump without the JS runtime.
+ *
+ * The delta listing is parsed as it streams in, page by page, keeping only the new tasks. They
+ * are written to the brainDump {@link RecordLogStore} in one batch, and only then are their
+ * completion PATCHes handed to a small worker pool that shares keep-alive connections. A task
+ * is never marked completed before it is stored, so a sync killed at any point loses nothing;
+ * a task that was stored but never marked is marked by the next sync instead of imported again.
+ * {@link TaskIdIndex} records which tasks were imported and which were marked.
+ *
+ * One sync runs at a time on a background thread. Requests that arrive meanwhile get the
+ * result of the running sync.
+ */
+public class TasksSyncEngine {
+  public interface Callback {
+    /**
+     * Called on the sync thread.
+     */
+    void onFinished(Result result);
+  }
+
+  public static final class Result {
+    public int importedCount;
+    public int skippedCount;
+    public int markedCompletedCount;
+    public boolean syncTokenUpdated;
+    public boolean signedIn = true;
+    public boolean stopped;
+    public long durationMs;
+    @Nullable public IOException error;
+  }
+
+  private static final String TAG = "TasksSyncEngine";
+  private static final String INBOX_LIST_TITLE = "Spark Inbox";
+  private static final String COLLECTION_BRAIN_DUMP = "brainDump";
+  private static final String GOOGLE_TASK_ID_KEY = "\"googleTaskId\"";
+  private static final int MARK_CONCURRENCY = 4;
+  private static final int STORE_SCAN_PAGE_SIZE = 500;
+  private static final long MARK_WORKER_KEEP_ALIVE_S = 30L;
+  private static final long ID_SUFFIX_RANGE = 2821109907456L; // 36^8
+
+  private static TasksSyncEngine instance;
+
+  private final Context appContext;
+  private final TasksSyncState state;
+  private final Handler syncHandler;
+  private final ThreadPoolExecutor markExecutor;
+  private final Random random = new Random();
+  private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+  private volatile GoogleTasksClient client;
+  private volatile boolean stopRequested;
+  // Guarded by this.
+  private final List<Callback> waiting = new ArrayList<>();
+  private boolean running;
+
+  public static synchronized TasksSyncEngine getInstance(Context context) {
+    if (instance == null) {
+      instance = new TasksSyncEngine(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private TasksSyncEngine(Context appContext) {
+    this.appContext = appContext;
+    state = new TasksSyncState(appContext);
+    client = new GoogleTasksClient(GoogleTasksClient.DEFAULT_BASE_URL, new GoogleAccountTokenProvider(appContext));
+    isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    HandlerThread syncThread = new HandlerThread("SparkTasksSync", Process.THREAD_PRIORITY_BACKGROUND);
+    syncThread.start();
+    syncHandler = new Handler(syncThread.getLooper());
+
+    AtomicInteger workerIndex = new AtomicInteger();
+    markExecutor = new ThreadPoolExecutor(
+      MARK_CONCURRENCY,
+      MARK_CONCURRENCY,
+      MARK_WORKER_KEEP_ALIVE_S,
+      TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(),
+      (runnable) -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+      }, "SparkTasksMark-" + workerIndex.incrementAndGet())
+    );
+    markExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  public TasksSyncState getState() {
+    return state;
+  }
+
+  @VisibleForTesting
+  void setClient(GoogleTasksClient nextClient) {
+    client = nextClient;
+  }
+
+  /**
+   * Start a sync unless one is running; {@code callback} gets the result either way.
+   */
+  public void requestSync(Callback callback) {
+    synchronized (this) {
+      waiting.add(callback);
+      if (running) {
+        return;
+      }
+      running = true;
+      stopRequested = false;
+    }
+    syncHandler.post(this::runSync);
+  }
+
+  /**
+   * Ask a running sync to stop after the page it is on. Marks already sent are still awaited.
+   */
+  public void requestStop() {
+    stopRequested = true;
+  }
+
+  private void runSync() {
+    long start = SystemClock.elapsedRealtime();
+    Result result = new Result();
+    try {
+      sync(result);
+    } catch (GoogleTasksClient.NotSignedInException exception) {
+      result.signedIn = false;
+    } catch (IOException exception) {
+      Log.w(TAG, "Google Tasks sync failed", exception);
+      result.error = exception;
+    }
+    result.durationMs = SystemClock.elapsedRealtime() - start;
+
+    List<Callback> callbacks;
+    synchronized (this) {
+      callbacks = new ArrayList<>(waiting);
+      waiting.clear();
+      running = false;
+    }
+    for (Callback callback : callbacks) {
+      callback.onFinished(result);
+    }
+  }
+
+  private void sync(Result result) throws IOException {
+    GoogleTasksClient tasks = client;
+    RecordLogStore store = RecordLogStore.open(appContext, COLLECTION_BRAIN_DUMP);
+    TaskIdIndex index = TaskIdIndex.getInstance(appContext);
+    prepareIndex(index, store);
+    String listId = state.getListId();
+    if (listId == null) {
+      listId = tasks.ensureList(INBOX_LIST_TITLE);
+    }
+    String previousSyncToken = state.getSyncToken();
+
+    DeltaImport delta = new DeltaImport(store, index, result);
+    String nextSyncToken;
+    try {
+      nextSyncToken = delta.listAll(tasks, listId, previousSyncToken);
+    } catch (GoogleTasksClient.SyncTokenExpiredException exception) {
+      if (previousSyncToken == null) {
+        throw exception;
+      }
+      nextSyncToken = delta.listAll(tasks, listId, null);
+    }
+
+    delta.store();
+    delta.markCompleted(tasks, listId);
+    index.maybeMerge(System.currentTimeMillis());
+
+    if (delta.stopped) {
+      result.stopped = true;
+      // Keep the old token so the next sync sees whatever this one did not reach.
+      state.setList(listId, previousSyncToken);
+    } else {
+      state.setList(listId, nextSyncToken);
+      result.syncTokenUpdated = nextSyncToken != null && !nextSyncToken.equals(previousSyncToken);
+      state.setLastSyncAtMs(System.currentTimeMillis());
+    }
+    state.save();
+  }
+
+  /**
+   * Move ids the index does not know about yet into it: processed ids handed over from JS,
+   * and, once, the googleTaskIds of records already in the brain dump.
+   */
+  private void prepareIndex(TaskIdIndex index, RecordLogStore store) throws IOException {
+    long now = System.currentTimeMillis();
+    if (!state.isIndexBackfilled()) {
+      List<String> missing = new ArrayList<>();
+      for (String taskId : scanStoredTaskIds(store)) {
+        if (!index.contains(taskId)) {
+          missing.add(taskId);
+        }
+      }
+      index.putAll(missing, 0, now);
+      state.setIndexBackfilled(true);
+    }
+    index.putAll(state.takePendingProcessedIds(), TaskIdIndex.FLAG_MARKED, now);
+  }
+
+  /**
+   * googleTaskIds in the brain dump. Payloads without the key are skipped without being parsed.
+   */
+  private static List<String> scanStoredTaskIds(RecordLogStore store) throws IOException {
+    List<String> ids = new ArrayList<>();
+    Long cursor = null;
+    do {
+      RecordLogStore.Page page = store.page(cursor, STORE_SCAN_PAGE_SIZE, false);
+      for (String payload : page.payloads) {
+        if (!payload.contains(GOOGLE_TASK_ID_KEY)) {
+          continue;
+        }
+        try {
+          String taskId = new JSONObject(payload).optString("googleTaskId", null);
+          if (taskId != null) {
+            ids.add(taskId);
+          }
+        } catch (JSONException ignored) {
+          // Not ours to repair; RecordStoreService skips unreadable records too.
+        }
+      }
+      cursor = page.nextCursor;
+    } while (cursor != null);
+    return ids;
+  }
+
+  /**
+   * What one sync run has collected: new brain dump records, and the tasks to mark completed.
+   */
+  private final class DeltaImport implements GoogleTasksClient.TaskVisitor {
+    private final RecordLogStore store;
+    private final TaskIdIndex index;
+    private final Result result;
+    private final List<String> recordIds = new ArrayList<>();
+    private final List<String> payloads = new ArrayList<>();
+    private final List<String> importedTaskIds = new ArrayList<>();
+    // New imports, plus tasks an earlier sync stored but never managed to mark.
+    private final Set<String> markIds = new LinkedHashSet<>();
+    boolean stopped;
+
+    DeltaImport(RecordLogStore store, TaskIdIndex index, Result result) {
+      this.store = store;
+      this.index = index;
+      this.result = result;
+    }
+
+    /**
+     * List every page after {@code syncToken}. Returns the next sync token.
+     */
+    @Nullable
+    String listAll(GoogleTasksClient tasks, String listId, @Nullable String syncToken) throws IOException {
+      String pageToken = null;
+      String nextSyncToken = syncToken;
+      do {
+        if (stopRequested) {
+          stopped = true;
+          return syncToken;
+        }
+        GoogleTasksClient.Page page = tasks.listTasks(listId, syncToken, pageToken, this);
+        if (page.nextSyncToken != null) {
+          nextSyncToken = page.nextSyncToken;
+        }
+        pageToken = page.nextPageToken;
+      } while (pageToken != null);
+      return nextSyncToken;
+    }
+
+    @Override
+    public void onTask(GoogleTasksClient.Task task) throws IOException {
+      String title = task.title == null ? null : task.title.trim();
+      if (task.id == null || title == null || title.isEmpty() || task.deleted || "completed".equals(task.status)) {
+        result.skippedCount++;
+        return;
+      }
+      // Seen earlier in this run, e.g. before a relist after an expired sync token.
+      if (markIds.contains(task.id)) {
+        result.skippedCount++;
+        return;
+      }
+      int flags = index.flags(task.id);
+      if (flags != TaskIdIndex.ABSENT) {
+        result.skippedCount++;
+        if ((flags & TaskIdIndex.FLAG_MARKED) == 0) {
+          markIds.add(task.id);
+        }
+        return;
+      }
+
+      String notes = task.notes;
+      String id = "google-" + System.currentTimeMillis() + "-"
+        + Long.toString(Math.floorMod(random.nextLong(), ID_SUFFIX_RANGE), 36);
+      JSONObject item = new JSONObject();
+      try {
+        item.put("id", id);
+        item.put("text", notes == null || notes.isEmpty() ? title : title + "\n\n" + notes);
+        item.put("createdAt", task.updated != null ? task.updated : isoFormat.format(new Date()));
+        item.put("source", "google");
+        item.put("googleTaskId", task.id);
+      } catch (JSONException exception) {
+        throw new IOException(exception);
+      }
+      recordIds.add(id);
+      payloads.add(item.toString());
+      importedTaskIds.add(task.id);
+      markIds.add(task.id);
+    }
+
+    void store() throws IOException {
+      if (recordIds.isEmpty()) {
+        return;
+      }
+      // The brain dump shows the newest record first; writing in reverse keeps the first task on top.
+      Collections.reverse(recordIds);
+      Collections.reverse(payloads);
+      store.write(recordIds, payloads, Collections.emptyList());
+      index.putAll(importedTaskIds, 0, System.currentTimeMillis());
+      OverlayCountPipeline.getInstance(appContext).submit(store.size());
+      result.importedCount = recordIds.size();
+    }
+
+    /**
+     * Send every mark to the worker pool and wait for all of them. Failures stay unmarked in
+     * the index and are retried by the next sync.
+     */
+    void markCompleted(GoogleTasksClient tasks, String listId) throws IOException {
+      List<String> taskIds = new ArrayList<>(markIds);
+      List<Future<Boolean>> marks = new ArrayList<>(taskIds.size());
+      for (String taskId : taskIds) {
+        marks.add(markExecutor.submit(() -> {
+          try {
+            tasks.markCompleted(listId, taskId);
+            return true;
+          } catch (IOException exception) {
+            Log.w(TAG, "Failed to mark Google task as completed", exception);
+            return false;
+          }
+        }));
+      }
+
+      List<String> marked = new ArrayList<>(taskIds.size());
+      boolean interrupted = false;
+      for (int position = 0; position < marks.size(); position++) {
+        while (true) {
+          try {
+            if (marks.get(position).get()) {
+              marked.add(taskIds.get(position));
+            }
+            break;
+          } catch (InterruptedException exception) {
+            interrupted = true;
+          } catch (ExecutionException exception) {
+            Log.w(TAG, "Mark task crashed", exception.getCause());
+            break;
+          }
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      index.putAll(marked, TaskIdIndex.FLAG_MARKED, System.currentTimeMillis());
+      result.markedCompletedCount = marked.size();
+    }
+  }
+}
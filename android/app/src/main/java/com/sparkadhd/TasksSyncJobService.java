@@ -0,0 +1,53 @@
+package com.sparkadhd;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+/**
+ * Runs {@link TasksSyncEngine} on a periodic JobScheduler job, so the brain dump picks up new
+ * Google Tasks while the app is closed.
+ */
+public class TasksSyncJobService extends JobService {
+  private static final int JOB_ID = 0x5350_5453; // "SPTS"
+  private static final long MIN_INTERVAL_MS = JobInfo.getMinPeriodMillis();
+
+  /**
+   * Schedule the periodic sync, replacing a pending job only when its interval changes.
+   */
+  public static void schedule(Context context, long intervalMs) {
+    JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+    long period = Math.max(MIN_INTERVAL_MS, intervalMs);
+    JobInfo pending = scheduler.getPendingJob(JOB_ID);
+    if (pending != null && pending.getIntervalMillis() == period) {
+      return;
+    }
+    scheduler.schedule(new JobInfo.Builder(JOB_ID, new ComponentName(context, TasksSyncJobService.class))
+      .setPeriodic(period)
+      .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+      .setPersisted(true)
+      .build());
+  }
+
+  public static void cancel(Context context) {
+    context.getSystemService(JobScheduler.class).cancel(JOB_ID);
+  }
+
+  @Override
+  public boolean onStartJob(JobParameters params) {
+    TasksSyncEngine.getInstance(this).requestSync((result) ->
+      // Retry soon after a network or server failure; otherwise wait for the next period.
+      jobFinished(params, result.error != null && !(result.error instanceof GoogleTasksClient.HttpStatusException))
+    );
+    return true;
+  }
+
+  @Override
+  public boolean onStopJob(JobParameters params) {
+    TasksSyncEngine.getInstance(this).requestStop();
+    return true;
+  }
+}
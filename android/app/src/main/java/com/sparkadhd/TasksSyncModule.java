@@ -0,0 +1,137 @@
+package com.sparkadhd;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JS access to {@link TasksSyncEngine} and its background job. Syncs run on the engine's own
+ * thread; promises resolve from there.
+ */
+public class TasksSyncModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "TasksSyncModule";
+  private final ReactApplicationContext reactContext;
+
+  public TasksSyncModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    this.reactContext = reactContext;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Resolves with the same counts the JS sync returned. Not being signed in resolves with zeros.
+   */
+  @ReactMethod
+  public void syncNow(Promise promise) {
+    TasksSyncEngine.getInstance(reactContext).requestSync((result) -> {
+      if (result.error != null) {
+        promise.reject("E_TASKS_SYNC", result.error);
+        return;
+      }
+      WritableMap map = Arguments.createMap();
+      map.putInt("importedCount", result.importedCount);
+      map.putInt("skippedCount", result.skippedCount);
+      map.putInt("markedCompletedCount", result.markedCompletedCount);
+      map.putBoolean("syncTokenUpdated", result.syncTokenUpdated);
+      map.putBoolean("signedIn", result.signedIn);
+      map.putDouble("durationMs", result.durationMs);
+      promise.resolve(map);
+    });
+  }
+
+  @ReactMethod
+  public void schedulePeriodicSync(double intervalMinutes) {
+    TasksSyncJobService.schedule(reactContext, (long) (intervalMinutes * 60_000d));
+  }
+
+  @ReactMethod
+  public void cancelPeriodicSync() {
+    TasksSyncJobService.cancel(reactContext);
+  }
+
+  /**
+   * Hand over the sync state the JS implementation kept. Resolves false when native state
+   * already exists and the seed was ignored.
+   */
+  @ReactMethod
+  public void seedState(ReadableMap seed, Promise promise) {
+    List<String> processedIds = new ArrayList<>();
+    ReadableArray ids = seed.hasKey("processedIds") ? seed.getArray("processedIds") : null;
+    if (ids != null) {
+      for (int index = 0; index < ids.size(); index++) {
+        if (ids.getType(index) == ReadableType.String) {
+          processedIds.add(ids.getString(index));
+        }
+      }
+    }
+    try {
+      promise.resolve(TasksSyncEngine.getInstance(reactContext).getState().seed(
+        optString(seed, "listId"),
+        optString(seed, "syncToken"),
+        processedIds,
+        seed.hasKey("lastSyncAtMs") && !seed.isNull("lastSyncAtMs") ? (long) seed.getDouble("lastSyncAtMs") : 0L
+      ));
+    } catch (IOException exception) {
+      promise.reject("E_TASKS_SYNC_STATE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void getState(Promise promise) {
+    try {
+      TasksSyncState state = TasksSyncEngine.getInstance(reactContext).getState();
+      WritableMap map = Arguments.createMap();
+      map.putBoolean("hasList", state.getListId() != null);
+      map.putBoolean("hasSyncToken", state.getSyncToken() != null);
+      map.putDouble("lastSyncAtMs", state.getLastSyncAtMs());
+      WritableMap index = Arguments.createMap();
+      for (Map.Entry<String, Double> entry : TaskIdIndex.getInstance(reactContext).stats().entrySet()) {
+        index.putDouble(entry.getKey(), entry.getValue());
+      }
+      map.putMap("index", index);
+      promise.resolve(map);
+    } catch (IOException exception) {
+      promise.reject("E_TASKS_SYNC_STATE", exception);
+    }
+  }
+
+  /**
+   * For each Google Task id, whether the sync has already imported it, in one bridge call.
+   */
+  @ReactMethod
+  public void containsAll(ReadableArray taskIds, Promise promise) {
+    List<String> ids = new ArrayList<>(taskIds.size());
+    for (int index = 0; index < taskIds.size(); index++) {
+      ids.add(taskIds.getString(index));
+    }
+    try {
+      WritableArray found = Arguments.createArray();
+      for (boolean contained : TaskIdIndex.getInstance(reactContext).containsAll(ids)) {
+        found.pushBoolean(contained);
+      }
+      promise.resolve(found);
+    } catch (IOException exception) {
+      promise.reject("E_TASKS_SYNC_STATE", exception);
+    }
+  }
+
+  private static String optString(ReadableMap map, String key) {
+    return map.hasKey(key) && map.getType(key) == ReadableType.String ? map.getString(key) : null;
+  }
+}
@@ -0,0 +1,169 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the native Google Tasks sync left off: the inbox list, the delta sync token and when
+ * the last sync finished. Kept in a small JSON file that is replaced atomically, so a sync
+ * killed mid-write keeps the previous state. Task ids themselves live in {@link TaskIdIndex};
+ * ids handed over by the JS sync wait here until the engine moves them there.
+ */
+public class TasksSyncState {
+  private static final String TAG = "TasksSyncState";
+  private static final String FILE_NAME = "tasks_sync_state.json";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private final File file;
+  // Guarded by this.
+  @Nullable private String listId;
+  @Nullable private String syncToken;
+  private final List<String> pendingProcessedIds = new ArrayList<>();
+  private long lastSyncAtMs;
+  private boolean indexBackfilled;
+
+  TasksSyncState(Context context) {
+    file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+    load();
+  }
+
+  @Nullable
+  public synchronized String getListId() {
+    return listId;
+  }
+
+  @Nullable
+  public synchronized String getSyncToken() {
+    return syncToken;
+  }
+
+  public synchronized long getLastSyncAtMs() {
+    return lastSyncAtMs;
+  }
+
+  public synchronized boolean isEmpty() {
+    return listId == null && syncToken == null && pendingProcessedIds.isEmpty() && lastSyncAtMs == 0L;
+  }
+
+  /**
+   * Whether the brain dump's existing googleTaskIds have been copied into the index yet.
+   */
+  synchronized boolean isIndexBackfilled() {
+    return indexBackfilled;
+  }
+
+  synchronized void setIndexBackfilled(boolean value) {
+    indexBackfilled = value;
+  }
+
+  synchronized void setList(@Nullable String nextListId, @Nullable String nextSyncToken) {
+    listId = nextListId;
+    syncToken = nextSyncToken;
+  }
+
+  /**
+   * Processed ids seeded from JS, still to be written to the index. Cleared by the next
+   * {@link #save()} after the engine has taken them.
+   */
+  synchronized List<String> takePendingProcessedIds() {
+    List<String> taken = new ArrayList<>(pendingProcessedIds);
+    pendingProcessedIds.clear();
+    return taken;
+  }
+
+  synchronized void setLastSyncAtMs(long value) {
+    lastSyncAtMs = value;
+  }
+
+  /**
+   * Take over the state the JS sync kept in AsyncStorage. Ignored once native state exists.
+   */
+  synchronized boolean seed(
+    @Nullable String seedListId,
+    @Nullable String seedSyncToken,
+    List<String> seedProcessedIds,
+    long seedLastSyncAtMs
+  ) throws IOException {
+    if (!isEmpty()) {
+      return false;
+    }
+    listId = seedListId;
+    syncToken = seedSyncToken;
+    pendingProcessedIds.addAll(seedProcessedIds);
+    lastSyncAtMs = seedLastSyncAtMs;
+    save();
+    return true;
+  }
+
+  synchronized void clear() throws IOException {
+    listId = null;
+    syncToken = null;
+    pendingProcessedIds.clear();
+    lastSyncAtMs = 0L;
+    indexBackfilled = false;
+    save();
+  }
+
+  synchronized void save() throws IOException {
+    byte[] data;
+    try {
+      JSONObject json = new JSONObject();
+      json.put("listId", listId == null ? JSONObject.NULL : listId);
+      json.put("syncToken", syncToken == null ? JSONObject.NULL : syncToken);
+      json.put("processedIds", new JSONArray(pendingProcessedIds));
+      json.put("lastSyncAtMs", lastSyncAtMs);
+      json.put("indexBackfilled", indexBackfilled);
+      data = json.toString().getBytes(StandardCharsets.UTF_8);
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+
+    File tmp = new File(file.getPath() + TMP_SUFFIX);
+    try (FileOutputStream output = new FileOutputStream(tmp)) {
+      output.write(data);
+      output.getFD().sync();
+    }
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Could not replace " + file);
+    }
+  }
+
+  private void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    try {
+      JSONObject json = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      listId = json.isNull("listId") ? null : json.optString("listId", null);
+      syncToken = json.isNull("syncToken") ? null : json.optString("syncToken", null);
+      JSONArray ids = json.optJSONArray("processedIds");
+      if (ids != null) {
+        for (int index = 0; index < ids.length(); index++) {
+          String taskId = ids.optString(index, null);
+          if (taskId != null) {
+            pendingProcessedIds.add(taskId);
+          }
+        }
+      }
+      lastSyncAtMs = json.optLong("lastSyncAtMs", 0L);
+      indexBackfilled = json.optBoolean("indexBackfilled", false);
+    } catch (IOException | JSONException exception) {
+      // Losing the sync token only costs a full relist; the id index still dedups it.
+      Log.w(TAG, "Unreadable sync state, starting over", exception);
+    }
+  }
+}
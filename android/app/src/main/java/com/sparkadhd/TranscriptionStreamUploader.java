@@ -0,0 +1,289 @@
+package com.sparkadhd;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends an {@link AudioSpool} to the middleware's streaming transcription endpoint while the
+ * recording is still being written.
+ *
+ * The protocol is resumable, so chunks are never sent twice over a working connection and never
+ * lost over a broken one:
+ * <ul>
+ *   <li>{@code POST /api/transcribe/stream} with the codec opens a session and returns
+ *   {@code sessionId}. A 404, 405 or 501 means the server has no streaming support.</li>
+ *   <li>{@code PUT .../{sessionId}/chunks/{seq}} carries {@code X-Chunk-Count} consecutive
+ *   chunks and returns {@code receivedThrough}, the last contiguous chunk the server holds.</li>
+ *   <li>{@code GET .../{sessionId}} returns {@code receivedThrough} again after a reconnect.</li>
+ *   <li>{@code POST .../{sessionId}/finish} returns {@code transcription} and {@code summary}.</li>
+ * </ul>
+ * One request is in flight at a time. When the network is slower than speech, chunks wait in
+ * the spool file and go out together when it catches up.
+ */
+final class TranscriptionStreamUploader implements Runnable {
+  static final String STREAM_PATH = "/api/transcribe/stream";
+
+  static final class Result {
+    boolean streamed;
+    boolean unsupported;
+    @Nullable String transcription;
+    @Nullable String summary;
+    @Nullable IOException error;
+    int chunksSent;
+    int retries;
+    int sessionsOpened;
+  }
+
+  private static final class SessionGoneException extends IOException {
+    SessionGoneException() {
+      super("Transcription stream session expired");
+    }
+  }
+
+  private static final int CONNECT_TIMEOUT_MS = 10_000;
+  private static final int READ_TIMEOUT_MS = 30_000;
+  private static final int FINISH_READ_TIMEOUT_MS = 60_000;
+  private static final int MAX_CHUNKS_PER_REQUEST = 8;
+  private static final long CHUNK_WAIT_MS = 1_000L;
+  private static final long INITIAL_BACKOFF_MS = 250L;
+  private static final long MAX_BACKOFF_MS = 4_000L;
+
+  private final String baseUrl;
+  private final AudioSpool spool;
+  private final Result result = new Result();
+  private final byte[] buffer = new byte[MAX_CHUNKS_PER_REQUEST * AudioSpool.CHUNK_BYTES];
+  // Guarded by this.
+  private boolean done;
+  // Zero while recording: retry for as long as the user is talking.
+  private volatile long giveUpAtMs;
+  private volatile boolean cancelled;
+
+  TranscriptionStreamUploader(String baseUrl, AudioSpool spool) {
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    this.spool = spool;
+  }
+
+  /**
+   * The recording has stopped; stop retrying after {@code timeoutMs} from now.
+   */
+  void setDeadline(long timeoutMs) {
+    giveUpAtMs = System.currentTimeMillis() + timeoutMs;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Wait for the upload to end, returning null if it is still running after {@code timeoutMs}.
+   */
+  @Nullable
+  synchronized Result await(long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    long remaining = timeoutMs;
+    while (!done && remaining > 0L) {
+      wait(remaining);
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return done ? result : null;
+  }
+
+  @Override
+  public void run() {
+    try {
+      upload();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    } finally {
+      synchronized (this) {
+        done = true;
+        notifyAll();
+      }
+    }
+  }
+
+  private void upload() throws InterruptedException {
+    String sessionId = null;
+    int receivedThrough = -1;
+    long backoffMs = INITIAL_BACKOFF_MS;
+    while (!cancelled) {
+      try {
+        if (sessionId == null) {
+          sessionId = open();
+          if (sessionId == null) {
+            result.unsupported = true;
+            return;
+          }
+          result.sessionsOpened++;
+          receivedThrough = -1;
+        }
+
+        int available = spool.awaitChunks(receivedThrough + 1, CHUNK_WAIT_MS);
+        if (cancelled) {
+          return;
+        }
+        int next = receivedThrough + 1;
+        if (next < available) {
+          int count = Math.min(available - next, MAX_CHUNKS_PER_REQUEST);
+          receivedThrough = putChunks(sessionId, next, count);
+          result.chunksSent += count;
+          backoffMs = INITIAL_BACKOFF_MS;
+        } else if (spool.isComplete()) {
+          finish(sessionId, available);
+          result.streamed = true;
+          return;
+        }
+      } catch (SessionGoneException exception) {
+        // The server dropped the session; the spool still has every chunk, so start over.
+        sessionId = null;
+      } catch (IOException exception) {
+        result.retries++;
+        if (giveUpAtMs != 0L && System.currentTimeMillis() + backoffMs > giveUpAtMs) {
+          result.error = exception;
+          return;
+        }
+        Thread.sleep(backoffMs);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        if (sessionId != null) {
+          try {
+            receivedThrough = status(sessionId);
+          } catch (SessionGoneException gone) {
+            sessionId = null;
+          } catch (IOException stillDown) {
+            // Keep the old position; the next PUT is retried and its reply corrects it.
+          }
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private String open() throws IOException {
+    String body;
+    try {
+      body = new JSONObject()
+        .put("codec", "ima-adpcm")
+        .put("sampleRate", AudioSpool.SAMPLE_RATE)
+        .put("channels", 1)
+        .put("blockAlign", ImaAdpcmEncoder.BLOCK_ALIGN)
+        .put("samplesPerBlock", ImaAdpcmEncoder.SAMPLES_PER_BLOCK)
+        .put("chunkBytes", AudioSpool.CHUNK_BYTES)
+        .toString();
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+    HttpURLConnection connection = connect("POST", STREAM_PATH, READ_TIMEOUT_MS);
+    int status = send(connection, "application/json", body.getBytes(StandardCharsets.UTF_8), 0, -1);
+    if (status == HttpURLConnection.HTTP_NOT_FOUND
+      || status == HttpURLConnection.HTTP_BAD_METHOD
+      || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+      readBody(connection, status);
+      return null;
+    }
+    String sessionId = readJson(connection, status).optString("sessionId", "");
+    if (sessionId.isEmpty()) {
+      throw new IOException("Transcription stream opened without a session id");
+    }
+    return sessionId;
+  }
+
+  private int putChunks(String sessionId, int first, int count) throws IOException {
+    int length = spool.readChunks(first, count, buffer);
+    HttpURLConnection connection = connect("PUT", sessionPath(sessionId) + "/chunks/" + first, READ_TIMEOUT_MS);
+    connection.setRequestProperty("X-Chunk-Count", String.valueOf(count));
+    int status = send(connection, "application/octet-stream", buffer, 0, length);
+    return readJson(connection, status).optInt("receivedThrough", first + count - 1);
+  }
+
+  private int status(String sessionId) throws IOException {
+    HttpURLConnection connection = connect("GET", sessionPath(sessionId), READ_TIMEOUT_MS);
+    return readJson(connection, connection.getResponseCode()).optInt("receivedThrough", -1);
+  }
+
+  private void finish(String sessionId, int chunkCount) throws IOException {
+    String body;
+    try {
+      body = new JSONObject().put("chunkCount", chunkCount).toString();
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+    HttpURLConnection connection = connect("POST", sessionPath(sessionId) + "/finish", FINISH_READ_TIMEOUT_MS);
+    int status = send(connection, "application/json", body.getBytes(StandardCharsets.UTF_8), 0, -1);
+    JSONObject json = readJson(connection, status);
+    result.transcription = json.isNull("transcription") ? null : json.optString("transcription", null);
+    result.summary = json.isNull("summary") ? null : json.optString("summary", null);
+  }
+
+  private String sessionPath(String sessionId) {
+    return STREAM_PATH + "/" + sessionId;
+  }
+
+  private HttpURLConnection connect(String method, String path, int readTimeoutMs) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    connection.setReadTimeout(readTimeoutMs);
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", "application/json");
+    return connection;
+  }
+
+  /**
+   * Write a body of {@code length} bytes, or all of {@code body} when {@code length} is -1,
+   * and return the status code.
+   */
+  private static int send(HttpURLConnection connection, String contentType, byte[] body, int offset, int length)
+    throws IOException {
+    int size = length < 0 ? body.length : length;
+    connection.setDoOutput(true);
+    connection.setFixedLengthStreamingMode(size);
+    connection.setRequestProperty("Content-Type", contentType);
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write(body, offset, size);
+    }
+    return connection.getResponseCode();
+  }
+
+  private static JSONObject readJson(HttpURLConnection connection, int status) throws IOException {
+    String body = readBody(connection, status);
+    if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+      throw new SessionGoneException();
+    }
+    if (status < 200 || status >= 300) {
+      throw new IOException("Transcription stream error (" + status + "): " + body);
+    }
+    try {
+      return body.isEmpty() ? new JSONObject() : new JSONObject(body);
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+  }
+
+  /**
+   * Read the whole response so the socket goes back to the keep-alive pool.
+   */
+  private static String readBody(HttpURLConnection connection, int status) throws IOException {
+    InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    if (input == null) {
+      return "";
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream stream = input) {
+      byte[] chunk = new byte[1024];
+      int read;
+      while ((read = stream.read(chunk)) != -1) {
+        bytes.write(chunk, 0, read);
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,133 @@
+package com.sparkadhd;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * JS access to {@link UXMetricsRecorder}. {@code track} is fire-and-forget; reads flush the
+ * ring first so they include everything recorded so far.
+ */
+public class UXMetricsModule extends ReactContextBaseJavaModule {
+  public static final String NAME = "UXMetricsModule";
+  private final UXMetricsRecorder recorder;
+
+  public UXMetricsModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+    recorder = UXMetricsRecorder.getInstance(reactContext);
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @ReactMethod
+  public void track(String name, @Nullable ReadableMap metadata) {
+    String metadataJson = null;
+    if (metadata != null && metadata.keySetIterator().hasNextKey()) {
+      metadataJson = new JSONObject(metadata.toHashMap()).toString();
+    }
+    recorder.record(name, metadataJson);
+  }
+
+  @ReactMethod
+  public void getEvents(double limit, Promise promise) {
+    try {
+      WritableArray events = Arguments.createArray();
+      for (UXMetricsRecorder.Event event : recorder.readEvents(Math.max(1, (int) limit))) {
+        WritableMap map = Arguments.createMap();
+        map.putString("name", event.name);
+        map.putDouble("timestampMs", event.timestampMs);
+        if (event.metadataJson != null) {
+          map.putMap("metadata", toMap(event.metadataJson));
+        }
+        events.pushMap(map);
+      }
+      promise.resolve(events);
+    } catch (IOException exception) {
+      promise.reject("E_UX_METRICS_READ", exception);
+    }
+  }
+
+  /**
+   * Put events JS recorded before the native recorder existed ahead of the recorded ones.
+   * {@code events} are {@code {name, timestampMs, metadata?}}, oldest first.
+   */
+  @ReactMethod
+  public void importEvents(ReadableArray events, Promise promise) {
+    List<UXMetricsRecorder.Event> imported = new ArrayList<>(events.size());
+    for (int index = 0; index < events.size(); index++) {
+      ReadableMap event = events.getMap(index);
+      if (event == null || !event.hasKey("name") || !event.hasKey("timestampMs")) {
+        continue;
+      }
+      String metadataJson = null;
+      ReadableMap metadata = event.hasKey("metadata") ? event.getMap("metadata") : null;
+      if (metadata != null && metadata.keySetIterator().hasNextKey()) {
+        metadataJson = new JSONObject(metadata.toHashMap()).toString();
+      }
+      imported.add(new UXMetricsRecorder.Event(
+          (long) event.getDouble("timestampMs"), event.getString("name"), metadataJson));
+    }
+    try {
+      recorder.importEvents(imported);
+      promise.resolve(imported.size());
+    } catch (IOException exception) {
+      promise.reject("E_UX_METRICS_WRITE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void clearEvents(Promise promise) {
+    try {
+      recorder.clear();
+      promise.resolve(true);
+    } catch (IOException exception) {
+      promise.reject("E_UX_METRICS_WRITE", exception);
+    }
+  }
+
+  @ReactMethod
+  public void getStats(Promise promise) {
+    promise.resolve(Arguments.fromBundle(recorder.statsToBundle()));
+  }
+
+  private static WritableMap toMap(String json) {
+    WritableMap map = Arguments.createMap();
+    try {
+      JSONObject object = new JSONObject(json);
+      Iterator<String> keys = object.keys();
+      while (keys.hasNext()) {
+        String key = keys.next();
+        Object value = object.get(key);
+        if (value instanceof Boolean) {
+          map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Number) {
+          map.putDouble(key, ((Number) value).doubleValue());
+        } else if (value != JSONObject.NULL) {
+          map.putString(key, String.valueOf(value));
+        }
+      }
+    } catch (JSONException ignored) {
+      // Metadata is written by this module or the overlay, so this only happens on corruption.
+    }
+    return map;
+  }
+}
@@ -0,0 +1,508 @@
+package com.sparkadhd;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * UX metric events from JS and from the overlay, recorded without touching the disk.
+ *
+ * The ring is one byte array of fixed-size records: timestamp, an interned name id and up to
+ * {@link #MAX_METADATA_BYTES} of UTF-8 metadata. {@link #record} claims the next slot with a
+ * compare-and-set, fills it and publishes it with a release store of its sequence number; the
+ * flusher reads the stamp with an acquire load before the record and releases the slot by
+ * advancing {@link #readSequence}, so a record is never read while it is being written. A
+ * single flusher thread drains published slots into an append-only file in batches; a batch
+ * that could not be written is kept and retried with the next one. When the ring is full the
+ * new event is dropped and counted rather than blocking the caller.
+ */
+public class UXMetricsRecorder {
+  private static final String TAG = "UXMetricsRecorder";
+  private static final String FILE_NAME = "ux_metrics.bin";
+
+  private static final int MAGIC = 0x53505558; // "SPUX"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+
+  private static final int CAPACITY = 1024; // Power of two.
+  private static final int MASK = CAPACITY - 1;
+  private static final long FLUSH_DELAY_MS = 2000L;
+  private static final int EAGER_FLUSH_BACKLOG = CAPACITY / 2;
+  private static final int MAX_DISK_EVENTS = 1000;
+  private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024L;
+  private static final int MAX_NAME_CHARS = 128;
+  private static final int MAX_NAMES = 0xFFFF;
+
+  // Record layout: timestamp (8), name id (2), metadata length or NO_METADATA (2), metadata.
+  private static final int RECORD_SIZE = 256;
+  private static final int OFFSET_NAME = 8;
+  private static final int OFFSET_METADATA_LENGTH = 10;
+  private static final int OFFSET_METADATA = 12;
+  private static final int MAX_METADATA_BYTES = RECORD_SIZE - OFFSET_METADATA;
+  private static final char NO_METADATA = 0xFFFF;
+
+  private static UXMetricsRecorder instance;
+
+  private final File file;
+  private final Handler flushHandler;
+  private final Runnable flushRunnable = this::flushQuietly;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  private final AtomicLong writeSequence = new AtomicLong();
+  // Next sequence the flusher reads; slots below it are free to reuse.
+  private final AtomicLong readSequence = new AtomicLong();
+  // Holds sequence + 1 once slot contents for that sequence are complete.
+  private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+  // Writers only touch their own claimed record, through absolute puts.
+  private final ByteBuffer records = ByteBuffer.allocate(CAPACITY * RECORD_SIZE);
+  private final ConcurrentHashMap<String, Integer> nameIds = new ConcurrentHashMap<>();
+  private final CopyOnWriteArrayList<String> names = new CopyOnWriteArrayList<>();
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final AtomicLong droppedMetadata = new AtomicLong();
+
+  // Guarded by this; only the flusher side touches these.
+  // Events taken off the ring but not yet on disk; kept across failed appends.
+  private final ByteArrayOutputStream unwritten = new ByteArrayOutputStream();
+  private final DataOutputStream unwrittenOutput = new DataOutputStream(unwritten);
+  private int unwrittenEvents;
+  private long fileBytes = -1L;
+  private long flushedEvents;
+  private long flushes;
+  private long lastFlushMs = -1L;
+
+  public static synchronized UXMetricsRecorder getInstance(Context context) {
+    if (instance == null) {
+      instance = new UXMetricsRecorder(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private UXMetricsRecorder(Context appContext) {
+    file = new File(appContext.getFilesDir(), FILE_NAME);
+    HandlerThread thread = new HandlerThread("SparkMetricsFlusher", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    flushHandler = new Handler(thread.getLooper());
+  }
+
+  /**
+   * Build a flat JSON object from alternating keys and values for {@link #record}.
+   */
+  public static String metadata(Object... keysAndValues) {
+    StringBuilder builder = new StringBuilder("{");
+    for (int index = 0; index + 1 < keysAndValues.length; index += 2) {
+      if (index > 0) {
+        builder.append(',');
+      }
+      builder.append(JSONObject.quote(String.valueOf(keysAndValues[index]))).append(':');
+      Object value = keysAndValues[index + 1];
+      if (value instanceof Number || value instanceof Boolean) {
+        builder.append(value);
+      } else {
+        builder.append(JSONObject.quote(String.valueOf(value)));
+      }
+    }
+    return builder.append('}').toString();
+  }
+
+  public void record(String name) {
+    record(name, null);
+  }
+
+  /**
+   * Record an event from any thread. {@code metadataJson} is a JSON object or null; metadata
+   * that does not fit in a record is dropped and counted, and the event kept.
+   */
+  public void record(String name, @Nullable String metadataJson) {
+    long timestampMs = System.currentTimeMillis();
+    if (name.length() > MAX_NAME_CHARS) {
+      name = name.substring(0, MAX_NAME_CHARS);
+    }
+    int nameId = nameId(name);
+    if (nameId < 0) {
+      droppedEvents.incrementAndGet();
+      return;
+    }
+    byte[] metadataBytes = metadataJson == null ? null : metadataJson.getBytes(StandardCharsets.UTF_8);
+    if (metadataBytes != null && metadataBytes.length > MAX_METADATA_BYTES) {
+      droppedMetadata.incrementAndGet();
+      metadataBytes = null;
+    }
+
+    long sequence;
+    do {
+      sequence = writeSequence.get();
+      if (sequence - readSequence.get() >= CAPACITY) {
+        droppedEvents.incrementAndGet();
+        scheduleFlush(true);
+        return;
+      }
+    } while (!writeSequence.compareAndSet(sequence, sequence + 1));
+
+    int base = (int) (sequence & MASK) * RECORD_SIZE;
+    records.putLong(base, timestampMs);
+    records.putChar(base + OFFSET_NAME, (char) nameId);
+    if (metadataBytes == null) {
+      records.putChar(base + OFFSET_METADATA_LENGTH, NO_METADATA);
+    } else {
+      records.putChar(base + OFFSET_METADATA_LENGTH, (char) metadataBytes.length);
+      for (int index = 0; index < metadataBytes.length; index++) {
+        records.put(base + OFFSET_METADATA + index, metadataBytes[index]);
+      }
+    }
+    // Release: the record above is visible to a flusher that sees this stamp.
+    published.lazySet((int) (sequence & MASK), sequence + 1);
+
+    scheduleFlush((sequence & (EAGER_FLUSH_BACKLOG - 1)) == 0 && sequence > 0);
+  }
+
+  /**
+   * Put events recorded before this recorder existed ahead of everything recorded so far,
+   * oldest first. Used once to bring over the events JS kept in AsyncStorage.
+   */
+  public synchronized void importEvents(List<Event> olderEvents) throws IOException {
+    if (olderEvents.isEmpty()) {
+      return;
+    }
+    flush();
+    ArrayDeque<Event> recorded = new ArrayDeque<>(MAX_DISK_EVENTS);
+    readFile(recorded, MAX_DISK_EVENTS);
+    ArrayDeque<Event> kept = new ArrayDeque<>(MAX_DISK_EVENTS);
+    for (Event event : olderEvents) {
+      keepNewest(kept, event, MAX_DISK_EVENTS);
+    }
+    for (Event event : recorded) {
+      keepNewest(kept, event, MAX_DISK_EVENTS);
+    }
+    rewrite(kept);
+  }
+
+  /**
+   * Newest events first, including ones still waiting in the ring.
+   */
+  public synchronized List<Event> readEvents(int limit) throws IOException {
+    flush();
+    ArrayDeque<Event> newest = new ArrayDeque<>(Math.min(limit, MAX_DISK_EVENTS));
+    readFile(newest, limit);
+    List<Event> events = new ArrayList<>(newest.size());
+    while (!newest.isEmpty()) {
+      events.add(newest.pollLast());
+    }
+    return events;
+  }
+
+  public synchronized void clear() throws IOException {
+    flush();
+    writeHeader();
+  }
+
+  public synchronized Bundle statsToBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putDouble("recorded", writeSequence.get());
+    bundle.putDouble("flushed", flushedEvents);
+    bundle.putDouble("dropped", droppedEvents.get());
+    bundle.putDouble("droppedMetadata", droppedMetadata.get());
+    bundle.putDouble("pending", writeSequence.get() - readSequence.get() + unwrittenEvents);
+    bundle.putDouble("flushes", flushes);
+    bundle.putDouble("fileBytes", Math.max(0L, fileBytes));
+    bundle.putDouble("lastFlushMs", lastFlushMs);
+    bundle.putDouble("capacity", CAPACITY);
+    return bundle;
+  }
+
+  /**
+   * Id of {@code name} in the name table, or -1 once the table is full.
+   */
+  private int nameId(String name) {
+    Integer id = nameIds.get(name);
+    if (id != null) {
+      return id;
+    }
+    synchronized (names) {
+      id = nameIds.get(name);
+      if (id == null) {
+        if (names.size() >= MAX_NAMES) {
+          return -1;
+        }
+        id = names.size();
+        // Listed before the id is handed out, so a reader of the id finds the name.
+        names.add(name);
+        nameIds.put(name, id);
+      }
+      return id;
+    }
+  }
+
+  private void scheduleFlush(boolean now) {
+    if (flushScheduled.compareAndSet(false, true)) {
+      flushHandler.postDelayed(flushRunnable, now ? 0L : FLUSH_DELAY_MS);
+    } else if (now) {
+      flushHandler.removeCallbacks(flushRunnable);
+      flushHandler.post(flushRunnable);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      synchronized (this) {
+        flush();
+      }
+    } catch (IOException exception) {
+      Log.w(TAG, "Could not flush UX metrics", exception);
+    }
+  }
+
+  private void flush() throws IOException {
+    flushScheduled.set(false);
+    long start = System.nanoTime();
+
+    long sequence = readSequence.get();
+    long end = writeSequence.get();
+    while (sequence < end) {
+      int slot = (int) (sequence & MASK);
+      // Acquire: everything the writer put in the record before its stamp is visible.
+      if (published.get(slot) != sequence + 1) {
+        // Claimed but not yet published; pick it up on the next flush.
+        break;
+      }
+      int base = slot * RECORD_SIZE;
+      long timestamp = records.getLong(base);
+      String name = names.get(records.getChar(base + OFFSET_NAME));
+      char metadataLength = records.getChar(base + OFFSET_METADATA_LENGTH);
+      String metadataJson = null;
+      if (metadataLength != NO_METADATA) {
+        metadataJson = new String(records.array(), base + OFFSET_METADATA, metadataLength, StandardCharsets.UTF_8);
+      }
+      // Release: the slot may be reused only after it has been read.
+      readSequence.set(++sequence);
+      writeEvent(unwrittenOutput, timestamp, name, metadataJson);
+      unwrittenEvents++;
+    }
+    if (unwrittenEvents > MAX_DISK_EVENTS) {
+      // The disk has been failing for a while; the file would not keep these anyway.
+      droppedEvents.addAndGet(unwrittenEvents);
+      unwritten.reset();
+      unwrittenEvents = 0;
+    }
+
+    if (sequence < writeSequence.get() && flushScheduled.compareAndSet(false, true)) {
+      flushHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+    }
+    if (unwrittenEvents == 0) {
+      return;
+    }
+
+    try {
+      append(unwritten.toByteArray());
+    } catch (IOException exception) {
+      // Keep the batch for the next flush; a torn tail is cut off by recover() first.
+      fileBytes = -1L;
+      if (flushScheduled.compareAndSet(false, true)) {
+        flushHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+      }
+      throw exception;
+    }
+    int batched = unwrittenEvents;
+    unwritten.reset();
+    unwrittenEvents = 0;
+    flushedEvents += batched;
+    flushes++;
+    lastFlushMs = (System.nanoTime() - start) / 1_000_000L;
+    if (fileBytes > COMPACT_THRESHOLD_BYTES) {
+      compact();
+    }
+  }
+
+  private static void writeEvent(DataOutputStream output, long timestamp, String name, @Nullable String metadataJson)
+    throws IOException {
+    output.writeLong(timestamp);
+    output.writeUTF(name);
+    output.writeBoolean(metadataJson != null);
+    if (metadataJson != null) {
+      output.writeUTF(metadataJson);
+    }
+  }
+
+  private void append(byte[] bytes) throws IOException {
+    if (fileBytes < 0L) {
+      fileBytes = recover();
+    }
+    try (FileOutputStream output = new FileOutputStream(file, true)) {
+      output.write(bytes);
+      output.getFD().sync();
+    }
+    fileBytes += bytes.length;
+  }
+
+  /**
+   * Validate the file once per process and cut off a torn last batch.
+   */
+  private long recover() throws IOException {
+    if (!file.exists() || file.length() < HEADER_SIZE) {
+      return writeHeader();
+    }
+    long validEnd = HEADER_SIZE;
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != MAGIC || input.readInt() > FORMAT_VERSION) {
+        return writeHeader();
+      }
+      CountingReader reader = new CountingReader(input);
+      while (reader.next() != null) {
+        validEnd = HEADER_SIZE + reader.consumed;
+      }
+    }
+    if (validEnd < file.length()) {
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+        randomAccessFile.setLength(validEnd);
+      }
+    }
+    return validEnd;
+  }
+
+  private long writeHeader() throws IOException {
+    try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+    }
+    fileBytes = HEADER_SIZE;
+    return HEADER_SIZE;
+  }
+
+  private void readFile(ArrayDeque<Event> newest, int limit) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != MAGIC || input.readInt() > FORMAT_VERSION) {
+        return;
+      }
+      CountingReader reader = new CountingReader(input);
+      Event event;
+      while ((event = reader.next()) != null) {
+        keepNewest(newest, event, limit);
+      }
+    } catch (EOFException ignored) {
+      // Header only partly written.
+    }
+  }
+
+  /**
+   * Keep only the newest {@link #MAX_DISK_EVENTS} events.
+   */
+  private void compact() throws IOException {
+    ArrayDeque<Event> kept = new ArrayDeque<>(MAX_DISK_EVENTS);
+    readFile(kept, MAX_DISK_EVENTS);
+    rewrite(kept);
+  }
+
+  private static void keepNewest(ArrayDeque<Event> kept, Event event, int limit) {
+    if (kept.size() == limit) {
+      kept.pollFirst();
+    }
+    kept.addLast(event);
+  }
+
+  /**
+   * Replace the file with {@code events}, oldest first.
+   */
+  private void rewrite(Iterable<Event> events) throws IOException {
+    File compacted = new File(file.getPath() + ".compact");
+    try (FileOutputStream stream = new FileOutputStream(compacted)) {
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      for (Event event : events) {
+        writeEvent(output, event.timestampMs, event.name, event.metadataJson);
+      }
+      output.flush();
+      stream.getFD().sync();
+    }
+    if (!compacted.renameTo(file)) {
+      compacted.delete();
+      throw new IOException("Could not replace " + file);
+    }
+    fileBytes = file.length();
+  }
+
+  public static final class Event {
+    public final long timestampMs;
+    public final String name;
+    @Nullable public final String metadataJson;
+
+    public Event(long timestampMs, String name, @Nullable String metadataJson) {
+      this.timestampMs = timestampMs;
+      this.name = name;
+      this.metadataJson = metadataJson;
+    }
+  }
+
+  /**
+   * Reads events and tracks how many bytes made up complete ones.
+   */
+  private static final class CountingReader {
+    private final DataInputStream input;
+    long consumed;
+
+    CountingReader(DataInputStream input) {
+      this.input = input;
+    }
+
+    @Nullable
+    Event next() throws IOException {
+      try {
+        long timestamp = input.readLong();
+        String name = input.readUTF();
+        boolean hasMetadata = input.readBoolean();
+        String metadataJson = hasMetadata ? input.readUTF() : null;
+        consumed += 8 + utfLength(name) + 1 + (metadataJson != null ? utfLength(metadataJson) : 0);
+        return new Event(timestamp, name, metadataJson);
+      } catch (EOFException | UTFDataFormatException exception) {
+        return null;
+      }
+    }
+
+    private static int utfLength(String value) {
+      int length = 2;
+      for (int index = 0; index < value.length(); index++) {
+        char c = value.charAt(index);
+        if (c >= 0x0001 && c <= 0x007F) {
+          length += 1;
+        } else if (c > 0x07FF) {
+          length += 3;
+        } else {
+          length += 2;
+        }
+      }
+      return length;
+    }
+  }
+}
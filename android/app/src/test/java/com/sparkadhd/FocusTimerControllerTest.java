@@ -0,0 +1,156 @@
+package com.sparkadhd;
+
+import static com.sparkadhd.OverlayTestSupport.runFor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.sparkadhd.core.FocusTimer;
+import com.sparkadhd.core.OverlayStateRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link FocusTimerController} on the main looper's clock: minute-boundary ticks instead of
+ * per-second ones, pause and resume, and restoring a timer from the state record.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FocusTimerControllerTest {
+  private static final long WALL_CLOCK_OFFSET_MS = 1_800_000_000_000L;
+  private static final long MINUTE_MS = FocusTimer.MINUTE_MS;
+
+  private final LongSupplier clock = () -> WALL_CLOCK_OFFSET_MS + SystemClock.uptimeMillis();
+  private final List<Integer> renderedMinutes = new ArrayList<>();
+  private final FocusTimerController.TimerRenderer renderer = (minutes, paused) -> {
+    int last = renderedMinutes.isEmpty() ? Integer.MIN_VALUE : renderedMinutes.get(renderedMinutes.size() - 1);
+    if (last != minutes) {
+      renderedMinutes.add(minutes);
+    }
+  };
+  private Context context;
+  private OverlayStateStore stateStore;
+  private FocusTimerController controller;
+
+  @Before
+  public void setUp() {
+    context = ApplicationProvider.getApplicationContext();
+    stateStore = OverlayStateStore.getInstance(context);
+    controller = new FocusTimerController(context, stateStore, clock);
+    controller.cancel();
+    runFor(Duration.ofMillis(1));
+  }
+
+  @After
+  public void tearDown() {
+    controller.unbind(renderer);
+    controller.cancel();
+  }
+
+  @Test
+  public void countsDownAWholeSessionInMinuteTicks() {
+    controller.bind(renderer);
+    renderedMinutes.clear();
+
+    controller.start("focus", 25 * MINUTE_MS);
+    runFor(Duration.ofMinutes(25).plusSeconds(1));
+
+    assertEquals(FocusTimer.STATE_FINISHED, controller.state());
+    List<Integer> expected = new ArrayList<>();
+    for (int minutes = 25; minutes >= 1; minutes--) {
+      expected.add(minutes);
+    }
+    expected.add(-1);
+    assertEquals(expected, renderedMinutes);
+    assertTrue(
+      "25 minutes took " + controller.stats().get("ticks") + " ticks",
+      controller.stats().get("ticks") <= 25.0
+    );
+  }
+
+  @Test
+  public void pausedTimersKeepTheirTimeAndDoNotTick() {
+    controller.bind(renderer);
+    controller.start("ignite", 10 * MINUTE_MS);
+    runFor(Duration.ofMinutes(3));
+    assertTrue(controller.pause());
+    double ticksWhenPaused = controller.stats().get("ticks");
+
+    runFor(Duration.ofMinutes(30));
+
+    assertEquals(FocusTimer.STATE_PAUSED, controller.state());
+    assertEquals(ticksWhenPaused, controller.stats().get("ticks"), 0.0);
+    assertEquals(7.0 * MINUTE_MS, controller.toBundle().getDouble("remainingMs"), 0.0);
+
+    assertTrue(controller.resume());
+    runFor(Duration.ofMinutes(7));
+    assertEquals(FocusTimer.STATE_FINISHED, controller.state());
+  }
+
+  @Test
+  public void restoresARunningTimerAndFinishesOneThatEndedWhileGone() {
+    controller.start("break", 5 * MINUTE_MS);
+    runFor(Duration.ofMinutes(2));
+
+    FocusTimerController restarted = new FocusTimerController(context, stateStore, clock);
+    assertEquals(FocusTimer.STATE_RUNNING, restarted.state());
+    assertEquals("break", restarted.toBundle().getString("kind"));
+    assertEquals(3.0 * MINUTE_MS, restarted.toBundle().getDouble("remainingMs"), 0.0);
+
+    runFor(Duration.ofMinutes(4));
+    FocusTimerController afterEnd = new FocusTimerController(context, stateStore, clock);
+    assertEquals(FocusTimer.STATE_FINISHED, afterEnd.state());
+  }
+
+  @Test
+  public void aReadThatFindsTheTimerDueFinishesAndPersistsIt() {
+    controller.start("focus", MINUTE_MS);
+    double transitionsBefore = controller.stats().get("transitions");
+    runFor(Duration.ofMinutes(2));
+
+    assertEquals("finished", controller.toBundle().getString("state"));
+
+    FocusTimer stored = new FocusTimer();
+    stateStore.readFocusTimer(stored);
+    assertEquals(FocusTimer.STATE_FINISHED, stored.state());
+    assertEquals(transitionsBefore + 1, controller.stats().get("transitions"), 0.0);
+  }
+
+  @Test
+  public void keepsTheTimerInTheReservedRecordBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(OverlayStateRecord.FILE_SIZE);
+    OverlayStateRecord record = new OverlayStateRecord();
+    record.count = 4;
+    record.commit(buffer);
+    OverlayStateRecord older = new OverlayStateRecord();
+    older.load(buffer);
+    assertEquals(FocusTimer.STATE_IDLE, older.timerState);
+
+    record.timerState = FocusTimer.STATE_PAUSED;
+    record.timerKind = 2;
+    record.timerDurationMs = 5 * MINUTE_MS;
+    record.timerPausedRemainingMs = 90_000L;
+    record.commit(buffer);
+    OverlayStateRecord loaded = new OverlayStateRecord();
+    assertTrue(loaded.load(buffer));
+
+    assertEquals(
+      Arrays.asList(4, FocusTimer.STATE_PAUSED, 2, 5 * MINUTE_MS, 90_000L),
+      Arrays.asList(loaded.count, loaded.timerState, loaded.timerKind, loaded.timerDurationMs, loaded.timerPausedRemainingMs)
+    );
+  }
+}
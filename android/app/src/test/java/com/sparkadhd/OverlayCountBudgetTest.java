@@ -0,0 +1,142 @@
+package com.sparkadhd;
+
+import static com.sparkadhd.OverlayTestSupport.allocatedBytes;
+import static com.sparkadhd.OverlayTestSupport.canMeasureAllocations;
+import static com.sparkadhd.OverlayTestSupport.runFrames;
+import static com.sparkadhd.OverlayTestSupport.windowCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+
+/**
+ * Budgets for bursts of bubble count updates, i.e. what OverlayModule.updateCount feeds into
+ * {@link OverlayCountPipeline}: allocation per update, one render per frame, one state write
+ * per burst and no window relayouts.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OverlayCountBudgetTest {
+  private static final int BURST_SIZE = 500;
+  private static final int BURSTS = 5;
+  private static final long MAX_BYTES_PER_COUNT_UPDATE = 16L;
+  private static final long WRITER_TIMEOUT_MS = 2000L;
+
+  private ServiceController<OverlayService> controller;
+  private OverlayCountPipeline pipeline;
+  private OverlayStateStore stateStore;
+  private OverlayBubbleView bubble;
+  private SharedPreferences legacyPreferences;
+  private int legacyPreferenceWrites;
+  private final SharedPreferences.OnSharedPreferenceChangeListener legacyListener =
+    (preferences, key) -> legacyPreferenceWrites++;
+  private int nextCount;
+
+  @Before
+  public void setUp() throws InterruptedException {
+    OverlayPerformanceStats.getInstance().reset();
+    controller = Robolectric.buildService(OverlayService.class).create();
+    OverlayService service = controller.get();
+    runFrames(2);
+    pipeline = OverlayCountPipeline.getInstance(service);
+    stateStore = OverlayStateStore.getInstance(service);
+    bubble = OverlayTestSupport.findBubble(service);
+    legacyPreferences = service.getSharedPreferences("spark_overlay_prefs", Context.MODE_PRIVATE);
+    legacyPreferences.registerOnSharedPreferenceChangeListener(legacyListener);
+    flushWriter();
+    // Singletons outlive a test, so start well clear of whatever the last one left behind.
+    nextCount = pipeline.currentCount() + 1000;
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    legacyPreferences.unregisterOnSharedPreferenceChangeListener(legacyListener);
+    controller.destroy();
+    pipeline.awaitWriterIdle(WRITER_TIMEOUT_MS);
+  }
+
+  @Test
+  public void countBurstsStayWithinAllocationBudget() throws InterruptedException {
+    assumeTrue(canMeasureAllocations());
+
+    burst();
+    runFrames(1);
+    flushWriter();
+
+    long allocated = 0L;
+    for (int round = 0; round < BURSTS; round++) {
+      long start = allocatedBytes();
+      burst();
+      allocated += allocatedBytes() - start;
+      runFrames(1);
+    }
+
+    long bytesPerUpdate = allocated / (BURSTS * BURST_SIZE);
+    assertTrue(
+      "Count updates allocate " + bytesPerUpdate + " bytes each",
+      bytesPerUpdate <= MAX_BYTES_PER_COUNT_UPDATE
+    );
+  }
+
+  @Test
+  public void eachBurstRendersLatestAndWritesOnce() throws InterruptedException {
+    long updatesBefore = windowCalls("updateViewLayout");
+
+    for (int round = 0; round < BURSTS; round++) {
+      long writesBefore = stateStore.getWriteCount();
+      burst();
+      runFrames(1);
+      assertEquals(nextCount - 1, bubble.getCount());
+
+      flushWriter();
+      assertEquals(writesBefore + 1, stateStore.getWriteCount());
+      assertEquals(nextCount - 1, stateStore.getCount());
+    }
+
+    assertEquals(updatesBefore, windowCalls("updateViewLayout"));
+    assertEquals(0, legacyPreferenceWrites);
+  }
+
+  @Test
+  public void unchangedCountIsDroppedBeforeSchedulingWork() throws InterruptedException {
+    int count = nextCount++;
+    pipeline.submit(count);
+    runFrames(1);
+    flushWriter();
+    long writesBefore = stateStore.getWriteCount();
+
+    long start = allocatedBytes();
+    for (int index = 0; index < BURST_SIZE; index++) {
+      pipeline.submit(count);
+    }
+    long allocated = allocatedBytes() - start;
+    runFrames(2);
+    flushWriter();
+
+    if (canMeasureAllocations()) {
+      assertTrue("Repeated counts allocated " + allocated + " bytes", allocated < BURST_SIZE);
+    }
+    assertEquals(writesBefore, stateStore.getWriteCount());
+    assertEquals(count, bubble.getCount());
+  }
+
+  private void burst() {
+    for (int index = 0; index < BURST_SIZE; index++) {
+      pipeline.submit(nextCount++);
+    }
+  }
+
+  private void flushWriter() throws InterruptedException {
+    pipeline.flush();
+    assertTrue("Writer thread did not drain", pipeline.awaitWriterIdle(WRITER_TIMEOUT_MS));
+  }
+}
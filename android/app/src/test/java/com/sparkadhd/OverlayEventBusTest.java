@@ -0,0 +1,75 @@
+package com.sparkadhd;
+
+import static com.sparkadhd.OverlayTestSupport.runFrames;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Map;
+
+/**
+ * {@link OverlayEventBus} without a React context: unsubscribed types cost nothing, and any
+ * number of events posted within a frame leave as a single batch.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OverlayEventBusTest {
+  private static final int BURST_SIZE = 200;
+
+  private final OverlayEventBus bus = OverlayEventBus.getInstance();
+  private Map<String, Double> before;
+
+  @Before
+  public void setUp() {
+    runFrames(1);
+    before = bus.stats();
+  }
+
+  @After
+  public void tearDown() {
+    bus.setSubscribedTypes(new int[0]);
+    runFrames(1);
+  }
+
+  @Test
+  public void dropsEventsNobodyListensFor() {
+    bus.setSubscribedTypes(new int[] {OverlayEventBus.TYPE_ROUTE_QUEUED});
+
+    assertFalse(bus.wants(OverlayEventBus.TYPE_PERMISSION_RESULT));
+    for (int index = 0; index < BURST_SIZE; index++) {
+      bus.post(OverlayEventBus.TYPE_PERMISSION_RESULT, null);
+    }
+    runFrames(1);
+
+    assertEquals(BURST_SIZE, delta("filtered"), 0.0);
+    assertEquals(0.0, delta("posted"), 0.0);
+    assertEquals(0.0, delta("batches"), 0.0);
+  }
+
+  @Test
+  public void sendsOneBatchPerFrameHoweverManyEventsArePosted() {
+    bus.setSubscribedTypes(new int[] {OverlayEventBus.TYPE_OVERLAY_STARTED, OverlayEventBus.TYPE_ROUTE_QUEUED});
+
+    for (int frame = 0; frame < 3; frame++) {
+      for (int index = 0; index < BURST_SIZE; index++) {
+        bus.post(index % 2 == 0 ? OverlayEventBus.TYPE_OVERLAY_STARTED : OverlayEventBus.TYPE_ROUTE_QUEUED, null);
+      }
+      runFrames(1);
+    }
+    runFrames(2);
+
+    assertTrue(bus.wants(OverlayEventBus.TYPE_ROUTE_QUEUED));
+    assertEquals(3 * BURST_SIZE, delta("posted"), 0.0);
+    assertEquals(3.0, delta("batches"), 0.0);
+    assertTrue(bus.stats().get("largestBatch") >= BURST_SIZE);
+  }
+
+  private double delta(String key) {
+    return bus.stats().get(key) - before.get(key);
+  }
+}
@@ -0,0 +1,134 @@
+package com.sparkadhd;
+
+import static com.sparkadhd.OverlayTestSupport.attachedWindows;
+import static com.sparkadhd.OverlayTestSupport.FRAME;
+import static com.sparkadhd.OverlayTestSupport.event;
+import static com.sparkadhd.OverlayTestSupport.runFrames;
+import static com.sparkadhd.OverlayTestSupport.sectionCount;
+import static com.sparkadhd.OverlayTestSupport.windowCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Notification;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+
+/**
+ * Budgets for overlay cold start: onCreate adds one window holding the bubble and builds no
+ * other views, and the foreground notification is built once. A change that moves menu or
+ * capture panel setup back in front of the bubble fails here. Time to bubble is gated in frames
+ * on Robolectric's clock rather than in CPU time, which varied from run to run.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OverlayStartupBudgetTest {
+  private static final int MEASURED_STARTS = 7;
+
+  private ServiceController<OverlayService> controller;
+
+  @Before
+  public void setUp() {
+    OverlayPerformanceStats.getInstance().reset();
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (controller != null) {
+      OverlayService service = controller.get();
+      controller.destroy();
+      OverlayCountPipeline.getInstance(service).awaitWriterIdle(2000L);
+    }
+  }
+
+  @Test
+  public void attachesOnlyTheBubbleBeforeTheFirstFrame() {
+    controller = Robolectric.buildService(OverlayService.class).create();
+    OverlayService service = controller.get();
+
+    assertNotNull(OverlayTestSupport.findBubble(service));
+    assertEquals(1, attachedWindows(service).size());
+    assertEquals(1, ((ViewGroup) attachedWindows(service).get(0)).getChildCount());
+    assertEquals(1L, windowCalls("addView"));
+    assertEquals(0L, windowCalls("updateViewLayout"));
+    assertFalse(service.hasBuiltDeferredViews());
+    assertFalse(service.isStartupFinished());
+    assertEquals(0L, sectionCount("timeToBubble"));
+
+    runFrames(2);
+
+    assertTrue(service.isStartupFinished());
+    assertTrue(service.hasBuiltDeferredViews());
+    assertEquals(1L, sectionCount("timeToBubble"));
+    assertEquals(1L, sectionCount("startForeground"));
+    assertEquals(1L, sectionCount("deferredStartup"));
+    assertEquals(1L, windowCalls("addView"));
+  }
+
+  @Test
+  public void firstTouchFinishesStartupEarly() {
+    controller = Robolectric.buildService(OverlayService.class).create();
+    OverlayService service = controller.get();
+    OverlayBubbleView bubble = OverlayTestSupport.findBubble(service);
+
+    long downTime = SystemClock.uptimeMillis();
+    MotionEvent down = event(downTime, downTime, MotionEvent.ACTION_DOWN, 40f, 160f);
+    bubble.dispatchTouchEvent(down);
+    down.recycle();
+
+    assertTrue(service.isStartupFinished());
+    MotionEvent cancel = event(downTime, downTime, MotionEvent.ACTION_CANCEL, 40f, 160f);
+    bubble.dispatchTouchEvent(cancel);
+    cancel.recycle();
+  }
+
+  @Test
+  public void postsTheSameForegroundNotificationOnEveryStart() {
+    controller = Robolectric.buildService(OverlayService.class).create();
+    Notification first = shadowOf(controller.get()).getLastForegroundNotification();
+    controller.destroy();
+
+    controller = Robolectric.buildService(OverlayService.class).create();
+    Notification second = shadowOf(controller.get()).getLastForegroundNotification();
+
+    assertNotNull(first);
+    assertSame(first, second);
+  }
+
+  @Test
+  public void bubbleAppearsWithinTheFirstFrame() {
+    // The first start pays for class loading and opening the state store.
+    Robolectric.buildService(OverlayService.class).create().destroy();
+    runFrames(2);
+    OverlayPerformanceStats.getInstance().reset();
+
+    for (int start = 0; start < MEASURED_STARTS; start++) {
+      ServiceController<OverlayService> measured = Robolectric.buildService(OverlayService.class).create();
+      runFrames(1);
+      assertEquals(start + 1L, sectionCount("timeToBubble"));
+      runFrames(1);
+      measured.destroy();
+    }
+
+    // Robolectric's clock only moves with the looper, so this counts frames, not device time:
+    // a bubble that waits on a later frame or a posted task fails here.
+    Bundle timeToBubble = OverlayPerformanceStats.getInstance().toBundle()
+      .getBundle("latency").getBundle("timeToBubble");
+    assertTrue(
+      "Time to bubble reached " + timeToBubble.getDouble("maxMs") + "ms",
+      timeToBubble.getDouble("maxMs") <= FRAME.toMillis()
+    );
+  }
+}
@@ -0,0 +1,86 @@
+package com.sparkadhd;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Bundle;
+import android.os.Looper;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowWindowManagerImpl;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Helpers for the overlay budget tests: allocation counters for the calling thread, window
+ * call counts taken from {@link OverlayPerformanceStats}, and frame pumping.
+ */
+final class OverlayTestSupport {
+  static final Duration FRAME = Duration.ofMillis(16);
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private OverlayTestSupport() {
+  }
+
+  static boolean canMeasureAllocations() {
+    return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+  }
+
+  /**
+   * Bytes allocated so far by the calling thread.
+   */
+  static long allocatedBytes() {
+    return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  static void runFrames(int frames) {
+    for (int frame = 0; frame < frames; frame++) {
+      shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+    }
+  }
+
+  static void runFor(Duration duration) {
+    shadowOf(Looper.getMainLooper()).idleFor(duration);
+  }
+
+  /**
+   * Number of timed WindowManager calls, e.g. "addView" or "updateViewLayout".
+   */
+  static long windowCalls(String metricName) {
+    return sectionCount(metricName);
+  }
+
+  /**
+   * Number of samples in an {@link OverlayPerformanceStats} latency histogram.
+   */
+  static long sectionCount(String metricName) {
+    Bundle latency = OverlayPerformanceStats.getInstance().toBundle().getBundle("latency");
+    return (long) latency.getBundle(metricName).getDouble("count");
+  }
+
+  static List<View> attachedWindows(OverlayService service) {
+    WindowManager windowManager = (WindowManager) service.getSystemService(OverlayService.WINDOW_SERVICE);
+    ShadowWindowManagerImpl shadow = Shadow.extract(windowManager);
+    return shadow.getViews();
+  }
+
+  static OverlayBubbleView findBubble(OverlayService service) {
+    for (View window : attachedWindows(service)) {
+      if (window instanceof ViewGroup && ((ViewGroup) window).getChildAt(0) instanceof OverlayBubbleView) {
+        return (OverlayBubbleView) ((ViewGroup) window).getChildAt(0);
+      }
+    }
+    throw new AssertionError("Bubble window is not attached");
+  }
+
+  static MotionEvent event(long downTime, long eventTime, int action, float x, float y) {
+    return MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+  }
+}
@@ -0,0 +1,267 @@
+package com.sparkadhd;
+
+import static com.sparkadhd.OverlayTestSupport.allocatedBytes;
+import static com.sparkadhd.OverlayTestSupport.attachedWindows;
+import static com.sparkadhd.OverlayTestSupport.canMeasureAllocations;
+import static com.sparkadhd.OverlayTestSupport.event;
+import static com.sparkadhd.OverlayTestSupport.runFor;
+import static com.sparkadhd.OverlayTestSupport.runFrames;
+import static com.sparkadhd.OverlayTestSupport.windowCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+
+import java.time.Duration;
+
+/**
+ * Budgets for the bubble touch path: allocation per move event, WindowManager calls per frame
+ * and per settle, and state writes per gesture. A change that allocates per event, lays out the
+ * window more often than once a frame, or more than at the start and end of a settle fails here.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OverlayTouchBudgetTest {
+  private static final float START_X = 40f;
+  private static final float START_Y = 160f;
+  private static final float STEP_PX = 3f;
+  private static final float FLIGHT_PX = 100f;
+  private static final int MOVES_PER_FRAME = 4;
+  private static final int WARMUP_FRAMES = 30;
+  private static final int MEASURED_FRAMES = 120;
+  // On top of what Robolectric itself spends reading an event; see EventReadingListener.
+  private static final long MAX_EXTRA_BYTES_PER_MOVE = 64L;
+  private static final int EXPAND_COLLAPSE_CYCLES = 8;
+  private static final Duration MENU_ANIMATION = Duration.ofMillis(300);
+  private static final Duration SETTLE_TIMEOUT = Duration.ofSeconds(2);
+
+  private ServiceController<OverlayService> controller;
+  private OverlayService service;
+  private OverlayStateStore stateStore;
+  private OverlayBubbleView bubble;
+  private SharedPreferences legacyPreferences;
+  private int legacyPreferenceWrites;
+  private final SharedPreferences.OnSharedPreferenceChangeListener legacyListener =
+    (preferences, key) -> legacyPreferenceWrites++;
+  private int moveIndex;
+
+  @Before
+  public void setUp() {
+    OverlayPerformanceStats.getInstance().reset();
+    controller = Robolectric.buildService(OverlayService.class).create();
+    service = controller.get();
+    runFrames(2);
+    stateStore = OverlayStateStore.getInstance(service);
+    stateStore.setScrimDismissEnabled(false);
+    bubble = OverlayTestSupport.findBubble(service);
+    legacyPreferences = service.getSharedPreferences("spark_overlay_prefs", Context.MODE_PRIVATE);
+    legacyPreferences.registerOnSharedPreferenceChangeListener(legacyListener);
+    moveIndex = 0;
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    legacyPreferences.unregisterOnSharedPreferenceChangeListener(legacyListener);
+    controller.destroy();
+    OverlayCountPipeline.getInstance(service).awaitWriterIdle(2000L);
+  }
+
+  @Test
+  public void dragMovesStayWithinAllocationBudget() {
+    assumeTrue(canMeasureAllocations());
+
+    long downTime = SystemClock.uptimeMillis();
+    dispatch(bubble, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    drag(bubble, downTime, WARMUP_FRAMES);
+    long bubbleBytes = drag(bubble, downTime, MEASURED_FRAMES);
+    dispatch(bubble, MotionEvent.ACTION_UP, downTime, lastX(), START_Y);
+    runFor(SETTLE_TIMEOUT);
+
+    View baseline = new View(service);
+    baseline.setOnTouchListener(new EventReadingListener());
+    moveIndex = 0;
+    downTime = SystemClock.uptimeMillis();
+    dispatch(baseline, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    drag(baseline, downTime, WARMUP_FRAMES);
+    long baselineBytes = drag(baseline, downTime, MEASURED_FRAMES);
+
+    long extraBytesPerMove = (bubbleBytes - baselineBytes) / (MEASURED_FRAMES * MOVES_PER_FRAME);
+    assertTrue(
+      "Bubble drag allocates " + extraBytesPerMove + " extra bytes per move event",
+      extraBytesPerMove <= MAX_EXTRA_BYTES_PER_MOVE
+    );
+  }
+
+  @Test
+  public void dragLaysOutWindowAtMostOncePerFrame() {
+    long downTime = SystemClock.uptimeMillis();
+    dispatch(bubble, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    drag(bubble, downTime, WARMUP_FRAMES);
+
+    long addsBefore = windowCalls("addView");
+    long updatesBefore = windowCalls("updateViewLayout");
+    drag(bubble, downTime, MEASURED_FRAMES);
+    long updates = windowCalls("updateViewLayout") - updatesBefore;
+
+    assertTrue("Drag never moved the window", updates > 0);
+    assertTrue(
+      updates + " window layouts for " + MEASURED_FRAMES + " frames of " + MOVES_PER_FRAME + " moves",
+      updates <= MEASURED_FRAMES
+    );
+    assertEquals(addsBefore, windowCalls("addView"));
+  }
+
+  @Test
+  public void settleLaysOutWindowAtStartAndRest() {
+    long downTime = SystemClock.uptimeMillis();
+    dispatch(bubble, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    drag(bubble, downTime, 10);
+
+    long updatesBefore = windowCalls("updateViewLayout");
+    long writesBefore = stateStore.getWriteCount();
+    dispatch(bubble, MotionEvent.ACTION_UP, downTime, lastX(), START_Y);
+    runFor(SETTLE_TIMEOUT);
+
+    assertFalse(service.isSettling());
+    assertEquals(2L, windowCalls("updateViewLayout") - updatesBefore);
+    assertEquals(1L, stateStore.getWriteCount() - writesBefore);
+    assertEquals(0f, bubble.getTranslationX(), 0f);
+    assertEquals(0f, bubble.getTranslationY(), 0f);
+    assertEquals(0, legacyPreferenceWrites);
+  }
+
+  @Test
+  public void theSettlingWindowLetsTouchesThrough() {
+    long downTime = SystemClock.uptimeMillis();
+    dispatch(bubble, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    dispatch(bubble, MotionEvent.ACTION_MOVE, downTime, START_X + FLIGHT_PX, START_Y);
+    runFrames(1);
+    dispatch(bubble, MotionEvent.ACTION_UP, downTime, START_X + FLIGHT_PX, START_Y);
+    runFrames(3);
+
+    // The window covers the flight path, so taps there have to reach the app underneath.
+    assertTrue(service.isSettling());
+    assertFalse(service.isBubbleTouchable());
+
+    runFor(SETTLE_TIMEOUT);
+
+    assertFalse(service.isSettling());
+    assertTrue(service.isBubbleTouchable());
+  }
+
+  @Test
+  public void expandCollapseCyclesDoNotLeakWindowsOrWrites() {
+    int windowsBefore = attachedWindows(service).size();
+    long addsBefore = windowCalls("addView");
+    long updatesBefore = windowCalls("updateViewLayout");
+    long writesBefore = stateStore.getWriteCount();
+
+    for (int cycle = 0; cycle < EXPAND_COLLAPSE_CYCLES; cycle++) {
+      tap();
+      runFor(MENU_ANIMATION);
+      assertTrue(service.isExpanded());
+      assertEquals(windowsBefore + 1, attachedWindows(service).size());
+
+      tap();
+      runFor(MENU_ANIMATION);
+      assertFalse(service.isExpanded());
+      assertEquals(windowsBefore, attachedWindows(service).size());
+    }
+
+    // One menu window per expand, no relayouts, and one state write per transition.
+    assertEquals(EXPAND_COLLAPSE_CYCLES, windowCalls("addView") - addsBefore);
+    assertEquals(updatesBefore, windowCalls("updateViewLayout"));
+    assertEquals(2L * EXPAND_COLLAPSE_CYCLES, stateStore.getWriteCount() - writesBefore);
+    assertEquals(0, legacyPreferenceWrites);
+  }
+
+  /**
+   * Sends {@code frames} batches of move events, running one frame after each batch. Returns
+   * the bytes allocated by the dispatch calls alone.
+   */
+  private long drag(View target, long downTime, int frames) {
+    MotionEvent[] batch = new MotionEvent[MOVES_PER_FRAME];
+    long allocated = 0L;
+    for (int frame = 0; frame < frames; frame++) {
+      long now = SystemClock.uptimeMillis();
+      for (int move = 0; move < MOVES_PER_FRAME; move++) {
+        moveIndex++;
+        batch[move] = event(downTime, now - (MOVES_PER_FRAME - 1 - move) * 4L, MotionEvent.ACTION_MOVE, lastX(), START_Y);
+      }
+
+      long start = allocatedBytes();
+      for (MotionEvent move : batch) {
+        target.dispatchTouchEvent(move);
+      }
+      allocated += allocatedBytes() - start;
+
+      for (MotionEvent move : batch) {
+        move.recycle();
+      }
+      runFrames(1);
+    }
+    return allocated;
+  }
+
+  /**
+   * Back and forth over 60px so the bubble keeps moving without hitting the screen edge.
+   */
+  private float lastX() {
+    int phase = moveIndex % 40;
+    return START_X + (phase < 20 ? phase : 40 - phase) * STEP_PX;
+  }
+
+  private void tap() {
+    long downTime = SystemClock.uptimeMillis();
+    dispatch(bubble, MotionEvent.ACTION_DOWN, downTime, START_X, START_Y);
+    dispatch(bubble, MotionEvent.ACTION_UP, downTime, START_X, START_Y);
+  }
+
+  private static void dispatch(View target, int action, long downTime, float x, float y) {
+    MotionEvent motionEvent = event(downTime, SystemClock.uptimeMillis(), action, x, y);
+    target.dispatchTouchEvent(motionEvent);
+    motionEvent.recycle();
+  }
+
+  /**
+   * Reads every event the way the bubble listener does and nothing more, to measure what the
+   * Robolectric MotionEvent and VelocityTracker shadows allocate on their own.
+   */
+  private static final class EventReadingListener implements View.OnTouchListener {
+    private final VelocityTracker velocityTracker = VelocityTracker.obtain();
+    private float sink;
+
+    @Override
+    public boolean onTouch(View view, MotionEvent event) {
+      float offsetX = event.getRawX() - event.getX();
+      float offsetY = event.getRawY() - event.getY();
+      int historySize = event.getHistorySize();
+      for (int index = 0; index < historySize; index++) {
+        sink += event.getHistoricalX(index) + offsetX + event.getHistoricalY(index) + offsetY;
+        sink += event.getHistoricalEventTime(index);
+      }
+      sink += event.getRawX() + event.getRawY() + event.getEventTime();
+
+      offsetX = event.getRawX() - event.getX();
+      offsetY = event.getRawY() - event.getY();
+      event.offsetLocation(offsetX, offsetY);
+      velocityTracker.addMovement(event);
+      event.offsetLocation(-offsetX, -offsetY);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,318 @@
+package com.sparkadhd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link RequestOutbox} against an in-process stand-in for the middleware: delivery,
+ * retrying transient failures, giving up on permanent ones, waiting out an offline spell
+ * with identical requests coalesced, keeping results nobody took, and transcriptions that
+ * complete a brain dump record.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RequestOutboxTest {
+  private static final long TIMEOUT_S = 20L;
+
+  private final MockMiddleware server = new MockMiddleware();
+  private final BlockingQueue<RequestOutbox.Completion> completions = new LinkedBlockingQueue<>();
+  private final RequestOutbox.Listener listener = completions::add;
+  private final TestConnectivity connectivity = new TestConnectivity();
+  private Context context;
+  private RequestOutbox outbox;
+  private String lastState;
+
+  @Before
+  public void setUp() throws Exception {
+    context = ApplicationProvider.getApplicationContext();
+    server.start();
+    outbox = RequestOutbox.getInstance(context);
+    outbox.setConnectivity(connectivity);
+    CountDownLatch cleared = new CountDownLatch(1);
+    outbox.clear(cleared::countDown);
+    assertTrue(cleared.await(TIMEOUT_S, TimeUnit.SECONDS));
+    outbox.addListener(listener);
+    RecordLogStore.open(context, "brainDump").clear();
+  }
+
+  @After
+  public void tearDown() {
+    outbox.removeListener(listener);
+    server.stop();
+  }
+
+  @Test
+  public void deliversTheResponseOfAQueuedRequest() throws Exception {
+    String id = enqueue(sortRequest("[\"buy milk\"]"));
+
+    RequestOutbox.Completion completion = nextCompletion();
+
+    assertEquals(id, completion.id);
+    assertEquals("sort", completion.kind);
+    assertTrue(completion.ok);
+    assertEquals(200, completion.status);
+    assertEquals("{\"sorted\":[]}", completion.body);
+    assertEquals("{\"items\":[\"buy milk\"]}", server.lastBody);
+    assertEquals(0, RecordLogStore.open(context, "outbox").size());
+  }
+
+  @Test
+  public void retriesTransientFailuresWithBackoff() throws Exception {
+    server.failures.set(2);
+
+    enqueue(sortRequest("[\"a\"]"));
+    RequestOutbox.Completion completion = nextCompletion();
+
+    assertTrue(completion.ok);
+    assertEquals(3, server.requests.get());
+    assertEquals(2.0, stats().get("retried"), 0.0);
+  }
+
+  @Test
+  public void doesNotRetryRequestsTheServerRejects() throws Exception {
+    server.rejectStatus = 400;
+
+    enqueue(sortRequest("[\"a\"]"));
+    RequestOutbox.Completion completion = nextCompletion();
+
+    assertFalse(completion.ok);
+    assertEquals(400, completion.status);
+    assertEquals(1, server.requests.get());
+  }
+
+  @Test
+  public void waitsOutAnOfflineSpellAndSendsIdenticalRequestsOnce() throws Exception {
+    connectivity.online = false;
+
+    String first = enqueue(sortRequest("[\"same\"]"));
+    String second = enqueue(sortRequest("[\"same\"]"));
+    String other = enqueue(sortRequest("[\"other\"]"));
+
+    assertEquals(RequestOutbox.STATE_OFFLINE, lastState);
+    assertEquals(first, second);
+    assertFalse(first.equals(other));
+    assertEquals(0, server.requests.get());
+    assertEquals(2, RecordLogStore.open(context, "outbox").size());
+    assertTrue(stats().get("offlineWaits") >= 1.0);
+
+    connectivity.comeOnline();
+    assertEquals(first, nextCompletion().id);
+    assertEquals(other, nextCompletion().id);
+    assertEquals(2, server.requests.get());
+    assertEquals(1.0, stats().get("coalesced"), 0.0);
+    assertFalse(connectivity.watching);
+  }
+
+  @Test
+  public void keepsACompletionNobodyTookUntilItIsFlushed() throws Exception {
+    outbox.removeListener(listener);
+    BlockingQueue<RequestOutbox.Completion> refused = new LinkedBlockingQueue<>();
+    RequestOutbox.Listener absent = (completion) -> {
+      refused.add(completion);
+      return false;
+    };
+    outbox.addListener(absent);
+
+    String id = enqueue(sortRequest("[\"later\"]"));
+    assertEquals(RequestOutbox.STATE_SENDING, lastState);
+    assertNotNull(refused.poll(TIMEOUT_S, TimeUnit.SECONDS));
+    outbox.removeListener(absent);
+    assertEquals(1, RecordLogStore.open(context, "outboxUndelivered").size());
+
+    outbox.addListener(listener);
+    outbox.flushUndelivered();
+
+    assertEquals(id, nextCompletion().id);
+    stats();
+    assertEquals(0, RecordLogStore.open(context, "outboxUndelivered").size());
+  }
+
+  @Test
+  public void transcriptionUploadsTheFileAndCompletesItsBrainDumpRecord() throws Exception {
+    File audio = Files.createTempFile("recording", ".wav").toFile();
+    Files.write(audio.toPath(), "RIFF-audio-bytes".getBytes(StandardCharsets.UTF_8));
+    RequestOutbox.Request request = new RequestOutbox.Request();
+    request.kind = "transcribe";
+    request.url = server.baseUrl() + "/api/transcribe";
+    request.filePath = "file://" + audio.getPath();
+    request.fileField = "audio";
+    request.fileName = "recording.wav";
+    request.fileType = "audio/wav";
+    request.brainDumpRecord = "{\"id\":\"rec-1\",\"createdAt\":\"2026-10-17T09:00:00.000Z\","
+      + "\"source\":\"audio\",\"audioPath\":\"file://" + audio.getPath() + "\"}";
+
+    enqueue(request);
+    RequestOutbox.Completion completion = nextCompletion();
+
+    assertTrue(completion.ok);
+    assertNotNull(completion.record);
+    assertEquals("hello world", new JSONObject(completion.record).getString("text"));
+    assertTrue(server.lastBody.contains("name=\"audio\"; filename=\"recording.wav\""));
+    assertTrue(server.lastBody.contains("RIFF-audio-bytes"));
+    RecordLogStore brainDump = RecordLogStore.open(context, "brainDump");
+    assertEquals(1, brainDump.size());
+    assertEquals("rec-1", new JSONObject(brainDump.page(null, 1, true).payloads.get(0)).getString("id"));
+    audio.delete();
+  }
+
+  private RequestOutbox.Request sortRequest(String items) {
+    RequestOutbox.Request request = new RequestOutbox.Request();
+    request.kind = "sort";
+    request.url = server.baseUrl() + "/api/sort";
+    request.headers.put("Content-Type", "application/json");
+    request.body = "{\"items\":" + items + "}";
+    request.dedupe = true;
+    return request;
+  }
+
+  private String enqueue(RequestOutbox.Request request) throws Exception {
+    AtomicReference<String> id = new AtomicReference<>();
+    AtomicReference<IOException> error = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    outbox.enqueue(request, (enqueuedId, state, enqueueError) -> {
+      id.set(enqueuedId);
+      lastState = state;
+      error.set(enqueueError);
+      done.countDown();
+    });
+    assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+    if (error.get() != null) {
+      throw error.get();
+    }
+    return id.get();
+  }
+
+  private RequestOutbox.Completion nextCompletion() throws InterruptedException {
+    RequestOutbox.Completion completion = completions.poll(TIMEOUT_S, TimeUnit.SECONDS);
+    assertNotNull("No completion delivered", completion);
+    return completion;
+  }
+
+  private Map<String, Double> stats() throws InterruptedException {
+    AtomicReference<Map<String, Double>> stats = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    outbox.stats((values) -> {
+      stats.set(values);
+      done.countDown();
+    });
+    assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+    return stats.get();
+  }
+
+  private static final class TestConnectivity implements RequestOutbox.Connectivity {
+    volatile boolean online = true;
+    volatile boolean watching;
+    private volatile Runnable onAvailable;
+
+    @Override
+    public boolean isOnline() {
+      return online;
+    }
+
+    @Override
+    public void watch(Runnable callback) {
+      onAvailable = callback;
+      watching = true;
+    }
+
+    @Override
+    public void unwatch() {
+      onAvailable = null;
+      watching = false;
+    }
+
+    void comeOnline() {
+      online = true;
+      Runnable callback = onAvailable;
+      if (callback != null) {
+        callback.run();
+      }
+    }
+  }
+
+  private static final class MockMiddleware {
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger failures = new AtomicInteger();
+    volatile int rejectStatus;
+    volatile String lastBody;
+    private HttpServer http;
+
+    void start() throws IOException {
+      http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      http.createContext("/api/", this::handle);
+      http.start();
+    }
+
+    void stop() {
+      http.stop(0);
+    }
+
+    String baseUrl() {
+      return "http://127.0.0.1:" + http.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      requests.incrementAndGet();
+      lastBody = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+      if (failures.getAndUpdate((left) -> Math.max(0, left - 1)) > 0) {
+        respond(exchange, 503, "{\"error\":\"busy\"}");
+      } else if (rejectStatus != 0) {
+        respond(exchange, rejectStatus, "{\"error\":\"bad request\"}");
+      } else if ("/api/sort".equals(exchange.getRequestURI().getPath())) {
+        respond(exchange, 200, "{\"sorted\":[]}");
+      } else {
+        respond(exchange, 200, "{\"transcription\":\"hello world\",\"summary\":\"greeting\"}");
+      }
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    }
+  }
+}
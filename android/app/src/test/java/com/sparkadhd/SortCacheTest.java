@@ -0,0 +1,138 @@
+package com.sparkadhd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SortCache} on its own directory: normalized keys, memory and disk hits, incremental
+ * plans, TTL expiry and the disk size cap.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SortCacheTest {
+  private static final long NOW_MS = 1_800_000_000_000L;
+  private static final String TIMEZONE = "Europe/London";
+  private static final String SORTED = "[{\"text\":\"buy milk\",\"category\":\"task\",\"priority\":\"low\"}]";
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("sort-cache").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  @Test
+  public void hitsTheSameItemsHoweverTheyAreWrittenOrOrdered() throws IOException {
+    SortCache cache = new SortCache(dir);
+    assertNull(cache.plan(Arrays.asList("buy milk", "call mum"), TIMEZONE, NOW_MS).sorted);
+
+    cache.put(Arrays.asList("buy milk", "call mum"), TIMEZONE, SORTED, NOW_MS);
+    SortCache.Plan plan = cache.plan(Arrays.asList("  call   mum ", "buy milk", ""), TIMEZONE, NOW_MS + 1);
+
+    assertEquals(SORTED, plan.sorted);
+    assertTrue(plan.missing.isEmpty());
+    assertEquals(1.0, cache.stats().get("memoryHits"), 0.0);
+  }
+
+  @Test
+  public void keysOnTimezoneAndItemBoundaries() throws IOException {
+    SortCache cache = new SortCache(dir);
+    cache.put(Arrays.asList("ab", "c"), TIMEZONE, SORTED, NOW_MS);
+
+    assertNull(cache.plan(Arrays.asList("ab", "c"), "America/New_York", NOW_MS).sorted);
+    assertNull(cache.plan(Arrays.asList("a", "bc"), TIMEZONE, NOW_MS).sorted);
+    assertNotEquals(
+      cache.plan(Arrays.asList("ab", "c"), TIMEZONE, NOW_MS).key,
+      cache.plan(Arrays.asList("a", "bc"), TIMEZONE, NOW_MS).key
+    );
+  }
+
+  @Test
+  public void servesEntriesFromDiskAfterReopening() throws IOException {
+    new SortCache(dir).put(Arrays.asList("buy milk"), null, SORTED, NOW_MS);
+
+    SortCache reopened = new SortCache(dir);
+    SortCache.Plan plan = reopened.plan(Arrays.asList("buy milk"), null, NOW_MS + 1_000L);
+
+    assertEquals(SORTED, plan.sorted);
+    assertEquals(1.0, reopened.stats().get("diskHits"), 0.0);
+  }
+
+  @Test
+  public void plansOnlyTheNewItemsOnTopOfACachedSubset() throws IOException {
+    SortCache cache = new SortCache(dir);
+    cache.put(Arrays.asList("buy milk"), TIMEZONE, SORTED, NOW_MS);
+    cache.put(Arrays.asList("buy milk", "call mum"), TIMEZONE, "[\"two\"]", NOW_MS);
+
+    SortCache.Plan plan = cache.plan(
+      Arrays.asList("buy milk", "call mum", "book dentist", "buy milk"),
+      TIMEZONE,
+      NOW_MS
+    );
+
+    assertNull(plan.sorted);
+    assertEquals("[\"two\"]", plan.base);
+    assertEquals(Arrays.asList("book dentist", "buy milk"), plan.missing);
+    assertEquals(1.0, cache.stats().get("partialHits"), 0.0);
+  }
+
+  @Test
+  public void expiresEntriesAfterTheirTtl() throws IOException {
+    SortCache cache = new SortCache(dir);
+    cache.put(Arrays.asList("buy milk"), TIMEZONE, SORTED, NOW_MS);
+
+    SortCache.Plan plan = cache.plan(Arrays.asList("buy milk"), TIMEZONE, NOW_MS + SortCache.TTL_MS);
+
+    assertNull(plan.sorted);
+    assertNull(plan.base);
+    assertEquals(Collections.singletonList("buy milk"), plan.missing);
+    assertEquals(0.0, cache.stats().get("diskEntries"), 0.0);
+  }
+
+  @Test
+  public void keepsTheDiskUnderItsCapByDroppingTheOldestEntries() throws IOException {
+    SortCache cache = new SortCache(dir);
+    StringBuilder large = new StringBuilder("[\"");
+    while (large.length() < 16 * 1024) {
+      large.append("padding ");
+    }
+    String sorted = large.append("\"]").toString();
+    List<String> first = Collections.singletonList("item 0");
+    int entries = (int) (SortCache.MAX_DISK_BYTES / sorted.length()) * 2;
+    for (int index = 0; index < entries; index++) {
+      cache.put(Collections.singletonList("item " + index), TIMEZONE, sorted, NOW_MS + index * 1_000L);
+    }
+
+    assertTrue(cache.stats().get("diskBytes") <= SortCache.MAX_DISK_BYTES);
+    assertTrue(cache.stats().get("evictions") > 0);
+    assertNull(new SortCache(dir).plan(first, TIMEZONE, NOW_MS + entries * 1_000L).sorted);
+    List<String> last = new ArrayList<>(Collections.singletonList("item " + (entries - 1)));
+    assertEquals(sorted, new SortCache(dir).plan(last, TIMEZONE, NOW_MS + entries * 1_000L).sorted);
+  }
+}
@@ -0,0 +1,474 @@
+package com.sparkadhd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link StreamingTranscriptionSession} with a synthetic microphone against an in-process
+ * stand-in for the streaming transcription endpoint: chunks sent while recording, resuming
+ * after lost requests and responses, an expired session, a slow server and a server without
+ * streaming support.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StreamingTranscriptionSessionTest {
+  private static final long STOP_TIMEOUT_MS = 20_000L;
+  private static final long WAIT_TIMEOUT_MS = 10_000L;
+
+  private final MockTranscriptionServer server = new MockTranscriptionServer();
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("recordings").toFile();
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  @Test
+  public void streamsFullChunksWhileRecordingSoOnlyTheTailIsLeftAtStop() throws Exception {
+    SineSource source = new SineSource(3 * AudioSpool.SAMPLE_RATE, 10);
+    StreamingTranscriptionSession session = newSession(source, server.baseUrl());
+    session.start();
+
+    source.awaitExhausted();
+    int fullChunks = (int) (3L * AudioSpool.SAMPLE_RATE / ImaAdpcmEncoder.SAMPLES_PER_BLOCK) / AudioSpool.BLOCKS_PER_CHUNK;
+    awaitReceivedThrough(fullChunks - 1);
+    int putsBeforeStop = server.chunkRequests.get();
+
+    StreamingTranscriptionSession.Result result = session.stop(STOP_TIMEOUT_MS);
+
+    assertTrue(result.streamed);
+    assertNull(result.error);
+    assertEquals(3000L, result.durationMs);
+    assertEquals(0L, result.overrunSamples);
+    assertEquals(1, server.chunkRequests.get() - putsBeforeStop);
+    assertEquals(1, server.finishRequests.get());
+    assertArrayEquals(wavData(result.audioFile), server.session().audio.toByteArray());
+    assertEquals("heard " + server.session().audio.size() + " bytes", result.transcription);
+    assertEquals(3 * AudioSpool.SAMPLE_RATE, wavHeader(result.audioFile).getInt(48));
+  }
+
+  @Test
+  public void resumesFromWhatTheServerHasAfterLostRequestsAndResponses() throws Exception {
+    server.failPuts.set(1);
+    server.dropResponses.set(1);
+    SineSource source = new SineSource(10 * AudioSpool.SAMPLE_RATE, 20);
+    StreamingTranscriptionSession session = newSession(source, server.baseUrl());
+    session.start();
+    source.awaitExhausted();
+
+    StreamingTranscriptionSession.Result result = session.stop(STOP_TIMEOUT_MS);
+
+    assertTrue(result.streamed);
+    assertTrue(result.uploadRetries >= 2);
+    assertTrue(server.statusRequests.get() >= 1);
+    assertEquals(0, server.gaps.get());
+    // The dropped response was for chunks the server had kept; the status call says so.
+    assertEquals(0, server.duplicateChunks.get());
+    assertArrayEquals(wavData(result.audioFile), server.session().audio.toByteArray());
+  }
+
+  @Test
+  public void startsOverWhenTheServerForgetsTheSession() throws Exception {
+    SineSource source = new SineSource(4 * AudioSpool.SAMPLE_RATE, 10);
+    StreamingTranscriptionSession session = newSession(source, server.baseUrl());
+    session.start();
+    source.awaitExhausted();
+    awaitReceivedThrough(0);
+    server.forgetSessions();
+
+    StreamingTranscriptionSession.Result result = session.stop(STOP_TIMEOUT_MS);
+
+    assertTrue(result.streamed);
+    assertEquals(2, server.sessionsOpened.get());
+    assertArrayEquals(wavData(result.audioFile), server.session().audio.toByteArray());
+  }
+
+  @Test
+  public void slowUploadsBatchUpWithoutStallingCapture() throws Exception {
+    server.putDelayMs = 400L;
+    SineSource source = new SineSource(20 * AudioSpool.SAMPLE_RATE, 20);
+    StreamingTranscriptionSession session = newSession(source, server.baseUrl());
+    session.start();
+    source.awaitExhausted();
+
+    StreamingTranscriptionSession.Result result = session.stop(STOP_TIMEOUT_MS);
+
+    assertTrue(result.streamed);
+    assertEquals(0L, result.overrunSamples);
+    int chunks = (int) ((wavData(result.audioFile).length + AudioSpool.CHUNK_BYTES - 1) / AudioSpool.CHUNK_BYTES);
+    assertEquals(chunks, result.chunksSent);
+    assertTrue(server.chunkRequests.get() < chunks);
+    assertArrayEquals(wavData(result.audioFile), server.session().audio.toByteArray());
+  }
+
+  @Test
+  public void keepsACompleteWavForTheWholeFileUploadWhenStreamingIsUnsupported() throws Exception {
+    server.supportsStreaming = false;
+    SineSource source = new SineSource(AudioSpool.SAMPLE_RATE * 3 / 2, 10);
+    StreamingTranscriptionSession session = newSession(source, server.baseUrl());
+    session.start();
+    source.awaitExhausted();
+
+    StreamingTranscriptionSession.Result result = session.stop(STOP_TIMEOUT_MS);
+
+    assertFalse(result.streamed);
+    assertNull(result.error);
+    assertNull(result.transcription);
+    ByteBuffer header = wavHeader(result.audioFile);
+    assertEquals(0x11, header.getShort(20));
+    assertEquals(AudioSpool.SAMPLE_RATE, header.getInt(24));
+    assertEquals(result.audioFile.length() - 8, header.getInt(4));
+    assertEquals(result.audioFile.length() - AudioSpool.HEADER_SIZE, header.getInt(56));
+    assertEquals(AudioSpool.SAMPLE_RATE * 3 / 2, header.getInt(48));
+
+    short[] decoded = decode(wavData(result.audioFile));
+    short[] expected = SineSource.samples(AudioSpool.SAMPLE_RATE * 3 / 2);
+    double signal = 0;
+    double noise = 0;
+    for (int index = 0; index < expected.length; index++) {
+      signal += (double) expected[index] * expected[index];
+      noise += (double) (expected[index] - decoded[index]) * (expected[index] - decoded[index]);
+    }
+    assertTrue("SNR too low", 10 * Math.log10(signal / noise) > 20);
+  }
+
+  @Test
+  public void cancelDeletesTheRecording() throws Exception {
+    SineSource source = new SineSource(AudioSpool.SAMPLE_RATE, 10);
+    File file = new File(dir, "cancelled.wav");
+    StreamingTranscriptionSession session = new StreamingTranscriptionSession(source, file, server.baseUrl());
+    session.start();
+    source.awaitExhausted();
+
+    session.cancel();
+
+    assertFalse(file.exists());
+    assertEquals(0, server.finishRequests.get());
+  }
+
+  private StreamingTranscriptionSession newSession(SineSource source, String baseUrl) throws IOException {
+    return new StreamingTranscriptionSession(source, new File(dir, "recording.wav"), baseUrl);
+  }
+
+  private void awaitReceivedThrough(int chunk) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+    while (server.receivedThrough() < chunk) {
+      assertTrue("Chunks were not streamed while recording", System.currentTimeMillis() < deadline);
+      Thread.sleep(10L);
+    }
+  }
+
+  private static ByteBuffer wavHeader(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    return ByteBuffer.wrap(bytes, 0, AudioSpool.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static byte[] wavData(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    return Arrays.copyOfRange(bytes, AudioSpool.HEADER_SIZE, bytes.length);
+  }
+
+  private static short[] decode(byte[] data) {
+    int blocks = data.length / ImaAdpcmEncoder.BLOCK_ALIGN;
+    short[] samples = new short[blocks * ImaAdpcmEncoder.SAMPLES_PER_BLOCK];
+    int out = 0;
+    for (int block = 0; block < blocks; block++) {
+      int base = block * ImaAdpcmEncoder.BLOCK_ALIGN;
+      int predictor = (short) ((data[base] & 0xff) | (data[base + 1] << 8));
+      int stepIndex = data[base + 2];
+      samples[out++] = (short) predictor;
+      for (int position = base + 4; position < base + ImaAdpcmEncoder.BLOCK_ALIGN; position++) {
+        for (int shift = 0; shift <= 4; shift += 4) {
+          int code = (data[position] >> shift) & 0x0f;
+          int step = ImaAdpcmEncoder.STEP_TABLE[stepIndex];
+          int delta = step >> 3;
+          if ((code & 4) != 0) {
+            delta += step;
+          }
+          if ((code & 2) != 0) {
+            delta += step >> 1;
+          }
+          if ((code & 1) != 0) {
+            delta += step >> 2;
+          }
+          predictor += (code & 8) != 0 ? -delta : delta;
+          predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+          stepIndex = Math.max(0, Math.min(88, stepIndex + ImaAdpcmEncoder.INDEX_TABLE[code]));
+          samples[out++] = (short) predictor;
+        }
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * A 440 Hz tone delivered in 20 ms frames, {@code speedup} times faster than real time, that
+   * goes quiet after {@code totalSamples} until the session stops it.
+   */
+  private static final class SineSource implements StreamingTranscriptionSession.PcmSource {
+    private final short[] samples;
+    private final long frameSleepMs;
+    private int position;
+    private volatile boolean stopped;
+
+    SineSource(int totalSamples, int speedup) {
+      samples = samples(totalSamples);
+      frameSleepMs = 20L / speedup;
+    }
+
+    static short[] samples(int count) {
+      short[] tone = new short[count];
+      for (int index = 0; index < count; index++) {
+        tone[index] = (short) (8000 * Math.sin(2 * Math.PI * 440 * index / AudioSpool.SAMPLE_RATE));
+      }
+      return tone;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+      try {
+        Thread.sleep(frameSleepMs);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (this) {
+        if (stopped) {
+          return 0;
+        }
+        int count = Math.min(length, samples.length - position);
+        System.arraycopy(samples, position, buffer, offset, count);
+        position += count;
+        if (position == samples.length) {
+          notifyAll();
+        }
+        return count;
+      }
+    }
+
+    synchronized void awaitExhausted() throws InterruptedException {
+      long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+      while (position < samples.length) {
+        long remaining = deadline - System.currentTimeMillis();
+        assertTrue("Source was not drained", remaining > 0L);
+        wait(remaining);
+      }
+    }
+
+    @Override
+    public synchronized void stop() {
+      stopped = true;
+    }
+
+    @Override
+    public void release() {
+    }
+  }
+
+  private static final class MockTranscriptionServer {
+    static final class Session {
+      final ByteArrayOutputStream audio = new ByteArrayOutputStream();
+      int receivedThrough = -1;
+    }
+
+    final AtomicInteger sessionsOpened = new AtomicInteger();
+    final AtomicInteger chunkRequests = new AtomicInteger();
+    final AtomicInteger statusRequests = new AtomicInteger();
+    final AtomicInteger finishRequests = new AtomicInteger();
+    final AtomicInteger duplicateChunks = new AtomicInteger();
+    final AtomicInteger gaps = new AtomicInteger();
+    // Fail this many PUTs before storing them, then drop this many responses after storing.
+    final AtomicInteger failPuts = new AtomicInteger();
+    final AtomicInteger dropResponses = new AtomicInteger();
+    volatile boolean supportsStreaming = true;
+    volatile long putDelayMs;
+    private final Map<String, Session> sessions = new HashMap<>();
+    private Session latest;
+    private HttpServer http;
+
+    void start() throws IOException {
+      http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      http.createContext(TranscriptionStreamUploader.STREAM_PATH, this::handle);
+      http.start();
+    }
+
+    void stop() {
+      http.stop(0);
+    }
+
+    String baseUrl() {
+      return "http://127.0.0.1:" + http.getAddress().getPort();
+    }
+
+    synchronized Session session() {
+      return latest;
+    }
+
+    synchronized int receivedThrough() {
+      return latest == null ? -1 : latest.receivedThrough;
+    }
+
+    synchronized void forgetSessions() {
+      sessions.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      try {
+        byte[] body = readAll(exchange.getRequestBody());
+        String[] parts = exchange.getRequestURI().getPath()
+          .substring(TranscriptionStreamUploader.STREAM_PATH.length()).split("/");
+        String method = exchange.getRequestMethod();
+        if (parts.length == 1 && parts[0].isEmpty() && "POST".equals(method)) {
+          open(exchange, body);
+          return;
+        }
+        Session session;
+        synchronized (this) {
+          session = parts.length > 1 ? sessions.get(parts[1]) : null;
+        }
+        if (session == null) {
+          respond(exchange, 404, "{\"error\":\"no such session\"}");
+        } else if (parts.length == 4 && "chunks".equals(parts[2]) && "PUT".equals(method)) {
+          putChunks(exchange, session, Integer.parseInt(parts[3]), body);
+        } else if (parts.length == 2 && "GET".equals(method)) {
+          statusRequests.incrementAndGet();
+          respond(exchange, 200, receivedJson(session));
+        } else if (parts.length == 3 && "finish".equals(parts[2]) && "POST".equals(method)) {
+          finishRequests.incrementAndGet();
+          int chunkCount = new JSONObject(new String(body, StandardCharsets.UTF_8)).getInt("chunkCount");
+          synchronized (this) {
+            if (chunkCount != session.receivedThrough + 1) {
+              respond(exchange, 409, "{\"error\":\"missing chunks\"}");
+              return;
+            }
+            respond(exchange, 200, new JSONObject()
+              .put("transcription", "heard " + session.audio.size() + " bytes")
+              .put("summary", "a tone")
+              .toString());
+          }
+        } else {
+          respond(exchange, 400, "{}");
+        }
+      } catch (JSONException | InterruptedException exception) {
+        respond(exchange, 500, "{}");
+      }
+    }
+
+    private void open(HttpExchange exchange, byte[] body) throws IOException, JSONException {
+      if (!supportsStreaming) {
+        respond(exchange, 404, "{}");
+        return;
+      }
+      JSONObject codec = new JSONObject(new String(body, StandardCharsets.UTF_8));
+      if (!"ima-adpcm".equals(codec.getString("codec")) || codec.getInt("chunkBytes") != AudioSpool.CHUNK_BYTES) {
+        respond(exchange, 400, "{}");
+        return;
+      }
+      String id = "s" + sessionsOpened.incrementAndGet();
+      synchronized (this) {
+        latest = new Session();
+        sessions.put(id, latest);
+      }
+      respond(exchange, 201, new JSONObject().put("sessionId", id).toString());
+    }
+
+    private void putChunks(HttpExchange exchange, Session session, int first, byte[] body)
+      throws IOException, InterruptedException {
+      chunkRequests.incrementAndGet();
+      if (putDelayMs > 0L) {
+        Thread.sleep(putDelayMs);
+      }
+      if (failPuts.getAndUpdate((left) -> Math.max(0, left - 1)) > 0) {
+        respond(exchange, 503, "{}");
+        return;
+      }
+      int count = Integer.parseInt(exchange.getRequestHeaders().getFirst("X-Chunk-Count"));
+      synchronized (this) {
+        int next = session.receivedThrough + 1;
+        if (first > next) {
+          gaps.incrementAndGet();
+          respond(exchange, 409, receivedJson(session));
+          return;
+        }
+        int skip = next - first;
+        duplicateChunks.addAndGet(Math.min(skip, count));
+        int offset = Math.min(body.length, skip * AudioSpool.CHUNK_BYTES);
+        session.audio.write(body, offset, body.length - offset);
+        session.receivedThrough = Math.max(session.receivedThrough, first + count - 1);
+      }
+      if (dropResponses.getAndUpdate((left) -> Math.max(0, left - 1)) > 0) {
+        // Kept the chunks but the client never hears back.
+        exchange.close();
+        return;
+      }
+      respond(exchange, 200, receivedJson(session));
+    }
+
+    private synchronized String receivedJson(Session session) {
+      return "{\"receivedThrough\":" + session.receivedThrough + "}";
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.sparkadhd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link TaskIdIndex} on its own directory: lookups across base and journal, reopening from
+ * disk, pruning and what the bloom filter saves.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskIdIndexTest {
+  private static final long NOW_MS = 1_800_000_000_000L;
+  private static final int BATCH = 500;
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("task-ids").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  @Test
+  public void findsEveryInsertedIdAcrossMerges() throws IOException {
+    TaskIdIndex index = new TaskIdIndex(dir);
+    int total = 20_000;
+    for (int start = 0; start < total; start += BATCH) {
+      index.putAll(ids("task-", start, BATCH), 0, NOW_MS);
+    }
+
+    assertEquals(total, index.size());
+    assertTrue(index.stats().get("merges") > 0);
+    for (boolean found : index.containsAll(ids("task-", 0, total))) {
+      assertTrue(found);
+    }
+    for (boolean found : index.containsAll(ids("other-", 0, total))) {
+      assertFalse(found);
+    }
+  }
+
+  @Test
+  public void bloomFilterAnswersMostMissesWithoutSearching() throws IOException {
+    TaskIdIndex index = new TaskIdIndex(dir);
+    for (int start = 0; start < 10_000; start += BATCH) {
+      index.putAll(ids("task-", start, BATCH), 0, NOW_MS);
+    }
+
+    double rejectsBefore = index.stats().get("bloomRejects");
+    int misses = 10_000;
+    index.containsAll(ids("unseen-", 0, misses));
+    double rejected = index.stats().get("bloomRejects") - rejectsBefore;
+
+    assertTrue("Bloom filter rejected only " + rejected + " of " + misses, rejected >= misses * 0.97);
+  }
+
+  @Test
+  public void reopensFromBaseAndJournal() throws IOException {
+    TaskIdIndex index = new TaskIdIndex(dir);
+    index.putAll(ids("task-", 0, 5000), 0, NOW_MS);
+    index.putAll(Arrays.asList("task-1", "task-2"), TaskIdIndex.FLAG_MARKED, NOW_MS);
+    index.putAll(Collections.singletonList("late"), 0, NOW_MS);
+
+    TaskIdIndex reopened = new TaskIdIndex(dir);
+
+    assertEquals(5001, reopened.size());
+    assertTrue(reopened.isMarked("task-1"));
+    assertTrue(reopened.isMarked("task-2"));
+    assertFalse(reopened.isMarked("task-3"));
+    assertTrue(reopened.contains("late"));
+  }
+
+  @Test
+  public void tornJournalTailIsDropped() throws IOException {
+    TaskIdIndex index = new TaskIdIndex(dir);
+    index.putAll(Arrays.asList("a", "b"), 0, NOW_MS);
+    File journal = new File(dir, "journal.bin");
+    try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+      file.setLength(file.length() - 3);
+    }
+
+    TaskIdIndex reopened = new TaskIdIndex(dir);
+
+    assertTrue(reopened.contains("a"));
+    assertFalse(reopened.contains("b"));
+    reopened.putAll(Collections.singletonList("c"), 0, NOW_MS);
+    assertTrue(new TaskIdIndex(dir).contains("c"));
+  }
+
+  @Test
+  public void mergePrunesOnlyOldMarkedIds() throws IOException {
+    TaskIdIndex index = new TaskIdIndex(dir);
+    long old = NOW_MS - TaskIdIndex.RETENTION_MS - 1000L;
+    index.putAll(Arrays.asList("old-marked"), TaskIdIndex.FLAG_MARKED, old);
+    index.putAll(Arrays.asList("old-unmarked"), 0, old);
+    index.putAll(Arrays.asList("recent-marked"), TaskIdIndex.FLAG_MARKED, NOW_MS);
+
+    index.maybeMerge(NOW_MS);
+
+    assertFalse(index.contains("old-marked"));
+    assertTrue(index.contains("old-unmarked"));
+    assertTrue(index.isMarked("recent-marked"));
+    assertEquals(2, index.size());
+    assertEquals(1.0, index.stats().get("pruned"), 0.0);
+  }
+
+  private static List<String> ids(String prefix, int start, int count) {
+    List<String> ids = new ArrayList<>(count);
+    for (int index = start; index < start + count; index++) {
+      ids.add(prefix + index);
+    }
+    return ids;
+  }
+}
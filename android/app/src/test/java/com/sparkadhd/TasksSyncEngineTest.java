@@ -0,0 +1,396 @@
+package com.sparkadhd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link TasksSyncEngine} against an in-process stand-in for the Google Tasks API:
+ * paging, delta tokens, an expired token, completion marks and dedup across syncs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TasksSyncEngineTest {
+  private static final String LIST_ID = "inbox";
+  private static final int PAGE_SIZE = 100;
+  private static final long SYNC_TIMEOUT_S = 30L;
+
+  private final MockTasksServer server = new MockTasksServer();
+  private TasksSyncEngine engine;
+  private RecordLogStore store;
+  private TaskIdIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    Context context = ApplicationProvider.getApplicationContext();
+    server.start();
+    engine = TasksSyncEngine.getInstance(context);
+    engine.setClient(new GoogleTasksClient(server.baseUrl(), new GoogleTasksClient.TokenProvider() {
+      @Override
+      public String getToken() {
+        return server.validToken;
+      }
+
+      @Override
+      public void invalidate(String token) {
+        server.invalidated.incrementAndGet();
+      }
+    }));
+    engine.getState().clear();
+    store = RecordLogStore.open(context, "brainDump");
+    store.clear();
+    index = TaskIdIndex.getInstance(context);
+    index.clear();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Test
+  public void firstSyncImportsOpenTasksAcrossPagesAndMarksThem() throws Exception {
+    for (int index = 0; index < 250; index++) {
+      server.addTask("task-" + index, "Task " + index, index % 10 == 0 ? "notes " + index : null);
+    }
+    server.addTask("done", "Already done", null).put("status", "completed");
+    server.addTask("gone", "Deleted", null).put("deleted", true);
+    server.addTask("blank", "   ", null);
+
+    TasksSyncEngine.Result result = sync();
+
+    assertNull(result.error);
+    assertEquals(250, result.importedCount);
+    assertEquals(3, result.skippedCount);
+    assertEquals(250, result.markedCompletedCount);
+    assertTrue(result.syncTokenUpdated);
+    assertEquals(3, server.listRequests.get());
+    assertEquals(250, server.marked.size());
+    assertEquals(0, server.plainPatchRequests.get());
+    assertEquals(250, store.size());
+    // Marks only go out after the listing, so the token is the one from before them.
+    assertEquals("v253", engine.getState().getSyncToken());
+    assertEquals(LIST_ID, engine.getState().getListId());
+
+    // Newest first: the first task listed is on top, with its notes appended.
+    JSONObject top = new JSONObject(store.page(null, 1, true).payloads.get(0));
+    assertEquals("task-0", top.getString("googleTaskId"));
+    assertEquals("Task 0\n\nnotes 0", top.getString("text"));
+    assertEquals("google", top.getString("source"));
+    assertTrue(top.getString("id").startsWith("google-"));
+  }
+
+  @Test
+  public void deltaSyncOnlyImportsNewTasks() throws Exception {
+    server.addTask("a", "First", null);
+    server.addTask("b", "Second", null);
+    sync();
+
+    server.addTask("c", "Third", null);
+    TasksSyncEngine.Result result = sync();
+
+    assertNull(result.error);
+    assertEquals(1, result.importedCount);
+    assertEquals(3, store.size());
+    assertEquals(3, server.marked.size());
+    assertEquals(1, server.deltaRequests.get());
+  }
+
+  @Test
+  public void expiredSyncTokenRelistsWithoutDuplicating() throws Exception {
+    server.addTask("a", "First", null);
+    server.addTask("b", "Second", null);
+    server.failMarks = true;
+    sync();
+    server.failMarks = false;
+    engine.getState().setList(LIST_ID, "expired-token");
+    server.addTask("c", "Third", null);
+
+    TasksSyncEngine.Result result = sync();
+
+    assertNull(result.error);
+    assertEquals(1, server.expiredRequests.get());
+    assertEquals(1, result.importedCount);
+    assertEquals(3, result.markedCompletedCount);
+    assertEquals(3, store.size());
+    assertEquals("v3", engine.getState().getSyncToken());
+  }
+
+  @Test
+  public void storedTasksWithFailedMarksAreMarkedNotReimported() throws Exception {
+    server.addTask("a", "First", null);
+    server.failMarks = true;
+    TasksSyncEngine.Result first = sync();
+    assertEquals(1, first.importedCount);
+    assertEquals(0, first.markedCompletedCount);
+    assertFalse(index.isMarked("a"));
+
+    server.failMarks = false;
+    server.touch("a");
+    TasksSyncEngine.Result second = sync();
+
+    assertEquals(0, second.importedCount);
+    assertEquals(1, second.markedCompletedCount);
+    assertTrue(index.isMarked("a"));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void firstNativeSyncTakesOverStateFromBeforeTheIndex() throws Exception {
+    store.write(
+      Collections.singletonList("google-1"),
+      Collections.singletonList("{\"id\":\"google-1\",\"text\":\"Old\",\"googleTaskId\":\"old\"}"),
+      Collections.emptyList()
+    );
+    engine.getState().seed(LIST_ID, null, Collections.singletonList("done-before"), 0L);
+    server.addTask("old", "Imported by the JS sync", null);
+    server.addTask("done-before", "Marked by the JS sync", null);
+    server.addTask("new", "New", null);
+
+    TasksSyncEngine.Result result = sync();
+
+    assertNull(result.error);
+    assertEquals(1, result.importedCount);
+    assertEquals(2, result.markedCompletedCount);
+    assertEquals(new HashSet<>(Arrays.asList("old", "new")), server.marked);
+    assertEquals(2, store.size());
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  public void expiredAccessTokenIsRefreshedOnce() throws Exception {
+    server.addTask("a", "First", null);
+    server.rejectNextToken = true;
+
+    TasksSyncEngine.Result result = sync();
+
+    assertNull(result.error);
+    assertEquals(1, server.invalidated.get());
+    assertEquals(1, result.importedCount);
+  }
+
+  @Test
+  public void notSignedInEndsQuietly() throws Exception {
+    server.validToken = null;
+    TasksSyncEngine.Result result = sync();
+    assertFalse(result.signedIn);
+    assertNull(result.error);
+    assertEquals(0, server.listRequests.get());
+  }
+
+  private TasksSyncEngine.Result sync() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    TasksSyncEngine.Result[] holder = new TasksSyncEngine.Result[1];
+    engine.requestSync((result) -> {
+      holder[0] = result;
+      done.countDown();
+    });
+    assertTrue("Sync did not finish", done.await(SYNC_TIMEOUT_S, TimeUnit.SECONDS));
+    return holder[0];
+  }
+
+  /**
+   * Just enough of the Tasks API for the engine: one list, paged task listing with delta sync
+   * tokens that are versions of the task table, and PATCH through the method override header.
+   */
+  private static final class MockTasksServer {
+    final Map<String, JSONObject> tasks = new LinkedHashMap<>();
+    final Map<String, Integer> taskVersions = new HashMap<>();
+    final Set<String> marked = new HashSet<>();
+    final AtomicInteger listRequests = new AtomicInteger();
+    final AtomicInteger deltaRequests = new AtomicInteger();
+    final AtomicInteger expiredRequests = new AtomicInteger();
+    final AtomicInteger plainPatchRequests = new AtomicInteger();
+    final AtomicInteger invalidated = new AtomicInteger();
+    volatile String validToken = "token-1";
+    volatile boolean rejectNextToken;
+    volatile boolean failMarks;
+    private int version;
+    private HttpServer http;
+
+    void start() throws IOException {
+      http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      http.createContext("/tasks/v1/", this::handle);
+      http.start();
+    }
+
+    void stop() {
+      http.stop(0);
+    }
+
+    String baseUrl() {
+      return "http://127.0.0.1:" + http.getAddress().getPort() + "/tasks/v1";
+    }
+
+    synchronized JSONObject addTask(String id, String title, String notes) throws JSONException {
+      JSONObject task = new JSONObject();
+      task.put("id", id);
+      task.put("title", title);
+      if (notes != null) {
+        task.put("notes", notes);
+      }
+      task.put("status", "needsAction");
+      task.put("updated", "2026-01-01T00:00:00.000Z");
+      tasks.put(id, task);
+      taskVersions.put(id, ++version);
+      return task;
+    }
+
+    synchronized void touch(String id) {
+      taskVersions.put(id, ++version);
+    }
+
+    synchronized String currentSyncToken() {
+      return "v" + version;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      try {
+        drain(exchange.getRequestBody());
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (rejectNextToken || authorization == null || !authorization.equals("Bearer " + validToken)) {
+          rejectNextToken = false;
+          respond(exchange, 401, "{}");
+          return;
+        }
+
+        String path = exchange.getRequestURI().getPath().substring("/tasks/v1".length());
+        String method = exchange.getRequestMethod();
+        String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+        if ("PATCH".equals(method)) {
+          plainPatchRequests.incrementAndGet();
+        }
+        if ("/users/@me/lists".equals(path)) {
+          respond(exchange, 200, "{\"items\":[{\"id\":\"other\",\"title\":\"Other\"},"
+            + "{\"id\":\"" + LIST_ID + "\",\"title\":\"Spark Inbox\"}]}");
+        } else if (("/lists/" + LIST_ID + "/tasks").equals(path) && "GET".equals(method)) {
+          listTasks(exchange);
+        } else if (path.startsWith("/lists/" + LIST_ID + "/tasks/") && "PATCH".equals(override)) {
+          if (failMarks) {
+            respond(exchange, 503, "{}");
+            return;
+          }
+          String taskId = path.substring(path.lastIndexOf('/') + 1);
+          synchronized (this) {
+            tasks.get(taskId).put("status", "completed");
+            taskVersions.put(taskId, ++version);
+            marked.add(taskId);
+          }
+          respond(exchange, 200, "{}");
+        } else {
+          respond(exchange, 404, "{}");
+        }
+      } catch (JSONException exception) {
+        respond(exchange, 500, "{}");
+      }
+    }
+
+    private void listTasks(HttpExchange exchange) throws IOException, JSONException {
+      listRequests.incrementAndGet();
+      Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      String syncToken = query.get("syncToken");
+      if ("expired-token".equals(syncToken)) {
+        expiredRequests.incrementAndGet();
+        respond(exchange, 410, "{\"error\":\"gone\"}");
+        return;
+      }
+
+      JSONObject body = new JSONObject();
+      synchronized (this) {
+        int since = 0;
+        if (syncToken != null) {
+          since = Integer.parseInt(syncToken.substring(1));
+          if (query.get("pageToken") == null) {
+            deltaRequests.incrementAndGet();
+          }
+        }
+        List<JSONObject> changed = new ArrayList<>();
+        for (Map.Entry<String, JSONObject> entry : tasks.entrySet()) {
+          if (taskVersions.get(entry.getKey()) > since) {
+            changed.add(entry.getValue());
+          }
+        }
+        int offset = query.get("pageToken") == null ? 0 : Integer.parseInt(query.get("pageToken"));
+        int end = Math.min(changed.size(), offset + PAGE_SIZE);
+        JSONArray items = new JSONArray();
+        for (int index = offset; index < end; index++) {
+          items.put(changed.get(index));
+        }
+        body.put("kind", "tasks#tasks");
+        body.put("items", items);
+        if (end < changed.size()) {
+          body.put("nextPageToken", String.valueOf(end));
+        } else {
+          body.put("nextSyncToken", currentSyncToken());
+        }
+      }
+      respond(exchange, 200, body.toString());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+      Map<String, String> query = new HashMap<>();
+      if (rawQuery == null) {
+        return query;
+      }
+      for (String pair : rawQuery.split("&")) {
+        int split = pair.indexOf('=');
+        query.put(
+          URLDecoder.decode(pair.substring(0, split), "UTF-8"),
+          URLDecoder.decode(pair.substring(split + 1), "UTF-8")
+        );
+      }
+      return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(bytes);
+      }
+    }
+
+    private static void drain(InputStream input) throws IOException {
+      byte[] buffer = new byte[256];
+      while (input.read(buffer) != -1) {
+        // Discard; the engine only ever sends {"status":"completed"}.
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Count submission from JS threads racing the frame and writer sides that drain it.
+ * The scheduler only counts requests, so this measures the coalescing itself.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CountCoalescerBenchmark {
+  private final CountCoalescer coalescer = new CountCoalescer(new CountCoalescer.Scheduler() {
+    @Override
+    public void scheduleFrame() {
+      frameRequests++;
+    }
+
+    @Override
+    public void scheduleWrite() {
+      writeRequests++;
+    }
+  });
+  private volatile long frameRequests;
+  private volatile long writeRequests;
+
+  @State(Scope.Thread)
+  public static class Submitter {
+    int count;
+  }
+
+  @Benchmark
+  @Group("coalesce")
+  @GroupThreads(2)
+  public void submit(Submitter submitter) {
+    // Every other submit repeats the previous value and should be dropped early.
+    coalescer.submit(submitter.count++ >> 1);
+  }
+
+  @Benchmark
+  @Group("coalesce")
+  public int render() {
+    return coalescer.takeForRender();
+  }
+
+  @Benchmark
+  @Group("coalesce")
+  public int write() {
+    int count = coalescer.takeForWrite();
+    if (count != CountCoalescer.NO_VALUE) {
+      coalescer.markPersisted(count);
+    }
+    return count;
+  }
+}
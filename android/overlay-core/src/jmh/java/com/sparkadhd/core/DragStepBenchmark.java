@@ -0,0 +1,61 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One touch event on the drag path: a batch of samples, the per-frame predicted position and
+ * the bubble clamp. The gc profiler should report zero bytes per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DragStepBenchmark {
+  private static final int SAMPLES_PER_EVENT = 4;
+  private static final int BUBBLE_SIZE = 154;
+  private static final long FRAME_INTERVAL_MS = 8L;
+
+  private final DragTracker tracker = new DragTracker();
+  private final OverlayBounds bounds = new OverlayBounds();
+  private long timeMs;
+  private float x;
+  private float y;
+
+  @Setup
+  public void setUp() {
+    bounds.update(1080, 2400, 22, 605);
+    timeMs = 0L;
+    x = 500f;
+    y = 1200f;
+    tracker.begin(480, 1180, x, y, timeMs);
+  }
+
+  @Benchmark
+  public int touchEvent() {
+    for (int sample = 0; sample < SAMPLES_PER_EVENT; sample++) {
+      timeMs += 2L;
+      // Sweep back and forth so the clamp sees both in-range and out-of-range positions.
+      x = (x + 7f) % 1400f;
+      y = (y + 3f) % 2600f;
+      tracker.addSample(x, y, timeMs);
+    }
+    tracker.computeFrame(timeMs + FRAME_INTERVAL_MS / 2, FRAME_INTERVAL_MS, 66f, true);
+    return bounds.clampBubbleX(tracker.getFrameX(), BUBBLE_SIZE)
+      + bounds.clampBubbleY(tracker.getFrameY(), BUBBLE_SIZE);
+  }
+
+  @Benchmark
+  public boolean thresholdCheck() {
+    timeMs += 2L;
+    x += 0.5f;
+    tracker.addSample(x, y, timeMs);
+    return tracker.hasExceeded(17);
+  }
+}
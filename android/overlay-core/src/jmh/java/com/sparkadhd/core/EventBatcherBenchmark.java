@@ -0,0 +1,58 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Event posting from several threads racing the frame side that drains batches, and the cost
+ * of posting a type nobody listens to. The scheduler only counts requests.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventBatcherBenchmark {
+  private static final int SUBSCRIBED_TYPE = 3;
+  private static final int UNSUBSCRIBED_TYPE = 4;
+  private static final Object PAYLOAD = new Object();
+
+  private final EventBatcher batcher = new EventBatcher(() -> frameRequests++);
+  private final EventBatcher.Sink sink = (type, timestampMs, payload) -> delivered += type;
+  private volatile long frameRequests;
+  private long delivered;
+
+  {
+    batcher.setSubscribed(1L << SUBSCRIBED_TYPE);
+  }
+
+  @State(Scope.Thread)
+  public static class Poster {
+    long timestampMs;
+  }
+
+  @Benchmark
+  @Group("batch")
+  @GroupThreads(2)
+  public boolean post(Poster poster) {
+    return batcher.post(SUBSCRIBED_TYPE, poster.timestampMs++, PAYLOAD);
+  }
+
+  @Benchmark
+  @Group("batch")
+  public int drain() {
+    return batcher.drain(sink);
+  }
+
+  @Benchmark
+  @Group("filtered")
+  public boolean postUnsubscribed(Poster poster) {
+    return batcher.post(UNSUBSCRIBED_TYPE, poster.timestampMs++, PAYLOAD);
+  }
+}
@@ -0,0 +1,63 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Snap target selection, a single settle frame, and a full settle run to rest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapBenchmark {
+  private static final int BUBBLE_SIZE = 154;
+
+  @Param({"60", "120"})
+  public int refreshRate;
+
+  private final OverlayBounds bounds = new OverlayBounds();
+  private final SettleMotion motion = new SettleMotion();
+  private float frameSeconds;
+  private int releaseX;
+
+  @Setup
+  public void setUp() {
+    bounds.update(1080, 2400, 22, 605);
+    frameSeconds = 1f / refreshRate;
+  }
+
+  @Benchmark
+  public int snapTarget() {
+    releaseX = (releaseX + 37) % 1080;
+    return bounds.snapX(releaseX + BUBBLE_SIZE / 2f, BUBBLE_SIZE);
+  }
+
+  @Benchmark
+  public boolean settleFrame() {
+    if (motion.step(frameSeconds)) {
+      releaseX = (releaseX + 37) % 1080;
+      motion.start(bounds, releaseX, 1200, 1800f, -400f, BUBBLE_SIZE);
+      return true;
+    }
+    return false;
+  }
+
+  @Benchmark
+  public int settleToRest() {
+    releaseX = (releaseX + 37) % 1080;
+    motion.start(bounds, releaseX, 1200, 1800f, -400f, BUBBLE_SIZE);
+    int frames = 0;
+    while (!motion.step(frameSeconds)) {
+      frames++;
+    }
+    return frames;
+  }
+}
@@ -0,0 +1,53 @@
+package com.sparkadhd.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encoding and decoding the overlay state slots, on heap and on a direct buffer standing in
+ * for the memory-mapped file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StateRecordBenchmark {
+  @Param({"heap", "direct"})
+  public String bufferKind;
+
+  private final OverlayStateRecord record = new OverlayStateRecord();
+  private final OverlayStateRecord reader = new OverlayStateRecord();
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setUp() {
+    buffer = "direct".equals(bufferKind)
+      ? ByteBuffer.allocateDirect(OverlayStateRecord.FILE_SIZE)
+      : ByteBuffer.allocate(OverlayStateRecord.FILE_SIZE);
+    record.portraitX = 22;
+    record.portraitY = 640;
+    record.flags = OverlayStateRecord.FLAG_HAS_PORTRAIT;
+    record.commit(buffer);
+  }
+
+  @Benchmark
+  public long commitCount() {
+    record.count++;
+    record.countUpdatedAtMs = record.count;
+    record.commit(buffer);
+    return record.getSequence();
+  }
+
+  @Benchmark
+  public boolean load() {
+    return reader.load(buffer);
+  }
+}
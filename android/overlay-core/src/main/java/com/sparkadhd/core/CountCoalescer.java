@@ -0,0 +1,88 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Change-only coalescing for a count that is rendered once per frame and persisted in batches.
+ *
+ * The newest value sits in an atomic slot. {@link #submit(int)} asks the {@link Scheduler} for
+ * at most one pending frame and one pending write; the render and write sides then take the
+ * latest value and skip it if it is what they already have.
+ */
+public final class CountCoalescer {
+  public interface Scheduler {
+    void scheduleFrame();
+
+    void scheduleWrite();
+  }
+
+  public static final int NO_VALUE = Integer.MIN_VALUE;
+
+  private final Scheduler scheduler;
+  private final AtomicInteger latestCount = new AtomicInteger(NO_VALUE);
+  private final AtomicBoolean framePending = new AtomicBoolean(false);
+  private final AtomicBoolean writePending = new AtomicBoolean(false);
+  // Render thread only.
+  private int renderedCount = NO_VALUE;
+  // Writer thread only.
+  private int persistedCount = NO_VALUE;
+
+  public CountCoalescer(Scheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Record a new count. Safe to call from any thread; unchanged values are dropped here.
+   */
+  public void submit(int count) {
+    if (latestCount.getAndSet(count) == count) {
+      return;
+    }
+    if (framePending.compareAndSet(false, true)) {
+      scheduler.scheduleFrame();
+    }
+    if (writePending.compareAndSet(false, true)) {
+      scheduler.scheduleWrite();
+    }
+  }
+
+  public int latest() {
+    return latestCount.get();
+  }
+
+  /**
+   * Note a count the render side showed on its own, e.g. when a view is first bound.
+   */
+  public void markRendered(int count) {
+    renderedCount = count;
+  }
+
+  /**
+   * Called from the frame callback. Returns the count to render, or {@link #NO_VALUE} if the
+   * rendered one is already current.
+   */
+  public int takeForRender() {
+    framePending.set(false);
+    int count = latestCount.get();
+    if (count == NO_VALUE || count == renderedCount) {
+      return NO_VALUE;
+    }
+    renderedCount = count;
+    return count;
+  }
+
+  /**
+   * Called from the writer. Returns the count to persist, or {@link #NO_VALUE} if nothing
+   * changed since the last write; call {@link #markPersisted(int)} once it is stored.
+   */
+  public int takeForWrite() {
+    writePending.set(false);
+    int count = latestCount.get();
+    return count == NO_VALUE || count == persistedCount ? NO_VALUE : count;
+  }
+
+  public void markPersisted(int count) {
+    persistedCount = count;
+  }
+}
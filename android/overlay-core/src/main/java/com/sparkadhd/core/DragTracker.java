@@ -0,0 +1,129 @@
+package com.sparkadhd.core;
+
+/**
+ * Touch samples for one bubble drag and the window position to show on a given frame.
+ *
+ * Samples go into a small fixed ring. A frame position is the newest sample nudged forward by
+ * the velocity over the last few samples, capped, so the bubble keeps up with the finger.
+ * Nothing here allocates after construction.
+ */
+public final class DragTracker {
+  private static final int SAMPLE_CAPACITY = 8;
+  private static final long VELOCITY_WINDOW_MS = 48L;
+  private static final long MAX_PREDICTION_MS = 16L;
+
+  private final float[] sampleX = new float[SAMPLE_CAPACITY];
+  private final float[] sampleY = new float[SAMPLE_CAPACITY];
+  private final long[] sampleTimeMs = new long[SAMPLE_CAPACITY];
+  private int sampleCount;
+  private int newestIndex = -1;
+  private int startX;
+  private int startY;
+  private float startRawX;
+  private float startRawY;
+  private float maxDistanceX;
+  private float maxDistanceY;
+  private long sampleTotal;
+  private int frameX;
+  private int frameY;
+
+  public void begin(int windowX, int windowY, float rawX, float rawY, long timeMs) {
+    startX = windowX;
+    startY = windowY;
+    startRawX = rawX;
+    startRawY = rawY;
+    maxDistanceX = 0f;
+    maxDistanceY = 0f;
+    sampleCount = 0;
+    newestIndex = -1;
+    addSample(rawX, rawY, timeMs);
+  }
+
+  public void addSample(float rawX, float rawY, long timeMs) {
+    newestIndex = (newestIndex + 1) % SAMPLE_CAPACITY;
+    sampleX[newestIndex] = rawX;
+    sampleY[newestIndex] = rawY;
+    sampleTimeMs[newestIndex] = timeMs;
+    if (sampleCount < SAMPLE_CAPACITY) {
+      sampleCount++;
+    }
+    sampleTotal++;
+    maxDistanceX = Math.max(maxDistanceX, Math.abs(rawX - startRawX));
+    maxDistanceY = Math.max(maxDistanceY, Math.abs(rawY - startRawY));
+  }
+
+  public boolean hasSamples() {
+    return newestIndex >= 0;
+  }
+
+  public boolean hasExceeded(int thresholdPx) {
+    return maxDistanceX > thresholdPx || maxDistanceY > thresholdPx;
+  }
+
+  /**
+   * Window position for the newest touch sample, without prediction.
+   */
+  public int getLatestX() {
+    return newestIndex < 0 ? startX : startX + Math.round(sampleX[newestIndex] - startRawX);
+  }
+
+  public int getLatestY() {
+    return newestIndex < 0 ? startY : startY + Math.round(sampleY[newestIndex] - startRawY);
+  }
+
+  public long getSampleCount() {
+    return sampleTotal;
+  }
+
+  /**
+   * Work out the window position for a frame starting at {@code frameTimeMs}; read it back with
+   * {@link #getFrameX()} and {@link #getFrameY()}. Prediction is skipped once the finger has
+   * paused for more than two frames.
+   */
+  public void computeFrame(long frameTimeMs, long frameIntervalMs, float maxPredictionPx, boolean predict) {
+    if (newestIndex < 0) {
+      frameX = startX;
+      frameY = startY;
+      return;
+    }
+
+    float x = sampleX[newestIndex];
+    float y = sampleY[newestIndex];
+    if (predict) {
+      long newestTimeMs = sampleTimeMs[newestIndex];
+      long intervalMs = Math.max(1L, frameIntervalMs);
+      long staleMs = frameTimeMs - newestTimeMs;
+      int oldestIndex = findOldestIndexWithin(newestTimeMs - VELOCITY_WINDOW_MS);
+      long spanMs = newestTimeMs - sampleTimeMs[oldestIndex];
+      if (spanMs > 0 && staleMs <= intervalMs * 2) {
+        float horizonMs = Math.min(intervalMs, MAX_PREDICTION_MS);
+        float predictedX = (x - sampleX[oldestIndex]) / spanMs * horizonMs;
+        float predictedY = (y - sampleY[oldestIndex]) / spanMs * horizonMs;
+        x += Math.max(-maxPredictionPx, Math.min(predictedX, maxPredictionPx));
+        y += Math.max(-maxPredictionPx, Math.min(predictedY, maxPredictionPx));
+      }
+    }
+    frameX = startX + Math.round(x - startRawX);
+    frameY = startY + Math.round(y - startRawY);
+  }
+
+  public int getFrameX() {
+    return frameX;
+  }
+
+  public int getFrameY() {
+    return frameY;
+  }
+
+  private int findOldestIndexWithin(long cutoffMs) {
+    int oldest = newestIndex;
+    for (int step = 1; step < sampleCount; step++) {
+      int index = (newestIndex - step + SAMPLE_CAPACITY) % SAMPLE_CAPACITY;
+      if (sampleTimeMs[index] < cutoffMs) {
+        break;
+      }
+      oldest = index;
+    }
+    return oldest;
+  }
+}
@@ -0,0 +1,145 @@
+package com.sparkadhd.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers typed events between frames so they can be delivered as one batch.
+ *
+ * Each event is a small integer type, a timestamp and an opaque payload. Types nobody
+ * subscribed to are dropped in {@link #post} before anything is stored or scheduled. The first
+ * event after a drain asks the {@link Scheduler} for a frame; {@link #drain} then hands every
+ * buffered event to a {@link Sink} in posting order. Two buffers swap on each drain, so posting
+ * from any thread, even from inside the sink, never waits on delivery.
+ */
+public final class EventBatcher {
+  public interface Scheduler {
+    void scheduleFrame();
+  }
+
+  public interface Sink {
+    void accept(int type, long timestampMs, Object payload);
+  }
+
+  public static final int MAX_TYPES = 64;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final class Buffer {
+    int[] types = new int[INITIAL_CAPACITY];
+    long[] timestamps = new long[INITIAL_CAPACITY];
+    Object[] payloads = new Object[INITIAL_CAPACITY];
+    int size;
+
+    void add(int type, long timestampMs, Object payload) {
+      if (size == types.length) {
+        int capacity = size * 2;
+        types = Arrays.copyOf(types, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+      }
+      types[size] = type;
+      timestamps[size] = timestampMs;
+      payloads[size] = payload;
+      size++;
+    }
+  }
+
+  private final Scheduler scheduler;
+  private final AtomicLong subscribed = new AtomicLong();
+  private final AtomicLong filtered = new AtomicLong();
+  // Guarded by this.
+  private Buffer filling = new Buffer();
+  private boolean framePending;
+  private long posted;
+  private long batches;
+  private int largestBatch;
+  // Drain thread only, and always empty between drains.
+  private Buffer draining = new Buffer();
+
+  public EventBatcher(Scheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Replace the subscribed types; bit {@code n} of {@code mask} stands for type {@code n}.
+   */
+  public void setSubscribed(long mask) {
+    subscribed.set(mask);
+  }
+
+  public long subscribed() {
+    return subscribed.get();
+  }
+
+  /**
+   * Whether an event of {@code type} would be kept. Check this before building a payload.
+   */
+  public boolean wants(int type) {
+    return type >= 0 && type < MAX_TYPES && (subscribed.get() & (1L << type)) != 0L;
+  }
+
+  /**
+   * Buffer an event for the next frame. Returns false, having done nothing else, when no one
+   * subscribed to {@code type}.
+   */
+  public boolean post(int type, long timestampMs, Object payload) {
+    if (!wants(type)) {
+      filtered.incrementAndGet();
+      return false;
+    }
+    boolean schedule;
+    synchronized (this) {
+      filling.add(type, timestampMs, payload);
+      posted++;
+      schedule = !framePending;
+      framePending = true;
+    }
+    if (schedule) {
+      scheduler.scheduleFrame();
+    }
+    return true;
+  }
+
+  /**
+   * Called from the frame callback. Passes every buffered event to {@code sink} and returns how
+   * many there were.
+   */
+  public int drain(Sink sink) {
+    Buffer batch;
+    synchronized (this) {
+      framePending = false;
+      if (filling.size == 0) {
+        return 0;
+      }
+      batch = filling;
+      filling = draining;
+      draining = batch;
+      batches++;
+      largestBatch = Math.max(largestBatch, batch.size);
+    }
+    int count = batch.size;
+    for (int index = 0; index < count; index++) {
+      sink.accept(batch.types[index], batch.timestamps[index], batch.payloads[index]);
+      batch.payloads[index] = null;
+    }
+    batch.size = 0;
+    return count;
+  }
+
+  public synchronized long posted() {
+    return posted;
+  }
+
+  public long filtered() {
+    return filtered.get();
+  }
+
+  public synchronized long batches() {
+    return batches;
+  }
+
+  public synchronized int largestBatch() {
+    return largestBatch;
+  }
+}
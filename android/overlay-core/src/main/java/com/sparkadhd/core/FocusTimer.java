@@ -0,0 +1,148 @@
+package com.sparkadhd.core;
+
+/**
+ * State of one countdown: idle, running toward a wall-clock end, paused with time left, or
+ * finished.
+ *
+ * Only the displayed minute matters between transitions, so {@link #nextTickAtMs} returns the
+ * moment the rounded-up minute count next changes, and the last one is the end itself. A
+ * 25-minute run therefore needs 25 wakeups rather than one per second. Times are passed in so
+ * the owner decides which clock to use. Not thread-safe; the owner synchronizes.
+ */
+public final class FocusTimer {
+  public static final int STATE_IDLE = 0;
+  public static final int STATE_RUNNING = 1;
+  public static final int STATE_PAUSED = 2;
+  public static final int STATE_FINISHED = 3;
+
+  public static final long MINUTE_MS = 60_000L;
+  public static final long NO_TICK = -1L;
+
+  private int state = STATE_IDLE;
+  private int kind;
+  private long durationMs;
+  // Running: when it ends. Finished: when it ended. Otherwise unused.
+  private long endsAtMs;
+  // Paused: what is left. Otherwise unused.
+  private long pausedRemainingMs;
+
+  /**
+   * Start a new countdown of {@code durationMs}, replacing whatever was there.
+   */
+  public boolean start(int kind, long durationMs, long nowMs) {
+    if (durationMs <= 0L) {
+      return false;
+    }
+    this.kind = kind;
+    this.durationMs = durationMs;
+    state = STATE_RUNNING;
+    endsAtMs = nowMs + durationMs;
+    pausedRemainingMs = 0L;
+    return true;
+  }
+
+  public boolean pause(long nowMs) {
+    if (expireIfDue(nowMs) || state != STATE_RUNNING) {
+      return false;
+    }
+    pausedRemainingMs = endsAtMs - nowMs;
+    endsAtMs = 0L;
+    state = STATE_PAUSED;
+    return true;
+  }
+
+  public boolean resume(long nowMs) {
+    if (state != STATE_PAUSED) {
+      return false;
+    }
+    endsAtMs = nowMs + pausedRemainingMs;
+    pausedRemainingMs = 0L;
+    state = STATE_RUNNING;
+    return true;
+  }
+
+  public boolean cancel() {
+    if (state == STATE_IDLE) {
+      return false;
+    }
+    state = STATE_IDLE;
+    endsAtMs = 0L;
+    pausedRemainingMs = 0L;
+    return true;
+  }
+
+  /**
+   * Move a running timer whose end has passed to {@link #STATE_FINISHED}. Returns whether it did.
+   */
+  public boolean expireIfDue(long nowMs) {
+    if (state != STATE_RUNNING || nowMs < endsAtMs) {
+      return false;
+    }
+    state = STATE_FINISHED;
+    return true;
+  }
+
+  public long remainingMs(long nowMs) {
+    switch (state) {
+      case STATE_RUNNING:
+        return Math.max(0L, endsAtMs - nowMs);
+      case STATE_PAUSED:
+        return pausedRemainingMs;
+      default:
+        return 0L;
+    }
+  }
+
+  /**
+   * Whole minutes to show, rounded up so "1" covers the last minute.
+   */
+  public int displayMinutes(long nowMs) {
+    return (int) ((remainingMs(nowMs) + MINUTE_MS - 1) / MINUTE_MS);
+  }
+
+  /**
+   * When {@link #displayMinutes} next changes while running, or {@link #NO_TICK}.
+   */
+  public long nextTickAtMs(long nowMs) {
+    if (state != STATE_RUNNING) {
+      return NO_TICK;
+    }
+    long remaining = endsAtMs - nowMs;
+    if (remaining <= 0L) {
+      return nowMs;
+    }
+    return endsAtMs - (remaining - 1) / MINUTE_MS * MINUTE_MS;
+  }
+
+  public int state() {
+    return state;
+  }
+
+  public int kind() {
+    return kind;
+  }
+
+  public long durationMs() {
+    return durationMs;
+  }
+
+  public long endsAtMs() {
+    return endsAtMs;
+  }
+
+  public long pausedRemainingMs() {
+    return pausedRemainingMs;
+  }
+
+  /**
+   * Load persisted fields as written by the getters above. Unknown states read as idle.
+   */
+  public void restore(int state, int kind, long durationMs, long endsAtMs, long pausedRemainingMs) {
+    boolean known = state == STATE_RUNNING || state == STATE_PAUSED || state == STATE_FINISHED;
+    this.state = known ? state : STATE_IDLE;
+    this.kind = kind;
+    this.durationMs = durationMs;
+    this.endsAtMs = this.state == STATE_RUNNING || this.state == STATE_FINISHED ? endsAtMs : 0L;
+    this.pausedRemainingMs = this.state == STATE_PAUSED ? pausedRemainingMs : 0L;
+  }
+}
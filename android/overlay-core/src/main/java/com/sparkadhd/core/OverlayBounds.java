@@ -0,0 +1,72 @@
+package com.sparkadhd.core;
+
+/**
+ * Screen-space layout rules for the bubble and its menu, in pixels.
+ * Holds plain numbers so the rules can run and be measured off the device.
+ */
+public final class OverlayBounds {
+  private int screenWidthPx;
+  private int screenHeightPx;
+  private int edgeMarginPx;
+  private int menuWidthPx;
+
+  public void update(int screenWidthPx, int screenHeightPx, int edgeMarginPx, int menuWidthPx) {
+    this.screenWidthPx = screenWidthPx;
+    this.screenHeightPx = screenHeightPx;
+    this.edgeMarginPx = edgeMarginPx;
+    this.menuWidthPx = menuWidthPx;
+  }
+
+  public int getScreenWidthPx() {
+    return screenWidthPx;
+  }
+
+  public int getScreenHeightPx() {
+    return screenHeightPx;
+  }
+
+  public int getEdgeMarginPx() {
+    return edgeMarginPx;
+  }
+
+  public int getMenuWidthPx() {
+    return menuWidthPx;
+  }
+
+  public int clampBubbleX(int x, int bubbleSize) {
+    int maxX = Math.max(edgeMarginPx, screenWidthPx - bubbleSize - edgeMarginPx);
+    return Math.max(edgeMarginPx, Math.min(x, maxX));
+  }
+
+  public int clampBubbleY(int y, int bubbleSize) {
+    int maxY = Math.max(edgeMarginPx, screenHeightPx - bubbleSize - edgeMarginPx);
+    return Math.max(edgeMarginPx, Math.min(y, maxY));
+  }
+
+  /**
+   * Left or right resting x for a bubble whose center is heading to {@code centerX}.
+   */
+  public int snapX(float centerX, int bubbleSize) {
+    return centerX < screenWidthPx / 2f
+      ? edgeMarginPx
+      : Math.max(edgeMarginPx, screenWidthPx - bubbleSize - edgeMarginPx);
+  }
+
+  /**
+   * Menu y above the bubble, or below it when there is no room, before clamping.
+   */
+  public int menuY(int bubbleY, int bubbleSize, int menuHeight, int gap) {
+    int aboveY = bubbleY - gap - menuHeight;
+    return aboveY >= edgeMarginPx ? aboveY : bubbleY + bubbleSize + gap;
+  }
+
+  public int clampMenuX(int x) {
+    int maxX = Math.max(edgeMarginPx, screenWidthPx - menuWidthPx - edgeMarginPx);
+    return Math.max(edgeMarginPx, Math.min(x, maxX));
+  }
+
+  public int clampMenuY(int y, int menuHeight) {
+    int maxY = Math.max(edgeMarginPx, screenHeightPx - menuHeight - edgeMarginPx);
+    return Math.max(edgeMarginPx, Math.min(y, maxY));
+  }
+}
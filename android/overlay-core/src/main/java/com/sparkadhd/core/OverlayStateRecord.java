@@ -0,0 +1,162 @@
+package com.sparkadhd.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * Field values and on-disk layout of the overlay state file.
+ *
+ * The buffer holds a header and two fixed-size slots. {@link #commit(ByteBuffer)} writes the
+ * inactive slot, stamps it with a CRC32 and then flips the active index, so a torn write never
+ * replaces the last good record. Not thread-safe; the owner synchronizes.
+ */
+public final class OverlayStateRecord {
+  public static final int FLAG_EXPANDED = 1;
+  public static final int FLAG_HAS_PORTRAIT = 1 << 1;
+  public static final int FLAG_HAS_LANDSCAPE = 1 << 2;
+  public static final int FLAG_SCRIM_DISMISS = 1 << 3;
+  public static final int FLAG_HAS_WARM_SIGNALS = 1 << 4;
+
+  private static final int MAGIC = 0x53504F56; // "SPOV"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int SLOT_SIZE = 96;
+  public static final int FILE_SIZE = HEADER_SIZE + SLOT_SIZE * 2;
+
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 4;
+  private static final int HEADER_ACTIVE_SLOT = 8;
+
+  private static final int SLOT_SEQUENCE = 0;
+  private static final int SLOT_COUNT = 8;
+  private static final int SLOT_FLAGS = 12;
+  private static final int SLOT_PORTRAIT_X = 16;
+  private static final int SLOT_PORTRAIT_Y = 20;
+  private static final int SLOT_LANDSCAPE_X = 24;
+  private static final int SLOT_LANDSCAPE_Y = 28;
+  private static final int SLOT_COUNT_UPDATED_AT = 32;
+  private static final int SLOT_POSITION_UPDATED_AT = 40;
+  private static final int SLOT_WARM_SIGNALS = 48;
+  // Focus timer, see FocusTimer. Older files have zeros here, which read as an idle timer.
+  private static final int SLOT_TIMER_STATE = 52;
+  private static final int SLOT_TIMER_KIND = 56;
+  private static final int SLOT_TIMER_DURATION = 60;
+  private static final int SLOT_TIMER_ENDS_AT = 68;
+  private static final int SLOT_TIMER_PAUSED_REMAINING = 76;
+  // Bytes 84..91 are reserved for later format versions.
+  private static final int SLOT_CHECKSUM = SLOT_SIZE - 4;
+
+  public int count;
+  public int flags;
+  public int portraitX;
+  public int portraitY;
+  public int landscapeX;
+  public int landscapeY;
+  public long countUpdatedAtMs;
+  public long positionUpdatedAtMs;
+  public int warmSignals;
+  public int timerState;
+  public int timerKind;
+  public long timerDurationMs;
+  public long timerEndsAtMs;
+  public long timerPausedRemainingMs;
+
+  private final CRC32 crc = new CRC32();
+  private int activeSlot;
+  private long sequence;
+
+  /**
+   * Read the newest valid slot from {@code buffer}. Returns false if neither slot checks out,
+   * leaving the fields untouched.
+   */
+  public boolean load(ByteBuffer buffer) {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.getInt(HEADER_MAGIC) != MAGIC || buffer.getInt(HEADER_VERSION) > FORMAT_VERSION) {
+      return false;
+    }
+
+    int preferred = buffer.getInt(HEADER_ACTIVE_SLOT) == 1 ? 1 : 0;
+    if (isSlotValid(buffer, preferred)) {
+      readSlot(buffer, preferred);
+      return true;
+    }
+    if (isSlotValid(buffer, 1 - preferred)) {
+      readSlot(buffer, 1 - preferred);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Write the current fields to the inactive slot of {@code buffer} and make it the active one.
+   */
+  public void commit(ByteBuffer buffer) {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    int nextSlot = 1 - activeSlot;
+    int base = slotOffset(nextSlot);
+    sequence++;
+    buffer.putLong(base + SLOT_SEQUENCE, sequence);
+    buffer.putInt(base + SLOT_COUNT, count);
+    buffer.putInt(base + SLOT_FLAGS, flags);
+    buffer.putInt(base + SLOT_PORTRAIT_X, portraitX);
+    buffer.putInt(base + SLOT_PORTRAIT_Y, portraitY);
+    buffer.putInt(base + SLOT_LANDSCAPE_X, landscapeX);
+    buffer.putInt(base + SLOT_LANDSCAPE_Y, landscapeY);
+    buffer.putLong(base + SLOT_COUNT_UPDATED_AT, countUpdatedAtMs);
+    buffer.putLong(base + SLOT_POSITION_UPDATED_AT, positionUpdatedAtMs);
+    buffer.putInt(base + SLOT_WARM_SIGNALS, warmSignals);
+    buffer.putInt(base + SLOT_TIMER_STATE, timerState);
+    buffer.putInt(base + SLOT_TIMER_KIND, timerKind);
+    buffer.putLong(base + SLOT_TIMER_DURATION, timerDurationMs);
+    buffer.putLong(base + SLOT_TIMER_ENDS_AT, timerEndsAtMs);
+    buffer.putLong(base + SLOT_TIMER_PAUSED_REMAINING, timerPausedRemainingMs);
+    buffer.putInt(base + SLOT_CHECKSUM, checksum(buffer, base));
+
+    buffer.putInt(HEADER_MAGIC, MAGIC);
+    buffer.putInt(HEADER_VERSION, FORMAT_VERSION);
+    buffer.putInt(HEADER_ACTIVE_SLOT, nextSlot);
+    activeSlot = nextSlot;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  private boolean isSlotValid(ByteBuffer buffer, int slot) {
+    int base = slotOffset(slot);
+    return buffer.getLong(base + SLOT_SEQUENCE) > 0 && buffer.getInt(base + SLOT_CHECKSUM) == checksum(buffer, base);
+  }
+
+  private void readSlot(ByteBuffer buffer, int slot) {
+    int base = slotOffset(slot);
+    activeSlot = slot;
+    sequence = buffer.getLong(base + SLOT_SEQUENCE);
+    count = buffer.getInt(base + SLOT_COUNT);
+    flags = buffer.getInt(base + SLOT_FLAGS);
+    portraitX = buffer.getInt(base + SLOT_PORTRAIT_X);
+    portraitY = buffer.getInt(base + SLOT_PORTRAIT_Y);
+    landscapeX = buffer.getInt(base + SLOT_LANDSCAPE_X);
+    landscapeY = buffer.getInt(base + SLOT_LANDSCAPE_Y);
+    countUpdatedAtMs = buffer.getLong(base + SLOT_COUNT_UPDATED_AT);
+    positionUpdatedAtMs = buffer.getLong(base + SLOT_POSITION_UPDATED_AT);
+    warmSignals = buffer.getInt(base + SLOT_WARM_SIGNALS);
+    timerState = buffer.getInt(base + SLOT_TIMER_STATE);
+    timerKind = buffer.getInt(base + SLOT_TIMER_KIND);
+    timerDurationMs = buffer.getLong(base + SLOT_TIMER_DURATION);
+    timerEndsAtMs = buffer.getLong(base + SLOT_TIMER_ENDS_AT);
+    timerPausedRemainingMs = buffer.getLong(base + SLOT_TIMER_PAUSED_REMAINING);
+  }
+
+  private int checksum(ByteBuffer buffer, int base) {
+    crc.reset();
+    for (int offset = 0; offset < SLOT_CHECKSUM; offset++) {
+      crc.update(buffer.get(base + offset));
+    }
+    return (int) crc.getValue();
+  }
+
+  private static int slotOffset(int slot) {
+    return HEADER_SIZE + slot * SLOT_SIZE;
+  }
+}
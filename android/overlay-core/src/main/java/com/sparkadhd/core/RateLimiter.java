@@ -0,0 +1,25 @@
+package com.sparkadhd.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free minimum-interval gate. Of several callers racing inside one interval, exactly one
+ * is let through.
+ */
+public final class RateLimiter {
+  private final long minIntervalMs;
+  private final AtomicLong lastAcquiredAtMs;
+
+  public RateLimiter(long minIntervalMs) {
+    this.minIntervalMs = minIntervalMs;
+    this.lastAcquiredAtMs = new AtomicLong(-minIntervalMs);
+  }
+
+  /**
+   * Returns true if at least the minimum interval has passed since the last successful call.
+   */
+  public boolean tryAcquire(long nowMs) {
+    long last = lastAcquiredAtMs.get();
+    return nowMs - last >= minIntervalMs && lastAcquiredAtMs.compareAndSet(last, nowMs);
+  }
+}
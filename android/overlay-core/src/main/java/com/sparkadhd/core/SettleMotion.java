@@ -0,0 +1,95 @@
+package com.sparkadhd.core;
+
+/**
+ * Where a released bubble comes to rest and how it gets there.
+ *
+ * The release velocity projects where the bubble is headed and picks the nearest screen edge;
+ * a spring per axis then carries it there. The caller drives {@link #step(float)} once per frame.
+ */
+public final class SettleMotion {
+  private static final float FLING_PROJECTION_S = 0.2f;
+  private static final float EDGE_STIFFNESS = 380f;
+  private static final float EDGE_DAMPING_RATIO = 0.72f;
+  private static final float VERTICAL_STIFFNESS = 260f;
+  private static final float VERTICAL_DAMPING_RATIO = 1f;
+  private static final float MAX_FRAME_STEP_S = 1f / 30f;
+  private static final float REST_DISTANCE_PX = 0.5f;
+  private static final float REST_VELOCITY_PX_S = 12f;
+
+  private final Spring springX = new Spring(EDGE_STIFFNESS, EDGE_DAMPING_RATIO);
+  private final Spring springY = new Spring(VERTICAL_STIFFNESS, VERTICAL_DAMPING_RATIO);
+
+  /**
+   * Start from a release at (x, y) moving at the given velocity in px/s.
+   */
+  public void start(OverlayBounds bounds, int x, int y, float velocityX, float velocityY, int bubbleSize) {
+    float projectedCenterX = x + bubbleSize / 2f + velocityX * FLING_PROJECTION_S;
+    int targetX = bounds.snapX(projectedCenterX, bubbleSize);
+    int targetY = bounds.clampBubbleY(Math.round(y + velocityY * FLING_PROJECTION_S), bubbleSize);
+    springX.reset(x, velocityX, targetX);
+    springY.reset(y, velocityY, targetY);
+  }
+
+  /**
+   * Advance both springs by {@code dt} seconds, capped so a long stall does not overshoot wildly.
+   * Returns true once both have come to rest.
+   */
+  public boolean step(float dt) {
+    float clamped = Math.min(MAX_FRAME_STEP_S, dt);
+    springX.step(clamped);
+    springY.step(clamped);
+    return springX.isAtRest() && springY.isAtRest();
+  }
+
+  public float getX() {
+    return springX.position;
+  }
+
+  public float getY() {
+    return springY.position;
+  }
+
+  public int getTargetX() {
+    return Math.round(springX.target);
+  }
+
+  public int getTargetY() {
+    return Math.round(springY.target);
+  }
+
+  private static final class Spring {
+    private static final float MAX_SUBSTEP_S = 0.004f;
+
+    private final float stiffness;
+    private final float damping;
+    private float position;
+    private float velocity;
+    private float target;
+
+    Spring(float stiffness, float dampingRatio) {
+      this.stiffness = stiffness;
+      this.damping = 2f * dampingRatio * (float) Math.sqrt(stiffness);
+    }
+
+    void reset(float startPosition, float startVelocity, float targetPosition) {
+      position = startPosition;
+      velocity = startVelocity;
+      target = targetPosition;
+    }
+
+    void step(float dt) {
+      // Semi-implicit Euler in small substeps stays stable for any frame time.
+      int substeps = Math.max(1, (int) Math.ceil(dt / MAX_SUBSTEP_S));
+      float h = dt / substeps;
+      for (int index = 0; index < substeps; index++) {
+        float acceleration = -stiffness * (position - target) - damping * velocity;
+        velocity += acceleration * h;
+        position += velocity * h;
+      }
+    }
+
+    boolean isAtRest() {
+      return Math.abs(position - target) < REST_DISTANCE_PX && Math.abs(velocity) < REST_VELOCITY_PX_S;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+import { useEffect, useRef } from 'react';
+import { AppState, AppStateStatus } from 'react-native';
+import OverlayService, { OverlayFocusTimer } from '../services/OverlayService';
+
+/**
+ * Keeps a screen's countdown in step with the native focus timer, which keeps
+ * time while JS is suspended. `onTimer` receives the native timer once
+ * `enabled` is true, again whenever the app returns to the foreground, and on
+ * every native transition. Returns a ref to the last timer seen, which stays
+ * null off Android or when the native timer is unavailable.
+ */
+const useFocusTimerSync = (
+  onTimer: (timer: OverlayFocusTimer) => void,
+  enabled = true,
+) => {
+  const timerRef = useRef<OverlayFocusTimer | null>(null);
+  const onTimerRef = useRef(onTimer);
+
+  useEffect(() => {
+    onTimerRef.current = onTimer;
+  }, [onTimer]);
+
+  useEffect(() => {
+    if (!enabled) {
+      return;
+    }
+
+    let isActive = true;
+    const apply = (timer: OverlayFocusTimer | null) => {
+      if (!isActive || !timer) {
+        return;
+      }
+      timerRef.current = timer;
+      onTimerRef.current(timer);
+    };
+    const read = () => {
+      OverlayService.getFocusTimer().then(apply);
+    };
+
+    read();
+    const unsubscribe = OverlayService.onFocusTimerChanged(apply);
+    const appStateSubscription = AppState.addEventListener(
+      'change',
+      (nextState: AppStateStatus) => {
+        if (nextState === 'active') {
+          read();
+        }
+      },
+    );
+
+    return () => {
+      isActive = false;
+      unsubscribe?.();
+      appStateSubscription.remove();
+    };
+  }, [enabled]);
+
+  return timerRef;
+};
+
+export default useFocusTimerSync;
@@ -0,0 +1,196 @@
+import { useCallback, useEffect, useRef, useState } from 'react';
+import RecordStoreService, {
+  RecordCollection,
+} from '../services/RecordStoreService';
+
+const DEFAULT_PAGE_SIZE = 50;
+
+type StoredRecord = { id: string };
+
+// Where a record the list has not seen goes, given the collection's order.
+const place = <T extends StoredRecord>(
+  items: T[],
+  record: T,
+  newestFirst: boolean,
+): T[] => {
+  if (items.some((item) => item.id === record.id)) {
+    return items.map((item) => (item.id === record.id ? record : item));
+  }
+  return newestFirst ? [record, ...items] : [...items, record];
+};
+
+/**
+ * A record collection read a page at a time in display order; call
+ * `loadMore` as the list nears its end. Writes go through `save`, `remove`
+ * and `clear`: each changes the list at once, waits for the store, and undoes
+ * the change and resolves false when the write failed, so the screen can say
+ * so. `showStored` adds records something else already wrote. `total` is the
+ * size of the whole collection, not just the loaded pages.
+ */
+const usePagedRecords = <T extends StoredRecord>(
+  collection: RecordCollection,
+  isValid: (record: T) => boolean,
+  pageSize = DEFAULT_PAGE_SIZE,
+) => {
+  const [items, setItems] = useState<T[]>([]);
+  const [total, setTotal] = useState(0);
+  const [isLoading, setIsLoading] = useState(true);
+  const [hasMore, setHasMore] = useState(false);
+  const itemsRef = useRef<T[]>([]);
+  const cursorRef = useRef<number | null>(null);
+  const loadingMoreRef = useRef(false);
+  const newestFirst = RecordStoreService.isNewestFirst(collection);
+
+  useEffect(() => {
+    itemsRef.current = items;
+  }, [items]);
+
+  const readPage = useCallback(
+    async (cursor: number | null) => {
+      const page = await RecordStoreService.getPage<T>(
+        collection,
+        pageSize,
+        cursor,
+      );
+      cursorRef.current = page.nextCursor;
+      setHasMore(page.nextCursor !== null);
+      return page.items.filter(isValid);
+    },
+    [collection, isValid, pageSize],
+  );
+
+  useEffect(() => {
+    let isActive = true;
+    Promise.all([readPage(null), RecordStoreService.count(collection)])
+      .then(([firstPage, count]) => {
+        if (isActive) {
+          setItems(firstPage);
+          setTotal(count);
+        }
+      })
+      .catch((error) => {
+        console.error(`Failed to load ${collection}`, error);
+      })
+      .finally(() => {
+        if (isActive) {
+          setIsLoading(false);
+        }
+      });
+
+    return () => {
+      isActive = false;
+    };
+  }, [collection, readPage]);
+
+  const loadMore = useCallback(async () => {
+    if (loadingMoreRef.current || cursorRef.current === null) {
+      return;
+    }
+    loadingMoreRef.current = true;
+    try {
+      const nextPage = await readPage(cursorRef.current);
+      setItems((prev) => {
+        const known = new Set(prev.map((item) => item.id));
+        return [...prev, ...nextPage.filter((item) => !known.has(item.id))];
+      });
+    } catch (error) {
+      console.warn(`Failed to load more ${collection}`, error);
+    } finally {
+      loadingMoreRef.current = false;
+    }
+  }, [collection, readPage]);
+
+  const save = useCallback(
+    async (record: T): Promise<boolean> => {
+      const before = itemsRef.current.find((item) => item.id === record.id);
+      setItems((prev) => place(prev, record, newestFirst));
+      if (!(await RecordStoreService.upsert(collection, [record]))) {
+        setItems((prev) =>
+          before
+            ? place(prev, before, newestFirst)
+            : prev.filter((item) => item.id !== record.id),
+        );
+        return false;
+      }
+      if (!before) {
+        setTotal((count) => count + 1);
+      }
+      return true;
+    },
+    [collection, newestFirst],
+  );
+
+  const remove = useCallback(
+    async (ids: string[]): Promise<boolean> => {
+      const removing = new Set(ids);
+      const removed = itemsRef.current
+        .map((item, index) => ({ item, index }))
+        .filter(({ item }) => removing.has(item.id));
+      setItems((prev) => prev.filter((item) => !removing.has(item.id)));
+      if (!(await RecordStoreService.remove(collection, ids))) {
+        setItems((prev) => {
+          const restored = [...prev];
+          removed.forEach(({ item, index }) => {
+            restored.splice(Math.min(index, restored.length), 0, item);
+          });
+          return restored;
+        });
+        return false;
+      }
+      setTotal((count) => Math.max(0, count - removed.length));
+      return true;
+    },
+    [collection],
+  );
+
+  const clear = useCallback(async (): Promise<boolean> => {
+    const previous = itemsRef.current;
+    setItems([]);
+    if (!(await RecordStoreService.clear(collection))) {
+      setItems(previous);
+      return false;
+    }
+    cursorRef.current = null;
+    setHasMore(false);
+    setTotal(0);
+    return true;
+  }, [collection]);
+
+  /**
+   * Show records that are already stored, oldest first. Returns how many the
+   * list did not have yet.
+   */
+  const showStored = useCallback(
+    (records: T[]): number => {
+      const known = new Set(itemsRef.current.map((item) => item.id));
+      const added = records.filter(
+        (record) => isValid(record) && !known.has(record.id),
+      );
+      if (added.length > 0) {
+        setItems((prev) =>
+          added.reduce(
+            (next, record) => place(next, record, newestFirst),
+            prev,
+          ),
+        );
+        setTotal((count) => count + added.length);
+      }
+      return added.length;
+    },
+    [isValid, newestFirst],
+  );
+
+  return {
+    items,
+    total,
+    isLoading,
+    hasMore,
+    loadMore,
+    save,
+    remove,
+    clear,
+    showStored,
+  };
+};
+
+export default usePagedRecords;
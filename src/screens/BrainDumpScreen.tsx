@@ -26,8 +26,14 @@ import UXMetricsService from '../services/UXMetricsService';
 import RecordingService from '../services/RecordingService';
 import PlaudService from '../services/PlaudService';
 import OverlayService from '../services/OverlayService';
-import AISortService, { SortedItem } from '../services/AISortService';
+import OutboxService from '../services/OutboxService';
+import AISortService, {
+  MAX_SORT_ITEMS,
+  SortedItem,
+} from '../services/AISortService';
+import RecordStoreService from '../services/RecordStoreService';
 import { generateId } from '../utils/helpers';
+import usePagedRecords from '../hooks/usePagedRecords';
 import { LinearButton } from '../components/ui/LinearButton';
 import { Tokens } from '../theme/tokens';
 
@@ -39,7 +45,6 @@ const HIT_SLOP = {
   right: Tokens.spacing[4],
 };
 
-const PERSIST_DEBOUNCE_MS = 300;
 const OVERLAY_COUNT_DEBOUNCE_MS = 250;
 
 const CATEGORY_ORDER: Array<SortedItem['category']> = [
@@ -59,6 +64,9 @@ interface DumpItem {
   audioPath?: string; // Optional local file path
 }
 
+const isDumpItem = (item: DumpItem) =>
+  Boolean(item?.id && item?.text && item?.createdAt);
+
 type RecordingState = 'idle' | 'recording' | 'processing';
 
 type BrainDumpRouteParams = {
@@ -70,52 +78,40 @@ type BrainDumpRoute = RouteProp<Record<'Tasks', BrainDumpRouteParams>, 'Tasks'>;
 const BrainDumpScreen = () => {
   const route = useRoute<BrainDumpRoute>();
   const [input, setInput] = useState('');
-  const [items, setItems] = useState<DumpItem[]>([]);
+  const {
+    items,
+    total,
+    isLoading,
+    loadMore,
+    save: saveItem,
+    remove: removeItems,
+    clear: clearStoredItems,
+    showStored,
+  } = usePagedRecords<DumpItem>('brainDump', isDumpItem);
+  const [saveError, setSaveError] = useState<string | null>(null);
   const [isFocused, setIsFocused] = useState(false);
   const [recordingState, setRecordingState] = useState<RecordingState>('idle');
   const [recordingError, setRecordingError] = useState<string | null>(null);
   const [isSorting, setIsSorting] = useState(false);
-  const [isLoading, setIsLoading] = useState(true);
   const [sortingError, setSortingError] = useState<string | null>(null);
   const [sortedItems, setSortedItems] = useState<SortedItem[]>([]);
   const [showGuide, setShowGuide] = useState(false);
   const [guideDismissed, setGuideDismissed] = useState(true);
   const hasAutoRecorded = useRef(false);
   const previousErrorRef = useRef(false);
-  const persistTimerRef = useRef<ReturnType<typeof setTimeout> | null>(null);
   const overlayCountTimerRef = useRef<ReturnType<typeof setTimeout> | null>(
     null,
   );
   const lastOverlayCountRef = useRef<number>(0);
 
-  const loadItems = async () => {
+  const loadGuide = async () => {
     try {
-      const [storedItems, guideState] = await Promise.all([
-        StorageService.getJSON<DumpItem[]>(
-          StorageService.STORAGE_KEYS.brainDump,
-        ),
-        StorageService.getJSON<{ brainDumpDismissed?: boolean }>(
-          StorageService.STORAGE_KEYS.firstSuccessGuideState,
-        ),
-      ]);
-
-      if (guideState) {
-        setGuideDismissed(!!guideState.brainDumpDismissed);
-      } else {
-        setGuideDismissed(false);
-      }
-
-      if (storedItems && Array.isArray(storedItems)) {
-        const normalized = storedItems.filter((item) => {
-          return Boolean(item?.id && item?.text && item?.createdAt);
-        });
-        LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
-        setItems(normalized);
-      }
+      const guideState = await StorageService.getJSON<{
+        brainDumpDismissed?: boolean;
+      }>(StorageService.STORAGE_KEYS.firstSuccessGuideState);
+      setGuideDismissed(guideState ? !!guideState.brainDumpDismissed : false);
     } catch (error) {
-      console.error('Failed to load items', error);
-    } finally {
-      setIsLoading(false);
+      console.error('Failed to load guide state', error);
     }
   };
 
@@ -125,41 +121,31 @@ const BrainDumpScreen = () => {
         UIManager.setLayoutAnimationEnabledExperimental(true);
       }
     }
-    loadItems();
+    loadGuide();
   }, []);
 
+  // Items are persisted one at a time where they change; this only keeps the
+  // overlay bubble in step on platforms without the native record store.
   useEffect(() => {
-    if (persistTimerRef.current) {
-      clearTimeout(persistTimerRef.current);
+    if (RecordStoreService.isNative()) {
+      return;
     }
-    persistTimerRef.current = setTimeout(() => {
-      StorageService.setJSON(
-        StorageService.STORAGE_KEYS.brainDump,
-        items,
-      ).catch((error) => {
-        console.error('Failed to persist brain dump items:', error);
-      });
-    }, PERSIST_DEBOUNCE_MS);
-
-    if (items.length !== lastOverlayCountRef.current) {
+    if (total !== lastOverlayCountRef.current) {
       if (overlayCountTimerRef.current) {
         clearTimeout(overlayCountTimerRef.current);
       }
       overlayCountTimerRef.current = setTimeout(() => {
-        OverlayService.updateCount(items.length);
-        lastOverlayCountRef.current = items.length;
+        OverlayService.updateCount(total);
+        lastOverlayCountRef.current = total;
       }, OVERLAY_COUNT_DEBOUNCE_MS);
     }
 
     return () => {
-      if (persistTimerRef.current) {
-        clearTimeout(persistTimerRef.current);
-      }
       if (overlayCountTimerRef.current) {
         clearTimeout(overlayCountTimerRef.current);
       }
     };
-  }, [items]);
+  }, [total]);
 
   const dismissGuide = async () => {
     LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
@@ -175,7 +161,7 @@ const BrainDumpScreen = () => {
     );
   };
 
-  const addItem = () => {
+  const addItem = async () => {
     if (input.trim()) {
       LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
       const newItem: DumpItem = {
@@ -184,18 +170,22 @@ const BrainDumpScreen = () => {
         createdAt: new Date().toISOString(),
         source: 'text',
       };
-      setItems((prevItems) => {
-        const next = [newItem, ...prevItems];
-        // Track first item added if guide not dismissed
-        if (!guideDismissed && !showGuide) {
-          UXMetricsService.track('brain_dump_first_item_added');
-          setShowGuide(true);
-        }
-        return next;
-      });
       setInput('');
       setSortedItems([]);
       setSortingError(null);
+      setSaveError(null);
+
+      if (!(await saveItem(newItem))) {
+        // Hand the text back so nothing typed is lost.
+        setInput(newItem.text);
+        setSaveError('Could not save that thought. Try again.');
+        return;
+      }
+      // Track first item added if guide not dismissed
+      if (!guideDismissed && !showGuide) {
+        UXMetricsService.track('brain_dump_first_item_added');
+        setShowGuide(true);
+      }
     }
   };
 
@@ -227,8 +217,27 @@ const BrainDumpScreen = () => {
         return;
       }
 
-      // Send to Plaud for transcription
-      const transcription = await PlaudService.transcribe(result.uri);
+      // Streamed recordings come back transcribed. Otherwise queue the upload
+      // where the outbox exists, so a dead network costs nothing: the item
+      // shows up when its transcription completes, even after a restart.
+      if (!result.transcription && PlaudService.canQueueTranscription()) {
+        try {
+          await PlaudService.queueTranscription(result.uri, {
+            id: generateId(),
+            createdAt: new Date().toISOString(),
+            source: 'audio',
+            audioPath: result.uri,
+          });
+        } catch (error) {
+          console.error('Failed to queue transcription', error);
+          setRecordingError('Could not save the recording for transcription.');
+        }
+        setRecordingState('idle');
+        return;
+      }
+
+      const transcription =
+        result.transcription ?? (await PlaudService.transcribe(result.uri));
 
       if (transcription.success && transcription.transcription) {
         if (previousErrorRef.current) {
@@ -243,21 +252,53 @@ const BrainDumpScreen = () => {
           source: 'audio',
           audioPath: result.uri,
         };
-        setItems((prevItems) => {
-          const next = [newItem, ...prevItems];
-          if (!guideDismissed && !showGuide) {
-            UXMetricsService.track('brain_dump_first_item_added');
-            setShowGuide(true);
-          }
-          return next;
-        });
+        if (!(await saveItem(newItem))) {
+          setRecordingError('Could not save the transcription.');
+        } else if (!guideDismissed && !showGuide) {
+          UXMetricsService.track('brain_dump_first_item_added');
+          setShowGuide(true);
+        }
       } else {
         setRecordingError(transcription.error || 'Transcription failed.');
       }
 
       setRecordingState('idle');
     }
-  }, [guideDismissed, recordingError, recordingState, showGuide]);
+  }, [guideDismissed, recordingError, recordingState, saveItem, showGuide]);
+
+  // Queued transcriptions finish in the background; the native side has
+  // already stored the completed record, so only the list needs updating.
+  useEffect(() => {
+    return OutboxService.onCompleted((completion) => {
+      if (completion.kind !== 'transcribe') {
+        return;
+      }
+      if (!completion.ok || !completion.record) {
+        setRecordingError(completion.error || 'Transcription failed.');
+        return;
+      }
+      let record: DumpItem;
+      try {
+        record = JSON.parse(completion.record) as DumpItem;
+      } catch {
+        return;
+      }
+      LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
+      if (showStored([record]) > 0 && !guideDismissed && !showGuide) {
+        UXMetricsService.track('brain_dump_first_item_added');
+        setShowGuide(true);
+      }
+    });
+  }, [guideDismissed, showGuide, showStored]);
+
+  // Items saved from the bubble's capture panel are merged while this screen
+  // is open; show the ones the list does not have yet.
+  useEffect(() => {
+    return OverlayService.onCapturesMerged((merged) => {
+      LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
+      showStored(merged);
+    });
+  }, [showStored]);
 
   useEffect(() => {
     if (!route.params?.autoRecord || hasAutoRecorded.current) {
@@ -268,19 +309,26 @@ const BrainDumpScreen = () => {
     handleRecordPress();
   }, [handleRecordPress, route.params?.autoRecord]);
 
-  const deleteItem = (id: string) => {
+  const deleteItem = async (id: string) => {
     LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
-    setItems((prevItems) => prevItems.filter((item) => item.id !== id));
     setSortedItems([]);
     setSortingError(null);
+    setSaveError(null);
+    if (!(await removeItems([id]))) {
+      setSaveError('Could not delete that item. Try again.');
+    }
   };
 
   const clearAll = () => {
-    const clearItems = () => {
+    const clearItems = async () => {
       LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
-      setItems([]);
       setSortedItems([]);
       setSortingError(null);
+      setSaveError(null);
+      if (!(await clearStoredItems())) {
+        setSaveError('Could not clear your items. Try again.');
+        return;
+      }
       AccessibilityInfo.announceForAccessibility('All items cleared.');
     };
 
@@ -300,8 +348,13 @@ const BrainDumpScreen = () => {
     setIsSorting(true);
 
     try {
+      // Sort the stored dump, not just the pages the list has loaded.
+      const page = await RecordStoreService.getPage<DumpItem>(
+        'brainDump',
+        MAX_SORT_ITEMS,
+      );
       const sorted = await AISortService.sortItems(
-        items.map((item) => item.text),
+        page.items.filter(isDumpItem).map((item) => item.text),
       );
       setSortedItems(sorted);
       AccessibilityInfo.announceForAccessibility('AI suggestions updated.');
@@ -489,7 +542,7 @@ const BrainDumpScreen = () => {
             </View>
           ) : items.length > 0 ? (
             <View style={styles.actionsBar}>
-              <Text style={styles.countText}>{items.length} ITEMS</Text>
+              <Text style={styles.countText}>{total} ITEMS</Text>
               <View style={styles.actionsRight}>
                 <Pressable
                   onPress={handleAISort}
@@ -538,6 +591,7 @@ const BrainDumpScreen = () => {
           ) : null}
 
           {sortingError && <Text style={styles.errorText}>{sortingError}</Text>}
+          {saveError && <Text style={styles.errorText}>{saveError}</Text>}
 
           {!isLoading && groupedSortedItems.length > 0 && (
             <View style={styles.sortedSection}>
@@ -573,6 +627,8 @@ const BrainDumpScreen = () => {
               data={items}
               keyExtractor={(item) => item.id}
               renderItem={renderItem}
+              onEndReached={loadMore}
+              onEndReachedThreshold={0.5}
               keyboardShouldPersistTaps="handled"
               keyboardDismissMode="on-drag"
               initialNumToRender={10}
@@ -15,6 +15,7 @@ import {
 import StorageService from '../services/StorageService';
 import UXMetricsService from '../services/UXMetricsService';
 import { generateId } from '../utils/helpers';
+import usePagedRecords from '../hooks/usePagedRecords';
 import { LinearButton } from '../components/ui/LinearButton';
 import { Tokens } from '../theme/tokens';
 
@@ -27,13 +28,21 @@ interface Task {
 
 const FOCUS_RING_SHADOW = '0 0 0 2px #FFFFFF';
 
+const isTask = (item: Task) =>
+  Boolean(item?.id && item?.text && Array.isArray(item?.microSteps));
+
 const FogCutterScreen = () => {
   const [task, setTask] = useState('');
   const [microSteps, setMicroSteps] = useState<string[]>([]);
   const [newStep, setNewStep] = useState('');
-  const [tasks, setTasks] = useState<Task[]>([]);
+  const {
+    items: tasks,
+    isLoading,
+    loadMore,
+    save: saveTask,
+  } = usePagedRecords<Task>('tasks', isTask);
   const [focusedInput, setFocusedInput] = useState<string | null>(null);
-  const [isLoading, setIsLoading] = useState(true);
+  const [saveError, setSaveError] = useState<string | null>(null);
   const [showGuide, setShowGuide] = useState(false);
   const [guideDismissed, setGuideDismissed] = useState(true);
 
@@ -43,43 +52,20 @@ const FogCutterScreen = () => {
         UIManager.setLayoutAnimationEnabledExperimental(true);
       }
     }
-    const loadTasksAndGuide = async () => {
+    const loadGuide = async () => {
       try {
-        const [storedTasks, guideState] = await Promise.all([
-          StorageService.getJSON<Task[]>(StorageService.STORAGE_KEYS.tasks),
-          StorageService.getJSON<{ fogCutterDismissed?: boolean }>(
-            StorageService.STORAGE_KEYS.firstSuccessGuideState,
-          ),
-        ]);
-
-        if (guideState) {
-          setGuideDismissed(!!guideState.fogCutterDismissed);
-        } else {
-          setGuideDismissed(false);
-        }
-
-        if (storedTasks && Array.isArray(storedTasks)) {
-          const normalized = storedTasks.filter((item) => {
-            return Boolean(
-              item?.id && item?.text && Array.isArray(item?.microSteps),
-            );
-          });
-          setTasks(normalized);
-        }
+        const guideState = await StorageService.getJSON<{
+          fogCutterDismissed?: boolean;
+        }>(StorageService.STORAGE_KEYS.firstSuccessGuideState);
+        setGuideDismissed(guideState ? !!guideState.fogCutterDismissed : false);
       } catch (error) {
-        console.error('Failed to load tasks', error);
-      } finally {
-        setIsLoading(false);
+        console.error('Failed to load guide state', error);
       }
     };
 
-    loadTasksAndGuide();
+    loadGuide();
   }, []);
 
-  useEffect(() => {
-    StorageService.setJSON(StorageService.STORAGE_KEYS.tasks, tasks);
-  }, [tasks]);
-
   const addMicroStep = () => {
     if (newStep.trim()) {
       setMicroSteps([...microSteps, newStep.trim()]);
@@ -87,7 +73,7 @@ const FogCutterScreen = () => {
     }
   };
 
-  const addTask = () => {
+  const addTask = async () => {
     if (task.trim() && microSteps.length > 0) {
       const newTask: Task = {
         id: generateId(),
@@ -95,16 +81,23 @@ const FogCutterScreen = () => {
         completed: false,
         microSteps: [...microSteps],
       };
-      setTasks((prevTasks) => [...prevTasks, newTask]);
+      setSaveError(null);
+      setTask('');
+      setMicroSteps([]);
+
+      if (!(await saveTask(newTask))) {
+        // Hand the draft back so nothing typed is lost.
+        setTask(newTask.text);
+        setMicroSteps(newTask.microSteps);
+        setSaveError('COULD NOT SAVE THE TASK. TRY AGAIN.');
+        return;
+      }
 
       if (!guideDismissed && !showGuide) {
         UXMetricsService.track('fog_cutter_first_task_saved');
         LayoutAnimation.configureNext(LayoutAnimation.Presets.easeInEaseOut);
         setShowGuide(true);
       }
-
-      setTask('');
-      setMicroSteps([]);
     }
   };
 
@@ -122,12 +115,15 @@ const FogCutterScreen = () => {
     );
   };
 
-  const toggleTask = (id: string) => {
-    setTasks((prevTasks) =>
-      prevTasks.map((t) =>
-        t.id === id ? { ...t, completed: !t.completed } : t,
-      ),
-    );
+  const toggleTask = async (id: string) => {
+    const current = tasks.find((t) => t.id === id);
+    if (!current) {
+      return;
+    }
+    setSaveError(null);
+    if (!(await saveTask({ ...current, completed: !current.completed }))) {
+      setSaveError('COULD NOT UPDATE THE TASK. TRY AGAIN.');
+    }
   };
 
   const renderMicroStep = ({
@@ -214,6 +210,7 @@ const FogCutterScreen = () => {
               size="lg"
               style={styles.saveButton}
             />
+            {saveError && <Text style={styles.errorText}>{saveError}</Text>}
           </View>
 
           <View style={styles.divider} />
@@ -251,6 +248,8 @@ const FogCutterScreen = () => {
             <FlatList
               data={tasks}
               keyExtractor={(item) => item.id}
+              onEndReached={loadMore}
+              onEndReachedThreshold={0.5}
               contentContainerStyle={styles.listContent}
               renderItem={({ item }) => (
                 <Pressable
@@ -457,6 +456,13 @@ const styles = StyleSheet.create({
     // I'll assume standard styling for now but if it had a 'variant' for primary-red it would be good.
     // I'll treat it as the Red Accent implicitly by location.
   },
+  errorText: {
+    fontFamily: Tokens.type.fontFamily.mono,
+    fontSize: Tokens.type.xs,
+    color: '#CC0000',
+    marginTop: Tokens.spacing[2],
+    textAlign: 'center',
+  },
   divider: {
     height: 1,
     backgroundColor: '#333333',
@@ -24,6 +24,7 @@ import {
 } from 'react-native';
 import OverlayService from '../services/OverlayService';
 import StorageService from '../services/StorageService';
+import RecordStoreService from '../services/RecordStoreService';
 import useReducedMotion from '../hooks/useReducedMotion';
 import { Tokens } from '../theme/tokens';
 import ModeCard, { ModeCardMode } from '../components/home/ModeCard';
@@ -53,7 +54,9 @@ type OverlayEvent = {
 
 const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
   const [streak, setStreak] = useState(0);
-  const [isOverlayEnabled, setIsOverlayEnabled] = useState(false);
+  const [isOverlayEnabled, setIsOverlayEnabled] = useState(() =>
+    OverlayService.canDrawOverlaysSync(),
+  );
   const [isOverlayPermissionRequesting, setIsOverlayPermissionRequesting] =
     useState(false);
   const [overlayEvents, setOverlayEvents] = useState<OverlayEvent[]>([]);
@@ -175,19 +178,14 @@ const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
     modes.map(() => new Animated.Value(ENTRANCE_OFFSET_Y)),
   ).current;
 
-  const checkOverlayPermission = useCallback(async () => {
+  const checkOverlayPermission = useCallback(() => {
     if (Platform.OS === 'android') {
-      const hasPermission = await OverlayService.canDrawOverlays();
-      setIsOverlayEnabled(hasPermission);
+      setIsOverlayEnabled(OverlayService.canDrawOverlaysSync());
     }
   }, []);
 
   const startOverlayWithLatestCount = useCallback(async () => {
-    const taskItems =
-      (await StorageService.getJSON<Array<{ id: string }>>(
-        StorageService.STORAGE_KEYS.brainDump,
-      )) || [];
-    OverlayService.updateCount(taskItems.length);
+    OverlayService.updateCount(await RecordStoreService.count('brainDump'));
     OverlayService.startOverlay();
     setIsOverlayEnabled(true);
   }, []);
@@ -206,7 +204,6 @@ const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
 
   useEffect(() => {
     loadStreak();
-    checkOverlayPermission();
 
     if (prefersReducedMotion) {
       fadeAnims.forEach((anim) => anim.setValue(1));
@@ -232,14 +229,7 @@ const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
     });
 
     Animated.stagger(ANIMATION_STAGGER, animations).start();
-  }, [
-    checkOverlayPermission,
-    fadeAnims,
-    loadStreak,
-    modes,
-    prefersReducedMotion,
-    slideAnims,
-  ]);
+  }, [fadeAnims, loadStreak, modes, prefersReducedMotion, slideAnims]);
 
   useEffect(() => {
     if (Platform.OS !== 'android') {
@@ -326,8 +316,7 @@ const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
       try {
         if (value) {
           setIsOverlayPermissionRequesting(true);
-          const hasPermission = await OverlayService.canDrawOverlays();
-          if (hasPermission) {
+          if (OverlayService.canDrawOverlaysSync()) {
             setIsOverlayPermissionRequesting(false);
             await startOverlayWithLatestCount();
             return;
@@ -335,7 +324,7 @@ const HomeScreen = ({ navigation }: { navigation: NavigationNode }) => {
 
           const granted = await OverlayService.requestOverlayPermission();
           const hasPermissionAfterRequest =
-            granted || (await OverlayService.canDrawOverlays());
+            granted || OverlayService.canDrawOverlaysSync();
 
           if (hasPermissionAfterRequest) {
             setIsOverlayPermissionRequesting(false);
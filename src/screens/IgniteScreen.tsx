@@ -8,9 +8,11 @@ import {
   Platform,
   ActivityIndicator,
 } from 'react-native';
+import OverlayService, { OverlayFocusTimer } from '../services/OverlayService';
 import SoundService from '../services/SoundService';
 import StorageService from '../services/StorageService';
 import UXMetricsService from '../services/UXMetricsService';
+import useFocusTimerSync from '../hooks/useFocusTimerSync';
 import useTimer from '../hooks/useTimer';
 import { Tokens } from '../theme/tokens';
 import { LinearButton } from '../components/ui/LinearButton';
@@ -23,16 +25,47 @@ const IgniteScreen = () => {
   const [isPlaying, setIsPlaying] = useState(false);
   const [isRestoring, setIsRestoring] = useState(true);
   const persistTimerRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const timeLeftRef = useRef(IGNITE_DURATION_SECONDS);
+
+  const completeTimer = () => {
+    SoundService.playCompletionSound();
+    UXMetricsService.track('ignite_timer_completed');
+  };
 
   const { timeLeft, isRunning, formattedTime, start, pause, reset, setTime } =
     useTimer({
       initialTime: IGNITE_DURATION_SECONDS,
-      onComplete: () => {
-        SoundService.playCompletionSound();
-        UXMetricsService.track('ignite_timer_completed');
-      },
+      onComplete: completeTimer,
     });
 
+  useEffect(() => {
+    timeLeftRef.current = timeLeft;
+  }, [timeLeft]);
+
+  // The native timer keeps counting while JS is suspended, so its time left
+  // wins over the JS countdown whenever the two are compared.
+  const nativeTimerRef = useFocusTimerSync((timer: OverlayFocusTimer) => {
+    if (timer.kind !== 'ignite') {
+      return;
+    }
+    if (timer.state === 'running' || timer.state === 'paused') {
+      setTime(Math.ceil(timer.remainingMs / 1000));
+      if (timer.state === 'running') {
+        start();
+      } else {
+        pause();
+      }
+      return;
+    }
+    // A finish the JS countdown has not reached yet, typically because the
+    // app was in the background.
+    if (timer.state === 'finished' && timeLeftRef.current > 0) {
+      setTime(0);
+      pause();
+      completeTimer();
+    }
+  }, !isRestoring);
+
   useEffect(() => {
     SoundService.initBrownNoise();
 
@@ -90,15 +123,23 @@ const IgniteScreen = () => {
 
   const startTimer = () => {
     start();
+    const nativeTimer = nativeTimerRef.current;
+    if (nativeTimer?.state === 'paused' && nativeTimer.kind === 'ignite') {
+      OverlayService.resumeFocusTimer();
+    } else {
+      OverlayService.startFocusTimer('ignite', timeLeft * 1000);
+    }
     UXMetricsService.track('ignite_timer_started');
   };
 
   const pauseTimer = () => {
     pause();
+    OverlayService.pauseFocusTimer();
   };
 
   const resetTimer = () => {
     reset();
+    OverlayService.cancelFocusTimer();
     setIsPlaying(false);
     SoundService.pauseBrownNoise();
   };
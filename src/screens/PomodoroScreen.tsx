@@ -1,7 +1,9 @@
 import React, { useEffect, useRef, useState } from 'react';
 import { View, Text, StyleSheet, SafeAreaView, Platform } from 'react-native';
+import OverlayService, { OverlayFocusTimer } from '../services/OverlayService';
 import SoundService from '../services/SoundService';
 import StorageService from '../services/StorageService';
+import useFocusTimerSync from '../hooks/useFocusTimerSync';
 import useTimer from '../hooks/useTimer';
 import { LinearButton } from '../components/ui/LinearButton';
 import { Tokens } from '../theme/tokens';
@@ -33,28 +35,51 @@ const PHASE_STYLES = {
 const PomodoroScreen = () => {
   const [isWorking, setIsWorking] = useState(true);
   const [sessions, setSessions] = useState(0);
+  const [isRestored, setIsRestored] = useState(false);
   const isWorkingRef = useRef(isWorking);
+  const timeLeftRef = useRef(FOCUS_DURATION_SECONDS);
   const persistTimerRef = useRef<ReturnType<typeof setTimeout> | null>(null);
 
+  const setPhase = (working: boolean) => {
+    setIsWorking(working);
+    isWorkingRef.current = working;
+  };
+
+  // Moves to the next phase and starts it. `lateMs` is how long ago the
+  // phase actually ended, when the app only learns of it later.
+  const completePhase = (lateMs: number) => {
+    const wasWorking = isWorkingRef.current;
+    if (wasWorking) {
+      setSessions((s) => s + 1);
+      SoundService.playCompletionSound();
+    } else {
+      SoundService.playNotificationSound();
+    }
+
+    const nextSeconds = wasWorking
+      ? BREAK_DURATION_SECONDS
+      : FOCUS_DURATION_SECONDS;
+    const nextMs = nextSeconds * 1000 - lateMs;
+    if (nextMs <= 0) {
+      // The next phase ran out too while the app was away; wait for the user.
+      setPhase(true);
+      setTime(FOCUS_DURATION_SECONDS);
+      pause();
+      OverlayService.cancelFocusTimer();
+      return;
+    }
+
+    setPhase(!wasWorking);
+    setTime(Math.ceil(nextMs / 1000));
+    OverlayService.startFocusTimer(wasWorking ? 'break' : 'focus', nextMs);
+    // Re-start for the next phase
+    setTimeout(() => start(), 0);
+  };
+
   const { timeLeft, isRunning, formattedTime, start, pause, reset, setTime } =
     useTimer({
       initialTime: FOCUS_DURATION_SECONDS,
-      onComplete: () => {
-        if (isWorkingRef.current) {
-          setSessions((s) => s + 1);
-          setIsWorking(false);
-          isWorkingRef.current = false;
-          SoundService.playCompletionSound();
-          setTime(BREAK_DURATION_SECONDS);
-        } else {
-          setIsWorking(true);
-          isWorkingRef.current = true;
-          SoundService.playNotificationSound();
-          setTime(FOCUS_DURATION_SECONDS);
-        }
-        // Re-start for the next phase
-        setTimeout(() => start(), 0);
-      },
+      onComplete: () => completePhase(0),
     });
 
   useEffect(() => {
@@ -62,25 +87,62 @@ const PomodoroScreen = () => {
   }, [isWorking]);
 
   useEffect(() => {
-    const loadState = async () => {
-      const storedState = await StorageService.getJSON<PomodoroState>(
-        StorageService.STORAGE_KEYS.pomodoroState,
-      );
+    timeLeftRef.current = timeLeft;
+  }, [timeLeft]);
 
-      if (!storedState) {
-        return;
+  // The native timer keeps counting while JS is suspended, so its time left
+  // and phase win over the JS countdown whenever the two are compared.
+  const nativeTimerRef = useFocusTimerSync((timer: OverlayFocusTimer) => {
+    if (timer.kind !== 'focus' && timer.kind !== 'break') {
+      return;
+    }
+    const working = timer.kind === 'focus';
+    if (timer.state === 'running' || timer.state === 'paused') {
+      setPhase(working);
+      setTime(Math.ceil(timer.remainingMs / 1000));
+      if (timer.state === 'running') {
+        start();
+      } else {
+        pause();
       }
+      return;
+    }
+    // A finish for the phase on screen that the JS countdown has not reached
+    // yet, typically because the app was in the background.
+    if (
+      timer.state === 'finished' &&
+      working === isWorkingRef.current &&
+      timeLeftRef.current > 0
+    ) {
+      completePhase(Math.max(0, Date.now() - (timer.endsAtMs ?? Date.now())));
+    }
+  }, isRestored);
 
-      if (typeof storedState.isWorking === 'boolean') {
-        setIsWorking(storedState.isWorking);
-      }
+  useEffect(() => {
+    const loadState = async () => {
+      try {
+        const storedState = await StorageService.getJSON<PomodoroState>(
+          StorageService.STORAGE_KEYS.pomodoroState,
+        );
 
-      if (typeof storedState.timeLeft === 'number') {
-        setTime(storedState.timeLeft);
-      }
+        if (!storedState) {
+          return;
+        }
 
-      if (typeof storedState.sessions === 'number') {
-        setSessions(storedState.sessions);
+        if (typeof storedState.isWorking === 'boolean') {
+          setIsWorking(storedState.isWorking);
+        }
+
+        if (typeof storedState.timeLeft === 'number') {
+          setTime(storedState.timeLeft);
+        }
+
+        if (typeof storedState.sessions === 'number') {
+          setSessions(storedState.sessions);
+        }
+      } finally {
+        // Only now read the native timer, so it overrides the stored state.
+        setIsRestored(true);
       }
     };
 
@@ -107,18 +169,28 @@ const PomodoroScreen = () => {
     };
   }, [isWorking, timeLeft, sessions]);
 
+  // The bubble mirrors the countdown natively, so it keeps showing the time
+  // left without waking JS.
   const startTimer = () => {
     start();
+    const kind = isWorking ? 'focus' : 'break';
+    const nativeTimer = nativeTimerRef.current;
+    if (nativeTimer?.state === 'paused' && nativeTimer.kind === kind) {
+      OverlayService.resumeFocusTimer();
+    } else {
+      OverlayService.startFocusTimer(kind, timeLeft * 1000);
+    }
   };
 
   const pauseTimer = () => {
     pause();
+    OverlayService.pauseFocusTimer();
   };
 
   const resetTimer = () => {
     reset();
-    setIsWorking(true);
-    isWorkingRef.current = true;
+    OverlayService.cancelFocusTimer();
+    setPhase(true);
     setTime(FOCUS_DURATION_SECONDS);
   };
 
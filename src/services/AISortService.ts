@@ -1,4 +1,9 @@
+import { NativeModules, Platform } from 'react-native';
 import { config } from '../config';
+import OutboxService, {
+  OutboxCompletion,
+  OutboxPendingError,
+} from './OutboxService';
 
 export type SortCategory =
   | 'task'
@@ -33,6 +38,34 @@ const ALLOWED_CATEGORIES: SortCategory[] = [
 
 const ALLOWED_PRIORITIES: SortPriority[] = ['high', 'medium', 'low'];
 
+interface SortCachePlan {
+  key: string;
+  sorted: string | null;
+  base: string | null;
+  missing: string[];
+}
+
+// On Android, results are cached natively (SortCacheModule) by a hash of the
+// normalized items and timezone, in memory and on disk with a TTL.
+const { SortCacheModule } = NativeModules as {
+  SortCacheModule?: {
+    plan: (items: string[], timezone: string | null) => Promise<SortCachePlan>;
+    put: (
+      items: string[],
+      timezone: string | null,
+      sorted: string,
+    ) => Promise<boolean>;
+    clear: () => Promise<boolean>;
+    getStats: () => Promise<Record<string, number>>;
+  };
+};
+
+const nativeSortCache = () =>
+  Platform.OS === 'android' ? SortCacheModule : undefined;
+
+// Sorts currently on the wire, so concurrent identical sorts share one call.
+const inFlight = new Map<string, Promise<SortedItem[]>>();
+
 function isSortedItem(value: unknown): value is SortedItem {
   if (!value || typeof value !== 'object') {
     return false;
@@ -61,38 +94,154 @@ function assertSortResponse(value: unknown): SortResponse {
   };
 }
 
+function readSortPayload(ok: boolean, payload: unknown): SortedItem[] {
+  if (!ok) {
+    const error =
+      payload && typeof payload === 'object'
+        ? (payload as Record<string, unknown>).error
+        : undefined;
+    throw new Error(
+      typeof error === 'string' ? error : 'Unable to sort items right now.',
+    );
+  }
+
+  return assertSortResponse(payload).sorted;
+}
+
+// Android: the request is journaled natively and retried until the network is
+// back. A sort that cannot go out right away fails at once rather than
+// spinning; asking again for the same items picks up a result that arrived
+// late.
+async function sortThroughOutbox(
+  url: string,
+  headers: Record<string, string>,
+  body: string,
+): Promise<SortedItem[]> {
+  let completion: OutboxCompletion;
+  try {
+    completion = await OutboxService.request({
+      kind: 'sort',
+      url,
+      method: 'POST',
+      headers,
+      body,
+      dedupe: true,
+    });
+  } catch (error) {
+    if (error instanceof OutboxPendingError) {
+      throw new Error(
+        error.state === 'offline'
+          ? "You're offline. Sorting will finish once you reconnect."
+          : "Couldn't reach the server. Sorting will retry in the background.",
+      );
+    }
+    throw error;
+  }
+
+  if (completion.status === 0) {
+    throw new Error(completion.error || 'Unable to sort items right now.');
+  }
+
+  let payload: unknown = null;
+  try {
+    payload = completion.body ? JSON.parse(completion.body) : null;
+  } catch {
+    payload = null;
+  }
+  return readSortPayload(completion.ok, payload);
+}
+
+async function requestSort(
+  items: string[],
+  timezone?: string,
+): Promise<SortedItem[]> {
+  const url = `${config.apiBaseUrl}/api/sort`;
+  const headers = {
+    'Content-Type': 'application/json',
+  };
+  const body = JSON.stringify({
+    items,
+    timezone,
+  });
+
+  if (OutboxService.isAvailable()) {
+    return sortThroughOutbox(url, headers, body);
+  }
+
+  const response = await fetch(url, {
+    method: 'POST',
+    headers,
+    body,
+  });
+
+  const payload = await response.json();
+  return readSortPayload(response.ok, payload);
+}
+
+function parseCachedSort(json: string): SortedItem[] | null {
+  try {
+    return assertSortResponse({ sorted: JSON.parse(json) }).sorted;
+  } catch {
+    return null;
+  }
+}
+
+/** The most items one sort request takes; the rest are left out. */
+export const MAX_SORT_ITEMS = 100;
+
 const AISortService = {
   async sortItems(items: string[], timezone?: string): Promise<SortedItem[]> {
     const cleanedItems = items
       .map((item) => item.trim())
       .filter(Boolean)
-      .slice(0, 100);
+      .slice(0, MAX_SORT_ITEMS);
 
     if (cleanedItems.length === 0) {
       return [];
     }
 
-    const response = await fetch(`${config.apiBaseUrl}/api/sort`, {
-      method: 'POST',
-      headers: {
-        'Content-Type': 'application/json',
-      },
-      body: JSON.stringify({
-        items: cleanedItems,
-        timezone,
-      }),
-    });
+    const cache = nativeSortCache();
+    let plan: SortCachePlan | null = null;
+    if (cache) {
+      try {
+        plan = await cache.plan(cleanedItems, timezone ?? null);
+      } catch (error) {
+        console.warn('AISortService cache lookup failed:', error);
+      }
+    }
+
+    const cached = plan?.sorted ? parseCachedSort(plan.sorted) : null;
+    if (cached) {
+      return cached;
+    }
 
-    const payload = await response.json();
-    if (!response.ok) {
-      const message =
-        payload && typeof payload.error === 'string'
-          ? payload.error
-          : 'Unable to sort items right now.';
-      throw new Error(message);
+    const key =
+      plan?.key ?? JSON.stringify([timezone ?? null, [...cleanedItems].sort()]);
+    const existing = inFlight.get(key);
+    if (existing) {
+      return existing;
     }
 
-    return assertSortResponse(payload).sorted;
+    const pending = (async () => {
+      // Incremental re-sort: only items the cached base lacks are sent.
+      const base = plan?.base ? parseCachedSort(plan.base) : null;
+      const toSend = base && plan ? plan.missing : cleanedItems;
+      const fresh =
+        toSend.length > 0 ? await requestSort(toSend, timezone) : [];
+      const sorted = base ? [...base, ...fresh] : fresh;
+      if (cache) {
+        cache
+          .put(cleanedItems, timezone ?? null, JSON.stringify(sorted))
+          .catch((error) =>
+            console.warn('AISortService cache store failed:', error),
+          );
+      }
+      return sorted;
+    })().finally(() => {
+      inFlight.delete(key);
+    });
+    inFlight.set(key, pending);
+    return pending;
   },
 };
 
@@ -0,0 +1,260 @@
+import {
+  EmitterSubscription,
+  NativeEventEmitter,
+  NativeModules,
+  Platform,
+} from 'react-native';
+
+/**
+ * OutboxService
+ *
+ * Middleware requests that must survive a dead network or a killed app. On
+ * Android they are journaled natively (OutboxModule), retried with backoff and
+ * sent by a background job once the device is back online. Results arrive as
+ * `outboxCompleted` events, including results for requests queued by an
+ * earlier app session. An `outboxQueued` event says a send failed and was
+ * pushed back to a retry.
+ */
+
+export interface OutboxRequest {
+  kind: string;
+  url: string;
+  method?: string;
+  headers?: Record<string, string>;
+  body?: string;
+  file?: {
+    uri: string;
+    field?: string;
+    name?: string;
+    type?: string;
+  };
+  fields?: Record<string, string>;
+  // Identical pending requests are sent once and share an id.
+  dedupe?: boolean;
+  ttlMs?: number;
+  // JSON brain dump record the native side completes and stores with the
+  // transcription, so the result is kept even if JS is not running.
+  brainDumpRecord?: string;
+}
+
+export interface OutboxCompletion {
+  id: string;
+  kind: string;
+  ok: boolean;
+  status: number;
+  body: string | null;
+  error: string | null;
+  record: string | null;
+}
+
+export type OutboxStats = Record<string, number>;
+
+// Whether a request is on the wire, or waits for a network or a retry.
+export type OutboxState = 'sending' | 'offline' | 'retrying';
+
+export class OutboxPendingError extends Error {
+  readonly id: string;
+  readonly state: OutboxState;
+
+  constructor(id: string, state: OutboxState) {
+    super(
+      state === 'offline'
+        ? 'Request queued until the network is back.'
+        : 'Request queued for a retry.',
+    );
+    this.name = 'OutboxPendingError';
+    this.id = id;
+    this.state = state;
+  }
+}
+
+interface OutboxQueued {
+  id: string;
+  state: OutboxState;
+}
+
+const { OutboxModule } = NativeModules as {
+  OutboxModule?: {
+    enqueue: (request: OutboxRequest) => Promise<OutboxQueued>;
+    getStats: () => Promise<OutboxStats>;
+    addListener: (eventName: string) => void;
+    removeListeners: (count: number) => void;
+  };
+};
+
+const nativeOutbox = () =>
+  Platform.OS === 'android' ? OutboxModule : undefined;
+
+export const OUTBOX_COMPLETED_EVENT = 'outboxCompleted';
+export const OUTBOX_QUEUED_EVENT = 'outboxQueued';
+
+// Completions nobody was waiting for: either they beat the enqueue promise
+// back across the bridge, or the caller gave up waiting while offline and
+// will ask again. Bounded; the oldest entry is dropped first.
+const MAX_UNCLAIMED = 20;
+
+interface Waiter {
+  complete: (completion: OutboxCompletion) => void;
+  queue: (state: OutboxState) => void;
+}
+
+const waiters = new Map<string, Waiter>();
+const unclaimedById = new Map<string, OutboxCompletion>();
+const unclaimedByKey = new Map<string, OutboxCompletion>();
+// Retries that beat the enqueue promise back across the bridge.
+const queuedEarly = new Map<string, OutboxState>();
+const keysById = new Map<string, string>();
+const listeners = new Set<(completion: OutboxCompletion) => void>();
+let subscriptions: EmitterSubscription[] | null = null;
+
+const remember = <K, V>(map: Map<K, V>, key: K, value: V) => {
+  map.delete(key);
+  map.set(key, value);
+  if (map.size > MAX_UNCLAIMED) {
+    const oldest = map.keys().next().value as K;
+    map.delete(oldest);
+  }
+};
+
+const requestKey = (request: OutboxRequest) =>
+  `${request.kind}\n${request.method ?? 'POST'}\n${request.url}\n${
+    request.body ?? ''
+  }`;
+
+const handleCompleted = (completion: OutboxCompletion) => {
+  const waiter = waiters.get(completion.id);
+  const key = keysById.get(completion.id);
+  keysById.delete(completion.id);
+  queuedEarly.delete(completion.id);
+  if (waiter) {
+    waiters.delete(completion.id);
+    waiter.complete(completion);
+  } else {
+    remember(unclaimedById, completion.id, completion);
+    if (key) {
+      remember(unclaimedByKey, key, completion);
+    }
+  }
+  listeners.forEach((listener) => {
+    try {
+      listener(completion);
+    } catch (error) {
+      console.warn('OutboxService listener failed:', error);
+    }
+  });
+};
+
+const handleQueued = ({ id, state }: OutboxQueued) => {
+  const waiter = waiters.get(id);
+  if (waiter) {
+    waiters.delete(id);
+    waiter.queue(state);
+  } else {
+    remember(queuedEarly, id, state);
+  }
+};
+
+// Passing the module lets it count JS listeners, so it only emits while one
+// is subscribed and replays results that finished while none was.
+const ensureSubscribed = () => {
+  const outbox = nativeOutbox();
+  if (subscriptions || !outbox) {
+    return;
+  }
+  const emitter = new NativeEventEmitter(outbox);
+  subscriptions = [
+    emitter.addListener(OUTBOX_COMPLETED_EVENT, (payload: OutboxCompletion) =>
+      handleCompleted(payload),
+    ),
+    emitter.addListener(OUTBOX_QUEUED_EVENT, (payload: OutboxQueued) =>
+      handleQueued(payload),
+    ),
+  ];
+};
+
+const enqueueNative = async (request: OutboxRequest): Promise<OutboxQueued> => {
+  const outbox = nativeOutbox();
+  if (!outbox) {
+    throw new Error('Outbox is not available on this platform.');
+  }
+  ensureSubscribed();
+  return outbox.enqueue(request);
+};
+
+const OutboxService = {
+  isAvailable(): boolean {
+    return !!nativeOutbox();
+  },
+
+  /**
+   * Journal a request and resolve with its id once it is on disk.
+   */
+  async enqueue(request: OutboxRequest): Promise<string> {
+    return (await enqueueNative(request)).id;
+  },
+
+  /**
+   * Enqueue a request and wait for its result while it is on the wire. As
+   * soon as it waits for a network or a retry instead, rejects with
+   * OutboxPendingError; the request keeps going, and asking again for the
+   * same deduped request later picks up its result.
+   */
+  async request(request: OutboxRequest): Promise<OutboxCompletion> {
+    const key = request.dedupe ? requestKey(request) : null;
+    if (key) {
+      const late = unclaimedByKey.get(key);
+      if (late) {
+        unclaimedByKey.delete(key);
+        return late;
+      }
+    }
+
+    const { id, state } = await enqueueNative(request);
+    const early = unclaimedById.get(id);
+    if (early) {
+      unclaimedById.delete(id);
+      return early;
+    }
+    if (key) {
+      keysById.set(id, key);
+    }
+    const retrying = queuedEarly.get(id);
+    queuedEarly.delete(id);
+    if (state !== 'sending' || retrying) {
+      throw new OutboxPendingError(id, retrying ?? state);
+    }
+
+    return new Promise<OutboxCompletion>((resolve, reject) => {
+      waiters.set(id, {
+        complete: resolve,
+        queue: (next) => reject(new OutboxPendingError(id, next)),
+      });
+    });
+  },
+
+  /**
+   * Subscribe to every completion, including ones from earlier sessions.
+   */
+  onCompleted(listener: (completion: OutboxCompletion) => void): () => void {
+    ensureSubscribed();
+    listeners.add(listener);
+    return () => {
+      listeners.delete(listener);
+    };
+  },
+
+  async getStats(): Promise<OutboxStats | null> {
+    const outbox = nativeOutbox();
+    if (!outbox) {
+      return null;
+    }
+    try {
+      return await outbox.getStats();
+    } catch (error) {
+      console.warn('OutboxService.getStats failed:', error);
+      return null;
+    }
+  },
+};
+
+export default OutboxService;
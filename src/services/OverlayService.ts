@@ -1,25 +1,25 @@
-import {
-  EmitterSubscription,
-  NativeEventEmitter,
-  NativeModules,
-  Platform,
-} from 'react-native';
-
-const { OverlayModule } = NativeModules as {
-  OverlayModule?: {
-    startOverlay: () => void;
-    stopOverlay: () => void;
-    updateCount: (count: number) => void;
-    canDrawOverlays: () => Promise<boolean>;
-    requestOverlayPermission: () => Promise<boolean>;
-    canPostNotifications: () => Promise<boolean>;
-    collapseOverlay?: () => void;
-    isExpanded?: () => Promise<boolean>;
-    addListener?: (eventName: string) => void;
-    removeListeners?: (count: number) => void;
-  };
+import { EmitterSubscription, NativeEventEmitter, Platform } from 'react-native';
+import NativeOverlayModule from '../specs/NativeOverlayModule';
+import type { Spec as OverlayModuleSpec } from '../specs/NativeOverlayModule';
+import RecordStoreService from './RecordStoreService';
+
+type OverlayModuleConstants = {
+  HAPTIC_EFFECTS?: OverlayHapticEffect[];
+  WARMUP_SIGNALS?: OverlayWarmupSignal[];
+  EVENT_TYPES?: Record<string, number>;
 };
 
+// Every method is optional: builds that predate a method simply lack it. On
+// the bridge the constants are also properties of the module itself.
+const OverlayModule = NativeOverlayModule as
+  | (Partial<OverlayModuleSpec> & OverlayModuleConstants)
+  | null;
+
+const getModuleConstants = (): OverlayModuleConstants =>
+  ((OverlayModule?.getConstants?.() ?? OverlayModule) as
+    | OverlayModuleConstants
+    | null) ?? {};
+
 export const OVERLAY_EVENTS = {
   started: 'overlay_started',
   stopped: 'overlay_stopped',
@@ -29,15 +29,316 @@ export const OVERLAY_EVENTS = {
   permissionError: 'overlay_permission_error',
 } as const;
 
+/**
+ * Emitted by MainActivity when a route intent is queued while JS is running.
+ * The event carries no payload; drain the queue to read the intent.
+ */
+export const OVERLAY_ROUTE_QUEUED_EVENT = 'overlayRouteQueued';
+
+/**
+ * Emitted when the native focus timer starts, pauses, resumes, finishes or is
+ * cancelled. The payload is the timer after the change; ticks are never sent.
+ */
+export const OVERLAY_FOCUS_TIMER_EVENT = 'focusTimerChanged';
+
+/**
+ * Emitted when the quick-capture panel has saved an item to the native queue.
+ * The event carries no payload; merge the queue to read the item.
+ */
+export const OVERLAY_CAPTURE_QUEUED_EVENT = 'overlayCaptureQueued';
+
 export type OverlayEventName =
-  (typeof OVERLAY_EVENTS)[keyof typeof OVERLAY_EVENTS];
+  | (typeof OVERLAY_EVENTS)[keyof typeof OVERLAY_EVENTS]
+  | typeof OVERLAY_ROUTE_QUEUED_EVENT
+  | typeof OVERLAY_FOCUS_TIMER_EVENT
+  | typeof OVERLAY_CAPTURE_QUEUED_EVENT;
+
+export type OverlayFocusTimerKind = 'focus' | 'break' | 'ignite';
+
+/**
+ * The countdown the bubble shows. `endsAtMs` is when a running timer ends or
+ * a finished one ended; it is unset otherwise.
+ */
+export type OverlayFocusTimer = {
+  state: 'idle' | 'running' | 'paused' | 'finished';
+  kind: OverlayFocusTimerKind;
+  durationMs: number;
+  remainingMs: number;
+  endsAtMs?: number;
+};
 
 export type OverlayEventPayload = {
   granted?: boolean;
+} & Partial<OverlayFocusTimer>;
+
+/**
+ * Native events arrive once per frame as one array of
+ * `[typeCode, timestampMs, payload]` entries; EVENT_TYPES maps names to codes.
+ */
+export const OVERLAY_EVENT_BATCH = 'overlayEventBatch';
+
+type OverlayEventRecord = [number, number, OverlayEventPayload | null];
+
+type OverlayEventListener = (
+  payload: OverlayEventPayload,
+  timestampMs?: number,
+) => void;
+
+export type OverlayEventBusStats = {
+  posted: number;
+  filtered: number;
+  batches: number;
+  largestBatch: number;
+};
+
+/**
+ * Named effects from the native overlay haptics palette.
+ */
+export type OverlayHapticEffect = 'tick' | 'open' | 'snap' | 'error';
+
+/**
+ * How the expanded overlay menu is dismissed.
+ * - `outside_touch`: the menu window watches for outside touches.
+ * - `scrim`: a translucent full-screen window catches the dismiss tap.
+ */
+export type OverlayMenuDismissMode = 'outside_touch' | 'scrim';
+
+export type OverlayCompositionStats = {
+  scrimExpands: number;
+  outsideTouchExpands: number;
+  outsideTouchDismissals: number;
+  menuWindowAdds: number;
+  menuWindowRemoves: number;
+  scrimWindowAdds: number;
+  scrimWindowRemoves: number;
+  windowCallsPerExpand: number;
+  menuLayerPixelMs: number;
+  scrimLayerPixelMs: number;
+};
+
+/**
+ * Latency summary from a native log-bucketed histogram. Percentiles are
+ * bucket upper bounds, within 12.5% of the true value.
+ */
+export type OverlayLatencySummary = {
+  count: number;
+  meanMs: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+};
+
+/**
+ * Frame pacing while an interaction animates. A frame arriving N refresh
+ * intervals after the previous one adds N - 1 dropped frames.
+ */
+export type OverlayJankCounters = {
+  interactions: number;
+  frames: number;
+  droppedFrames: number;
+  jankyFrames: number;
+  worstFrameMs: number;
+};
+
+export type OverlayPerformanceSnapshot = {
+  latency: {
+    createOverlay: OverlayLatencySummary;
+    /** Menu expand until the first frame that shows the menu. */
+    expandMenu: OverlayLatencySummary;
+    addView: OverlayLatencySummary;
+    updateViewLayout: OverlayLatencySummary;
+    dragFrameInterval: OverlayLatencySummary;
+    /** Menu tap until JS drained the route intent. */
+    launchRouteToJs: OverlayLatencySummary;
+    /** Service creation until the first frame that shows the bubble. */
+    timeToBubble: OverlayLatencySummary;
+    startForeground: OverlayLatencySummary;
+    /** Haptics, metrics, capture panel and menu, set up once idle. */
+    deferredStartup: OverlayLatencySummary;
+  };
+  jank: {
+    drag: OverlayJankCounters;
+    menuOpen: OverlayJankCounters;
+    settle: OverlayJankCounters;
+  };
+  frameIntervalMs: number;
+};
+
+/**
+ * The newest overlay menu route that JS has not handled yet. Repeated and
+ * superseded taps are collapsed natively before it gets here.
+ */
+export type OverlayRouteIntent = {
+  route: string;
+  autoRecord: boolean;
+};
+
+export type OverlayRouteQueueStats = {
+  offered: number;
+  duplicatesMerged: number;
+  superseded: number;
+  expired: number;
+  drained: number;
+};
+
+/**
+ * Overlay activity that lets native code start the React context before a
+ * menu tap needs it.
+ */
+export type OverlayWarmupSignal = 'service_start' | 'touch_down' | 'menu_expand';
+
+export type OverlayWarmupStats = {
+  warmStarts: number;
+  warmReleases: number;
+  skippedForMemory: number;
+  routeHits: number;
+  routeMisses: number;
+  avgHitTimeToRouteMs: number;
+  avgMissTimeToRouteMs: number;
+  lastTimeToRouteMs: number;
+};
+
+/**
+ * An item captured by the native quick-capture panel while JS may not have been running.
+ */
+export type OverlayCapture = {
+  id: string;
+  type: 'text' | 'audio';
+  createdAt: number;
+  text?: string;
+  audioPath?: string;
+  durationMs?: number;
+};
+
+export type OverlayCaptureStats = {
+  capturesQueued: number;
+  lastPanelOpenMs: number;
+  lastCaptureDurableMs: number;
+  maxCaptureDurableMs: number;
+};
+
+export type CapturedBrainDumpItem = {
+  id: string;
+  text: string;
+  createdAt: string;
+  source: 'text' | 'audio';
+  audioPath?: string;
+};
+
+const formatVoiceNoteLabel = (durationMs = 0): string => {
+  const totalSeconds = Math.max(1, Math.round(durationMs / 1000));
+  const minutes = Math.floor(totalSeconds / 60);
+  const seconds = `${totalSeconds % 60}`.padStart(2, '0');
+  return `Voice note (${minutes}:${seconds})`;
+};
+
+const toBrainDumpItem = (capture: OverlayCapture): CapturedBrainDumpItem => {
+  const createdAt = new Date(capture.createdAt).toISOString();
+  if (capture.type === 'audio') {
+    return {
+      id: capture.id,
+      text: formatVoiceNoteLabel(capture.durationMs),
+      createdAt,
+      source: 'audio',
+      audioPath: capture.audioPath,
+    };
+  }
+  return {
+    id: capture.id,
+    text: capture.text ?? '',
+    createdAt,
+    source: 'text',
+  };
 };
 
 const overlayEventEmitter = OverlayModule ? new NativeEventEmitter() : null;
 
+const capturesMergedListeners = new Set<
+  (items: CapturedBrainDumpItem[]) => void
+>();
+// One merge at a time; a request that arrives meanwhile runs one more pass.
+let captureMerge: Promise<number> | null = null;
+let captureMergeAgain = false;
+
+const mergeCapturesOnce = async (): Promise<number> => {
+  if (!OverlayModule?.getPendingCaptures) {
+    return 0;
+  }
+  const captures =
+    (await OverlayModule.getPendingCaptures()) as OverlayCapture[];
+  if (captures.length === 0) {
+    return 0;
+  }
+
+  const existingIds = await RecordStoreService.existingIds(
+    'brainDump',
+    captures.map((capture) => capture.id),
+  );
+  // Captures arrive oldest first, which is also the order to add them in.
+  const mergedItems = captures
+    .filter((capture) => !existingIds.has(capture.id))
+    .map(toBrainDumpItem);
+
+  // The native store moves the bubble count itself on every write.
+  if (!(await RecordStoreService.upsert('brainDump', mergedItems))) {
+    return 0;
+  }
+
+  OverlayModule.acknowledgeCaptures?.(captures.map((capture) => capture.id));
+  if (mergedItems.length > 0) {
+    capturesMergedListeners.forEach((listener) => {
+      try {
+        listener(mergedItems);
+      } catch (error) {
+        console.warn('OverlayService captures listener failed:', error);
+      }
+    });
+  }
+  return mergedItems.length;
+};
+
+// Listeners by event name for the batched channel. Native code only sends the
+// types that have at least one listener here.
+const batchedListeners = new Map<string, Set<OverlayEventListener>>();
+let eventTypeNames: Map<number, string> | null = null;
+let eventBatchSubscription: EmitterSubscription | null = null;
+
+const getEventTypes = (): Record<string, number> | null => {
+  if (!OverlayModule?.setEventSubscriptions) {
+    return null;
+  }
+  return getModuleConstants().EVENT_TYPES ?? null;
+};
+
+const dispatchEventBatch = (records: OverlayEventRecord[]) => {
+  records.forEach(([type, timestampMs, payload]) => {
+    const name = eventTypeNames?.get(type);
+    const listeners = name ? batchedListeners.get(name) : undefined;
+    listeners?.forEach((listener) => {
+      try {
+        listener(payload ?? {}, timestampMs);
+      } catch (error) {
+        console.warn('OverlayService event listener failed:', error);
+      }
+    });
+  });
+};
+
+const syncEventSubscriptions = (eventTypes: Record<string, number>) => {
+  const types: number[] = [];
+  batchedListeners.forEach((listeners, name) => {
+    if (listeners.size > 0 && eventTypes[name] !== undefined) {
+      types.push(eventTypes[name]);
+    }
+  });
+  try {
+    OverlayModule?.setEventSubscriptions?.(types);
+  } catch (error) {
+    console.warn('OverlayService.setEventSubscriptions failed:', error);
+  }
+};
+
 let pendingOverlayCount = 0;
 let overlayCountUpdateTimer: ReturnType<typeof setTimeout> | null = null;
 const OVERLAY_COUNT_DEBOUNCE_MS = 180;
@@ -54,11 +355,86 @@ const flushOverlayCount = () => {
   }
 };
 
+const readSync = <T>(name: string, read: () => T, fallback: T): T => {
+  try {
+    return read();
+  } catch (error) {
+    console.warn(`OverlayService.${name} failed:`, error);
+    return fallback;
+  }
+};
+
 const OverlayService = {
+  /**
+   * Synchronous state reads. Each returns the fallback off Android or when
+   * the native build has no synchronous getter.
+   */
+  canDrawOverlaysSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+    return readSync(
+      'canDrawOverlaysSync',
+      () => OverlayModule?.canDrawOverlaysSync?.() ?? false,
+      false,
+    );
+  },
+
+  canPostNotificationsSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return true; // No notification permission needed on other platforms
+    }
+    // Assume granted if the check is unavailable.
+    return readSync(
+      'canPostNotifications',
+      () => OverlayModule?.canPostNotifications?.() ?? true,
+      true,
+    );
+  },
+
+  isExpandedSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+    return readSync(
+      'isExpandedSync',
+      () => OverlayModule?.isExpandedSync?.() ?? false,
+      false,
+    );
+  },
+
+  isServiceRunningSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+    return readSync(
+      'isServiceRunningSync',
+      () => OverlayModule?.isServiceRunningSync?.() ?? false,
+      false,
+    );
+  },
+
+  /**
+   * The count the bubble shows, or null when it cannot be read synchronously.
+   */
+  getCountSync(): number | null {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+    return readSync<number | null>(
+      'getCountSync',
+      () => OverlayModule?.getCountSync?.() ?? null,
+      null,
+    );
+  },
+
   async canDrawOverlays(): Promise<boolean> {
     if (Platform.OS !== 'android') {
       return false;
     }
+    if (OverlayModule?.canDrawOverlaysSync) {
+      return OverlayService.canDrawOverlaysSync();
+    }
     if (!OverlayModule?.canDrawOverlays) {
       return false;
     }
@@ -92,13 +468,7 @@ const OverlayService = {
   },
 
   async canPostNotifications(): Promise<boolean> {
-    if (Platform.OS !== 'android') {
-      return true; // No notification permission needed on other platforms
-    }
-    if (!OverlayModule?.canPostNotifications) {
-      return true; // Assume granted if method not available
-    }
-    return OverlayModule.canPostNotifications();
+    return OverlayService.canPostNotificationsSync();
   },
 
   startOverlay() {
@@ -161,28 +531,282 @@ const OverlayService = {
     flushOverlayCount();
   },
 
+  performHaptic(effect: OverlayHapticEffect) {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.performHaptic?.(effect);
+    } catch (error) {
+      console.warn('OverlayService.performHaptic failed:', error);
+    }
+  },
+
+  getHapticEffects(): OverlayHapticEffect[] {
+    if (Platform.OS !== 'android' || !OverlayModule) {
+      return [];
+    }
+    return getModuleConstants().HAPTIC_EFFECTS ?? [];
+  },
+
+  /**
+   * Merge items from the native quick-capture queue into brainDump, newest
+   * first, then acknowledge them. Ids already stored are skipped, so a replay
+   * after an interrupted merge is harmless. Calls made while a merge runs
+   * share it and add one more pass. Returns the number merged.
+   */
+  mergeNativeCaptures(): Promise<number> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getPendingCaptures) {
+      return Promise.resolve(0);
+    }
+    if (captureMerge) {
+      captureMergeAgain = true;
+      return captureMerge;
+    }
+    captureMerge = (async () => {
+      let merged = 0;
+      do {
+        captureMergeAgain = false;
+        try {
+          merged += await mergeCapturesOnce();
+        } catch (error) {
+          console.warn('OverlayService.mergeNativeCaptures failed:', error);
+        }
+      } while (captureMergeAgain);
+      return merged;
+    })().finally(() => {
+      captureMerge = null;
+    });
+    return captureMerge;
+  },
+
+  /**
+   * Subscribe to brain dump items merged from the quick-capture queue, oldest
+   * first, so an open list can show them without reloading.
+   */
+  onCapturesMerged(
+    listener: (items: CapturedBrainDumpItem[]) => void,
+  ): () => void {
+    capturesMergedListeners.add(listener);
+    return () => {
+      capturesMergedListeners.delete(listener);
+    };
+  },
+
+  async getCaptureStats(): Promise<OverlayCaptureStats | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getCaptureStats) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getCaptureStats()) as OverlayCaptureStats;
+    } catch (error) {
+      console.warn('OverlayService.getCaptureStats failed:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Take the pending overlay route intent. The first call also tells native
+   * code that JS is listening for {@link OVERLAY_ROUTE_QUEUED_EVENT}.
+   */
+  async drainRouteIntent(): Promise<OverlayRouteIntent | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.drainRouteIntent) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.drainRouteIntent()) as
+        OverlayRouteIntent | null;
+    } catch (error) {
+      console.warn('OverlayService.drainRouteIntent failed:', error);
+      return null;
+    }
+  },
+
+  async getRouteQueueStats(): Promise<OverlayRouteQueueStats | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getRouteQueueStats) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getRouteQueueStats()) as
+        OverlayRouteQueueStats;
+    } catch (error) {
+      console.warn('OverlayService.getRouteQueueStats failed:', error);
+      return null;
+    }
+  },
+
+  setWarmupSignals(signals: OverlayWarmupSignal[]) {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.setWarmupSignals?.(signals);
+    } catch (error) {
+      console.warn('OverlayService.setWarmupSignals failed:', error);
+    }
+  },
+
+  async getWarmupSignals(): Promise<OverlayWarmupSignal[]> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getWarmupSignals) {
+      return [];
+    }
+    try {
+      return (await OverlayModule.getWarmupSignals()) as OverlayWarmupSignal[];
+    } catch (error) {
+      console.warn('OverlayService.getWarmupSignals failed:', error);
+      return [];
+    }
+  },
+
+  async getWarmupStats(): Promise<OverlayWarmupStats | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getWarmupStats) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getWarmupStats()) as OverlayWarmupStats;
+    } catch (error) {
+      console.warn('OverlayService.getWarmupStats failed:', error);
+      return null;
+    }
+  },
+
+  resetWarmupStats() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.resetWarmupStats?.();
+    } catch (error) {
+      console.warn('OverlayService.resetWarmupStats failed:', error);
+    }
+  },
+
   isPermissionRequestInProgress() {
     return overlayPermissionRequestInProgress;
   },
 
   addEventListener(
     eventName: OverlayEventName,
-    listener: (payload: OverlayEventPayload) => void,
+    listener: OverlayEventListener,
   ): (() => void) | null {
     if (!overlayEventEmitter) {
       return null;
     }
 
-    const subscription: EmitterSubscription = overlayEventEmitter.addListener(
-      eventName,
-      listener,
-    );
+    const eventTypes = getEventTypes();
+    if (!eventTypes || eventTypes[eventName] === undefined) {
+      // Native side without the batched channel: one bridge event per event.
+      const subscription: EmitterSubscription =
+        overlayEventEmitter.addListener(eventName, listener);
+      return () => {
+        subscription.remove();
+      };
+    }
+
+    if (!eventBatchSubscription) {
+      eventTypeNames = new Map(
+        Object.entries(eventTypes).map(([name, type]) => [type, name]),
+      );
+      eventBatchSubscription = overlayEventEmitter.addListener(
+        OVERLAY_EVENT_BATCH,
+        dispatchEventBatch,
+      );
+    }
+    const listeners = batchedListeners.get(eventName) ?? new Set();
+    listeners.add(listener);
+    batchedListeners.set(eventName, listeners);
+    if (listeners.size === 1) {
+      syncEventSubscriptions(eventTypes);
+    }
 
     return () => {
-      subscription.remove();
+      if (listeners.delete(listener) && listeners.size === 0) {
+        syncEventSubscriptions(eventTypes);
+      }
     };
   },
 
+  async getEventBusStats(): Promise<OverlayEventBusStats | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getEventBusStats) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getEventBusStats()) as OverlayEventBusStats;
+    } catch (error) {
+      console.warn('OverlayService.getEventBusStats failed:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Count down in the bubble natively. The JS timer keeps driving the screen;
+   * this only mirrors it, so failures are logged and ignored.
+   */
+  startFocusTimer(kind: OverlayFocusTimerKind, durationMs: number) {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.startFocusTimer?.(kind, durationMs);
+    } catch (error) {
+      console.warn('OverlayService.startFocusTimer failed:', error);
+    }
+  },
+
+  pauseFocusTimer() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.pauseFocusTimer?.();
+    } catch (error) {
+      console.warn('OverlayService.pauseFocusTimer failed:', error);
+    }
+  },
+
+  resumeFocusTimer() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.resumeFocusTimer?.();
+    } catch (error) {
+      console.warn('OverlayService.resumeFocusTimer failed:', error);
+    }
+  },
+
+  cancelFocusTimer() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.cancelFocusTimer?.();
+    } catch (error) {
+      console.warn('OverlayService.cancelFocusTimer failed:', error);
+    }
+  },
+
+  async getFocusTimer(): Promise<OverlayFocusTimer | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getFocusTimer) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getFocusTimer()) as OverlayFocusTimer;
+    } catch (error) {
+      console.warn('OverlayService.getFocusTimer failed:', error);
+      return null;
+    }
+  },
+
+  onFocusTimerChanged(
+    listener: (timer: OverlayFocusTimer) => void,
+  ): (() => void) | null {
+    return OverlayService.addEventListener(
+      OVERLAY_FOCUS_TIMER_EVENT,
+      (payload) => listener(payload as OverlayFocusTimer),
+    );
+  },
+
   collapseOverlay() {
     if (Platform.OS !== 'android') {
       return;
@@ -194,10 +818,85 @@ const OverlayService = {
     }
   },
 
+  setMenuDismissMode(mode: OverlayMenuDismissMode) {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.setMenuDismissMode?.(mode);
+    } catch (error) {
+      console.warn('OverlayService.setMenuDismissMode failed:', error);
+    }
+  },
+
+  async getMenuDismissMode(): Promise<OverlayMenuDismissMode | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getMenuDismissMode) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getMenuDismissMode()) as
+        OverlayMenuDismissMode;
+    } catch (error) {
+      console.warn('OverlayService.getMenuDismissMode failed:', error);
+      return null;
+    }
+  },
+
+  async getCompositionStats(): Promise<OverlayCompositionStats | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getCompositionStats) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getCompositionStats()) as
+        OverlayCompositionStats;
+    } catch (error) {
+      console.warn('OverlayService.getCompositionStats failed:', error);
+      return null;
+    }
+  },
+
+  resetCompositionStats() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.resetCompositionStats?.();
+    } catch (error) {
+      console.warn('OverlayService.resetCompositionStats failed:', error);
+    }
+  },
+
+  async getPerformanceSnapshot(): Promise<OverlayPerformanceSnapshot | null> {
+    if (Platform.OS !== 'android' || !OverlayModule?.getPerformanceSnapshot) {
+      return null;
+    }
+    try {
+      return (await OverlayModule.getPerformanceSnapshot()) as
+        OverlayPerformanceSnapshot;
+    } catch (error) {
+      console.warn('OverlayService.getPerformanceSnapshot failed:', error);
+      return null;
+    }
+  },
+
+  resetPerformanceStats() {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    try {
+      OverlayModule?.resetPerformanceStats?.();
+    } catch (error) {
+      console.warn('OverlayService.resetPerformanceStats failed:', error);
+    }
+  },
+
   async isExpanded(): Promise<boolean> {
     if (Platform.OS !== 'android') {
       return false;
     }
+    if (OverlayModule?.isExpandedSync) {
+      return OverlayService.isExpandedSync();
+    }
     if (!OverlayModule?.isExpanded) {
       return false;
     }
@@ -1,7 +1,9 @@
-import { Platform } from 'react-native';
+import { NativeModules, Platform } from 'react-native';
 import { config } from '../config';
 import StorageService from './StorageService';
+import RecordStoreService from './RecordStoreService';
 import OverlayService from './OverlayService';
+import OutboxService from './OutboxService';
 
 /**
  * PlaudService
@@ -42,6 +44,7 @@ interface BrainDumpItem {
   text: string;
   createdAt: string;
   source: 'text' | 'audio' | 'google';
+  audioPath?: string;
   googleTaskId?: string;
 }
 
@@ -57,6 +60,31 @@ const GOOGLE_TASKS_API_BASE = 'https://tasks.googleapis.com/tasks/v1';
 const GOOGLE_TASKS_INBOX_NAME = 'Spark Inbox';
 const MAX_PROCESSED_IDS = 500;
 const MAX_MARK_CONCURRENCY = 4;
+const POLL_INTERVAL_MS = 15 * 60 * 1000;
+
+interface NativeTasksSyncResult extends GoogleTasksSyncResult {
+  signedIn: boolean;
+  durationMs: number;
+}
+
+// On Android the sync runs natively (TasksSyncModule), including in a
+// background job while the app is closed.
+const { TasksSyncModule } = NativeModules as {
+  TasksSyncModule?: {
+    syncNow: () => Promise<NativeTasksSyncResult>;
+    schedulePeriodicSync: (intervalMinutes: number) => void;
+    cancelPeriodicSync: () => void;
+    seedState: (state: {
+      listId?: string;
+      syncToken?: string;
+      processedIds: string[];
+      lastSyncAtMs: number;
+    }) => Promise<boolean>;
+  };
+};
+
+const nativeTasksSync = () =>
+  Platform.OS === 'android' ? TasksSyncModule : undefined;
 
 type RNFormDataFile = {
   uri: string;
@@ -118,6 +146,10 @@ class PlaudServiceClass {
     this.apiUrl = url;
   }
 
+  getApiUrl(): string {
+    return this.apiUrl;
+  }
+
   /**
    * Upload audio file and get transcription
    *
@@ -136,11 +168,13 @@ class PlaudServiceClass {
         const blob = await response.blob();
         formData.append('audio', blob);
       } else {
-        // For native, use file URI directly
+        // For native, use file URI directly. Android's native recorder
+        // writes WAV; expo-av writes m4a.
+        const isWav = audioUri.toLowerCase().endsWith('.wav');
         const file: RNFormDataFile = {
           uri: audioUri,
-          type: 'audio/m4a',
-          name: 'recording.m4a',
+          type: isWav ? 'audio/wav' : 'audio/m4a',
+          name: isWav ? 'recording.wav' : 'recording.m4a',
         };
         formData.append('audio', file as unknown as Blob);
       }
@@ -179,6 +213,43 @@ class PlaudServiceClass {
     }
   }
 
+  /**
+   * Whether recordings can be handed to the native outbox instead of being
+   * uploaded while the user waits.
+   */
+  canQueueTranscription(): boolean {
+    return OutboxService.isAvailable();
+  }
+
+  /**
+   * Queue an audio upload. The outbox retries it until the network is back;
+   * when it succeeds the native side stores `record` with the transcription as
+   * its text and emits a `transcribe` completion carrying the stored record.
+   *
+   * @returns The outbox id of the queued upload
+   */
+  async queueTranscription(
+    audioUri: string,
+    record: Omit<BrainDumpItem, 'text'>,
+  ): Promise<string> {
+    const isWav = audioUri.toLowerCase().endsWith('.wav');
+    return OutboxService.enqueue({
+      kind: 'transcribe',
+      url: `${this.apiUrl}/api/transcribe`,
+      method: 'POST',
+      headers: {
+        Accept: 'application/json',
+      },
+      file: {
+        uri: audioUri,
+        field: 'audio',
+        type: isWav ? 'audio/wav' : 'audio/m4a',
+        name: isWav ? 'recording.wav' : 'recording.m4a',
+      },
+      brainDumpRecord: JSON.stringify(record),
+    });
+  }
+
   /**
    * Check if the Plaud API is available
    */
@@ -199,6 +270,7 @@ class GoogleTasksSyncServiceClass {
   private configured = false;
   private pollTimer: ReturnType<typeof setInterval> | null = null;
   private isSyncing = false;
+  private nativeStateSeeded = false;
 
   configureGoogleSignIn(webClientId?: string, iosClientId?: string): void {
     const googleSignin = getGoogleSignin();
@@ -421,7 +493,55 @@ class GoogleTasksSyncServiceClass {
     }
   }
 
+  /**
+   * Hand the sync state kept in AsyncStorage over to the native engine once,
+   * so switching engines neither re-imports nor forgets processed tasks.
+   */
+  private async seedNativeState(
+    native: NonNullable<typeof TasksSyncModule>,
+  ): Promise<void> {
+    if (this.nativeStateSeeded) {
+      return;
+    }
+
+    const syncState = await this.readSyncState();
+    const processedIds = await this.getProcessedIds();
+    const lastSyncAt = await StorageService.get(
+      StorageService.STORAGE_KEYS.googleTasksLastSyncAt,
+    );
+    if (syncState.listId || syncState.syncToken || processedIds.length > 0) {
+      await native.seedState({
+        listId: syncState.listId,
+        syncToken: syncState.syncToken,
+        processedIds,
+        lastSyncAtMs: lastSyncAt ? Date.parse(lastSyncAt) || 0 : 0,
+      });
+      await StorageService.remove(
+        StorageService.STORAGE_KEYS.googleTasksSyncState,
+      );
+      await StorageService.remove(
+        StorageService.STORAGE_KEYS.googleTasksProcessedIds,
+      );
+      await StorageService.remove(
+        StorageService.STORAGE_KEYS.googleTasksLastSyncAt,
+      );
+    }
+    this.nativeStateSeeded = true;
+  }
+
   async syncToBrainDump(): Promise<GoogleTasksSyncResult> {
+    const native = nativeTasksSync();
+    if (native) {
+      await this.seedNativeState(native);
+      const nativeResult = await native.syncNow();
+      return {
+        importedCount: nativeResult.importedCount,
+        skippedCount: nativeResult.skippedCount,
+        markedCompletedCount: nativeResult.markedCompletedCount,
+        syncTokenUpdated: nativeResult.syncTokenUpdated,
+      };
+    }
+
     const result: GoogleTasksSyncResult = {
       importedCount: 0,
       skippedCount: 0,
@@ -463,9 +583,7 @@ class GoogleTasksSyncServiceClass {
       }
 
       const existingItems =
-        (await StorageService.getJSON<BrainDumpItem[]>(
-          StorageService.STORAGE_KEYS.brainDump,
-        )) || [];
+        await RecordStoreService.list<BrainDumpItem>('brainDump');
       const processedIds = await this.getProcessedIds();
       const processedSet = new Set(processedIds);
       const existingGoogleTaskIds = new Set(
@@ -500,12 +618,17 @@ class GoogleTasksSyncServiceClass {
       }
 
       if (importedItems.length > 0) {
-        const nextItems = [...importedItems, ...existingItems];
-        await StorageService.setJSON(
-          StorageService.STORAGE_KEYS.brainDump,
-          nextItems,
+        // The first imported item should end up on top, so it is added last.
+        const stored = await RecordStoreService.upsert(
+          'brainDump',
+          [...importedItems].reverse(),
         );
-        OverlayService.updateCount(nextItems.length);
+        if (!stored) {
+          // Nothing is marked and the sync token stays, so the next sync
+          // fetches these tasks again instead of completing unsaved ones.
+          throw new Error('Could not save imported Google Tasks.');
+        }
+        OverlayService.updateCount(existingItems.length + importedItems.length);
         result.importedCount = importedItems.length;
       }
 
@@ -553,11 +676,21 @@ class GoogleTasksSyncServiceClass {
     }
   }
 
-  startForegroundPolling(intervalMs = 15 * 60 * 1000): void {
+  startForegroundPolling(intervalMs = POLL_INTERVAL_MS): void {
     if (Platform.OS === 'web') {
       return;
     }
 
+    const native = nativeTasksSync();
+    if (native) {
+      // The job keeps running after the app goes to the background.
+      try {
+        native.schedulePeriodicSync(intervalMs / 60000);
+      } catch (error) {
+        console.warn('TasksSyncModule.schedulePeriodicSync failed:', error);
+      }
+    }
+
     if (this.pollTimer) {
       return;
     }
@@ -0,0 +1,334 @@
+import { NativeModules, Platform } from 'react-native';
+import StorageService from './StorageService';
+
+/**
+ * RecordStoreService
+ *
+ * Record-level persistence for brainDump and tasks. On Android the records
+ * live in a native append-only log (RecordStoreModule), so adding, editing or
+ * deleting one item writes only that item. Elsewhere, and whenever the native
+ * module is missing, the collection is kept as a JSON array in AsyncStorage
+ * under the same key as before.
+ */
+
+export type RecordCollection = 'brainDump' | 'tasks';
+
+export type RecordPage<T> = {
+  items: T[];
+  /** Pass back to getPage for the next page; null when there is none. */
+  nextCursor: number | null;
+};
+
+export type RecordStoreStats = {
+  records: number;
+  liveBytes: number;
+  fileBytes: number;
+  writes: number;
+  compactions: number;
+  recoveredTruncations: number;
+};
+
+type StoredRecord = { id: string };
+
+const { RecordStoreModule } = NativeModules as {
+  RecordStoreModule?: {
+    write: (
+      collection: RecordCollection,
+      putIds: string[],
+      putPayloads: string[],
+      deleteIds: string[],
+    ) => Promise<number>;
+    clear: (collection: RecordCollection) => Promise<number>;
+    page: (
+      collection: RecordCollection,
+      cursor: number | null,
+      limit: number,
+      newestFirst: boolean,
+    ) => Promise<{ items: string[]; nextCursor: number | null }>;
+    count: (collection: RecordCollection) => Promise<number>;
+    existing: (
+      collection: RecordCollection,
+      ids: string[],
+    ) => Promise<string[]>;
+    getStats: (collection: RecordCollection) => Promise<RecordStoreStats>;
+  };
+};
+
+// brainDump shows the newest item first; tasks keep the order they were added.
+const NEWEST_FIRST: Record<RecordCollection, boolean> = {
+  brainDump: true,
+  tasks: false,
+};
+
+const COLLECTIONS: RecordCollection[] = ['brainDump', 'tasks'];
+const LIST_PAGE_SIZE = 200;
+
+const nativeStore = () =>
+  Platform.OS === 'android' ? RecordStoreModule : undefined;
+
+const parseRecords = <T>(payloads: string[]): T[] => {
+  const records: T[] = [];
+  payloads.forEach((payload) => {
+    try {
+      records.push(JSON.parse(payload) as T);
+    } catch (error) {
+      console.warn('RecordStoreService: skipping unreadable record', error);
+    }
+  });
+  return records;
+};
+
+const readFallback = async <T extends StoredRecord>(
+  collection: RecordCollection,
+): Promise<T[]> => {
+  const stored = await StorageService.getJSON<T[]>(collection);
+  return Array.isArray(stored) ? stored : [];
+};
+
+const RecordStoreService = {
+  /**
+   * Move collections that still live in AsyncStorage into the native store.
+   * Runs once per collection: only while the native side is empty, and the
+   * AsyncStorage copy is removed after a successful write.
+   */
+  async init(): Promise<void> {
+    const store = nativeStore();
+    if (!store) {
+      return;
+    }
+
+    for (const collection of COLLECTIONS) {
+      try {
+        const legacy = await readFallback(collection);
+        if (legacy.length === 0 || (await store.count(collection)) > 0) {
+          continue;
+        }
+        // Native order is insertion order, so write the oldest item first.
+        const oldestFirst = NEWEST_FIRST[collection]
+          ? [...legacy].reverse()
+          : legacy;
+        await store.write(
+          collection,
+          oldestFirst.map((item) => item.id),
+          oldestFirst.map((item) => JSON.stringify(item)),
+          [],
+        );
+        await StorageService.remove(collection);
+      } catch (error) {
+        console.warn('RecordStoreService.init failed:', error);
+      }
+    }
+  },
+
+  /**
+   * Whether records live in the native store. It keeps the overlay bubble's
+   * count in step itself, so JS does not need to send it.
+   */
+  isNative(): boolean {
+    return !!nativeStore();
+  },
+
+  /**
+   * Whether the collection shows its newest record first; new records go at
+   * the top of the list when it does and at the bottom when it does not.
+   */
+  isNewestFirst(collection: RecordCollection): boolean {
+    return NEWEST_FIRST[collection];
+  },
+
+  /**
+   * One page of records in display order.
+   */
+  async getPage<T extends StoredRecord>(
+    collection: RecordCollection,
+    limit: number,
+    cursor: number | null = null,
+  ): Promise<RecordPage<T>> {
+    const store = nativeStore();
+    if (store) {
+      const page = await store.page(
+        collection,
+        cursor,
+        limit,
+        NEWEST_FIRST[collection],
+      );
+      return {
+        items: parseRecords<T>(page.items),
+        nextCursor: page.nextCursor,
+      };
+    }
+
+    const records = await readFallback<T>(collection);
+    const start = cursor ?? 0;
+    const end = start + limit;
+    return {
+      items: records.slice(start, end),
+      nextCursor: end < records.length ? end : null,
+    };
+  },
+
+  /**
+   * Every record in display order.
+   */
+  async list<T extends StoredRecord>(
+    collection: RecordCollection,
+  ): Promise<T[]> {
+    try {
+      if (!nativeStore()) {
+        return await readFallback<T>(collection);
+      }
+
+      const records: T[] = [];
+      let cursor: number | null = null;
+      do {
+        const page: RecordPage<T> = await this.getPage<T>(
+          collection,
+          LIST_PAGE_SIZE,
+          cursor,
+        );
+        records.push(...page.items);
+        cursor = page.nextCursor;
+      } while (cursor !== null);
+      return records;
+    } catch (error) {
+      console.warn('RecordStoreService.list failed:', error);
+      return [];
+    }
+  },
+
+  /**
+   * Insert or replace records by id. New records are added in array order,
+   * so the last one becomes the newest; replaced records keep their position.
+   */
+  async upsert<T extends StoredRecord>(
+    collection: RecordCollection,
+    items: T[],
+  ): Promise<boolean> {
+    if (items.length === 0) {
+      return true;
+    }
+    try {
+      const store = nativeStore();
+      if (store) {
+        await store.write(
+          collection,
+          items.map((item) => item.id),
+          items.map((item) => JSON.stringify(item)),
+          [],
+        );
+        return true;
+      }
+
+      const records = await readFallback<T>(collection);
+      const updates = new Map(items.map((item) => [item.id, item]));
+      const next = records.map((record) => {
+        const update = updates.get(record.id);
+        if (update) {
+          updates.delete(record.id);
+          return update;
+        }
+        return record;
+      });
+      const added = Array.from(updates.values());
+      return await StorageService.setJSON(
+        collection,
+        NEWEST_FIRST[collection]
+          ? [...added.reverse(), ...next]
+          : [...next, ...added],
+      );
+    } catch (error) {
+      console.warn('RecordStoreService.upsert failed:', error);
+      return false;
+    }
+  },
+
+  async remove(collection: RecordCollection, ids: string[]): Promise<boolean> {
+    if (ids.length === 0) {
+      return true;
+    }
+    try {
+      const store = nativeStore();
+      if (store) {
+        await store.write(collection, [], [], ids);
+        return true;
+      }
+
+      const removed = new Set(ids);
+      const records = await readFallback(collection);
+      return await StorageService.setJSON(
+        collection,
+        records.filter((record) => !removed.has(record.id)),
+      );
+    } catch (error) {
+      console.warn('RecordStoreService.remove failed:', error);
+      return false;
+    }
+  },
+
+  async clear(collection: RecordCollection): Promise<boolean> {
+    try {
+      const store = nativeStore();
+      if (store) {
+        await store.clear(collection);
+        return true;
+      }
+      return await StorageService.setJSON(collection, []);
+    } catch (error) {
+      console.warn('RecordStoreService.clear failed:', error);
+      return false;
+    }
+  },
+
+  /**
+   * The subset of `ids` already stored. On Android this is an id lookup that
+   * never reads the records. Rejects when the store cannot be read, so callers
+   * do not mistake a failure for "none stored".
+   */
+  async existingIds(
+    collection: RecordCollection,
+    ids: string[],
+  ): Promise<Set<string>> {
+    if (ids.length === 0) {
+      return new Set();
+    }
+    const store = nativeStore();
+    if (store) {
+      return new Set(await store.existing(collection, ids));
+    }
+    const wanted = new Set(ids);
+    const records = await readFallback(collection);
+    return new Set(
+      records.map((record) => record.id).filter((id) => wanted.has(id)),
+    );
+  },
+
+  async count(collection: RecordCollection): Promise<number> {
+    try {
+      const store = nativeStore();
+      if (store) {
+        return await store.count(collection);
+      }
+      return (await readFallback(collection)).length;
+    } catch (error) {
+      console.warn('RecordStoreService.count failed:', error);
+      return 0;
+    }
+  },
+
+  async getStats(
+    collection: RecordCollection,
+  ): Promise<RecordStoreStats | null> {
+    const store = nativeStore();
+    if (!store) {
+      return null;
+    }
+    try {
+      return await store.getStats(collection);
+    } catch (error) {
+      console.warn('RecordStoreService.getStats failed:', error);
+      return null;
+    }
+  },
+};
+
+export default RecordStoreService;
@@ -2,14 +2,42 @@
  * RecordingService
  *
  * Handles audio recording for the Brain Dump feature.
- * Uses expo-av for cross-platform audio capture.
+ * Uses expo-av for cross-platform audio capture. On Android the recording is
+ * captured natively (AudioStreamModule) and streamed to the transcription
+ * endpoint while the user is still talking, so the transcript arrives with
+ * the stop result.
  */
 
+import { NativeModules, PermissionsAndroid, Platform } from 'react-native';
+import PlaudService, { TranscriptionResult } from './PlaudService';
+
 export interface RecordingResult {
   uri: string;
   duration: number;
+  // Set when the audio was transcribed while recording; otherwise upload uri.
+  transcription?: TranscriptionResult;
+}
+
+interface NativeStreamResult {
+  uri: string;
+  duration: number;
+  streamed: boolean;
+  transcription?: string;
+  summary?: string;
+  streamError?: string;
 }
 
+const { AudioStreamModule } = NativeModules as {
+  AudioStreamModule?: {
+    start: (apiBaseUrl: string) => Promise<boolean>;
+    stop: () => Promise<NativeStreamResult | null>;
+    cancel: () => Promise<void>;
+  };
+};
+
+const nativeAudioStream = () =>
+  Platform.OS === 'android' ? AudioStreamModule : undefined;
+
 interface RecordingStatus {
   durationMillis?: number;
 }
@@ -46,12 +74,20 @@ const loadAudioModule = (): AudioModule | null => {
 class RecordingServiceClass {
   private recording: AudioRecording | null = null;
   private isRecording = false;
+  private isNativeRecording = false;
 
   /**
    * Request microphone permissions
    */
   async requestPermissions(): Promise<boolean> {
     try {
+      if (nativeAudioStream()) {
+        const status = await PermissionsAndroid.request(
+          PermissionsAndroid.PERMISSIONS.RECORD_AUDIO,
+        );
+        return status === PermissionsAndroid.RESULTS.GRANTED;
+      }
+
       const Audio = loadAudioModule();
       if (!Audio) {
         console.warn('Recording unavailable: expo-av is not installed');
@@ -75,6 +111,11 @@ class RecordingServiceClass {
       return false;
     }
 
+    const native = nativeAudioStream();
+    if (native) {
+      return this.startNativeRecording(native);
+    }
+
     try {
       const Audio = loadAudioModule();
       if (!Audio) {
@@ -116,6 +157,11 @@ class RecordingServiceClass {
    * Stop recording and return the audio file URI
    */
   async stopRecording(): Promise<RecordingResult | null> {
+    const native = nativeAudioStream();
+    if (native && this.isNativeRecording) {
+      return this.stopNativeRecording(native);
+    }
+
     if (!this.recording || !this.isRecording) {
       console.warn('No active recording');
       return null;
@@ -172,6 +218,18 @@ class RecordingServiceClass {
    * Cancel recording without saving
    */
   async cancelRecording(): Promise<void> {
+    const native = nativeAudioStream();
+    if (native && this.isNativeRecording) {
+      try {
+        await native.cancel();
+      } catch {
+        // Ignore errors during cancel
+      }
+      this.isNativeRecording = false;
+      this.isRecording = false;
+      return;
+    }
+
     if (this.recording) {
       try {
         await this.recording.stopAndUnloadAsync();
@@ -189,6 +247,71 @@ class RecordingServiceClass {
   reset(): void {
     this.recording = null;
     this.isRecording = false;
+    this.isNativeRecording = false;
+  }
+
+  private async startNativeRecording(
+    native: NonNullable<typeof AudioStreamModule>,
+  ): Promise<boolean> {
+    try {
+      const hasPermission = await this.requestPermissions();
+      if (!hasPermission) {
+        console.error('Microphone permission not granted');
+        return false;
+      }
+
+      const started = await native.start(PlaudService.getApiUrl());
+      if (!started) {
+        console.warn('Already recording');
+        return false;
+      }
+
+      this.isRecording = true;
+      this.isNativeRecording = true;
+      console.log('Recording started');
+      return true;
+    } catch (error) {
+      console.error('Failed to start recording:', error);
+      return false;
+    }
+  }
+
+  private async stopNativeRecording(
+    native: NonNullable<typeof AudioStreamModule>,
+  ): Promise<RecordingResult | null> {
+    try {
+      const result = await native.stop();
+      this.isRecording = false;
+      this.isNativeRecording = false;
+
+      if (!result) {
+        console.error('No recording URI');
+        return null;
+      }
+
+      console.log('Recording stopped:', result.uri);
+      if (!result.streamed) {
+        if (result.streamError) {
+          console.warn('Streaming transcription failed:', result.streamError);
+        }
+        return { uri: result.uri, duration: result.duration };
+      }
+
+      return {
+        uri: result.uri,
+        duration: result.duration,
+        transcription: {
+          success: true,
+          transcription: result.transcription,
+          summary: result.summary,
+        },
+      };
+    } catch (error) {
+      console.error('Failed to stop recording:', error);
+      this.isRecording = false;
+      this.isNativeRecording = false;
+      return null;
+    }
   }
 }
 
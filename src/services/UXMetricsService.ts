@@ -1,3 +1,4 @@
+import { NativeModules, Platform } from 'react-native';
 import StorageService from './StorageService';
 
 const MAX_EVENTS = 200;
@@ -8,32 +9,168 @@ export type UXMetricEvent = {
   metadata?: Record<string, string | number | boolean>;
 };
 
+export type UXMetricsStats = {
+  recorded: number;
+  flushed: number;
+  dropped: number;
+  droppedMetadata: number;
+  pending: number;
+  flushes: number;
+  fileBytes: number;
+  lastFlushMs: number;
+  capacity: number;
+};
+
+type NativeUXMetricEvent = {
+  name: string;
+  timestampMs: number;
+  metadata?: Record<string, string | number | boolean>;
+};
+
+const { UXMetricsModule } = NativeModules as {
+  UXMetricsModule?: {
+    track: (
+      name: string,
+      metadata: Record<string, string | number | boolean> | null,
+    ) => void;
+    getEvents: (limit: number) => Promise<NativeUXMetricEvent[]>;
+    importEvents: (events: NativeUXMetricEvent[]) => Promise<number>;
+    clearEvents: () => Promise<boolean>;
+    getStats: () => Promise<UXMetricsStats>;
+  };
+};
+
+const nativeRecorder = () =>
+  Platform.OS === 'android' ? UXMetricsModule : undefined;
+
+// Without the native recorder, events are kept in AsyncStorage. Writes are
+// chained so concurrent track calls do not overwrite each other.
+let fallbackWrite: Promise<void> = Promise.resolve();
+
+const appendFallbackEvent = async (event: UXMetricEvent): Promise<void> => {
+  const existingEvents =
+    (await StorageService.getJSON<UXMetricEvent[]>(
+      StorageService.STORAGE_KEYS.uxMetricsEvents,
+    )) ?? [];
+
+  await StorageService.setJSON(
+    StorageService.STORAGE_KEYS.uxMetricsEvents,
+    [event, ...existingEvents].slice(0, MAX_EVENTS),
+  );
+};
+
+// Events tracked before the native recorder existed sit under the fallback
+// key. They are handed to the recorder once, before the first native read.
+let legacyMigration: Promise<void> | null = null;
+
+const migrateLegacyEvents = (
+  recorder: NonNullable<ReturnType<typeof nativeRecorder>>,
+): Promise<void> => {
+  if (!legacyMigration) {
+    legacyMigration = (async () => {
+      const key = StorageService.STORAGE_KEYS.uxMetricsEvents;
+      const legacyEvents = await StorageService.getJSON<UXMetricEvent[]>(key);
+      if (!legacyEvents || legacyEvents.length === 0) {
+        return;
+      }
+      const events = legacyEvents
+        .map((event) => ({
+          name: event.name,
+          timestampMs: Date.parse(event.timestamp),
+          ...(event.metadata ? { metadata: event.metadata } : {}),
+        }))
+        .filter((event) => event.name && Number.isFinite(event.timestampMs))
+        .reverse();
+      await recorder.importEvents(events);
+      await StorageService.remove(key);
+    })().catch((error) => {
+      // Leave the legacy events in place and try again on the next read.
+      legacyMigration = null;
+      throw error;
+    });
+  }
+  return legacyMigration;
+};
+
 const UXMetricsService = {
   async track(
     name: string,
     metadata?: Record<string, string | number | boolean>,
   ): Promise<void> {
     try {
-      const existingEvents =
+      const recorder = nativeRecorder();
+      if (recorder) {
+        recorder.track(name, metadata ?? null);
+        return;
+      }
+
+      const event: UXMetricEvent = {
+        name,
+        timestamp: new Date().toISOString(),
+        ...(metadata ? { metadata } : {}),
+      };
+      const write = fallbackWrite.then(() => appendFallbackEvent(event));
+      fallbackWrite = write.catch(() => undefined);
+      await write;
+    } catch (error) {
+      console.warn('UXMetricsService.track failed:', error);
+    }
+  },
+
+  /**
+   * Recorded events, newest first. On Android this includes overlay events
+   * recorded natively (drag, menu expand, route launch).
+   */
+  async getEvents(limit: number = MAX_EVENTS): Promise<UXMetricEvent[]> {
+    try {
+      const recorder = nativeRecorder();
+      if (recorder) {
+        await migrateLegacyEvents(recorder);
+        const events = await recorder.getEvents(limit);
+        return events.map((event) => ({
+          name: event.name,
+          timestamp: new Date(event.timestampMs).toISOString(),
+          ...(event.metadata ? { metadata: event.metadata } : {}),
+        }));
+      }
+
+      await fallbackWrite;
+      const events =
         (await StorageService.getJSON<UXMetricEvent[]>(
           StorageService.STORAGE_KEYS.uxMetricsEvents,
         )) ?? [];
+      return events.slice(0, limit);
+    } catch (error) {
+      console.warn('UXMetricsService.getEvents failed:', error);
+      return [];
+    }
+  },
 
-      const nextEvents: UXMetricEvent[] = [
-        {
-          name,
-          timestamp: new Date().toISOString(),
-          ...(metadata ? { metadata } : {}),
-        },
-        ...existingEvents,
-      ].slice(0, MAX_EVENTS);
-
-      await StorageService.setJSON(
-        StorageService.STORAGE_KEYS.uxMetricsEvents,
-        nextEvents,
-      );
+  async clear(): Promise<void> {
+    try {
+      const recorder = nativeRecorder();
+      if (recorder) {
+        await migrateLegacyEvents(recorder);
+        await recorder.clearEvents();
+        return;
+      }
+      await fallbackWrite;
+      await StorageService.remove(StorageService.STORAGE_KEYS.uxMetricsEvents);
     } catch (error) {
-      console.warn('UXMetricsService.track failed:', error);
+      console.warn('UXMetricsService.clear failed:', error);
+    }
+  },
+
+  async getStats(): Promise<UXMetricsStats | null> {
+    const recorder = nativeRecorder();
+    if (!recorder) {
+      return null;
+    }
+    try {
+      return await recorder.getStats();
+    } catch (error) {
+      console.warn('UXMetricsService.getStats failed:', error);
+      return null;
     }
   },
 };
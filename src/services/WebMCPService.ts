@@ -1,5 +1,5 @@
 import { Platform } from 'react-native';
-import StorageService from './StorageService';
+import RecordStoreService from './RecordStoreService';
 
 /**
  * WebMCPService identifies and registers tools for AI agents
@@ -62,20 +62,15 @@ class WebMCPService {
         },
         execute: async ({ text }: { text: string }) => {
           try {
-            const items =
-              (await StorageService.getJSON<any[]>(
-                StorageService.STORAGE_KEYS.brainDump,
-              )) || [];
             const newItem = {
               id: Date.now().toString(),
               text,
               timestamp: Date.now(),
               type: 'text',
             };
-            await StorageService.setJSON(
-              StorageService.STORAGE_KEYS.brainDump,
-              [newItem, ...items],
-            );
+            if (!(await RecordStoreService.upsert('brainDump', [newItem]))) {
+              return { success: false, error: 'Could not save the item.' };
+            }
             return { success: true, item: newItem };
           } catch (error) {
             return { success: false, error: String(error) };
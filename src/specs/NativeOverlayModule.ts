@@ -0,0 +1,67 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+/**
+ * Codegen spec for OverlayModule and the typed handle OverlayService reads it
+ * through. The native module is still a bridge module, which
+ * TurboModuleRegistry.get resolves through NativeModules; the `*Sync` getters
+ * are blocking synchronous methods that return without a promise round trip.
+ * Counts cross as `number` (a Java double).
+ */
+export interface Spec extends TurboModule {
+  getConstants(): {
+    HAPTIC_EFFECTS: Array<string>;
+    WARMUP_SIGNALS: Array<string>;
+    EVENT_TYPES: Object;
+    FOCUS_TIMER_KINDS: Array<string>;
+  };
+
+  startOverlay(): void;
+  stopOverlay(): void;
+  updateCount(count: number): void;
+  performHaptic(effect: string): void;
+  collapseOverlay(): void;
+
+  // Cheap state, read synchronously.
+  isExpandedSync(): boolean;
+  canDrawOverlaysSync(): boolean;
+  canPostNotifications(): boolean;
+  getCountSync(): number;
+  isServiceRunningSync(): boolean;
+
+  isExpanded(): Promise<boolean>;
+  canDrawOverlays(): Promise<boolean>;
+  requestOverlayPermission(): Promise<boolean>;
+
+  setMenuDismissMode(mode: string): void;
+  getMenuDismissMode(): Promise<string>;
+  getCompositionStats(): Promise<Object>;
+  resetCompositionStats(): void;
+  getPerformanceSnapshot(): Promise<Object>;
+  resetPerformanceStats(): void;
+
+  getPendingCaptures(): Promise<Array<Object>>;
+  acknowledgeCaptures(ids: Array<string>): void;
+  getCaptureStats(): Promise<Object>;
+  drainRouteIntent(): Promise<Object | null>;
+  getRouteQueueStats(): Promise<Object>;
+
+  setWarmupSignals(signals: Array<string>): void;
+  getWarmupSignals(): Promise<Array<string>>;
+  getWarmupStats(): Promise<Object>;
+  resetWarmupStats(): void;
+
+  startFocusTimer(kind: string, durationMs: number): void;
+  pauseFocusTimer(): void;
+  resumeFocusTimer(): void;
+  cancelFocusTimer(): void;
+  getFocusTimer(): Promise<Object>;
+  getFocusTimerStats(): Promise<Object>;
+
+  setEventSubscriptions(types: Array<number>): void;
+  getEventBusStats(): Promise<Object>;
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.get<Spec>('OverlayModule');